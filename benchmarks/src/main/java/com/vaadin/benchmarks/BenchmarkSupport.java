@@ -0,0 +1,155 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.benchmarks;
+
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.vaadin.server.Constants;
+import com.vaadin.server.DefaultDeploymentConfiguration;
+import com.vaadin.server.LegacyCommunicationManager;
+import com.vaadin.server.ServiceException;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinService;
+import com.vaadin.server.VaadinServlet;
+import com.vaadin.server.VaadinServletService;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.ui.Component;
+import com.vaadin.ui.UI;
+
+/**
+ * Creates the services, sessions, UIs and requests the benchmarks run
+ * against, without a servlet container.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public class BenchmarkSupport {
+
+    /**
+     * A session with its own lock instead of one stored in an HTTP session.
+     */
+    public static class BenchmarkSession extends VaadinSession {
+        private final ReentrantLock lock = new ReentrantLock();
+
+        public BenchmarkSession(VaadinService service) {
+            super(service);
+            setCommunicationManager(new LegacyCommunicationManager(this));
+        }
+
+        @Override
+        public Lock getLockInstance() {
+            return lock;
+        }
+    }
+
+    /**
+     * An empty UI, the content is set by the benchmarks.
+     */
+    public static class BenchmarkUI extends UI {
+        @Override
+        protected void init(VaadinRequest request) {
+        }
+    }
+
+    private BenchmarkSupport() {
+        // Only static helpers
+    }
+
+    /**
+     * Creates a service in production mode.
+     *
+     * @return the service
+     */
+    public static VaadinService createService() {
+        Properties parameters = new Properties();
+        parameters.setProperty(Constants.SERVLET_PARAMETER_PRODUCTION_MODE,
+                "true");
+        try {
+            return new VaadinServletService(new VaadinServlet(),
+                    new DefaultDeploymentConfiguration(BenchmarkSupport.class,
+                            parameters));
+        } catch (ServiceException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Creates a session and a UI with the given content. The session is
+     * locked by the current thread when this method returns.
+     *
+     * @param content
+     *            the content of the UI
+     * @return the UI
+     */
+    public static UI createUI(Component content) {
+        VaadinSession session = new BenchmarkSession(createService());
+        session.lock();
+
+        UI ui = new BenchmarkUI();
+        ui.setSession(session);
+        ui.doInit(createRequest(null, Collections.emptyMap()), 1, null);
+        session.addUI(ui);
+        ui.setContent(content);
+        return ui;
+    }
+
+    /**
+     * Creates a request that only provides the given body and headers. All
+     * other methods return <code>null</code>, <code>false</code> or 0.
+     *
+     * @param body
+     *            the request body, or <code>null</code>
+     * @param headers
+     *            the request headers, not <code>null</code>
+     * @return the request
+     */
+    public static VaadinRequest createRequest(InputStream body,
+            Map<String, String> headers) {
+        return (VaadinRequest) Proxy.newProxyInstance(
+                BenchmarkSupport.class.getClassLoader(),
+                new Class<?>[] { VaadinRequest.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getInputStream":
+                        return body;
+                    case "getHeader":
+                        return headers.get(args[0]);
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return "Benchmark request";
+                    default:
+                        Class<?> type = method.getReturnType();
+                        if (type == boolean.class) {
+                            return false;
+                        } else if (type == int.class) {
+                            return 0;
+                        } else if (type == long.class) {
+                            return 0L;
+                        }
+                        return null;
+                    }
+                });
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.benchmarks;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.data.Binder;
+import com.vaadin.data.BinderValidationStatus;
+import com.vaadin.data.ValidationException;
+import com.vaadin.data.util.converter.StringToIntegerConverter;
+import com.vaadin.ui.TextField;
+
+/**
+ * Reads a bean into fields, writes it back and validates the fields using a
+ * {@link Binder} with converters and validators.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BinderBenchmark {
+
+    public static class Person implements Serializable {
+        private String firstName;
+        private String lastName;
+        private String email;
+        private int age;
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public void setFirstName(String firstName) {
+            this.firstName = firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+
+        public void setLastName(String lastName) {
+            this.lastName = lastName;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public void setEmail(String email) {
+            this.email = email;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+    }
+
+    private final Binder<Person> binder = new Binder<>();
+    private final Person person = new Person();
+    private final Person target = new Person();
+
+    @Setup
+    public void setup() {
+        binder.forField(new TextField())
+                .withValidator(name -> !name.isEmpty(), "Required")
+                .bind(Person::getFirstName, Person::setFirstName);
+        binder.forField(new TextField())
+                .withValidator(name -> !name.isEmpty(), "Required")
+                .bind(Person::getLastName, Person::setLastName);
+        binder.forField(new TextField())
+                .withValidator(email -> email.contains("@"), "Invalid email")
+                .bind(Person::getEmail, Person::setEmail);
+        binder.forField(new TextField())
+                .withConverter(new StringToIntegerConverter("Not a number"))
+                .withValidator(age -> age >= 0, "Negative age")
+                .bind(Person::getAge, Person::setAge);
+
+        person.setFirstName("John");
+        person.setLastName("Doe");
+        person.setEmail("john@example.com");
+        person.setAge(42);
+        binder.readBean(person);
+    }
+
+    @Benchmark
+    public void readBean() {
+        binder.readBean(person);
+    }
+
+    @Benchmark
+    public Person writeBean() throws ValidationException {
+        binder.writeBean(target);
+        return target;
+    }
+
+    @Benchmark
+    public BinderValidationStatus<Person> validate() {
+        return binder.validate();
+    }
+}
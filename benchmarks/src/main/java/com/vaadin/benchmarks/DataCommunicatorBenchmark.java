@@ -0,0 +1,106 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.server.data.BackEndDataProvider;
+import com.vaadin.server.data.DataCommunicator;
+import com.vaadin.server.data.DataProvider;
+import com.vaadin.server.data.ListDataProvider;
+import com.vaadin.shared.data.DataRequestRpc;
+
+/**
+ * Pushes a page of rows to the client as a scrolling grid would, using either
+ * an in-memory or a back-end data provider.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DataCommunicatorBenchmark {
+
+    private static final int ITEMS = 10000;
+
+    /**
+     * Exposes the RPC the client uses for requesting rows.
+     */
+    public static class BenchmarkDataCommunicator
+            extends DataCommunicator<String> {
+        private final DataRequestRpc requestRpc = createRpc();
+
+        public void requestRows(int firstRow, int rowCount) {
+            requestRpc.requestRows(firstRow, rowCount, 0, 0);
+        }
+    }
+
+    @Param({ "inMemory", "backEnd" })
+    private String provider;
+
+    @Param({ "50" })
+    private int pageSize;
+
+    private final BenchmarkDataCommunicator communicator = new BenchmarkDataCommunicator();
+    private int firstRow = 0;
+
+    @Setup
+    public void setup() {
+        List<String> items = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            items.add("Item " + i);
+        }
+
+        DataProvider<String, ?> dataProvider;
+        if ("inMemory".equals(provider)) {
+            dataProvider = new ListDataProvider<>(items);
+        } else {
+            dataProvider = new BackEndDataProvider<String, Object>(
+                    query -> items.stream().skip(query.getOffset())
+                            .limit(query.getLimit()),
+                    query -> items.size());
+        }
+        communicator.setDataProvider(dataProvider);
+        communicator.beforeClientResponse(true);
+        communicator.retrievePendingRpcCalls();
+    }
+
+    @Benchmark
+    public Object pushRows() {
+        communicator.requestRows(firstRow, pageSize);
+        firstRow = (firstRow + pageSize) % (ITEMS - pageSize);
+        communicator.beforeClientResponse(false);
+        return communicator.retrievePendingRpcCalls();
+    }
+}
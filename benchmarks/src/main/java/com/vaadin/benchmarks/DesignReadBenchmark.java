@@ -0,0 +1,76 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.ui.Component;
+import com.vaadin.ui.declarative.Design;
+
+/**
+ * Reads a declarative design of a form with a number of rows.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DesignReadBenchmark {
+
+    @Param({ "10", "100" })
+    private int rows;
+
+    private byte[] design;
+
+    @Setup
+    public void setup() {
+        StringBuilder html = new StringBuilder(
+                "<vaadin-vertical-layout spacing>");
+        for (int i = 0; i < rows; i++) {
+            html.append("<vaadin-horizontal-layout width='100%'>");
+            html.append("<vaadin-label caption='Field ").append(i)
+                    .append("'>Value ").append(i).append("</vaadin-label>");
+            html.append("<vaadin-text-field placeholder='Enter value' />");
+            html.append("<vaadin-button style-name='small'>Edit</vaadin-button>");
+            html.append("</vaadin-horizontal-layout>");
+        }
+        html.append("</vaadin-vertical-layout>");
+        design = html.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Component read() {
+        return Design.read(new ByteArrayInputStream(design));
+    }
+}
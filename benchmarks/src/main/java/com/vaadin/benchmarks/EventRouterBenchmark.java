@@ -0,0 +1,94 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.EventObject;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.event.EventRouter;
+import com.vaadin.util.ReflectTools;
+
+/**
+ * Fires events through an {@link EventRouter} that has listeners for the fired
+ * event type as well as for other event types.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventRouterBenchmark {
+
+    public static class FiredEvent extends EventObject {
+        public FiredEvent(Object source) {
+            super(source);
+        }
+    }
+
+    public static class OtherEvent extends EventObject {
+        public OtherEvent(Object source) {
+            super(source);
+        }
+    }
+
+    public interface BenchmarkListener {
+        public void onEvent(EventObject event);
+    }
+
+    private static final Method ON_EVENT = ReflectTools.findMethod(
+            BenchmarkListener.class, "onEvent", EventObject.class);
+
+    @Param({ "1", "10" })
+    private int listeners;
+
+    private final EventRouter router = new EventRouter();
+    private final FiredEvent event = new FiredEvent(this);
+
+    private int received = 0;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < listeners; i++) {
+            router.addListener(FiredEvent.class,
+                    (BenchmarkListener) e -> received++, ON_EVENT);
+            router.addListener(OtherEvent.class,
+                    (BenchmarkListener) e -> received--, ON_EVENT);
+        }
+    }
+
+    @Benchmark
+    public int fireEvent() {
+        router.fireEvent(event);
+        return received;
+    }
+}
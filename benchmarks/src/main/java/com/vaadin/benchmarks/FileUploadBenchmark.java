@@ -0,0 +1,204 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.server.StreamVariable;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinResponse;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.server.communication.FileUploadHandler;
+import com.vaadin.ui.Label;
+
+/**
+ * Parses a multipart upload request containing one file of random bytes and
+ * streams the file to a stream variable that discards it. The
+ * <code>simpleStream</code> and <code>bufferedStream</code> benchmarks compare
+ * the byte by byte boundary detection of
+ * {@link FileUploadHandler.SimpleMultiPartInputStream} with the block based
+ * {@link FileUploadHandler.BufferedMultiPartInputStream} used by the handler.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FileUploadBenchmark {
+
+    private static final String BOUNDARY = "----WebKitFormBoundaryqvV2SZPTHKvzAVrB";
+
+    /**
+     * Exposes the multipart parsing without writing a response.
+     */
+    public static class BenchmarkFileUploadHandler extends FileUploadHandler {
+        public void upload(VaadinSession session, VaadinRequest request,
+                StreamVariable streamVariable, Label owner)
+                throws IOException {
+            doHandleSimpleMultipartFileUpload(session, request, null,
+                    streamVariable, "file", owner, BOUNDARY);
+        }
+
+        @Override
+        protected void sendUploadResponse(VaadinRequest request,
+                VaadinResponse response) {
+            // Not measured
+        }
+    }
+
+    /**
+     * Counts and discards the received bytes.
+     */
+    public static class DiscardingStreamVariable implements StreamVariable {
+        private long received = 0;
+
+        @Override
+        public OutputStream getOutputStream() {
+            return new OutputStream() {
+                @Override
+                public void write(int b) {
+                    received++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    received += len;
+                }
+            };
+        }
+
+        @Override
+        public boolean listenProgress() {
+            return false;
+        }
+
+        @Override
+        public void onProgress(StreamingProgressEvent event) {
+        }
+
+        @Override
+        public void streamingStarted(StreamingStartEvent event) {
+        }
+
+        @Override
+        public void streamingFinished(StreamingEndEvent event) {
+        }
+
+        @Override
+        public void streamingFailed(StreamingErrorEvent event) {
+        }
+
+        @Override
+        public boolean isInterrupted() {
+            return false;
+        }
+    }
+
+    @Param({ "10240", "1048576" })
+    private int fileSize;
+
+    private final BenchmarkFileUploadHandler handler = new BenchmarkFileUploadHandler();
+    private final DiscardingStreamVariable streamVariable = new DiscardingStreamVariable();
+
+    private VaadinSession session;
+    private Label owner;
+    private ByteArrayInputStream body;
+    private VaadinRequest request;
+    private int headerLength;
+    private final byte[] readBuffer = new byte[64 * 1024];
+
+    @Setup
+    public void setup() throws IOException {
+        owner = new Label();
+        session = BenchmarkSupport.createUI(owner).getSession();
+        session.unlock();
+
+        byte[] file = new byte[fileSize];
+        new Random(0).nextBytes(file);
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        content.write(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"data.bin\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n")
+                        .getBytes(StandardCharsets.UTF_8));
+        headerLength = content.size();
+        content.write(file);
+        content.write(("\r\n--" + BOUNDARY + "--\r\n")
+                .getBytes(StandardCharsets.UTF_8));
+
+        body = new ByteArrayInputStream(content.toByteArray());
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Length", String.valueOf(content.size()));
+        request = BenchmarkSupport.createRequest(body, headers);
+    }
+
+    @Benchmark
+    public long upload() throws IOException {
+        body.reset();
+        handler.upload(session, request, streamVariable, owner);
+        return streamVariable.received;
+    }
+
+    @Benchmark
+    public long simpleStream() throws IOException {
+        body.reset();
+        body.skip(headerLength);
+        return drain(new FileUploadHandler.SimpleMultiPartInputStream(body,
+                BOUNDARY));
+    }
+
+    @Benchmark
+    public long bufferedStream() throws IOException {
+        body.reset();
+        body.skip(headerLength);
+        return drain(new FileUploadHandler.BufferedMultiPartInputStream(body,
+                BOUNDARY));
+    }
+
+    private long drain(InputStream stream) throws IOException {
+        long total = 0;
+        int read;
+        while ((read = stream.read(readBuffer)) != -1) {
+            total += read;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.benchmarks;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.server.JsonCodec;
+import com.vaadin.shared.ui.button.ButtonState;
+
+import elemental.json.Json;
+import elemental.json.JsonObject;
+import elemental.json.JsonValue;
+
+/**
+ * Encodes a shared state object with {@link JsonCodec}, both completely and as
+ * a diff against a previous state. The reflective benchmark encodes the same
+ * fields one by one through {@link Field#get(Object)} as a baseline for the
+ * cached per-class codec.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonCodecBenchmark {
+
+    private final ButtonState state = new ButtonState();
+    private JsonValue diffState;
+    private Field[] fields;
+
+    @Setup
+    public void setup() {
+        state.caption = "Save";
+        state.description = "Saves the current changes";
+        state.styles = new ArrayList<>();
+        state.styles.add("primary");
+        state.width = "100%";
+        state.clickShortcutKeyCode = 13;
+
+        diffState = JsonCodec.encode(state, null, ButtonState.class, null)
+                .getEncodedValue();
+        // Only the caption differs from the diff state
+        state.caption = "Save changes";
+
+        List<Field> stateFields = new ArrayList<>();
+        for (Field field : ButtonState.class.getFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                stateFields.add(field);
+            }
+        }
+        fields = stateFields.toArray(new Field[stateFields.size()]);
+    }
+
+    @Benchmark
+    public JsonValue encode() {
+        return JsonCodec.encode(state, null, ButtonState.class, null)
+                .getEncodedValue();
+    }
+
+    @Benchmark
+    public JsonValue encodeDiff() {
+        return JsonCodec.encode(state, diffState, ButtonState.class, null)
+                .getDiff();
+    }
+
+    @Benchmark
+    public JsonValue encodeReflective() throws IllegalAccessException {
+        JsonObject encoded = Json.createObject();
+        for (Field field : fields) {
+            encoded.put(field.getName(),
+                    JsonCodec.encode(field.get(state), null,
+                            field.getGenericType(), null).getEncodedValue());
+        }
+        return encoded;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.server.KeyMapper;
+
+/**
+ * Maps objects to keys and back, and removes and re-adds mappings, with a
+ * {@link KeyMapper} holding a few thousand mappings.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KeyMapperBenchmark {
+
+    private static final int ITEMS = 4096;
+
+    private final KeyMapper<Object> keyMapper = new KeyMapper<>();
+    private final Object[] items = new Object[ITEMS];
+    private final String[] keys = new String[ITEMS];
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < ITEMS; i++) {
+            items[i] = "Item " + i;
+            keys[i] = keyMapper.key(items[i]);
+        }
+    }
+
+    private int next() {
+        index = (index + 1) & (ITEMS - 1);
+        return index;
+    }
+
+    @Benchmark
+    public String key() {
+        return keyMapper.key(items[next()]);
+    }
+
+    @Benchmark
+    public Object get() {
+        return keyMapper.get(keys[next()]);
+    }
+
+    @Benchmark
+    public String removeAndKey() {
+        int i = next();
+        keyMapper.remove(items[i]);
+        keys[i] = keyMapper.key(items[i]);
+        return keys[i];
+    }
+}
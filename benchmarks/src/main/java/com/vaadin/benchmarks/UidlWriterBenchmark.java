@@ -0,0 +1,125 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.server.communication.UidlWriter;
+import com.vaadin.ui.Button;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.VerticalLayout;
+
+/**
+ * Writes the UIDL response of a UI containing a number of components, either
+ * all of them as for the initial render or only one changed label.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UidlWriterBenchmark {
+
+    /**
+     * Discards all written characters.
+     */
+    private static class DiscardingWriter extends Writer {
+        @Override
+        public void write(int c) {
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+        }
+
+        @Override
+        public void write(String string, int offset, int length) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Param({ "10", "100", "1000" })
+    private int components;
+
+    private final Writer writer = new DiscardingWriter();
+
+    private UI ui;
+    private Label[] labels;
+    private int changeCount = 0;
+
+    @Setup
+    public void setup() throws IOException {
+        VerticalLayout layout = new VerticalLayout();
+        labels = new Label[components / 2];
+        for (int i = 0; i < components; i++) {
+            if (i % 2 == 0) {
+                labels[i / 2] = new Label("Label " + i);
+                layout.addComponent(labels[i / 2]);
+            } else {
+                layout.addComponent(new Button("Button " + i));
+            }
+        }
+        ui = BenchmarkSupport.createUI(layout);
+
+        // Initialize the client side state of all connectors
+        new UidlWriter().write(ui, writer, false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ui.getSession().unlock();
+    }
+
+    @Benchmark
+    public void initialRender() throws IOException {
+        ui.getSession().getCommunicationManager().repaintAll(ui);
+        new UidlWriter().write(ui, writer, false);
+    }
+
+    @Benchmark
+    public void incrementalRender() throws IOException {
+        changeCount++;
+        labels[changeCount % labels.length].setValue("Changed " + changeCount);
+        new UidlWriter().write(ui, writer, false);
+    }
+}
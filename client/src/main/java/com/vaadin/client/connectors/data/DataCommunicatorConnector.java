@@ -33,6 +33,8 @@ import com.vaadin.shared.ui.Connect;
 import elemental.json.Json;
 import elemental.json.JsonArray;
 import elemental.json.JsonObject;
+import elemental.json.JsonType;
+import elemental.json.JsonValue;
 
 /**
  * A connector for DataCommunicator class.
@@ -77,6 +79,23 @@ public class DataCommunicatorConnector extends AbstractExtensionConnector {
                                 updateRowData(data.getObject(i));
                             }
                         }
+
+                        @Override
+                        public void insertRows(int firstIndex, int count) {
+                            insertRowData(firstIndex, count);
+                        }
+
+                        @Override
+                        public void removeRows(int firstIndex, int count) {
+                            removeRowData(firstIndex, count);
+                        }
+
+                        @Override
+                        public void patchData(JsonArray patches) {
+                            for (int i = 0; i < patches.length(); ++i) {
+                                patchRowData(patches.getObject(i));
+                            }
+                        }
                     });
         }
 
@@ -108,6 +127,56 @@ public class DataCommunicatorConnector extends AbstractExtensionConnector {
             super.onDropFromCache(rowIndex, removed);
         }
 
+        /**
+         * Applies a partial update to row data based on row key. Rows that are
+         * not in the cache are ignored.
+         *
+         * @param patch
+         *            object with the row key and the changed properties
+         */
+        protected void patchRowData(JsonObject patch) {
+            int index = indexOfKey(getRowKey(patch));
+            if (index < 0) {
+                return;
+            }
+            JsonObject row = copy(getRow(index));
+            for (String key : patch.keys()) {
+                JsonValue value = patch.get(key);
+                if (isNull(value)) {
+                    row.remove(key);
+                } else if (value.getType() == JsonType.OBJECT
+                        && row.hasKey(key) && !isNull(row.get(key))
+                        && row.get(key).getType() == JsonType.OBJECT) {
+                    JsonObject nested = copy(row.getObject(key));
+                    JsonObject nestedPatch = (JsonObject) value;
+                    for (String nestedKey : nestedPatch.keys()) {
+                        JsonValue nestedValue = nestedPatch.get(nestedKey);
+                        if (isNull(nestedValue)) {
+                            nested.remove(nestedKey);
+                        } else {
+                            nested.put(nestedKey, nestedValue);
+                        }
+                    }
+                    row.put(key, nested);
+                } else {
+                    row.put(key, value);
+                }
+            }
+            setRowData(index, Collections.singletonList(row));
+        }
+
+        private JsonObject copy(JsonObject object) {
+            JsonObject copy = Json.createObject();
+            for (String key : object.keys()) {
+                copy.put(key, (JsonValue) object.get(key));
+            }
+            return copy;
+        }
+
+        private boolean isNull(JsonValue value) {
+            return value == null || value.getType() == JsonType.NULL;
+        }
+
         /**
          * Updates row data based on row key.
          *
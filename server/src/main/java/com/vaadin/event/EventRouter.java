@@ -20,10 +20,13 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EventObject;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Predicate;
 import java.util.logging.Logger;
 
 import com.vaadin.server.ErrorEvent;
@@ -45,6 +48,20 @@ public class EventRouter implements MethodEventSource {
      */
     private LinkedHashSet<ListenerMethod> listenerList = null;
 
+    /**
+     * The registered listeners grouped by the event type they were registered
+     * for. Rebuilt from {@link #listenerList} when needed.
+     */
+    private transient Map<Class<?>, List<ListenerMethod>> listenersByEventType = null;
+
+    /**
+     * The listeners to notify for each fired event class, in registration
+     * order. Cleared whenever listeners are added or removed, so the arrays
+     * themselves are never modified and can be used as snapshots while
+     * firing.
+     */
+    private transient Map<Class<?>, ListenerMethod[]> dispatchCache = null;
+
     /*
      * Registers a new listener with the specified activation method to listen
      * events generated by this component. Don't add a JavaDoc comment here, we
@@ -53,10 +70,7 @@ public class EventRouter implements MethodEventSource {
     @Override
     public void addListener(Class<?> eventType, Object object, Method method) {
         Objects.requireNonNull(object, "Listener must not be null.");
-        if (listenerList == null) {
-            listenerList = new LinkedHashSet<>();
-        }
-        listenerList.add(new ListenerMethod(eventType, object, method));
+        add(new ListenerMethod(eventType, object, method));
     }
 
     /*
@@ -68,10 +82,22 @@ public class EventRouter implements MethodEventSource {
     public void addListener(Class<?> eventType, Object object,
             String methodName) {
         Objects.requireNonNull(object, "Listener must not be null.");
+        add(new ListenerMethod(eventType, object, methodName));
+    }
+
+    private void add(ListenerMethod listenerMethod) {
         if (listenerList == null) {
             listenerList = new LinkedHashSet<>();
         }
-        listenerList.add(new ListenerMethod(eventType, object, methodName));
+        if (listenerList.add(listenerMethod)) {
+            if (listenersByEventType != null) {
+                listenersByEventType
+                        .computeIfAbsent(listenerMethod.getEventType(),
+                                type -> new ArrayList<>(1))
+                        .add(listenerMethod);
+            }
+            dispatchCache = null;
+        }
     }
 
     /*
@@ -81,16 +107,7 @@ public class EventRouter implements MethodEventSource {
      */
     @Override
     public void removeListener(Class<?> eventType, Object target) {
-        if (listenerList != null) {
-            final Iterator<ListenerMethod> i = listenerList.iterator();
-            while (i.hasNext()) {
-                final ListenerMethod lm = i.next();
-                if (lm.matches(eventType, target)) {
-                    i.remove();
-                    return;
-                }
-            }
-        }
+        removeFirst(eventType, lm -> lm.matches(eventType, target));
     }
 
     /*
@@ -101,16 +118,7 @@ public class EventRouter implements MethodEventSource {
     @Override
     public void removeListener(Class<?> eventType, Object target,
             Method method) {
-        if (listenerList != null) {
-            final Iterator<ListenerMethod> i = listenerList.iterator();
-            while (i.hasNext()) {
-                final ListenerMethod lm = i.next();
-                if (lm.matches(eventType, target, method)) {
-                    i.remove();
-                    return;
-                }
-            }
-        }
+        removeFirst(eventType, lm -> lm.matches(eventType, target, method));
     }
 
     /*
@@ -135,17 +143,50 @@ public class EventRouter implements MethodEventSource {
         }
 
         // Remove the listeners
-        if (listenerList != null) {
-            final Iterator<ListenerMethod> i = listenerList.iterator();
-            while (i.hasNext()) {
-                final ListenerMethod lm = i.next();
-                if (lm.matches(eventType, target, method)) {
-                    i.remove();
-                    return;
+        Method foundMethod = method;
+        removeFirst(eventType,
+                lm -> lm.matches(eventType, target, foundMethod));
+    }
+
+    /**
+     * Removes the first listener registered for exactly the given event type
+     * that matches the given condition. Only the listeners registered for the
+     * event type are checked.
+     */
+    private void removeFirst(Class<?> eventType,
+            Predicate<ListenerMethod> condition) {
+        if (listenerList == null) {
+            return;
+        }
+        List<ListenerMethod> listeners = getListenersByEventType()
+                .get(eventType);
+        if (listeners == null) {
+            return;
+        }
+        final Iterator<ListenerMethod> i = listeners.iterator();
+        while (i.hasNext()) {
+            final ListenerMethod lm = i.next();
+            if (condition.test(lm)) {
+                i.remove();
+                if (listeners.isEmpty()) {
+                    listenersByEventType.remove(eventType);
                 }
+                listenerList.remove(lm);
+                dispatchCache = null;
+                return;
             }
         }
+    }
 
+    private Map<Class<?>, List<ListenerMethod>> getListenersByEventType() {
+        if (listenersByEventType == null) {
+            listenersByEventType = new HashMap<>();
+            for (ListenerMethod lm : listenerList) {
+                listenersByEventType.computeIfAbsent(lm.getEventType(),
+                        type -> new ArrayList<>(1)).add(lm);
+            }
+        }
+        return listenersByEventType;
     }
 
     /**
@@ -153,6 +194,8 @@ public class EventRouter implements MethodEventSource {
      */
     public void removeAllListeners() {
         listenerList = null;
+        listenersByEventType = null;
+        dispatchCache = null;
     }
 
     /**
@@ -185,28 +228,44 @@ public class EventRouter implements MethodEventSource {
         // It is not necessary to send any events if there are no listeners
         if (listenerList != null) {
 
-            // Make a copy of the listener list to allow listeners to be added
-            // inside listener methods. Fixes #3605.
-
-            // Send the event to all listeners. The listeners themselves
-            // will filter out unwanted events.
-            final Object[] listeners = listenerList.toArray();
+            // The resolved listeners are never modified, which allows
+            // listeners to be added inside listener methods. Fixes #3605.
+            final ListenerMethod[] listeners = getListenersFor(
+                    event.getClass());
             for (int i = 0; i < listeners.length; i++) {
-                ListenerMethod listenerMethod = (ListenerMethod) listeners[i];
+                ListenerMethod listenerMethod = listeners[i];
                 if (null != errorHandler) {
                     try {
-                        listenerMethod.receiveEvent(event);
+                        listenerMethod.invoke(event);
                     } catch (Exception e) {
                         errorHandler.error(new ErrorEvent(e));
                     }
                 } else {
-                    listenerMethod.receiveEvent(event);
+                    listenerMethod.invoke(event);
                 }
             }
 
         }
     }
 
+    /**
+     * Gets the listeners that should receive events of the given class, in
+     * registration order.
+     */
+    private ListenerMethod[] getListenersFor(Class<?> eventClass) {
+        if (dispatchCache == null) {
+            dispatchCache = new HashMap<>();
+        }
+        ListenerMethod[] listeners = dispatchCache.get(eventClass);
+        if (listeners == null) {
+            listeners = listenerList.stream()
+                    .filter(lm -> lm.isListeningTo(eventClass))
+                    .toArray(ListenerMethod[]::new);
+            dispatchCache.put(eventClass, listeners);
+        }
+        return listeners;
+    }
+
     /**
      * Checks if the given Event type is listened by a listener registered to
      * this router.
@@ -217,11 +276,7 @@ public class EventRouter implements MethodEventSource {
      */
     public boolean hasListeners(Class<?> eventType) {
         if (listenerList != null) {
-            for (ListenerMethod lm : listenerList) {
-                if (lm.isType(eventType)) {
-                    return true;
-                }
-            }
+            return getListenersByEventType().containsKey(eventType);
         }
         return false;
     }
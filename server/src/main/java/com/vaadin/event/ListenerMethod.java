@@ -19,7 +19,11 @@ package com.vaadin.event;
 import java.io.IOException;
 import java.io.NotSerializableException;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.EventListener;
 import java.util.EventObject;
@@ -82,6 +86,19 @@ public class ListenerMethod implements EventListener, Serializable {
      */
     private int eventArgumentIndex;
 
+    private static final MethodType EVENT_ONLY = MethodType
+            .methodType(void.class, Object.class);
+
+    private static final MethodType NO_ARGUMENTS = MethodType
+            .methodType(void.class);
+
+    /**
+     * The trigger method bound to the target, resolved on first use.
+     */
+    private transient MethodHandle handle;
+
+    private transient boolean handleResolved = false;
+
     /* Special serialization to handle method references */
     private void writeObject(java.io.ObjectOutputStream out)
             throws IOException {
@@ -504,35 +521,96 @@ public class ListenerMethod implements EventListener, Serializable {
     public void receiveEvent(EventObject event) {
         // Only send events supported by the method
         if (eventType.isAssignableFrom(event.getClass())) {
+            invoke(event);
+        }
+    }
+
+    /**
+     * Calls the trigger method without checking the type of the event. The
+     * caller must make sure the event is accepted by this listener, see
+     * {@link #isListeningTo(Class)}.
+     *
+     * @param event
+     *            the fired event
+     */
+    void invoke(EventObject event) {
+        MethodHandle handle = getHandle();
+        if (handle != null) {
             try {
-                if (eventArgumentIndex >= 0) {
-                    if (eventArgumentIndex == 0 && arguments.length == 1) {
-                        method.invoke(target, event);
-                    } else {
-                        final Object[] arg = new Object[arguments.length];
-                        System.arraycopy(arguments, 0, arg, 0, arg.length);
-                        arg[eventArgumentIndex] = event;
-                        method.invoke(target, arg);
-                    }
+                if (eventArgumentIndex == 0) {
+                    handle.invokeExact((Object) event);
                 } else {
-                    method.invoke(target, arguments);
+                    handle.invokeExact();
                 }
-
-            } catch (final java.lang.IllegalAccessException e) {
-                // This should never happen
-                throw new java.lang.RuntimeException(
-                        "Internal error - please report", e);
-            } catch (final java.lang.reflect.InvocationTargetException e) {
+            } catch (Throwable t) {
                 // An exception was thrown by the invocation target. Throw it
                 // forwards.
                 throw new MethodException(
                         "Invocation of method " + method.getName() + " in "
                                 + target.getClass().getName() + " failed.",
-                        e.getTargetException());
+                        t);
             }
+            return;
+        }
+
+        try {
+            if (eventArgumentIndex >= 0) {
+                final Object[] arg = new Object[arguments.length];
+                System.arraycopy(arguments, 0, arg, 0, arg.length);
+                arg[eventArgumentIndex] = event;
+                method.invoke(target, arg);
+            } else {
+                method.invoke(target, arguments);
+            }
+
+        } catch (final java.lang.IllegalAccessException e) {
+            // This should never happen
+            throw new java.lang.RuntimeException(
+                    "Internal error - please report", e);
+        } catch (final java.lang.reflect.InvocationTargetException e) {
+            // An exception was thrown by the invocation target. Throw it
+            // forwards.
+            throw new MethodException(
+                    "Invocation of method " + method.getName() + " in "
+                            + target.getClass().getName() + " failed.",
+                    e.getTargetException());
         }
     }
 
+    /**
+     * Gets a method handle for the trigger method bound to the target. Only
+     * available for methods that take no arguments or only the event, which
+     * covers all listeners registered through listener interfaces.
+     *
+     * @return the bound method handle, or <code>null</code> if the trigger
+     *         method must be called using reflection
+     */
+    private MethodHandle getHandle() {
+        if (!handleResolved) {
+            boolean eventOnly = eventArgumentIndex == 0
+                    && arguments.length == 1;
+            boolean noArguments = eventArgumentIndex < 0
+                    && arguments.length == 0;
+            if (eventOnly || noArguments) {
+                try {
+                    MethodHandle resolved = MethodHandles.publicLookup()
+                            .unreflect(method);
+                    // A static method has no receiver to bind the target to
+                    if (!Modifier.isStatic(method.getModifiers())) {
+                        resolved = resolved.bindTo(target);
+                    }
+                    handle = resolved
+                            .asType(eventOnly ? EVENT_ONLY : NO_ARGUMENTS);
+                } catch (IllegalAccessException e) {
+                    // Fall back to reflection
+                    handle = null;
+                }
+            }
+            handleResolved = true;
+        }
+        return handle;
+    }
+
     /**
      * Checks if the given object and event match with the ones stored in this
      * listener.
@@ -654,6 +732,27 @@ public class ListenerMethod implements EventListener, Serializable {
         return eventType.isAssignableFrom(this.eventType);
     }
 
+    /**
+     * Checks whether events of the given type should trigger this listener.
+     *
+     * @param eventClass
+     *            the class of the fired event
+     * @return true if the event type of this ListenerMethod is the same as or
+     *         a superclass of the given type, false otherwise
+     */
+    boolean isListeningTo(Class<?> eventClass) {
+        return eventType.isAssignableFrom(eventClass);
+    }
+
+    /**
+     * Gets the type of events this listener listens to.
+     *
+     * @return the event type
+     */
+    Class<?> getEventType() {
+        return eventType;
+    }
+
     /**
      * Returns the target object which contains the trigger method.
      *
@@ -23,12 +23,18 @@ import java.io.Serializable;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -241,6 +247,184 @@ public abstract class BootstrapHandler extends SynchronizedRequestHandler {
         }
     }
 
+    /**
+     * The parts of the bootstrap HTML that may change between requests. Used
+     * both for building the DOM and for filling in a compiled template.
+     */
+    private static class BootstrapPageValues implements Serializable {
+        private String appId;
+        private String mainDivStyle;
+        private String vaadinLocation;
+        private String mainScript;
+
+        // Only used for standalone pages
+        private String viewport;
+        private String title;
+        private String themeUri;
+        private final List<String> javaScriptUrls = new ArrayList<>();
+        private final List<String> styleSheetUrls = new ArrayList<>();
+
+        /**
+         * Gets the values in slot order, see {@link BootstrapTemplate}.
+         */
+        private List<String> getSlotValues() {
+            List<String> slotValues = new ArrayList<>(Arrays.asList(appId,
+                    mainDivStyle, vaadinLocation, mainScript, viewport, title,
+                    themeUri));
+            slotValues.addAll(javaScriptUrls);
+            slotValues.addAll(styleSheetUrls);
+            return slotValues;
+        }
+
+        /**
+         * Gets which of the optional values are present, since that affects
+         * the structure of the page.
+         */
+        private List<Object> getShape() {
+            return Arrays.asList(mainDivStyle != null, viewport != null,
+                    title != null, javaScriptUrls.size(),
+                    styleSheetUrls.size());
+        }
+
+        /**
+         * Creates values with the same shape as these values, but with a
+         * placeholder consisting of the given prefix, the slot number and
+         * <code>%%</code> in place of every value.
+         */
+        private BootstrapPageValues toPlaceholders(String prefix) {
+            List<String> placeholders = getSlotValues();
+            for (int i = 0; i < placeholders.size(); i++) {
+                if (placeholders.get(i) != null) {
+                    placeholders.set(i, prefix + i + "%%");
+                }
+            }
+
+            BootstrapPageValues result = new BootstrapPageValues();
+            Iterator<String> iterator = placeholders.iterator();
+            result.appId = iterator.next();
+            result.mainDivStyle = iterator.next();
+            result.vaadinLocation = iterator.next();
+            result.mainScript = iterator.next();
+            result.viewport = iterator.next();
+            result.title = iterator.next();
+            result.themeUri = iterator.next();
+            for (int i = 0; i < javaScriptUrls.size(); i++) {
+                result.javaScriptUrls.add(iterator.next());
+            }
+            for (int i = 0; i < styleSheetUrls.size(); i++) {
+                result.styleSheetUrls.add(iterator.next());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Bootstrap HTML split into constant text and slots for the values from
+     * {@link BootstrapPageValues#getSlotValues()}. Values are escaped like
+     * Jsoup escapes attribute values, except for the title which is text and
+     * the main script which is inserted as is.
+     */
+    private static final class BootstrapTemplate implements Serializable {
+        // Positions in BootstrapPageValues.getSlotValues()
+        private static final int MAIN_SCRIPT_SLOT = 3;
+        private static final int TITLE_SLOT = 5;
+
+        private final String[] texts;
+        private final int[] slots;
+        private final int length;
+
+        private BootstrapTemplate(List<String> texts, List<Integer> slots) {
+            this.texts = texts.toArray(new String[texts.size()]);
+            this.slots = new int[slots.size()];
+            for (int i = 0; i < this.slots.length; i++) {
+                this.slots[i] = slots.get(i).intValue();
+            }
+            int totalLength = 0;
+            for (String text : texts) {
+                totalLength += text.length();
+            }
+            length = totalLength;
+        }
+
+        private static BootstrapTemplate compile(String html,
+                Pattern placeholder) {
+            List<String> texts = new ArrayList<>();
+            List<Integer> slots = new ArrayList<>();
+            Matcher matcher = placeholder.matcher(html);
+            int start = 0;
+            while (matcher.find()) {
+                texts.add(html.substring(start, matcher.start()));
+                slots.add(Integer.valueOf(matcher.group(1)));
+                start = matcher.end();
+            }
+            texts.add(html.substring(start));
+            return new BootstrapTemplate(texts, slots);
+        }
+
+        private String render(List<String> values) {
+            StringBuilder builder = new StringBuilder(length + 1024);
+            for (int i = 0; i < slots.length; i++) {
+                builder.append(texts[i]);
+                String value = values.get(slots[i]);
+                if (slots[i] == MAIN_SCRIPT_SLOT) {
+                    builder.append(value);
+                } else {
+                    appendEscaped(builder, value, slots[i] == TITLE_SLOT);
+                }
+            }
+            builder.append(texts[slots.length]);
+            return builder.toString();
+        }
+
+        private static void appendEscaped(StringBuilder builder, String value,
+                boolean text) {
+            boolean lastWasWhite = false;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (text && isWhitespace(c)) {
+                    // Jsoup normalizes white space in text when pretty printing
+                    if (!lastWasWhite) {
+                        builder.append(' ');
+                        lastWasWhite = true;
+                    }
+                    continue;
+                }
+                lastWasWhite = false;
+                switch (c) {
+                case '&':
+                    builder.append("&amp;");
+                    break;
+                case '\u00a0':
+                    builder.append("&nbsp;");
+                    break;
+                case '"':
+                    builder.append(text ? "\"" : "&quot;");
+                    break;
+                case '<':
+                    builder.append(text ? "&lt;" : "<");
+                    break;
+                case '>':
+                    builder.append(text ? "&gt;" : ">");
+                    break;
+                default:
+                    builder.append(c);
+                }
+            }
+        }
+
+        private static boolean isWhitespace(char c) {
+            return c == ' ' || c == '\t' || c == '\n' || c == '\f'
+                    || c == '\r';
+        }
+    }
+
+    /**
+     * The maximum number of compiled bootstrap templates to keep.
+     */
+    private static final int MAX_TEMPLATES = 100;
+
+    private final Map<List<Object>, BootstrapTemplate> templates = new ConcurrentHashMap<>();
+
     @Override
     protected boolean canHandleRequest(VaadinRequest request) {
         // We do not want to handle /APP requests here, instead let it fall
@@ -278,13 +462,19 @@ public abstract class BootstrapHandler extends SynchronizedRequestHandler {
                     new BootstrapFragmentResponse(this, request, session,
                             uiClass, new ArrayList<>(), provider));
 
-            setupMainDiv(context);
+            String html;
+            if (session.hasBootstrapListeners()) {
+                // Listeners may change anything, so build the whole DOM
+                setupMainDiv(context);
 
-            BootstrapFragmentResponse fragmentResponse = context
-                    .getBootstrapResponse();
-            session.modifyBootstrapResponse(fragmentResponse);
+                BootstrapFragmentResponse fragmentResponse = context
+                        .getBootstrapResponse();
+                session.modifyBootstrapResponse(fragmentResponse);
 
-            String html = getBootstrapHtml(context);
+                html = getBootstrapHtml(context);
+            } else {
+                html = getBootstrapHtmlFromTemplate(context);
+            }
 
             writeBootstrapPage(response, html);
         } catch (JsonException e) {
@@ -321,15 +511,96 @@ public abstract class BootstrapHandler extends SynchronizedRequestHandler {
 
             return document.outerHtml();
         } else {
-            StringBuilder sb = new StringBuilder();
-            for (Node node : fragmentResponse.getFragmentNodes()) {
-                if (sb.length() != 0) {
-                    sb.append('\n');
-                }
-                sb.append(node.outerHtml());
+            return getFragmentHtml(fragmentResponse.getFragmentNodes());
+        }
+    }
+
+    private static String getFragmentHtml(List<Node> fragmentNodes) {
+        StringBuilder sb = new StringBuilder();
+        for (Node node : fragmentNodes) {
+            if (sb.length() != 0) {
+                sb.append('\n');
+            }
+            sb.append(node.outerHtml());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Generates the bootstrap HTML using a template that is compiled once for
+     * every combination of the values that affect the structure of the page,
+     * such as the UI class, theme, push mode and production mode. Only the
+     * values that may change between requests are filled in for each request.
+     * Can only be used when there are no bootstrap listeners that could modify
+     * the DOM.
+     * <p>
+     * A theme selected using a request parameter is not cached, since any
+     * client could then fill the cache. The page is also built without a
+     * template when the cache is full.
+     */
+    private String getBootstrapHtmlFromTemplate(BootstrapContext context)
+            throws IOException {
+        VaadinRequest request = context.getRequest();
+        VaadinService vaadinService = request.getService();
+        boolean standalone = vaadinService.isStandalone(request);
+
+        BootstrapPageValues values = new BootstrapPageValues();
+        collectFragmentValues(context, values);
+        if (standalone) {
+            collectPageValues(context, values);
+
+            // Same headers as set by setupStandaloneDocument
+            VaadinResponse response = context.getResponse();
+            response.setHeader("Cache-Control", "no-cache");
+            response.setHeader("Pragma", "no-cache");
+            response.setDateHeader("Expires", 0);
+        }
+
+        if (request.getParameter(VaadinServlet.URL_PARAMETER_THEME) != null) {
+            return buildHtml(context, values, standalone);
+        }
+
+        List<Object> key = Arrays.asList(context.getUIClass(),
+                context.getThemeName(), context.getPushMode().isEnabled(),
+                vaadinService.getDeploymentConfiguration().isProductionMode(),
+                standalone, values.getShape());
+        BootstrapTemplate template = templates.get(key);
+        if (template == null) {
+            if (templates.size() >= MAX_TEMPLATES) {
+                // A template that cannot be kept would only be used once
+                return buildHtml(context, values, standalone);
             }
+            template = compileTemplate(context, values, standalone);
+            templates.putIfAbsent(key, template);
+        }
+        return template.render(values.getSlotValues());
+    }
+
+    private BootstrapTemplate compileTemplate(BootstrapContext context,
+            BootstrapPageValues values, boolean standalone) {
+        // Random so that no value used in the page can contain a placeholder
+        String prefix = "%%" + Long.toHexString(
+                ThreadLocalRandom.current().nextLong()) + "_";
+        String html = buildHtml(context, values.toPlaceholders(prefix),
+                standalone);
+
+        return BootstrapTemplate.compile(html,
+                Pattern.compile(Pattern.quote(prefix) + "(\\d+)%%"));
+    }
 
-            return sb.toString();
+    private String buildHtml(BootstrapContext context,
+            BootstrapPageValues values, boolean standalone) {
+        List<Node> fragmentNodes = new ArrayList<>();
+        buildFragmentNodes(context, values, fragmentNodes);
+        if (standalone) {
+            Document document = Document.createShell("");
+            for (Node node : fragmentNodes) {
+                document.body().appendChild(node);
+            }
+            buildStandaloneDocument(context, values, document);
+            return document.outerHtml();
+        } else {
+            return getFragmentHtml(fragmentNodes);
         }
     }
 
@@ -365,25 +636,15 @@ public abstract class BootstrapHandler extends SynchronizedRequestHandler {
         response.setHeader("Pragma", "no-cache");
         response.setDateHeader("Expires", 0);
 
-        Document document = response.getDocument();
-
-        DocumentType doctype = new DocumentType("html", "", "",
-                document.baseUri());
-        document.child(0).before(doctype);
-
-        Element head = document.head();
-        head.appendElement("meta").attr("http-equiv", "Content-Type")
-                .attr("content", "text/html; charset=utf-8");
-
-        /*
-         * Enable Chrome Frame in all versions of IE if installed.
-         */
-        head.appendElement("meta").attr("http-equiv", "X-UA-Compatible")
-                .attr("content", "IE=11;chrome=1");
+        BootstrapPageValues values = new BootstrapPageValues();
+        collectPageValues(context, values);
+        buildStandaloneDocument(context, values, response.getDocument());
+    }
 
+    private void collectPageValues(BootstrapContext context,
+            BootstrapPageValues values) {
         Class<? extends UI> uiClass = context.getUIClass();
 
-        String viewportContent = null;
         Viewport viewportAnnotation = uiClass.getAnnotation(Viewport.class);
         ViewportGeneratorClass viewportGeneratorClassAnnotation = uiClass
                 .getAnnotation(ViewportGeneratorClass.class);
@@ -396,12 +657,12 @@ public abstract class BootstrapHandler extends SynchronizedRequestHandler {
         }
 
         if (viewportAnnotation != null) {
-            viewportContent = viewportAnnotation.value();
+            values.viewport = viewportAnnotation.value();
         } else if (viewportGeneratorClassAnnotation != null) {
             Class<? extends ViewportGenerator> viewportGeneratorClass = viewportGeneratorClassAnnotation
                     .value();
             try {
-                viewportContent = viewportGeneratorClass.newInstance()
+                values.viewport = viewportGeneratorClass.newInstance()
                         .getViewport(context.getRequest());
             } catch (Exception e) {
                 throw new RuntimeException(
@@ -411,50 +672,78 @@ public abstract class BootstrapHandler extends SynchronizedRequestHandler {
             }
         }
 
-        if (viewportContent != null) {
+        values.title = context.getBootstrapResponse().getUIProvider()
+                .getPageTitle(new UICreateEvent(context.getRequest(),
+                        context.getUIClass()));
+
+        String themeName = context.getThemeName();
+        if (themeName != null) {
+            values.themeUri = getThemeUri(context, themeName);
+        }
+
+        JavaScript javaScript = uiClass.getAnnotation(JavaScript.class);
+        if (javaScript != null) {
+            for (String resource : javaScript.value()) {
+                values.javaScriptUrls
+                        .add(registerDependency(context, uiClass, resource));
+            }
+        }
+
+        StyleSheet styleSheet = uiClass.getAnnotation(StyleSheet.class);
+        if (styleSheet != null) {
+            for (String resource : styleSheet.value()) {
+                values.styleSheetUrls
+                        .add(registerDependency(context, uiClass, resource));
+            }
+        }
+    }
+
+    private void buildStandaloneDocument(BootstrapContext context,
+            BootstrapPageValues values, Document document) {
+        DocumentType doctype = new DocumentType("html", "", "",
+                document.baseUri());
+        document.child(0).before(doctype);
+
+        Element head = document.head();
+        head.appendElement("meta").attr("http-equiv", "Content-Type")
+                .attr("content", "text/html; charset=utf-8");
+
+        /*
+         * Enable Chrome Frame in all versions of IE if installed.
+         */
+        head.appendElement("meta").attr("http-equiv", "X-UA-Compatible")
+                .attr("content", "IE=11;chrome=1");
+
+        if (values.viewport != null) {
             head.appendElement("meta").attr("name", "viewport").attr("content",
-                    viewportContent);
+                    values.viewport);
         }
 
-        String title = response.getUIProvider().getPageTitle(
-                new UICreateEvent(context.getRequest(), context.getUIClass()));
-        if (title != null) {
-            head.appendElement("title").appendText(title);
+        if (values.title != null) {
+            head.appendElement("title").appendText(values.title);
         }
 
         head.appendElement("style").attr("type", "text/css")
                 .appendText("html, body {height:100%;margin:0;}");
 
         // Add favicon links
-        String themeName = context.getThemeName();
-        if (themeName != null) {
-            String themeUri = getThemeUri(context, themeName);
+        if (values.themeUri != null) {
             head.appendElement("link").attr("rel", "shortcut icon")
                     .attr("type", "image/vnd.microsoft.icon")
-                    .attr("href", themeUri + "/favicon.ico");
+                    .attr("href", values.themeUri + "/favicon.ico");
             head.appendElement("link").attr("rel", "icon")
                     .attr("type", "image/vnd.microsoft.icon")
-                    .attr("href", themeUri + "/favicon.ico");
+                    .attr("href", values.themeUri + "/favicon.ico");
         }
 
-        JavaScript javaScript = uiClass.getAnnotation(JavaScript.class);
-        if (javaScript != null) {
-            String[] resources = javaScript.value();
-            for (String resource : resources) {
-                String url = registerDependency(context, uiClass, resource);
-                head.appendElement("script").attr("type", "text/javascript")
-                        .attr("src", url);
-            }
+        for (String url : values.javaScriptUrls) {
+            head.appendElement("script").attr("type", "text/javascript")
+                    .attr("src", url);
         }
 
-        StyleSheet styleSheet = uiClass.getAnnotation(StyleSheet.class);
-        if (styleSheet != null) {
-            String[] resources = styleSheet.value();
-            for (String resource : resources) {
-                String url = registerDependency(context, uiClass, resource);
-                head.appendElement("link").attr("rel", "stylesheet")
-                        .attr("type", "text/css").attr("href", url);
-            }
+        for (String url : values.styleSheetUrls) {
+            head.appendElement("link").attr("rel", "stylesheet")
+                    .attr("type", "text/css").attr("href", url);
         }
 
         Element body = document.body();
@@ -505,8 +794,47 @@ public abstract class BootstrapHandler extends SynchronizedRequestHandler {
      * @throws IOException
      */
     private void setupMainDiv(BootstrapContext context) throws IOException {
+        BootstrapPageValues values = new BootstrapPageValues();
+        collectFragmentValues(context, values);
+        buildFragmentNodes(context, values,
+                context.getBootstrapResponse().getFragmentNodes());
+    }
+
+    private void collectFragmentValues(BootstrapContext context,
+            BootstrapPageValues values) throws IOException {
         String style = getMainDivStyle(context);
+        if (style != null && style.length() != 0) {
+            values.mainDivStyle = style;
+        }
+        values.appId = context.getAppId();
+
+        VaadinRequest request = context.getRequest();
+
+        VaadinService vaadinService = request.getService();
+        values.vaadinLocation = vaadinService.getStaticFileLocation(request)
+                + "/VAADIN/";
+
+        StringBuilder builder = new StringBuilder();
+        builder.append("//<![CDATA[\n");
+        builder.append("if (!window.vaadin) alert(" + JsonUtil.quote(
+                "Failed to load the bootstrap javascript: "
+                        + getBootstrapLocation(values.vaadinLocation))
+                + ");\n");
+
+        appendMainScriptTagContents(context, builder);
+
+        builder.append("//]]>");
+        values.mainScript = builder.toString();
+    }
+
+    private static String getBootstrapLocation(String vaadinLocation) {
+        // Parameter appended to JS to bypass caches after version upgrade.
+        return vaadinLocation + ApplicationConstants.VAADIN_BOOTSTRAP_JS
+                + "?v=" + Version.getFullVersion();
+    }
 
+    private void buildFragmentNodes(BootstrapContext context,
+            BootstrapPageValues values, List<Node> fragmentNodes) {
         /*- Add classnames;
          *      .v-app
          *      .v-app-loading
@@ -514,35 +842,23 @@ public abstract class BootstrapHandler extends SynchronizedRequestHandler {
          *      <themeName, remove non-alphanum>
          */
 
-        List<Node> fragmentNodes = context.getBootstrapResponse()
-                .getFragmentNodes();
-
         Element mainDiv = new Element(Tag.valueOf("div"), "");
-        mainDiv.attr("id", context.getAppId());
+        mainDiv.attr("id", values.appId);
         mainDiv.addClass("v-app");
         mainDiv.addClass(context.getThemeName());
         mainDiv.addClass(context.getUIClass().getSimpleName()
                 .toLowerCase(Locale.ENGLISH));
-        if (style != null && style.length() != 0) {
-            mainDiv.attr("style", style);
+        if (values.mainDivStyle != null) {
+            mainDiv.attr("style", values.mainDivStyle);
         }
         mainDiv.appendElement("div").addClass("v-app-loading");
         mainDiv.appendElement("noscript").append(
                 "You have to enable javascript in your browser to use an application built with Vaadin.");
         fragmentNodes.add(mainDiv);
 
-        VaadinRequest request = context.getRequest();
-
-        VaadinService vaadinService = request.getService();
-        String vaadinLocation = vaadinService.getStaticFileLocation(request)
-                + "/VAADIN/";
-
-        // Parameter appended to JS to bypass caches after version upgrade.
-        String versionQueryParam = "?v=" + Version.getFullVersion();
-
         if (context.getPushMode().isEnabled()) {
             // Load client-side dependencies for push support
-            String pushJS = vaadinLocation;
+            String pushJS = values.vaadinLocation;
             if (context.getRequest().getService().getDeploymentConfiguration()
                     .isProductionMode()) {
                 pushJS += ApplicationConstants.VAADIN_PUSH_JS;
@@ -550,31 +866,19 @@ public abstract class BootstrapHandler extends SynchronizedRequestHandler {
                 pushJS += ApplicationConstants.VAADIN_PUSH_DEBUG_JS;
             }
 
-            pushJS += versionQueryParam;
+            pushJS += "?v=" + Version.getFullVersion();
 
             fragmentNodes.add(new Element(Tag.valueOf("script"), "")
                     .attr("type", "text/javascript").attr("src", pushJS));
         }
 
-        String bootstrapLocation = vaadinLocation
-                + ApplicationConstants.VAADIN_BOOTSTRAP_JS + versionQueryParam;
         fragmentNodes.add(new Element(Tag.valueOf("script"), "")
                 .attr("type", "text/javascript")
-                .attr("src", bootstrapLocation));
+                .attr("src", getBootstrapLocation(values.vaadinLocation)));
         Element mainScriptTag = new Element(Tag.valueOf("script"), "")
                 .attr("type", "text/javascript");
-
-        StringBuilder builder = new StringBuilder();
-        builder.append("//<![CDATA[\n");
-        builder.append("if (!window.vaadin) alert(" + JsonUtil.quote(
-                "Failed to load the bootstrap javascript: " + bootstrapLocation)
-                + ");\n");
-
-        appendMainScriptTagContents(context, builder);
-
-        builder.append("//]]>");
         mainScriptTag.appendChild(
-                new DataNode(builder.toString(), mainScriptTag.baseUri()));
+                new DataNode(values.mainScript, mainScriptTag.baseUri()));
         fragmentNodes.add(mainScriptTag);
 
     }
@@ -16,7 +16,6 @@
 package com.vaadin.server;
 
 import java.io.IOException;
-import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -84,8 +83,8 @@ public class ConnectorResourceHandler implements RequestHandler {
             session.unlock();
         }
 
-        Map<Class<?>, CurrentInstance> oldInstances = CurrentInstance
-                .setCurrent(ui);
+        CurrentInstance.Snapshot oldInstances = CurrentInstance
+                .setCurrentInstances(ui);
         try {
             if (!connector.handleConnectorRequest(request, response, key)) {
                 return error(request, response,
@@ -103,7 +102,7 @@ public class ConnectorResourceHandler implements RequestHandler {
                 session.unlock();
             }
         } finally {
-            CurrentInstance.restoreInstances(oldInstances);
+            CurrentInstance.restoreSnapshot(oldInstances);
         }
 
         return true;
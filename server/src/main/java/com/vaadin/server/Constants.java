@@ -50,6 +50,18 @@ public interface Constants {
             + "in web.xml. The default of 5min will be used.\n"
             + "===========================================================";
 
+    static final String WARNING_STATIC_RESOURCE_CACHE_SIZE_NOT_NUMERIC = "\n"
+            + "===========================================================\n"
+            + "WARNING: staticResourceCacheSize has been set to a non integer "
+            + "value in web.xml. The default of 32MB will be used.\n"
+            + "===========================================================";
+
+    static final String WARNING_INACTIVE_UI_SWEEP_INTERVAL_NOT_NUMERIC = "\n"
+            + "===========================================================\n"
+            + "WARNING: inactiveUISweepInterval has been set to a non integer "
+            + "value in web.xml. The default of 60s will be used.\n"
+            + "===========================================================";
+
     static final String WARNING_PUSH_MODE_NOT_RECOGNIZED = "\n"
             + "===========================================================\n"
             + "WARNING: pushMode has been set to an unrecognized value\n"
@@ -116,6 +128,10 @@ public interface Constants {
     static final String SERVLET_PARAMETER_SYNC_ID_CHECK = "syncIdCheck";
     static final String SERVLET_PARAMETER_SENDURLSASPARAMETERS = "sendUrlsAsParameters";
     static final String SERVLET_PARAMETER_PUSH_SUSPEND_TIMEOUT_LONGPOLLING = "pushLongPollingSuspendTimeout";
+    static final String SERVLET_PARAMETER_SERIALIZE_UIDL_OUTSIDE_LOCK = "serializeUidlOutsideLock";
+    static final String SERVLET_PARAMETER_STATIC_RESOURCE_CACHE_SIZE = "staticResourceCacheSize";
+    static final String SERVLET_PARAMETER_UI_LOCK_STRIPING = "uiLockStriping";
+    static final String SERVLET_PARAMETER_INACTIVE_UI_SWEEP_INTERVAL = "inactiveUISweepInterval";
     /**
      * Name of system or context property to write declarative syntax with the
      * old "v-" prefix or with the new "vaadin-" prefix. The default value
@@ -54,6 +54,35 @@ public class DefaultDeploymentConfiguration
 
     public static final boolean DEFAULT_SEND_URLS_AS_PARAMETERS = true;
 
+    /**
+     * Default value for {@link #isSerializeUidlOutsideLock()} = {@value} .
+     *
+     * @since 8.0
+     */
+    public static final boolean DEFAULT_SERIALIZE_UIDL_OUTSIDE_LOCK = false;
+
+    /**
+     * Default value for {@link #getStaticResourceCacheSize()} = {@value} .
+     *
+     * @since 8.0
+     */
+    public static final long DEFAULT_STATIC_RESOURCE_CACHE_SIZE = 32 * 1024
+            * 1024;
+
+    /**
+     * Default value for {@link #isUILockStripingEnabled()} = {@value} .
+     *
+     * @since 8.0
+     */
+    public static final boolean DEFAULT_UI_LOCK_STRIPING = false;
+
+    /**
+     * Default value for {@link #getInactiveUISweepInterval()} = {@value} .
+     *
+     * @since 8.0
+     */
+    public static final int DEFAULT_INACTIVE_UI_SWEEP_INTERVAL = 60;
+
     private final Properties initParameters;
     private boolean productionMode;
     private boolean xsrfProtectionEnabled;
@@ -64,6 +93,10 @@ public class DefaultDeploymentConfiguration
     private final Class<?> systemPropertyBaseClass;
     private boolean syncIdCheck;
     private boolean sendUrlsAsParameters;
+    private boolean serializeUidlOutsideLock;
+    private long staticResourceCacheSize;
+    private boolean uiLockStriping;
+    private int inactiveUISweepInterval;
 
     /**
      * Create a new deployment configuration instance.
@@ -88,6 +121,10 @@ public class DefaultDeploymentConfiguration
         checkPushMode();
         checkSyncIdCheck();
         checkSendUrlsAsParameters();
+        checkSerializeUidlOutsideLock();
+        checkStaticResourceCacheSize();
+        checkUILockStriping();
+        checkInactiveUISweepInterval();
     }
 
     @Override
@@ -245,6 +282,46 @@ public class DefaultDeploymentConfiguration
         return sendUrlsAsParameters;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The default value is <code>false</code>.
+     */
+    @Override
+    public boolean isSerializeUidlOutsideLock() {
+        return serializeUidlOutsideLock;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The default value is 32 MB.
+     */
+    @Override
+    public long getStaticResourceCacheSize() {
+        return staticResourceCacheSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The default value is <code>false</code>.
+     */
+    @Override
+    public boolean isUILockStripingEnabled() {
+        return uiLockStriping;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The default value is 60 seconds.
+     */
+    @Override
+    public int getInactiveUISweepInterval() {
+        return inactiveUISweepInterval;
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -342,6 +419,46 @@ public class DefaultDeploymentConfiguration
                         .equals("true");
     }
 
+    private void checkStaticResourceCacheSize() {
+        try {
+            staticResourceCacheSize = Long
+                    .parseLong(getApplicationOrSystemProperty(
+                            Constants.SERVLET_PARAMETER_STATIC_RESOURCE_CACHE_SIZE,
+                            Long.toString(DEFAULT_STATIC_RESOURCE_CACHE_SIZE)));
+        } catch (NumberFormatException e) {
+            getLogger().warning(
+                    Constants.WARNING_STATIC_RESOURCE_CACHE_SIZE_NOT_NUMERIC);
+            staticResourceCacheSize = DEFAULT_STATIC_RESOURCE_CACHE_SIZE;
+        }
+    }
+
+    private void checkSerializeUidlOutsideLock() {
+        serializeUidlOutsideLock = getApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_SERIALIZE_UIDL_OUTSIDE_LOCK,
+                Boolean.toString(DEFAULT_SERIALIZE_UIDL_OUTSIDE_LOCK))
+                        .equals("true");
+    }
+
+    private void checkUILockStriping() {
+        uiLockStriping = getApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_UI_LOCK_STRIPING,
+                Boolean.toString(DEFAULT_UI_LOCK_STRIPING)).equals("true");
+    }
+
+    private void checkInactiveUISweepInterval() {
+        try {
+            inactiveUISweepInterval = Integer
+                    .parseInt(getApplicationOrSystemProperty(
+                            Constants.SERVLET_PARAMETER_INACTIVE_UI_SWEEP_INTERVAL,
+                            Integer.toString(
+                                    DEFAULT_INACTIVE_UI_SWEEP_INTERVAL)));
+        } catch (NumberFormatException e) {
+            getLogger().warning(
+                    Constants.WARNING_INACTIVE_UI_SWEEP_INTERVAL_NOT_NUMERIC);
+            inactiveUISweepInterval = DEFAULT_INACTIVE_UI_SWEEP_INTERVAL;
+        }
+    }
+
     private Logger getLogger() {
         return Logger.getLogger(getClass().getName());
     }
@@ -80,6 +80,111 @@ public interface DeploymentConfiguration extends Serializable {
      */
     public boolean isSendUrlsAsParameters();
 
+    /**
+     * Returns whether UIDL responses should be serialized after the session
+     * lock has been released. When enabled, the state changes and RPC calls of
+     * a UIDL response are collected while the session is locked, but turning
+     * them into JSON text and writing them to the client is done without
+     * holding the lock, thus allowing other threads to access the session
+     * sooner.
+     * <p>
+     * The default implementation reads the
+     * {@value Constants#SERVLET_PARAMETER_SERIALIZE_UIDL_OUTSIDE_LOCK}
+     * property using {@link #getApplicationOrSystemProperty(String, String)}.
+     *
+     * @since 8.0
+     *
+     * @return <code>true</code> if UIDL responses are serialized outside the
+     *         session lock, <code>false</code> otherwise
+     */
+    public default boolean isSerializeUidlOutsideLock() {
+        return getApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_SERIALIZE_UIDL_OUTSIDE_LOCK,
+                "false").equals("true");
+    }
+
+    /**
+     * Returns the maximum number of bytes of static resources from the
+     * <code>VAADIN</code> directory that are kept in memory by
+     * {@link VaadinServlet} in production mode. Resources that do not fit in
+     * the cache are read from the class loader or the file system for each
+     * request.
+     * <p>
+     * The default implementation reads the
+     * {@value Constants#SERVLET_PARAMETER_STATIC_RESOURCE_CACHE_SIZE}
+     * property using {@link #getApplicationOrSystemProperty(String, String)}.
+     *
+     * @since 8.0
+     *
+     * @return the maximum size of the static resource cache in bytes, or 0 to
+     *         not cache static resources
+     */
+    public default long getStaticResourceCacheSize() {
+        try {
+            return Long.parseLong(getApplicationOrSystemProperty(
+                    Constants.SERVLET_PARAMETER_STATIC_RESOURCE_CACHE_SIZE,
+                    Long.toString(
+                            DefaultDeploymentConfiguration.DEFAULT_STATIC_RESOURCE_CACHE_SIZE)));
+        } catch (NumberFormatException e) {
+            return DefaultDeploymentConfiguration.DEFAULT_STATIC_RESOURCE_CACHE_SIZE;
+        }
+    }
+
+    /**
+     * Returns whether each UI of a session is protected by a lock of its own
+     * instead of the session lock. When enabled, UIDL requests, push messages
+     * and {@link com.vaadin.ui.UI#access(Runnable)} tasks of different UIs in
+     * the same session can be processed in parallel, while the session lock is
+     * only held for session wide bookkeeping. Locking the session with
+     * {@link VaadinSession#lock()} without holding the lock of a UI still gives
+     * exclusive access to the whole session, including all of its UIs.
+     * <p>
+     * The default implementation reads the
+     * {@value Constants#SERVLET_PARAMETER_UI_LOCK_STRIPING} property using
+     * {@link #getApplicationOrSystemProperty(String, String)}.
+     *
+     * @since 8.0
+     *
+     * @return <code>true</code> if every UI has its own lock,
+     *         <code>false</code> if all UIs are protected by the session lock
+     */
+    public default boolean isUILockStripingEnabled() {
+        return getApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_UI_LOCK_STRIPING, "false")
+                        .equals("true");
+    }
+
+    /**
+     * Returns the resolution in seconds of the background clean up of
+     * sessions. Sessions are cleaned up in the background by the service when
+     * one of their UIs might have stopped sending heartbeat or UIDL requests,
+     * or when the session might have been idle for too long, rounded up to
+     * this interval. Closed UIs and sessions are cleaned up right away.
+     * Requests then do not need to do any clean up, and heartbeat requests only
+     * update the timestamp of their UI without locking the session. If the
+     * interval is zero or negative, sessions are instead cleaned up with the
+     * session locked at the end of every request, including heartbeats.
+     * <p>
+     * The default implementation reads the
+     * {@value Constants#SERVLET_PARAMETER_INACTIVE_UI_SWEEP_INTERVAL}
+     * property using {@link #getApplicationOrSystemProperty(String, String)}.
+     *
+     * @since 8.0
+     *
+     * @return the resolution of the background clean up in seconds, or a value
+     *         that is zero or negative to clean up on every request
+     */
+    public default int getInactiveUISweepInterval() {
+        try {
+            return Integer.parseInt(getApplicationOrSystemProperty(
+                    Constants.SERVLET_PARAMETER_INACTIVE_UI_SWEEP_INTERVAL,
+                    Integer.toString(
+                            DefaultDeploymentConfiguration.DEFAULT_INACTIVE_UI_SWEEP_INTERVAL)));
+        } catch (NumberFormatException e) {
+            return DefaultDeploymentConfiguration.DEFAULT_INACTIVE_UI_SWEEP_INTERVAL;
+        }
+    }
+
     /**
      * Returns whether a session should be closed when all its open UIs have
      * been idle for longer than its configured maximum inactivity time.
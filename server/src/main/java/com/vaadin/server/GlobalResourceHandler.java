@@ -50,6 +50,11 @@ public class GlobalResourceHandler implements RequestHandler {
      * Used to detect when a resource is no longer used by any connector.
      */
     private final Map<Resource, Set<ClientConnector>> resourceUsers = new HashMap<>();
+    /*
+     * The maps are shared by all UIs of the session. Registering is
+     * synchronized as UIs can be locked separately, see
+     * VaadinSession.isUILockStripingEnabled().
+     */
     /**
      * Used to find the resources that might not be needed any more when a
      * connector is unregistered.
@@ -87,14 +92,14 @@ public class GlobalResourceHandler implements RequestHandler {
                     pathInfo + " is not a valid global resource path");
         }
         session.lock();
-        Map<Class<?>, CurrentInstance> oldInstances = null;
+        CurrentInstance.Snapshot oldInstances = null;
         DownloadStream stream = null;
         try {
             UI ui = session.getUIById(Integer.parseInt(uiid));
             if (ui == null) {
                 return error(request, response, "No UI found for id  " + uiid);
             }
-            oldInstances = CurrentInstance.setCurrent(ui);
+            oldInstances = CurrentInstance.setCurrentInstances(ui);
             ConnectorResource resource;
             if (LEGACY_TYPE.equals(type)) {
                 resource = legacyResources.get(key);
@@ -116,7 +121,7 @@ public class GlobalResourceHandler implements RequestHandler {
         } finally {
             session.unlock();
             if (oldInstances != null) {
-                CurrentInstance.restoreInstances(oldInstances);
+                CurrentInstance.restoreSnapshot(oldInstances);
             }
         }
 
@@ -136,7 +141,8 @@ public class GlobalResourceHandler implements RequestHandler {
      * @param ownerConnector
      *            the connector to which the resource belongs
      */
-    public void register(Resource resource, ClientConnector ownerConnector) {
+    public synchronized void register(Resource resource,
+            ClientConnector ownerConnector) {
         if (resource instanceof ConnectorResource) {
             if (!(ownerConnector instanceof LegacyComponent)) {
                 throw new IllegalArgumentException(
@@ -189,7 +195,7 @@ public class GlobalResourceHandler implements RequestHandler {
      * @return an URI string, or <code>null</code> if the resource is not
      *         registered.
      */
-    public String getUri(ClientConnector connector,
+    public synchronized String getUri(ClientConnector connector,
             ConnectorResource resource) {
         // app://APP/global/[ui]/[type]/[id]
         String uri = legacyResourceKeys.get(resource);
@@ -211,7 +217,7 @@ public class GlobalResourceHandler implements RequestHandler {
      *            the connector for which any registered resources can be
      *            released.
      */
-    public void unregisterConnector(ClientConnector connector) {
+    public synchronized void unregisterConnector(ClientConnector connector) {
         Set<Resource> set = usedResources.remove(connector);
         if (set == null) {
             return;
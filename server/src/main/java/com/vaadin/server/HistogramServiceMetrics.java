@@ -0,0 +1,251 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+
+/**
+ * Default {@link ServiceMetrics} implementation that keeps a
+ * {@link MetricsHistogram} for each phase and counter.
+ * <p>
+ * The metrics can be exported through JMX by registering the instance as an
+ * MBean, e.g.
+ *
+ * <pre>
+ * HistogramServiceMetrics metrics = new HistogramServiceMetrics();
+ * service.setMetrics(metrics);
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(metrics,
+ *         new ObjectName("com.vaadin:type=ServiceMetrics,name=myapp"));
+ * </pre>
+ *
+ * For each phase and counter, the attributes <code>Count</code>,
+ * <code>Mean</code>, <code>Max</code>, <code>P50</code> and <code>P99</code>
+ * are exposed, prefixed by the camel cased name of the phase or counter, e.g.
+ * <code>LockHoldP99</code>. Times are reported in microseconds. The
+ * <code>reset</code> operation discards all recorded values.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public class HistogramServiceMetrics implements ServiceMetrics, DynamicMBean {
+
+    private static final String[] STATISTICS = { "Count", "Mean", "Max",
+            "P50", "P99" };
+
+    private static final String RESET_OPERATION = "reset";
+
+    private final Map<Phase, MetricsHistogram> timings = new EnumMap<>(
+            Phase.class);
+    private final Map<Counter, MetricsHistogram> counts = new EnumMap<>(
+            Counter.class);
+
+    /**
+     * Creates a new metrics instance with empty histograms.
+     */
+    public HistogramServiceMetrics() {
+        for (Phase phase : Phase.values()) {
+            timings.put(phase, new MetricsHistogram());
+        }
+        for (Counter counter : Counter.values()) {
+            counts.put(counter, new MetricsHistogram());
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void recordTime(Phase phase, long nanos) {
+        timings.get(phase).record(nanos);
+    }
+
+    @Override
+    public void recordCount(Counter counter, long count) {
+        counts.get(counter).record(count);
+    }
+
+    /**
+     * Gets the histogram of the durations of a phase, in nanoseconds.
+     *
+     * @param phase
+     *            the phase, not <code>null</code>
+     * @return the histogram, not <code>null</code>
+     */
+    public MetricsHistogram getTimings(Phase phase) {
+        return timings.get(phase);
+    }
+
+    /**
+     * Gets the histogram of the values of a counter.
+     *
+     * @param counter
+     *            the counter, not <code>null</code>
+     * @return the histogram, not <code>null</code>
+     */
+    public MetricsHistogram getCounts(Counter counter) {
+        return counts.get(counter);
+    }
+
+    /**
+     * Discards all recorded values.
+     */
+    public void reset() {
+        timings.values().forEach(MetricsHistogram::reset);
+        counts.values().forEach(MetricsHistogram::reset);
+    }
+
+    @Override
+    public Object getAttribute(String attribute)
+            throws AttributeNotFoundException {
+        for (Phase phase : Phase.values()) {
+            String prefix = toAttributePrefix(phase);
+            if (attribute.startsWith(prefix)) {
+                Object value = getStatistic(timings.get(phase),
+                        attribute.substring(prefix.length()), true);
+                if (value != null) {
+                    return value;
+                }
+            }
+        }
+        for (Counter counter : Counter.values()) {
+            String prefix = toAttributePrefix(counter);
+            if (attribute.startsWith(prefix)) {
+                Object value = getStatistic(counts.get(counter),
+                        attribute.substring(prefix.length()), false);
+                if (value != null) {
+                    return value;
+                }
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    private static Object getStatistic(MetricsHistogram histogram,
+            String statistic, boolean nanos) {
+        double scale = nanos ? 1000.0 : 1.0;
+        switch (statistic) {
+        case "Count":
+            return histogram.getCount();
+        case "Mean":
+            return histogram.getMean() / scale;
+        case "Max":
+            return histogram.getMax() / scale;
+        case "P50":
+            return histogram.getPercentile(50) / scale;
+        case "P99":
+            return histogram.getPercentile(99) / scale;
+        default:
+            return null;
+        }
+    }
+
+    private static String toAttributePrefix(Enum<?> metric) {
+        StringBuilder prefix = new StringBuilder();
+        for (String part : metric.name().split("_")) {
+            prefix.append(part.charAt(0));
+            prefix.append(part.substring(1).toLowerCase(Locale.ENGLISH));
+        }
+        return prefix.toString();
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute)
+            throws AttributeNotFoundException {
+        throw new AttributeNotFoundException(
+                "All attributes are read only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                // Omitted from the result as specified by DynamicMBean
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        // All attributes are read only
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params,
+            String[] signature) throws ReflectionException {
+        if (RESET_OPERATION.equals(actionName)) {
+            reset();
+            return null;
+        }
+        throw new ReflectionException(
+                new NoSuchMethodException(actionName),
+                "Unknown operation " + actionName);
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (Phase phase : Phase.values()) {
+            addAttributeInfos(attributes, toAttributePrefix(phase),
+                    "microseconds");
+        }
+        for (Counter counter : Counter.values()) {
+            addAttributeInfos(attributes, toAttributePrefix(counter),
+                    "per request");
+        }
+
+        MBeanOperationInfo reset = new MBeanOperationInfo(RESET_OPERATION,
+                "Discards all recorded values", new MBeanParameterInfo[0],
+                void.class.getName(), MBeanOperationInfo.ACTION);
+
+        return new MBeanInfo(getClass().getName(),
+                "Request processing metrics of a Vaadin service",
+                attributes.toArray(new MBeanAttributeInfo[attributes.size()]),
+                null, new MBeanOperationInfo[] { reset }, null);
+    }
+
+    private static void addAttributeInfos(List<MBeanAttributeInfo> attributes,
+            String prefix, String unit) {
+        for (String statistic : STATISTICS) {
+            boolean isCount = "Count".equals(statistic);
+            attributes.add(new MBeanAttributeInfo(prefix + statistic,
+                    isCount ? long.class.getName() : double.class.getName(),
+                    isCount ? "Number of recorded values"
+                            : statistic + " (" + unit + ")",
+                    true, false, false));
+        }
+    }
+}
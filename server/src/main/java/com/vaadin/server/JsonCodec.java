@@ -20,6 +20,9 @@ import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.GenericArrayType;
@@ -109,29 +112,56 @@ public class JsonCodec implements Serializable {
 
     private static class FieldProperty implements BeanProperty {
         private final Field field;
+        private final String name;
+        private final Type type;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
 
         public FieldProperty(Field field) {
             this.field = field;
+            name = field.getName().intern();
+            type = field.getGenericType();
+            getter = findHandle(field, false);
+            setter = findHandle(field, true);
         }
 
         @Override
         public Object getValue(Object bean) throws Exception {
-            return field.get(bean);
+            if (getter == null) {
+                return field.get(bean);
+            }
+            try {
+                return (Object) getter.invokeExact(bean);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
         }
 
         @Override
         public void setValue(Object bean, Object value) throws Exception {
-            field.set(bean, value);
+            if (setter == null) {
+                field.set(bean, value);
+                return;
+            }
+            try {
+                setter.invokeExact(bean, value);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
         }
 
         @Override
         public String getName() {
-            return field.getName();
+            return name;
         }
 
         @Override
         public Type getType() {
-            return field.getGenericType();
+            return type;
         }
 
         public static Collection<FieldProperty> find(Class<?> type)
@@ -152,28 +182,54 @@ public class JsonCodec implements Serializable {
 
     private static class MethodProperty implements BeanProperty {
         private final PropertyDescriptor pd;
+        private final String name;
+        private final Type type;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
 
         public MethodProperty(PropertyDescriptor pd) {
             this.pd = pd;
+
+            String fieldName = pd.getWriteMethod().getName().substring(3);
+            name = (Character.toLowerCase(fieldName.charAt(0))
+                    + fieldName.substring(1)).intern();
+            type = pd.getReadMethod().getGenericReturnType();
+            getter = findHandle(pd.getReadMethod(), GETTER_TYPE);
+            setter = findHandle(pd.getWriteMethod(), SETTER_TYPE);
         }
 
         @Override
         public Object getValue(Object bean) throws Exception {
-            Method readMethod = pd.getReadMethod();
-            return readMethod.invoke(bean);
+            if (getter == null) {
+                return pd.getReadMethod().invoke(bean);
+            }
+            try {
+                return (Object) getter.invokeExact(bean);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
         }
 
         @Override
         public void setValue(Object bean, Object value) throws Exception {
-            pd.getWriteMethod().invoke(bean, value);
+            if (setter == null) {
+                pd.getWriteMethod().invoke(bean, value);
+                return;
+            }
+            try {
+                setter.invokeExact(bean, value);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
         }
 
         @Override
         public String getName() {
-            String fieldName = pd.getWriteMethod().getName().substring(3);
-            fieldName = Character.toLowerCase(fieldName.charAt(0))
-                    + fieldName.substring(1);
-            return fieldName;
+            return name;
         }
 
         public static Collection<MethodProperty> find(Class<?> type)
@@ -193,9 +249,138 @@ public class JsonCodec implements Serializable {
 
         @Override
         public Type getType() {
-            return pd.getReadMethod().getGenericReturnType();
+            return type;
+        }
+
+    }
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles
+            .publicLookup();
+
+    private static final MethodType GETTER_TYPE = MethodType
+            .methodType(Object.class, Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType
+            .methodType(void.class, Object.class, Object.class);
+
+    /**
+     * Resolves a method handle for getting or setting a field, adapted to
+     * generic types so that it can be invoked without casts or boxing the
+     * arguments into an array.
+     *
+     * @return the adapted method handle, or <code>null</code> if the field is
+     *         not accessible through a method handle, in which case regular
+     *         reflection should be used instead
+     */
+    private static MethodHandle findHandle(Field field, boolean setter) {
+        try {
+            if (setter) {
+                return LOOKUP.unreflectSetter(field).asType(SETTER_TYPE);
+            } else {
+                return LOOKUP.unreflectGetter(field).asType(GETTER_TYPE);
+            }
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Resolves a method handle for a getter or setter method, adapted to the
+     * given generic type.
+     *
+     * @return the adapted method handle, or <code>null</code> if the method is
+     *         not accessible through a method handle
+     */
+    private static MethodHandle findHandle(Method method, MethodType type) {
+        try {
+            return LOOKUP.unreflect(method).asType(type);
+        } catch (IllegalAccessException e) {
+            return null;
         }
+    }
+
+    /**
+     * Encodes values of a type that is known when the codec for a bean class
+     * is built, without going through the type checks in
+     * {@link JsonCodec#encode(Object, JsonValue, Type, ConnectorTracker)}.
+     */
+    @FunctionalInterface
+    private interface LeafEncoder extends Serializable {
+        JsonValue encode(Object value);
+    }
 
+    /**
+     * The properties of a bean class along with pre-resolved encoders for the
+     * properties whose declared type is a simple value type.
+     */
+    private static final class ObjectCodec implements Serializable {
+        private final BeanProperty[] properties;
+        private final String[] names;
+        private final Type[] types;
+        private final LeafEncoder[] leafEncoders;
+
+        private ObjectCodec(Class<?> type) throws IntrospectionException {
+            Collection<BeanProperty> beanProperties = getProperties(type);
+            int count = beanProperties.size();
+            properties = beanProperties
+                    .toArray(new BeanProperty[count]);
+            names = new String[count];
+            types = new Type[count];
+            leafEncoders = new LeafEncoder[count];
+
+            Set<String> usedNames = new HashSet<>();
+            for (int i = 0; i < count; i++) {
+                names[i] = properties[i].getName();
+                types[i] = properties[i].getType();
+                leafEncoders[i] = findLeafEncoder(types[i]);
+
+                if (!usedNames.add(names[i])) {
+                    throw new RuntimeException("Can't encode "
+                            + type.getName()
+                            + " as it has multiple properties with the name "
+                            + names[i].toLowerCase()
+                            + ". This can happen if there are getters and setters for a public field (the framework can't know which to ignore) or if there are properties with only casing distinguishing between the names (e.g. getFoo() and getFOO())");
+                }
+            }
+        }
+
+        private static LeafEncoder findLeafEncoder(Type type) {
+            if (type == String.class) {
+                return value -> Json.create((String) value);
+            } else if (type == boolean.class || type == Boolean.class) {
+                return value -> Json.create((Boolean) value);
+            } else if (type == char.class || type == Character.class) {
+                return value -> Json
+                        .create(Character.toString((Character) value));
+            } else if (type instanceof Class<?>
+                    && (((Class<?>) type).isPrimitive()
+                            || Number.class
+                                    .isAssignableFrom((Class<?>) type))) {
+                return value -> Json.create(((Number) value).doubleValue());
+            } else if (type instanceof Class<?>
+                    && ((Class<?>) type).isEnum()) {
+                return value -> Json.create(((Enum<?>) value).name());
+            } else {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Cache of the codecs of bean classes, built on first use.
+     */
+    private static final ConcurrentMap<Class<?>, ObjectCodec> objectCodecCache = new ConcurrentHashMap<>();
+
+    private static ObjectCodec getObjectCodec(Class<?> type)
+            throws IntrospectionException {
+        ObjectCodec codec = objectCodecCache.get(type);
+        if (codec == null) {
+            codec = new ObjectCodec(type);
+            // Doesn't matter if the codec is built multiple times from
+            // different threads
+            objectCodecCache.put(type, codec);
+        }
+        return codec;
     }
 
     /**
@@ -722,20 +907,11 @@ public class JsonCodec implements Serializable {
         JsonObject diff = Json.createObject();
 
         try {
-            for (BeanProperty property : getProperties(valueType)) {
-                String fieldName = property.getName();
-                // We can't use PropertyDescriptor.getPropertyType() as it does
-                // not support generics
-                Type fieldType = property.getType();
-                Object fieldValue = property.getValue(value);
-
-                if (encoded.hasKey(fieldName)) {
-                    throw new RuntimeException("Can't encode "
-                            + valueType.getName()
-                            + " as it has multiple properties with the name "
-                            + fieldName.toLowerCase()
-                            + ". This can happen if there are getters and setters for a public field (the framework can't know which to ignore) or if there are properties with only casing distinguishing between the names (e.g. getFoo() and getFOO())");
-                }
+            ObjectCodec codec = getObjectCodec(valueType);
+            String[] names = codec.names;
+            for (int i = 0; i < names.length; i++) {
+                String fieldName = names[i];
+                Object fieldValue = codec.properties[i].getValue(value);
 
                 JsonValue fieldReference;
                 if (referenceValue != null) {
@@ -747,13 +923,24 @@ public class JsonCodec implements Serializable {
                     fieldReference = null;
                 }
 
-                EncodeResult encodeResult = encode(fieldValue, fieldReference,
-                        fieldType, connectorTracker);
-                encoded.put(fieldName, encodeResult.getEncodedValue());
+                JsonValue encodedValue;
+                JsonValue diffOrValue;
+                LeafEncoder leafEncoder = codec.leafEncoders[i];
+                if (leafEncoder != null && fieldValue != null) {
+                    encodedValue = leafEncoder.encode(fieldValue);
+                    diffOrValue = encodedValue;
+                } else {
+                    // We can't use PropertyDescriptor.getPropertyType() as it
+                    // does not support generics
+                    EncodeResult encodeResult = encode(fieldValue,
+                            fieldReference, codec.types[i], connectorTracker);
+                    encodedValue = encodeResult.getEncodedValue();
+                    diffOrValue = encodeResult.getDiffOrValue();
+                }
+                encoded.put(fieldName, encodedValue);
 
-                if (valueChanged(encodeResult.getEncodedValue(),
-                        fieldReference)) {
-                    diff.put(fieldName, encodeResult.getDiffOrValue());
+                if (valueChanged(encodedValue, fieldReference)) {
+                    diff.put(fieldName, diffOrValue);
                 }
             }
         } catch (Exception e) {
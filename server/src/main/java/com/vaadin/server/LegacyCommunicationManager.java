@@ -20,11 +20,11 @@ import java.io.Serializable;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.security.GeneralSecurityException;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -58,7 +58,7 @@ import elemental.json.JsonValue;
 public class LegacyCommunicationManager implements Serializable {
 
     // TODO Refactor (#11410)
-    private final HashMap<Integer, ClientCache> uiToClientCache = new HashMap<>();
+    private final Map<Integer, ClientCache> uiToClientCache = new ConcurrentHashMap<>();
 
     /**
      * The session this communication manager is used for
@@ -69,7 +69,7 @@ public class LegacyCommunicationManager implements Serializable {
     private String requestThemeName;
 
     // TODO Refactor (#11413)
-    private final Map<String, Class<?>> publishedFileContexts = new HashMap<>();
+    private final Map<String, Class<?>> publishedFileContexts = new ConcurrentHashMap<>();
 
     /**
      * TODO New constructor - document me!
@@ -210,15 +210,12 @@ public class LegacyCommunicationManager implements Serializable {
 
     private String registerPublishedFile(String name, Class<?> context) {
         // Add to map of names accepted by servePublishedFile
-        if (publishedFileContexts.containsKey(name)) {
-            Class<?> oldContext = publishedFileContexts.get(name);
-            if (oldContext != context) {
-                getLogger().log(Level.WARNING,
-                        "{0} published by both {1} and {2}. File from {2} will be used.",
-                        new Object[] { name, context, oldContext });
-            }
-        } else {
-            publishedFileContexts.put(name, context);
+        Class<?> oldContext = publishedFileContexts.putIfAbsent(name,
+                context);
+        if (oldContext != null && oldContext != context) {
+            getLogger().log(Level.WARNING,
+                    "{0} published by both {1} and {2}. File from {2} will be used.",
+                    new Object[] { name, context, oldContext });
         }
 
         return ApplicationConstants.PUBLISHED_PROTOCOL_PREFIX + "/" + name;
@@ -230,12 +227,7 @@ public class LegacyCommunicationManager implements Serializable {
     @Deprecated
     public ClientCache getClientCache(UI uI) {
         Integer uiId = Integer.valueOf(uI.getUIId());
-        ClientCache cache = uiToClientCache.get(uiId);
-        if (cache == null) {
-            cache = new ClientCache();
-            uiToClientCache.put(uiId, cache);
-        }
-        return cache;
+        return uiToClientCache.computeIfAbsent(uiId, id -> new ClientCache());
     }
 
     /**
@@ -346,23 +338,22 @@ public class LegacyCommunicationManager implements Serializable {
         }
     }
 
-    private final HashMap<Class<? extends ClientConnector>, Integer> typeToKey = new HashMap<>();
-    private int nextTypeKey = 0;
+    private final Map<Class<? extends ClientConnector>, Integer> typeToKey = new ConcurrentHashMap<>();
+    private final AtomicInteger nextTypeKey = new AtomicInteger();
 
     /**
      * @deprecated As of 7.1. Will be removed in the future.
      */
     @Deprecated
     public String getTagForType(Class<? extends ClientConnector> class1) {
-        Integer id = typeToKey.get(class1);
-        if (id == null) {
-            id = nextTypeKey++;
-            typeToKey.put(class1, id);
+        Integer id = typeToKey.computeIfAbsent(class1, type -> {
+            Integer newId = Integer.valueOf(nextTypeKey.getAndIncrement());
             if (getLogger().isLoggable(Level.FINE)) {
                 getLogger().log(Level.FINE, "Mapping {0} to {1}",
-                        new Object[] { class1.getName(), id });
+                        new Object[] { type.getName(), newId });
             }
-        }
+            return newId;
+        });
         return id.toString();
     }
 
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.vaadin.ui.ConnectorTracker;
+
+import elemental.json.JsonArray;
+import elemental.json.JsonType;
+import elemental.json.JsonValue;
+
+/**
+ * Invokes one method of a server RPC interface. The invokers of an interface
+ * are resolved once per interface, when the first implementation of it is
+ * registered, and looked up by method name and parameter count for each
+ * incoming invocation.
+ * <p>
+ * Each invoker holds a method handle adapted to take the target and the
+ * parameters as an array, and a decoder for each parameter type so that the
+ * type checks of {@link JsonCodec} are done only once for the simple types
+ * most RPC methods use.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+final class ServerRpcInvoker {
+
+    /**
+     * Decodes the JSON value of one RPC parameter.
+     */
+    @FunctionalInterface
+    interface ArgumentDecoder {
+        Object decode(JsonValue value, ConnectorTracker connectorTracker);
+    }
+
+    private static final MethodType SPREAD_TYPE = MethodType
+            .methodType(void.class, Object.class, Object[].class);
+
+    private static final ServerRpcInvoker[] NO_INVOKERS = new ServerRpcInvoker[0];
+
+    /**
+     * The invokers of each RPC interface. The invokers of a method name are
+     * indexed by parameter count.
+     */
+    private static final Map<Class<?>, Map<String, ServerRpcInvoker[]>> invokerTables = new ConcurrentHashMap<>(
+            128, 0.75f, 1);
+
+    private final Method method;
+    private final int index;
+    private final MethodHandle handle;
+    private final ArgumentDecoder[] decoders;
+
+    private ServerRpcInvoker(Method method, int index) {
+        this.method = method;
+        this.index = index;
+        handle = findHandle(method);
+
+        Type[] parameterTypes = method.getGenericParameterTypes();
+        decoders = new ArgumentDecoder[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            decoders[i] = createDecoder(parameterTypes[i]);
+        }
+    }
+
+    /**
+     * Finds the invoker for a method of an RPC interface.
+     *
+     * @param rpcInterface
+     *            the RPC interface, not <code>null</code>
+     * @param methodName
+     *            the name of the method
+     * @param parameterCount
+     *            the number of parameters of the method
+     * @return the invoker, or <code>null</code> if the interface has no
+     *         matching method
+     */
+    static ServerRpcInvoker find(Class<?> rpcInterface, String methodName,
+            int parameterCount) {
+        ServerRpcInvoker[] byParameterCount = getInvokerTable(rpcInterface)
+                .get(methodName);
+        if (byParameterCount == null || parameterCount < 0
+                || parameterCount >= byParameterCount.length) {
+            return null;
+        }
+        return byParameterCount[parameterCount];
+    }
+
+    /**
+     * Gets the invokers of an RPC interface, resolving them if this is the
+     * first time the interface is used.
+     *
+     * @param rpcInterface
+     *            the RPC interface, not <code>null</code>
+     * @return a map from method name to the invokers of the methods with that
+     *         name, indexed by parameter count
+     */
+    static Map<String, ServerRpcInvoker[]> getInvokerTable(
+            Class<?> rpcInterface) {
+        return invokerTables.computeIfAbsent(rpcInterface,
+                ServerRpcInvoker::createInvokerTable);
+    }
+
+    private static Map<String, ServerRpcInvoker[]> createInvokerTable(
+            Class<?> rpcInterface) {
+        Map<String, ServerRpcInvoker[]> table = new HashMap<>();
+        int index = 0;
+        for (Method method : rpcInterface.getMethods()) {
+            int parameterCount = method.getParameterTypes().length;
+            ServerRpcInvoker[] byParameterCount = table
+                    .getOrDefault(method.getName(), NO_INVOKERS);
+            if (byParameterCount.length <= parameterCount) {
+                byParameterCount = Arrays.copyOf(byParameterCount,
+                        parameterCount + 1);
+            } else if (byParameterCount[parameterCount] != null) {
+                // Only the name and parameter count are sent by the client,
+                // use the first match as before
+                continue;
+            }
+            byParameterCount[parameterCount] = new ServerRpcInvoker(method,
+                    index++);
+            table.put(method.getName(), byParameterCount);
+        }
+        return table;
+    }
+
+    private static MethodHandle findHandle(Method method) {
+        try {
+            int parameterCount = method.getParameterTypes().length;
+            return MethodHandles.publicLookup().unreflect(method)
+                    .asType(MethodType.genericMethodType(parameterCount + 1)
+                            .changeReturnType(void.class))
+                    .asSpreader(Object[].class, parameterCount)
+                    .asType(SPREAD_TYPE);
+        } catch (IllegalAccessException e) {
+            // Fall back to reflection, e.g. for non-public interfaces
+            return null;
+        }
+    }
+
+    private static ArgumentDecoder createDecoder(Type type) {
+        if (type == String.class) {
+            return (value, tracker) -> isNull(value) ? null : value.asString();
+        } else if (type == boolean.class || type == Boolean.class) {
+            return (value, tracker) -> isNull(value) ? null
+                    : Boolean.valueOf(value.asBoolean());
+        } else if (type == int.class || type == Integer.class) {
+            return (value, tracker) -> isNull(value) ? null
+                    : Integer.valueOf((int) value.asNumber());
+        } else if (type == long.class || type == Long.class) {
+            return (value, tracker) -> isNull(value) ? null
+                    : Long.valueOf((long) value.asNumber());
+        } else if (type == double.class || type == Double.class) {
+            return (value, tracker) -> isNull(value) ? null
+                    : Double.valueOf(value.asNumber());
+        } else if (type == float.class || type == Float.class) {
+            return (value, tracker) -> isNull(value) ? null
+                    : Float.valueOf((float) value.asNumber());
+        }
+        return (value, tracker) -> JsonCodec.decodeInternalOrCustomType(type,
+                value, tracker);
+    }
+
+    private static boolean isNull(JsonValue value) {
+        return value.getType() == JsonType.NULL;
+    }
+
+    /**
+     * Gets the RPC interface method this invoker invokes.
+     *
+     * @return the method, not <code>null</code>
+     */
+    Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Gets the index of this invoker among the invokers of the same RPC
+     * interface.
+     *
+     * @return the index of this invoker, starting from 0
+     */
+    int getIndex() {
+        return index;
+    }
+
+    /**
+     * Decodes the JSON encoded parameters of an invocation of this method.
+     *
+     * @param parametersJson
+     *            the JSON encoded parameters, not <code>null</code>
+     * @param connectorTracker
+     *            the connector tracker to use for decoding connector
+     *            references
+     * @return the decoded parameters
+     */
+    Object[] decodeParameters(JsonArray parametersJson,
+            ConnectorTracker connectorTracker) {
+        Object[] parameters = new Object[decoders.length];
+        for (int i = 0; i < decoders.length; i++) {
+            parameters[i] = decoders[i].decode(parametersJson.get(i),
+                    connectorTracker);
+        }
+        return parameters;
+    }
+
+    /**
+     * Binds the method of this invoker to an RPC implementation.
+     *
+     * @param implementation
+     *            the RPC implementation, not <code>null</code>
+     * @return a method handle taking the parameters as an object array, or
+     *         <code>null</code> if the method can only be invoked through
+     *         reflection
+     */
+    MethodHandle bindTo(Object implementation) {
+        if (handle == null) {
+            return null;
+        }
+        return handle.bindTo(implementation);
+    }
+
+    /**
+     * Invokes the method of this invoker through reflection.
+     *
+     * @param implementation
+     *            the RPC implementation, not <code>null</code>
+     * @param parameters
+     *            the parameters of the invocation
+     * @throws ReflectiveOperationException
+     *             if the invocation fails
+     */
+    void invokeReflectively(Object implementation, Object[] parameters)
+            throws ReflectiveOperationException {
+        method.invoke(implementation, parameters);
+    }
+
+    /**
+     * Invokes a method handle returned by {@link #bindTo(Object)}. Exceptions
+     * thrown by the invoked method are wrapped the same way
+     * {@link Method#invoke(Object, Object...)} wraps them.
+     *
+     * @param boundHandle
+     *            the bound method handle, not <code>null</code>
+     * @param parameters
+     *            the parameters of the invocation
+     * @throws InvocationTargetException
+     *             wrapping the exception thrown by the invoked method
+     */
+    static void invokeBound(MethodHandle boundHandle, Object[] parameters)
+            throws InvocationTargetException {
+        try {
+            boundHandle.invokeExact(parameters);
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+}
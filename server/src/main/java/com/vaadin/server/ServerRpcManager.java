@@ -17,8 +17,9 @@
 package com.vaadin.server;
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.logging.Level;
@@ -41,6 +42,13 @@ public class ServerRpcManager<T extends ServerRpc> implements Serializable {
     private final T implementation;
     private final Class<T> rpcInterface;
 
+    /**
+     * Method handles bound to the implementation, indexed by
+     * {@link ServerRpcInvoker#getIndex()}. Bound lazily since most RPC methods
+     * of most connectors are never invoked.
+     */
+    private transient MethodHandle[] boundHandles;
+
     /**
      * Wrapper exception for exceptions which occur during invocation of an RPC
      * call
@@ -98,6 +106,10 @@ public class ServerRpcManager<T extends ServerRpc> implements Serializable {
     public ServerRpcManager(T implementation, Class<T> rpcInterface) {
         this.implementation = implementation;
         this.rpcInterface = rpcInterface;
+
+        // Resolve the invokers when the first implementation of an interface
+        // is registered instead of when the first invocation arrives
+        ServerRpcInvoker.getInvokerTable(rpcInterface);
     }
 
     /**
@@ -152,10 +164,19 @@ public class ServerRpcManager<T extends ServerRpc> implements Serializable {
      */
     public void applyInvocation(ServerRpcMethodInvocation invocation)
             throws RpcInvocationException {
-        Method method = invocation.getMethod();
         Object[] arguments = invocation.getParameters();
         try {
-            method.invoke(implementation, arguments);
+            if (invocation.getInterfaceClass() == rpcInterface) {
+                ServerRpcInvoker invoker = invocation.getInvoker();
+                MethodHandle handle = getBoundHandle(invoker);
+                if (handle != null) {
+                    ServerRpcInvoker.invokeBound(handle, arguments);
+                } else {
+                    invoker.invokeReflectively(implementation, arguments);
+                }
+            } else {
+                invocation.getMethod().invoke(implementation, arguments);
+            }
         } catch (Exception e) {
             throw new RpcInvocationException(
                     "Unable to invoke method " + invocation.getMethodName()
@@ -164,6 +185,21 @@ public class ServerRpcManager<T extends ServerRpc> implements Serializable {
         }
     }
 
+    private MethodHandle getBoundHandle(ServerRpcInvoker invoker) {
+        int index = invoker.getIndex();
+        if (boundHandles == null) {
+            boundHandles = new MethodHandle[index + 1];
+        } else if (boundHandles.length <= index) {
+            boundHandles = Arrays.copyOf(boundHandles, index + 1);
+        }
+        MethodHandle handle = boundHandles[index];
+        if (handle == null) {
+            handle = invoker.bindTo(implementation);
+            boundHandles[index] = handle;
+        }
+        return handle;
+    }
+
     private static Logger getLogger() {
         return Logger.getLogger(ServerRpcManager.class.getName());
     }
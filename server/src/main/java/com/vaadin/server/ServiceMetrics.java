@@ -0,0 +1,188 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.Serializable;
+
+/**
+ * Receives timings and counts of the different phases of request processing in
+ * a {@link VaadinService}. An implementation is set using
+ * {@link VaadinService#setMetrics(ServiceMetrics)}.
+ * <p>
+ * Metrics are recorded from request threads concurrently, so implementations
+ * must be thread safe and should not block. Nothing is measured unless
+ * {@link #isEnabled()} returns <code>true</code>, so the default
+ * {@link #DISABLED} implementation adds next to no overhead.
+ *
+ * @see HistogramServiceMetrics
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public interface ServiceMetrics extends Serializable {
+
+    /**
+     * A timed phase of request processing.
+     */
+    public enum Phase {
+        /**
+         * Waiting for the session lock.
+         */
+        LOCK_WAIT,
+        /**
+         * Holding the session lock while handling a request.
+         */
+        LOCK_HOLD,
+        /**
+         * Handling the RPC invocations received from the client.
+         */
+        RPC_HANDLING,
+        /**
+         * Calling {@link ClientConnector#beforeClientResponse(boolean)} for
+         * the dirty connectors.
+         */
+        BEFORE_CLIENT_RESPONSE,
+        /**
+         * Encoding the shared state of the dirty connectors.
+         */
+        STATE_ENCODING,
+        /**
+         * Writing the connector hierarchy.
+         */
+        HIERARCHY_WRITING,
+        /**
+         * Writing the client RPC invocations.
+         */
+        RPC_WRITING;
+    }
+
+    /**
+     * A quantity counted once per request or response.
+     */
+    public enum Counter {
+        /**
+         * The number of dirty connectors written in a response.
+         */
+        DIRTY_CONNECTORS,
+        /**
+         * The number of RPC invocations received in a request.
+         */
+        RPC_INVOCATIONS,
+        /**
+         * The number of pending {@link VaadinSession#access(Runnable)} tasks
+         * run at once.
+         */
+        PENDING_ACCESS_TASKS,
+        /**
+         * The number of bytes written in a response.
+         */
+        BYTES_WRITTEN,
+        /**
+         * An automatic push that was merged into an already scheduled push
+         * because of the push coalescing interval. Recorded with a count of
+         * 1, so the number of recorded values is the number of pushes saved.
+         *
+         * @see com.vaadin.ui.PushConfiguration#setPushCoalescingInterval(int)
+         */
+        COALESCED_PUSHES;
+    }
+
+    /**
+     * Metrics implementation that records nothing.
+     */
+    public static final ServiceMetrics DISABLED = new ServiceMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void recordTime(Phase phase, long nanos) {
+            // NOP
+        }
+
+        @Override
+        public void recordCount(Counter counter, long count) {
+            // NOP
+        }
+    };
+
+    /**
+     * Checks whether metrics should be measured and recorded.
+     *
+     * @return <code>true</code> to record metrics, <code>false</code> to skip
+     *         measuring altogether
+     */
+    public boolean isEnabled();
+
+    /**
+     * Records the duration of a phase.
+     *
+     * @param phase
+     *            the phase, not <code>null</code>
+     * @param nanos
+     *            the duration in nanoseconds
+     */
+    public void recordTime(Phase phase, long nanos);
+
+    /**
+     * Records a count.
+     *
+     * @param counter
+     *            the counted quantity, not <code>null</code>
+     * @param count
+     *            the count
+     */
+    public void recordCount(Counter counter, long count);
+
+    /**
+     * Gets a start time to pass to {@link #recordTimeSince(Phase, long)}.
+     *
+     * @return the current value of {@link System#nanoTime()}, or 0 if metrics
+     *         are not enabled
+     */
+    public default long startTime() {
+        return isEnabled() ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time elapsed since a start time returned by
+     * {@link #startTime()}, if metrics are enabled.
+     *
+     * @param phase
+     *            the phase, not <code>null</code>
+     * @param startTime
+     *            the start time of the phase
+     */
+    public default void recordTimeSince(Phase phase, long startTime) {
+        if (isEnabled()) {
+            recordTime(phase, System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Gets the metrics of a service, or {@link #DISABLED} if there is no
+     * service.
+     *
+     * @param service
+     *            the service, or <code>null</code>
+     * @return the metrics of the service, not <code>null</code>
+     */
+    public static ServiceMetrics get(VaadinService service) {
+        ServiceMetrics metrics = service == null ? null : service.getMetrics();
+        return metrics == null ? DISABLED : metrics;
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.vaadin.server.VaadinSession.State;
+import com.vaadin.util.CurrentInstance;
+
+/**
+ * Cleans up the sessions of a {@link VaadinService} in the background, so that
+ * requests do not need to look for inactive UIs and sessions.
+ * <p>
+ * Every registered session is kept in a timing wheel in the slot of the time
+ * when one of its UIs or the session itself might next expire. The wheel is
+ * advanced by one slot every tick, and the sessions in the slot are cleaned up
+ * using a separate executor. Activity only postpones expiry, so a session that
+ * was active in the meantime is just put back into the wheel. Sessions are
+ * also cleaned up right away when a UI or the session is closed.
+ *
+ * @since 8.0
+ */
+class SessionMaintenanceScheduler {
+
+    /**
+     * The number of slots in the wheel. Deadlines further away than one round
+     * are kept in the slot with a round count.
+     */
+    static final int WHEEL_SIZE = 512;
+
+    /**
+     * A session registered for maintenance. Only weakly refers to the session
+     * so that a session that is not destroyed, e.g. because it was moved to
+     * another server, is not kept in memory.
+     */
+    static final class Entry {
+        private final WeakReference<VaadinSession> session;
+        private final AtomicBoolean queued = new AtomicBoolean();
+        private volatile boolean cancelled;
+        private volatile boolean cleanupRequested;
+
+        // Guarded by the scheduler
+        private int slot = -1;
+        private int rounds;
+
+        private Entry(VaadinSession session) {
+            this.session = new WeakReference<>(session);
+        }
+    }
+
+    private final VaadinService service;
+    private final long tickMillis;
+    private final Executor executor;
+
+    private final Set<Entry> registry = ConcurrentHashMap.newKeySet();
+
+    // Guarded by this
+    private final List<Set<Entry>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private int cursor;
+
+    /**
+     * Creates a scheduler. {@link #tick()} should be called every
+     * <code>tickMillis</code> milliseconds.
+     *
+     * @param service
+     *            the service whose sessions are cleaned up
+     * @param tickMillis
+     *            the time between ticks of the wheel in milliseconds
+     * @param executor
+     *            the executor that runs the clean up of sessions
+     */
+    SessionMaintenanceScheduler(VaadinService service, long tickMillis,
+            Executor executor) {
+        this.service = service;
+        this.tickMillis = tickMillis;
+        this.executor = executor;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Registers a session to be cleaned up in the background. The first clean
+     * up is done on the next tick.
+     *
+     * @param session
+     *            the session to register
+     * @return the registration, to be passed to the other methods
+     */
+    Entry register(VaadinSession session) {
+        Entry entry = new Entry(session);
+        registry.add(entry);
+        schedule(entry, System.currentTimeMillis());
+        return entry;
+    }
+
+    /**
+     * Removes a session from the maintenance, e.g. when it is destroyed.
+     *
+     * @param entry
+     *            the registration of the session
+     */
+    void unregister(Entry entry) {
+        entry.cancelled = true;
+        registry.remove(entry);
+        unschedule(entry);
+    }
+
+    /**
+     * Cleans up a session as soon as possible instead of when its next expiry
+     * is due. If the session is currently locked, the clean up is tried again
+     * when {@link #requestEnded(Entry)} is called.
+     *
+     * @param entry
+     *            the registration of the session
+     */
+    void cleanupSoon(Entry entry) {
+        if (!entry.cancelled) {
+            entry.cleanupRequested = true;
+            unschedule(entry);
+            dispatch(entry);
+        }
+    }
+
+    /**
+     * Notifies that a request to the session has ended and the session is no
+     * longer locked by it, so that a clean up that was requested while the
+     * session was locked can be done.
+     *
+     * @param entry
+     *            the registration of the session
+     */
+    void requestEnded(Entry entry) {
+        if (entry.cleanupRequested) {
+            cleanupSoon(entry);
+        }
+    }
+
+    /**
+     * Gets the number of sessions that are currently registered.
+     *
+     * @return the number of registered sessions
+     */
+    int getSessionCount() {
+        return registry.size();
+    }
+
+    /**
+     * Advances the wheel by one slot and cleans up the sessions that are due.
+     */
+    void tick() {
+        List<Entry> due = new ArrayList<>();
+        synchronized (this) {
+            cursor = (cursor + 1) % WHEEL_SIZE;
+            Iterator<Entry> slot = wheel.get(cursor).iterator();
+            while (slot.hasNext()) {
+                Entry entry = slot.next();
+                if (entry.rounds > 0) {
+                    entry.rounds--;
+                } else {
+                    slot.remove();
+                    entry.slot = -1;
+                    due.add(entry);
+                }
+            }
+        }
+        for (Entry entry : due) {
+            dispatch(entry);
+        }
+    }
+
+    private synchronized void schedule(Entry entry, long time) {
+        if (entry.cancelled) {
+            return;
+        }
+        if (entry.slot >= 0) {
+            wheel.get(entry.slot).remove(entry);
+        }
+        long delay = time - System.currentTimeMillis();
+        // Rounded up to whole ticks, checked again if nothing expired yet
+        long ticks = Math.max(1, -Math.floorDiv(-delay, tickMillis));
+        entry.slot = (int) ((cursor + ticks) % WHEEL_SIZE);
+        entry.rounds = (int) Math.min(Integer.MAX_VALUE,
+                (ticks - 1) / WHEEL_SIZE);
+        wheel.get(entry.slot).add(entry);
+    }
+
+    private synchronized void unschedule(Entry entry) {
+        if (entry.slot >= 0) {
+            wheel.get(entry.slot).remove(entry);
+            entry.slot = -1;
+        }
+    }
+
+    private void dispatch(Entry entry) {
+        if (entry.cancelled || !entry.queued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> cleanup(entry));
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            entry.queued.set(false);
+        }
+    }
+
+    private void cleanup(Entry entry) {
+        VaadinSession session = entry.session.get();
+        if (session == null || entry.cancelled) {
+            unregister(entry);
+            return;
+        }
+        if (session.getLockInstance() == null || !session.tryLock()) {
+            // In use, try again later instead of making a request wait
+            entry.queued.set(false);
+            schedule(entry, System.currentTimeMillis() + tickMillis);
+            return;
+        }
+
+        long nextCleanup = -1;
+        CurrentInstance.Snapshot oldInstances = CurrentInstance
+                .setCurrentInstances(session);
+        try {
+            if (session.getState() != State.CLOSED) {
+                service.cleanupSession(session);
+            }
+            // Also covers UIs that were closed by the clean up itself
+            entry.cleanupRequested = false;
+            if (session.getState() == State.OPEN) {
+                nextCleanup = service.getNextCleanupTime(session);
+            }
+            entry.queued.set(false);
+        } catch (Exception e) {
+            entry.queued.set(false);
+            nextCleanup = System.currentTimeMillis() + tickMillis;
+            getLogger().log(Level.WARNING, "Error while cleaning up session",
+                    e);
+        } finally {
+            try {
+                session.unlock();
+            } finally {
+                CurrentInstance.restoreSnapshot(oldInstances);
+            }
+        }
+
+        if (nextCleanup < 0) {
+            unregister(entry);
+        } else {
+            schedule(entry, nextCleanup);
+        }
+    }
+
+    private static Logger getLogger() {
+        return Logger.getLogger(SessionMaintenanceScheduler.class.getName());
+    }
+}
@@ -0,0 +1,465 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Keeps the contents of static resources served by {@link VaadinServlet} in
+ * memory, together with their precompressed <code>.gz</code> variants, last
+ * modification times and entity tags. The total size of the cached contents is
+ * bounded; resources that do not fit are not cached and are streamed from
+ * their URL for every request.
+ * <p>
+ * Resources are never reloaded, so the cache should only be used when the
+ * resources do not change while the application is running, i.e. in
+ * production mode.
+ * <p>
+ * Responses written from the cache support <code>If-None-Match</code> and
+ * single byte range <code>Range</code> requests.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+class StaticResourceCache {
+
+    /**
+     * Files at least this large are memory mapped instead of copied to the
+     * heap.
+     */
+    private static final int MAP_THRESHOLD = 64 * 1024;
+
+    private static final int BUFFER_SIZE = 32 * 1024;
+
+    /**
+     * Marks a resource that has been found not to fit in the cache, so that it
+     * is not read again just to find out the same thing.
+     */
+    private static final CachedResource NOT_CACHED = new CachedResource(null,
+            null, 0);
+
+    /**
+     * A cached representation of a static resource.
+     */
+    static final class CachedResource {
+        private final ByteBuffer content;
+        private final ByteBuffer gzippedContent;
+        private final String etag;
+        private final String gzippedEtag;
+        private final long lastModified;
+
+        private CachedResource(ByteBuffer content, ByteBuffer gzippedContent,
+                long lastModified) {
+            this.content = content;
+            this.gzippedContent = gzippedContent;
+            this.lastModified = lastModified;
+            etag = content == null ? null : computeEtag(content, "");
+            gzippedEtag = gzippedContent == null ? null
+                    : computeEtag(gzippedContent, "-gz");
+        }
+
+        /**
+         * Gets the last modification time of the resource, without
+         * milliseconds.
+         *
+         * @return the last modification time, or 0 if not known
+         */
+        long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Checks whether the resource has a precompressed variant.
+         *
+         * @return <code>true</code> if there is a gzipped variant
+         */
+        boolean hasGzippedContent() {
+            return gzippedContent != null;
+        }
+
+        private long size() {
+            return content.capacity() + (gzippedContent == null ? 0
+                    : gzippedContent.capacity());
+        }
+    }
+
+    private final ConcurrentHashMap<String, CachedResource> resources = new ConcurrentHashMap<>();
+
+    private final AtomicLong cachedBytes = new AtomicLong();
+
+    private final long maxBytes;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxBytes
+     *            the maximum total size of the cached contents in bytes
+     */
+    StaticResourceCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Gets the cached representation of a resource, loading it if it has not
+     * been requested before.
+     *
+     * @param resourceUrl
+     *            the URL of the resource, not <code>null</code>
+     * @return the cached resource, or <code>null</code> if the resource does
+     *         not fit in the cache
+     * @throws IOException
+     *             if the resource could not be read
+     */
+    CachedResource get(URL resourceUrl) throws IOException {
+        String key = resourceUrl.toExternalForm();
+        CachedResource resource = resources.get(key);
+        if (resource == null) {
+            resource = load(resourceUrl);
+            CachedResource previous = resources.putIfAbsent(key, resource);
+            if (previous != null) {
+                // Another thread loaded it at the same time
+                if (resource != NOT_CACHED) {
+                    cachedBytes.addAndGet(-resource.size());
+                }
+                resource = previous;
+            }
+        }
+        return resource == NOT_CACHED ? null : resource;
+    }
+
+    /**
+     * Gets the total size of the currently cached contents.
+     *
+     * @return the number of cached bytes
+     */
+    long getCachedBytes() {
+        return cachedBytes.get();
+    }
+
+    private CachedResource load(URL resourceUrl) throws IOException {
+        ByteBuffer content;
+        long lastModified;
+        URLConnection connection = resourceUrl.openConnection();
+        lastModified = connection.getLastModified();
+        lastModified -= lastModified % 1000;
+        content = read(resourceUrl, connection);
+        if (content == null) {
+            return NOT_CACHED;
+        }
+        if (!reserve(content.capacity())) {
+            return NOT_CACHED;
+        }
+
+        // Look for a precompressed variant once, regardless of whether the
+        // current request accepts it
+        ByteBuffer gzippedContent = null;
+        try {
+            URL gzippedUrl = new URL(resourceUrl.toExternalForm() + ".gz");
+            gzippedContent = read(gzippedUrl, gzippedUrl.openConnection());
+        } catch (FileNotFoundException e) {
+            // NOP: there is no precompressed variant
+        } catch (IOException e) {
+            getLogger().log(Level.FINE,
+                    "Unexpected exception looking for gzipped version of resource "
+                            + resourceUrl,
+                    e);
+        }
+        if (gzippedContent != null && !reserve(gzippedContent.capacity())) {
+            gzippedContent = null;
+        }
+        return new CachedResource(content, gzippedContent, lastModified);
+    }
+
+    private boolean reserve(long bytes) {
+        while (true) {
+            long current = cachedBytes.get();
+            if (current + bytes > maxBytes) {
+                return false;
+            }
+            if (cachedBytes.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reads the contents of a resource, or returns <code>null</code> if it is
+     * larger than what could possibly fit in the cache.
+     */
+    private ByteBuffer read(URL url, URLConnection connection)
+            throws IOException {
+        long remaining = maxBytes - cachedBytes.get();
+        long length = connection.getContentLengthLong();
+        if (length > remaining || length > Integer.MAX_VALUE) {
+            connection.getInputStream().close();
+            return null;
+        }
+
+        File file = toFile(url);
+        if (file != null && file.length() >= MAP_THRESHOLD) {
+            connection.getInputStream().close();
+            try (FileChannel channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.READ)) {
+                return channel.map(MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+
+        try (InputStream is = connection.getInputStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(
+                    length > 0 ? (int) length : BUFFER_SIZE);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = is.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+                if (out.size() > remaining) {
+                    return null;
+                }
+            }
+            return ByteBuffer.wrap(out.toByteArray());
+        }
+    }
+
+    /**
+     * Writes a cached resource to the response. Content type, caching and
+     * last modification headers must already have been set.
+     *
+     * @param request
+     *            the request for the resource
+     * @param response
+     *            the response to write to
+     * @param resource
+     *            the cached resource
+     * @param gzipped
+     *            <code>true</code> to write the precompressed variant, which
+     *            the resource must have
+     * @throws IOException
+     *             if writing fails
+     */
+    static void writeResponse(HttpServletRequest request,
+            HttpServletResponse response, CachedResource resource,
+            boolean gzipped) throws IOException {
+        ByteBuffer content = gzipped ? resource.gzippedContent
+                : resource.content;
+        String etag = gzipped ? resource.gzippedEtag : resource.etag;
+
+        response.setHeader("ETag", etag);
+        response.setHeader("Accept-Ranges", "bytes");
+        if (resource.hasGzippedContent()) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+        if (gzipped) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+
+        if (matchesEtag(request.getHeader("If-None-Match"), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        int length = content.capacity();
+        long[] range = getRange(request, etag, length);
+        if (range == null) {
+            response.setContentLength(length);
+            write(response.getOutputStream(), content, 0, length);
+        } else if (range.length == 0) {
+            response.setHeader("Content-Range", "bytes */" + length);
+            response.setStatus(
+                    HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        } else {
+            int start = (int) range[0];
+            int end = (int) range[1];
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader("Content-Range",
+                    "bytes " + start + "-" + end + "/" + length);
+            response.setContentLength(end - start + 1);
+            write(response.getOutputStream(), content, start,
+                    end - start + 1);
+        }
+    }
+
+    /**
+     * Writes a file that is not cached to the response by transferring it
+     * directly from a file channel, letting the JVM avoid copying through the
+     * Java heap where the platform allows it.
+     *
+     * @param response
+     *            the response to write to
+     * @param file
+     *            the file to write
+     * @throws IOException
+     *             if reading the file or writing the response fails
+     */
+    static void writeFile(HttpServletResponse response, File file)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.READ)) {
+            long size = channel.size();
+            response.setHeader("Content-Length", Long.toString(size));
+            WritableByteChannel out = Channels
+                    .newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position,
+                        out);
+            }
+        }
+    }
+
+    /**
+     * Gets the file of a <code>file:</code> URL.
+     *
+     * @param url
+     *            the URL
+     * @return the file, or <code>null</code> if the URL does not point to a
+     *         regular file
+     */
+    static File toFile(URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            File file = new File(url.toURI());
+            return file.isFile() ? file : null;
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void write(OutputStream out, ByteBuffer content,
+            int offset, int length) throws IOException {
+        if (content.hasArray()) {
+            out.write(content.array(), content.arrayOffset() + offset,
+                    length);
+        } else {
+            ByteBuffer slice = content.duplicate();
+            slice.position(offset);
+            slice.limit(offset + length);
+            WritableByteChannel channel = Channels.newChannel(out);
+            while (slice.hasRemaining()) {
+                channel.write(slice);
+            }
+        }
+    }
+
+    static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || candidate.equals(etag)
+                    || candidate.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses the <code>Range</code> header of a request.
+     *
+     * @return <code>null</code> to send the whole content, an empty array if
+     *         the range is not satisfiable, or the first and last byte
+     *         positions of the range to send
+     */
+    static long[] getRange(HttpServletRequest request, String etag,
+            long length) {
+        String range = request.getHeader("Range");
+        if (range == null || !range.startsWith("bytes=")) {
+            return null;
+        }
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange != null && !ifRange.equals(etag)) {
+            // The client has a different version; send it all
+            return null;
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        if (spec.contains(",")) {
+            // Multiple ranges are not supported; sending everything is allowed
+            return null;
+        }
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String startValue = spec.substring(0, dash).trim();
+            String endValue = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (startValue.isEmpty()) {
+                // Suffix range: the last n bytes
+                long suffix = Long.parseLong(endValue);
+                if (suffix <= 0) {
+                    return new long[0];
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(startValue);
+                end = endValue.isEmpty() ? length - 1
+                        : Math.min(Long.parseLong(endValue), length - 1);
+            }
+            if (start >= length || start > end) {
+                return new long[0];
+            }
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            // Invalid range headers are ignored
+            return null;
+        }
+    }
+
+    private static String computeEtag(ByteBuffer content, String suffix) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(content.duplicate());
+            return '"' + Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(digest.digest()) + suffix + '"';
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Logger getLogger() {
+        return Logger.getLogger(StaticResourceCache.class.getName());
+    }
+}
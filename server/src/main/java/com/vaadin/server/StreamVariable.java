@@ -96,6 +96,23 @@ public interface StreamVariable extends Serializable {
      */
     public boolean isInterrupted();
 
+    /**
+     * Gets the minimum time between two
+     * {@link #onProgress(StreamingProgressEvent)} calls for this variable.
+     * Progress events are dispatched with the session locked, so a longer
+     * interval lets the upload proceed with less lock contention. A negative
+     * value means that the interval of the terminal is used.
+     * <p>
+     * The default implementation returns -1.
+     *
+     * @return the progress event interval in milliseconds, or a negative value
+     *         to use the interval of the terminal
+     * @since 8.0
+     */
+    public default int getProgressEventInterval() {
+        return -1;
+    }
+
     public interface StreamingEvent extends Serializable {
 
         /**
@@ -17,6 +17,8 @@ package com.vaadin.server;
 
 import java.io.IOException;
 
+import com.vaadin.server.ServiceMetrics.Phase;
+
 /**
  * RequestHandler which takes care of locking and unlocking of the VaadinSession
  * automatically. The session is locked before
@@ -36,11 +38,16 @@ public abstract class SynchronizedRequestHandler implements RequestHandler {
             return false;
         }
 
+        ServiceMetrics metrics = ServiceMetrics.get(session.getService());
+        long lockRequestedAt = metrics.startTime();
         session.lock();
+        long lockedAt = metrics.startTime();
+        metrics.recordTimeSince(Phase.LOCK_WAIT, lockRequestedAt);
         try {
             return synchronizedHandleRequest(session, request, response);
         } finally {
             session.unlock();
+            metrics.recordTimeSince(Phase.LOCK_HOLD, lockedAt);
         }
     }
 
@@ -33,6 +33,12 @@ public class UnsupportedBrowserHandler extends SynchronizedRequestHandler {
     /** Cookie used to ignore browser checks */
     public static final String FORCE_LOAD_COOKIE = "vaadinforceload=1";
 
+    @Override
+    protected boolean canHandleRequest(VaadinRequest request) {
+        // No page is shown for heartbeats, so they need not lock the session
+        return !ServletPortletHelper.isHeartbeatRequest(request);
+    }
+
     @Override
     public boolean synchronizedHandleRequest(VaadinSession session,
             VaadinRequest request, VaadinResponse response) throws IOException {
@@ -33,12 +33,22 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -62,6 +72,7 @@ import com.vaadin.shared.ApplicationConstants;
 import com.vaadin.shared.JsonConstants;
 import com.vaadin.shared.ui.ui.UIConstants;
 import com.vaadin.ui.UI;
+import com.vaadin.ui.UIDetachedException;
 import com.vaadin.util.CurrentInstance;
 import com.vaadin.util.ReflectTools;
 
@@ -130,6 +141,16 @@ public abstract class VaadinService implements Serializable {
     private SystemMessagesProvider systemMessagesProvider = DefaultSystemMessagesProvider
             .get();
 
+    private ServiceMetrics metrics = ServiceMetrics.DISABLED;
+
+    private transient volatile ScheduledExecutorService scheduledExecutor;
+
+    private transient volatile ExecutorService maintenanceExecutor;
+
+    private transient volatile ExecutorService backgroundExecutor;
+
+    private transient volatile SessionMaintenanceScheduler sessionMaintenance;
+
     private ClassLoader classLoader;
 
     private Iterable<RequestHandler> requestHandlers;
@@ -362,6 +383,102 @@ public abstract class VaadinService implements Serializable {
         return systemMessagesProvider;
     }
 
+    /**
+     * Sets the metrics implementation that receives timings and counts of the
+     * request processing of this service.
+     *
+     * @see #getMetrics()
+     * @see HistogramServiceMetrics
+     *
+     * @since 8.0
+     * @param metrics
+     *            the metrics implementation, or {@link ServiceMetrics#DISABLED}
+     *            to not record any metrics; <code>null</code> is not allowed
+     */
+    public void setMetrics(ServiceMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException(
+                    "ServiceMetrics can not be null.");
+        }
+        this.metrics = metrics;
+    }
+
+    /**
+     * Gets the metrics implementation that receives timings and counts of the
+     * request processing of this service.
+     * <p>
+     * By default, {@link ServiceMetrics#DISABLED} is used and no metrics are
+     * recorded.
+     * </p>
+     *
+     * @see #setMetrics(ServiceMetrics)
+     *
+     * @since 8.0
+     * @return the metrics implementation; not <code>null</code>
+     */
+    public ServiceMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the executor that this service uses for running framework tasks
+     * after a delay, such as postponed pushes. The executor is created when
+     * first needed using {@link #createScheduledExecutor()} and shut down when
+     * this service is destroyed.
+     * <p>
+     * Tasks run without holding any session lock and without any current
+     * instances, so they should use {@link VaadinSession#access(Runnable)} for
+     * anything that touches a session.
+     *
+     * @since 8.0
+     * @return the scheduled executor, not <code>null</code>
+     */
+    public ScheduledExecutorService getScheduledExecutor() {
+        ScheduledExecutorService executor = scheduledExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = scheduledExecutor;
+                if (executor == null) {
+                    executor = createScheduledExecutor();
+                    scheduledExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Creates the executor returned by {@link #getScheduledExecutor()}. The
+     * default implementation uses a single daemon thread.
+     *
+     * @since 8.0
+     * @return a new scheduled executor, not <code>null</code>
+     */
+    protected ScheduledExecutorService createScheduledExecutor() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                1, createDaemonThreadFactory("vaadin-scheduler-"));
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /**
+     * Creates a factory for the daemon threads of the executors of this
+     * service. The threads are named using the given prefix and a running
+     * number.
+     */
+    private static ThreadFactory createDaemonThreadFactory(String namePrefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(() -> {
+                // Do not keep instances inherited from the creator
+                CurrentInstance.clearAll();
+                runnable.run();
+            }, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
     /**
      * Gets the system message to use for a specific locale. This method may
      * also be implemented to use information from current instances of various
@@ -457,6 +574,12 @@ public abstract class VaadinService implements Serializable {
      */
     public void fireSessionDestroy(VaadinSession vaadinSession) {
         final VaadinSession session = vaadinSession;
+        SessionMaintenanceScheduler maintenance = sessionMaintenance;
+        SessionMaintenanceScheduler.Entry entry = session
+                .getMaintenanceEntry();
+        if (maintenance != null && entry != null) {
+            maintenance.unregister(entry);
+        }
         session.access(() -> {
             if (session.getState() == State.CLOSED) {
                 return;
@@ -506,7 +629,10 @@ public abstract class VaadinService implements Serializable {
      * Attempts to find a Vaadin service session associated with this request.
      * <p>
      * Handles locking of the session internally to avoid creation of duplicate
-     * sessions by two threads simultaneously.
+     * sessions by two threads simultaneously. Heartbeat requests find an
+     * existing session without locking it if sessions are cleaned up in the
+     * background, see
+     * {@link DeploymentConfiguration#getInactiveUISweepInterval()}.
      * </p>
      *
      * @param request
@@ -655,6 +781,14 @@ public abstract class VaadinService implements Serializable {
         WrappedSession wrappedSession = getWrappedSession(request,
                 requestCanCreateSession);
 
+        if (isHandledWithoutLock(request)) {
+            VaadinSession session = findExistingSessionWithoutLock(
+                    wrappedSession);
+            if (session != null) {
+                return session;
+            }
+        }
+
         try {
             lockSession(wrappedSession);
         } catch (IllegalStateException e) {
@@ -670,6 +804,38 @@ public abstract class VaadinService implements Serializable {
 
     }
 
+    /**
+     * Checks whether the given request is handled without locking the session,
+     * which is the case for heartbeats when sessions are cleaned up in the
+     * background.
+     *
+     * @see HeartbeatHandler
+     */
+    private boolean isHandledWithoutLock(VaadinRequest request) {
+        return ServletPortletHelper.isHeartbeatRequest(request)
+                && getDeploymentConfiguration()
+                        .getInactiveUISweepInterval() > 0;
+    }
+
+    /**
+     * Reads an existing Vaadin session from the wrapped session without
+     * locking it. A session that has not yet been used by this service, e.g.
+     * because it has just been deserialized, needs its transient fields to be
+     * refreshed with the session locked and is not returned.
+     *
+     * @return the existing session, or <code>null</code> if it should be looked
+     *         up with the session locked
+     */
+    private VaadinSession findExistingSessionWithoutLock(
+            WrappedSession wrappedSession) {
+        VaadinSession session = readFromHttpSession(wrappedSession);
+        if (session == null || session.getService() != this
+                || session.getLockInstance() == null) {
+            return null;
+        }
+        return session;
+    }
+
     /**
      * Finds or creates a Vaadin session. Assumes necessary synchronization has
      * been done by the caller to ensure this is not called simultaneously by
@@ -1141,9 +1307,10 @@ public abstract class VaadinService implements Serializable {
     }
 
     /**
-     * Called at the end of a request, after sending the response. Closes
-     * inactive UIs in the given session, removes closed UIs from the session,
-     * and closes the session if it is itself inactive.
+     * Called at the end of a request, after sending the response, or in the
+     * background by the session maintenance. Closes inactive UIs in the given
+     * session, removes closed UIs from the session, and closes the session if
+     * it is itself inactive.
      *
      * @param session
      */
@@ -1346,17 +1513,293 @@ public abstract class VaadinService implements Serializable {
             VaadinSession session) {
         if (session != null) {
             assert VaadinSession.getCurrent() == session;
-            session.lock();
+            boolean heartbeat = ServletPortletHelper
+                    .isHeartbeatRequest(request);
+            if (!registerForMaintenance(session, !heartbeat)) {
+                if (session.isUILockStripingEnabled()) {
+                    requestEndWithUILocks(request, session);
+                } else {
+                    requestEndWithSessionLock(request, session);
+                }
+            } else if (!heartbeat) {
+                /*
+                 * The session is cleaned up in the background. Heartbeats are
+                 * handled without locking the session, see HeartbeatHandler.
+                 */
+                recordRequestDuration(request, session);
+                scheduleRequestedCleanup(session);
+            }
+        }
+        CurrentInstance.clearAll();
+    }
+
+    private void requestEndWithSessionLock(VaadinRequest request,
+            VaadinSession session) {
+        session.lock();
+        try {
+            cleanupSession(session);
+            final long duration = (System.nanoTime() - (Long) request
+                    .getAttribute(REQUEST_START_TIME_ATTRIBUTE)) / 1000000;
+            session.setLastRequestDuration(duration);
+        } finally {
+            session.unlock();
+        }
+    }
+
+    /**
+     * With UI lock striping, exclusive access to the session would have to wait
+     * for requests to other UIs to complete. The request duration is recorded
+     * while only holding the session lock, and the session is cleaned up only
+     * if it is not in use by other threads.
+     */
+    private void requestEndWithUILocks(VaadinRequest request,
+            VaadinSession session) {
+        recordRequestDuration(request, session);
+
+        if (session.tryLock()) {
             try {
                 cleanupSession(session);
-                final long duration = (System.nanoTime() - (Long) request
-                        .getAttribute(REQUEST_START_TIME_ATTRIBUTE)) / 1000000;
-                session.setLastRequestDuration(duration);
             } finally {
                 session.unlock();
             }
         }
-        CurrentInstance.clearAll();
+    }
+
+    private void recordRequestDuration(VaadinRequest request,
+            VaadinSession session) {
+        final long duration = (System.nanoTime()
+                - (Long) request.getAttribute(REQUEST_START_TIME_ATTRIBUTE))
+                / 1000000;
+        // Only the session lock, without waiting for other UIs or running
+        // pending access tasks
+        Lock lock = session.getLockInstance();
+        lock.lock();
+        try {
+            session.setLastRequestDuration(duration);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Registers the given session to be cleaned up in the background, unless
+     * already registered, if enabled using
+     * {@link DeploymentConfiguration#getInactiveUISweepInterval()}.
+     *
+     * @param wait
+     *            <code>true</code> to wait for the session lock if needed,
+     *            <code>false</code> to leave the registration to a later
+     *            request if the session is locked
+     * @return <code>true</code> if the session is cleaned up in the
+     *         background, <code>false</code> if it should be cleaned up at the
+     *         end of each request
+     */
+    private boolean registerForMaintenance(VaadinSession session,
+            boolean wait) {
+        SessionMaintenanceScheduler maintenance = getSessionMaintenance();
+        if (maintenance == null) {
+            return false;
+        }
+        if (session.getMaintenanceEntry() != null) {
+            return true;
+        }
+        Lock lock = session.getLockInstance();
+        if (wait) {
+            lock.lock();
+        } else if (!lock.tryLock()) {
+            return true;
+        }
+        try {
+            if (session.getMaintenanceEntry() == null
+                    && session.getState() == State.OPEN) {
+                session.setMaintenanceEntry(maintenance.register(session));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Gets the scheduler that cleans up sessions in the background. Created and
+     * started when first needed.
+     *
+     * @return the session maintenance, or <code>null</code> if sessions are
+     *         cleaned up at the end of each request
+     */
+    private SessionMaintenanceScheduler getSessionMaintenance() {
+        int interval = getDeploymentConfiguration()
+                .getInactiveUISweepInterval();
+        if (interval <= 0) {
+            return null;
+        }
+        SessionMaintenanceScheduler maintenance = sessionMaintenance;
+        if (maintenance == null) {
+            synchronized (this) {
+                maintenance = sessionMaintenance;
+                if (maintenance == null) {
+                    long tickMillis = TimeUnit.SECONDS.toMillis(interval);
+                    maintenance = new SessionMaintenanceScheduler(this,
+                            tickMillis, getMaintenanceExecutor());
+                    getScheduledExecutor().scheduleAtFixedRate(
+                            maintenance::tick, tickMillis, tickMillis,
+                            TimeUnit.MILLISECONDS);
+                    sessionMaintenance = maintenance;
+                }
+            }
+        }
+        return maintenance;
+    }
+
+    /**
+     * Requests the given session to be cleaned up as soon as possible when
+     * sessions are cleaned up in the background, see
+     * {@link DeploymentConfiguration#getInactiveUISweepInterval()}. Called by
+     * the framework when a UI or the session is closed so that they are
+     * removed without waiting for the next scheduled clean up. If the session
+     * is locked by a request, the clean up is done after the request. If
+     * sessions are instead cleaned up at the end of each request, this method
+     * does nothing.
+     *
+     * @since 8.0
+     * @param session
+     *            the session to clean up, not <code>null</code>
+     */
+    public void scheduleSessionCleanup(VaadinSession session) {
+        SessionMaintenanceScheduler maintenance = sessionMaintenance;
+        SessionMaintenanceScheduler.Entry entry = session
+                .getMaintenanceEntry();
+        if (maintenance != null && entry != null) {
+            maintenance.cleanupSoon(entry);
+        }
+    }
+
+    private void scheduleRequestedCleanup(VaadinSession session) {
+        SessionMaintenanceScheduler maintenance = sessionMaintenance;
+        SessionMaintenanceScheduler.Entry entry = session
+                .getMaintenanceEntry();
+        if (maintenance != null && entry != null) {
+            maintenance.requestEnded(entry);
+        }
+    }
+
+    /**
+     * Returns the time when a UI of the given session or the session itself
+     * might next expire, used for scheduling the next clean up of the session.
+     * UIs added to the session later, which cannot expire before the heartbeat
+     * timeout has passed from now, are also taken into account.
+     *
+     * @param session
+     *            the locked session
+     * @return the time of the next possible expiry in milliseconds since the
+     *         epoch, or {@link Long#MAX_VALUE} if nothing can expire
+     */
+    long getNextCleanupTime(VaadinSession session) {
+        long next = Long.MAX_VALUE;
+        int uidlRequestTimeout = getUidlRequestTimeout(session);
+        if (uidlRequestTimeout >= 0) {
+            next = session.getLastRequestTimestamp()
+                    + 1000L * uidlRequestTimeout;
+        }
+        int heartbeatTimeout = getHeartbeatTimeout();
+        if (heartbeatTimeout >= 0) {
+            next = Math.min(next,
+                    System.currentTimeMillis() + 1000L * heartbeatTimeout);
+            for (UI ui : session.getUIs()) {
+                next = Math.min(next, ui.getLastHeartbeatTimestamp()
+                        + 1000L * heartbeatTimeout);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Gets the executor that cleans up sessions in the background. Created
+     * when first needed using {@link #createMaintenanceExecutor()} and shut
+     * down when this service is destroyed.
+     *
+     * @return the maintenance executor, not <code>null</code>
+     */
+    private ExecutorService getMaintenanceExecutor() {
+        ExecutorService executor = maintenanceExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = maintenanceExecutor;
+                if (executor == null) {
+                    executor = createMaintenanceExecutor();
+                    maintenanceExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Creates the executor that cleans up sessions in the background when
+     * enabled using
+     * {@link DeploymentConfiguration#getInactiveUISweepInterval()}. The
+     * default implementation uses a bounded pool of daemon threads, with at
+     * most one thread for every two processors.
+     *
+     * @since 8.0
+     * @return a new executor, not <code>null</code>
+     */
+    protected ExecutorService createMaintenanceExecutor() {
+        int threads = Math.max(1,
+                Runtime.getRuntime().availableProcessors() / 2);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                createDaemonThreadFactory("vaadin-maintenance-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Gets the executor that runs background tasks started using
+     * {@link VaadinSession#runAsync(Supplier, Consumer)} and
+     * {@link UI#runAsync(Supplier, Consumer)}. The executor is created when
+     * first needed using {@link #createBackgroundExecutor()} and shut down when
+     * this service is destroyed.
+     *
+     * @since 8.0
+     * @return the background executor, not <code>null</code>
+     */
+    public ExecutorService getBackgroundExecutor() {
+        ExecutorService executor = backgroundExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = backgroundExecutor;
+                if (executor == null) {
+                    executor = createBackgroundExecutor();
+                    backgroundExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Creates the executor returned by {@link #getBackgroundExecutor()}. The
+     * default implementation uses a pool of daemon threads with four threads
+     * for every processor, but at least eight threads, since background tasks
+     * typically spend most of their time waiting for I/O. Idle threads are
+     * stopped after a minute.
+     * <p>
+     * Override this method to use some other executor, e.g. a managed executor
+     * provided by the container or an executor that starts a virtual thread
+     * for every task on Java versions that support them.
+     *
+     * @since 8.0
+     * @return a new executor, not <code>null</code>
+     */
+    protected ExecutorService createBackgroundExecutor() {
+        int threads = Math.max(8,
+                4 * Runtime.getRuntime().availableProcessors());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                createDaemonThreadFactory("vaadin-background-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     /**
@@ -1764,6 +2207,114 @@ public abstract class VaadinService implements Serializable {
         return future;
     }
 
+    /**
+     * Implementation for {@link VaadinSession#runAsync(Supplier, Consumer)}.
+     * This method is implemented here instead of in {@link VaadinSession} to
+     * enable overriding the implementation without using a custom subclass of
+     * VaadinSession.
+     *
+     * @since 8.0
+     * @see VaadinSession#runAsync(Supplier, Consumer)
+     *
+     * @param session
+     *            the vaadin session to deliver the result to
+     * @param task
+     *            the task to run in the background, not <code>null</code>
+     * @param resultHandler
+     *            the handler that receives the result of the task while the
+     *            session is locked, or <code>null</code> to ignore the result
+     * @return a future that completes with the result of the task
+     */
+    public <T> CompletableFuture<T> runAsync(VaadinSession session,
+            Supplier<T> task, Consumer<? super T> resultHandler) {
+        return runInBackground(
+                () -> CurrentInstance.setCurrentInstances(session), task,
+                session::access, resultHandler);
+    }
+
+    /**
+     * Implementation for {@link UI#runAsync(Supplier, Consumer)}. This method
+     * is implemented here instead of in {@link UI} to enable overriding the
+     * implementation without using a custom subclass of UI.
+     *
+     * @since 8.0
+     * @see UI#runAsync(Supplier, Consumer)
+     *
+     * @param ui
+     *            the UI to deliver the result to
+     * @param task
+     *            the task to run in the background, not <code>null</code>
+     * @param resultHandler
+     *            the handler that receives the result of the task while the
+     *            UI is locked, or <code>null</code> to ignore the result
+     * @return a future that completes with the result of the task
+     */
+    public <T> CompletableFuture<T> runAsync(UI ui, Supplier<T> task,
+            Consumer<? super T> resultHandler) {
+        return runInBackground(() -> CurrentInstance.setCurrentInstances(ui),
+                task, ui::access, resultHandler);
+    }
+
+    private <T> CompletableFuture<T> runInBackground(
+            Runnable setCurrentInstances, Supplier<T> task,
+            Function<Runnable, Future<Void>> access,
+            Consumer<? super T> resultHandler) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task cannot be null");
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CurrentInstance.Snapshot inherited = CurrentInstance
+                .takeSnapshot(true);
+        getBackgroundExecutor().execute(() -> {
+            if (future.isDone()) {
+                // Cancelled before it was started
+                return;
+            }
+            CurrentInstance.Snapshot oldInstances = CurrentInstance
+                    .takeSnapshot(false);
+            try {
+                CurrentInstance.restoreSnapshot(inherited);
+                setCurrentInstances.run();
+
+                T result;
+                try {
+                    result = task.get();
+                } catch (RuntimeException e) {
+                    if (future.completeExceptionally(e)) {
+                        // Reported through the error handler of the session
+                        // or UI
+                        deliverResult(access, () -> {
+                            throw e;
+                        });
+                    }
+                    return;
+                } catch (Error e) {
+                    future.completeExceptionally(e);
+                    throw e;
+                }
+
+                // Not delivered if cancelled while running
+                if (future.complete(result) && resultHandler != null) {
+                    deliverResult(access, () -> resultHandler.accept(result));
+                }
+            } finally {
+                CurrentInstance.restoreSnapshot(oldInstances);
+            }
+        });
+        return future;
+    }
+
+    private static void deliverResult(Function<Runnable, Future<Void>> access,
+            Runnable delivery) {
+        try {
+            access.apply(delivery);
+        } catch (UIDetachedException e) {
+            getLogger().log(Level.FINE,
+                    "UI was closed before the result of a background task could be delivered",
+                    e);
+        }
+    }
+
     /**
      * Makes sure the pending access queue is purged for the provided session.
      * If the session is currently locked by the current thread or some other
@@ -1789,14 +2340,28 @@ public abstract class VaadinService implements Serializable {
          * thread and we acquire it, we just release it again to purge the queue
          * right away.
          */
-        try {
-            // tryLock() would be shorter, but it does not guarantee fairness
-            if (session.getLockInstance().tryLock(0, TimeUnit.SECONDS)) {
-                // unlock triggers runPendingAccessTasks
-                session.unlock();
-            }
-        } catch (InterruptedException e) {
-            // Just ignore
+        if (session.tryLock()) {
+            // unlock triggers runPendingAccessTasks
+            session.unlock();
+        }
+    }
+
+    /**
+     * Makes sure the pending access queue is purged for the provided UI when
+     * {@link VaadinSession#isUILockStripingEnabled() UI lock striping} is
+     * enabled. If the UI is currently locked, the queue will be purged when
+     * the UI is unlocked. Otherwise the lock of the UI is acquired and the
+     * queue is purged right away.
+     *
+     * @since 8.0
+     * @param ui
+     *            the UI for which the access queue should be purged
+     */
+    public void ensureAccessQueuePurged(UI ui) {
+        VaadinSession session = ui.getSession();
+        if (session != null && session.tryLockUI(ui)) {
+            // unlockUI triggers runPendingAccessTasks
+            session.unlockUI(ui);
         }
     }
 
@@ -1818,18 +2383,19 @@ public abstract class VaadinService implements Serializable {
             return;
         }
 
-        Map<Class<?>, CurrentInstance> oldInstances = CurrentInstance
-                .getInstances(false);
+        CurrentInstance.Snapshot oldInstances = CurrentInstance
+                .takeSnapshot(false);
 
         FutureAccess pendingAccess;
+        int taskCount = 0;
         try {
             while ((pendingAccess = session.getPendingAccessQueue()
                     .poll()) != null) {
+                taskCount++;
                 if (!pendingAccess.isCancelled()) {
-                    CurrentInstance.clearAll();
-                    CurrentInstance.restoreInstances(
-                            pendingAccess.getCurrentInstances());
-                    CurrentInstance.setCurrent(session);
+                    CurrentInstance.restoreSnapshot(
+                            pendingAccess.getCurrentInstanceSnapshot());
+                    CurrentInstance.setCurrentInstances(session);
                     pendingAccess.run();
 
                     try {
@@ -1841,8 +2407,60 @@ public abstract class VaadinService implements Serializable {
                 }
             }
         } finally {
-            CurrentInstance.clearAll();
-            CurrentInstance.restoreInstances(oldInstances);
+            CurrentInstance.restoreSnapshot(oldInstances);
+            getMetrics().recordCount(
+                    ServiceMetrics.Counter.PENDING_ACCESS_TASKS, taskCount);
+        }
+    }
+
+    /**
+     * Purges the queue of pending access invocations enqueued with
+     * {@link UI#access(Runnable)} when
+     * {@link VaadinSession#isUILockStripingEnabled() UI lock striping} is
+     * enabled.
+     * <p>
+     * This method is automatically run by the framework at appropriate
+     * situations and is not intended to be used by application developers.
+     *
+     * @param ui
+     *            the UI to purge the queue for
+     * @since 8.0
+     */
+    public void runPendingAccessTasks(UI ui) {
+        assert ((ReentrantLock) ui.getLockInstance()).isHeldByCurrentThread()
+                || ui.getSession() == null || ui.getSession().hasLock();
+
+        if (ui.getPendingAccessQueue().isEmpty()) {
+            return;
+        }
+
+        CurrentInstance.Snapshot oldInstances = CurrentInstance
+                .takeSnapshot(false);
+
+        FutureAccess pendingAccess;
+        int taskCount = 0;
+        try {
+            while ((pendingAccess = ui.getPendingAccessQueue()
+                    .poll()) != null) {
+                taskCount++;
+                if (!pendingAccess.isCancelled()) {
+                    CurrentInstance.restoreSnapshot(
+                            pendingAccess.getCurrentInstanceSnapshot());
+                    CurrentInstance.setCurrentInstances(ui);
+                    pendingAccess.run();
+
+                    try {
+                        pendingAccess.get();
+
+                    } catch (Exception exception) {
+                        pendingAccess.handleError(exception);
+                    }
+                }
+            }
+        } finally {
+            CurrentInstance.restoreSnapshot(oldInstances);
+            getMetrics().recordCount(
+                    ServiceMetrics.Counter.PENDING_ACCESS_TASKS, taskCount);
         }
     }
 
@@ -1889,6 +2507,18 @@ public abstract class VaadinService implements Serializable {
      */
     public void destroy() {
         eventRouter.fireEvent(new ServiceDestroyEvent(this));
+        ScheduledExecutorService executor = scheduledExecutor;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        ExecutorService maintenance = maintenanceExecutor;
+        if (maintenance != null) {
+            maintenance.shutdownNow();
+        }
+        ExecutorService background = backgroundExecutor;
+        if (background != null) {
+            background.shutdownNow();
+        }
     }
 
     /**
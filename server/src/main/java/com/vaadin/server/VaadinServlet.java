@@ -183,6 +183,8 @@ public class VaadinServlet extends HttpServlet implements Constants {
 
     private VaadinServletService servletService;
 
+    private transient volatile StaticResourceCache staticResourceCache;
+
     /**
      * Called by the servlet container to indicate to a servlet that the servlet
      * is being placed into service.
@@ -780,6 +782,42 @@ public class VaadinServlet extends HttpServlet implements Constants {
         response.setDateHeader("Expires",
                 System.currentTimeMillis() + (resourceCacheTime * 1000));
 
+        StaticResourceCache.CachedResource cachedResource = getCachedStaticResource(
+                resourceUrl);
+        if (cachedResource != null) {
+            long lastModifiedTime = cachedResource.getLastModified();
+            if (lastModifiedTime > 0) {
+                response.setDateHeader("Last-Modified", lastModifiedTime);
+            }
+            // If-None-Match takes precedence and is checked when writing
+            if (request.getHeader("If-None-Match") == null
+                    && browserHasNewestVersion(request, lastModifiedTime)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        } else {
+            if (checkLastModified(request, response, resourceUrl)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+
+        // Set type mime type if we can determine it based on the filename
+        final String mimetype = sc.getMimeType(filename);
+        if (mimetype != null) {
+            response.setContentType(mimetype);
+        }
+
+        writeStaticResourceResponse(request, response, resourceUrl);
+    }
+
+    /**
+     * Sets the Last-Modified header of a resource that is not cached.
+     *
+     * @return <code>true</code> if the browser already has the newest version
+     */
+    private boolean checkLastModified(HttpServletRequest request,
+            HttpServletResponse response, URL resourceUrl) {
         // Find the modification timestamp
         long lastModifiedTime = 0;
         URLConnection connection = null;
@@ -793,8 +831,7 @@ public class VaadinServlet extends HttpServlet implements Constants {
             response.setDateHeader("Last-Modified", lastModifiedTime);
 
             if (browserHasNewestVersion(request, lastModifiedTime)) {
-                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
-                return;
+                return true;
             }
         } catch (Exception e) {
             // Failed to find out last modified timestamp. Continue without it.
@@ -817,14 +854,51 @@ public class VaadinServlet extends HttpServlet implements Constants {
                         "Error closing URLConnection input stream", e);
             }
         }
+        return false;
+    }
 
-        // Set type mime type if we can determine it based on the filename
-        final String mimetype = sc.getMimeType(filename);
-        if (mimetype != null) {
-            response.setContentType(mimetype);
+    /**
+     * Gets the cached representation of a static resource if static resources
+     * are cached and the resource fits in the cache.
+     *
+     * @param resourceUrl
+     *            the URL of the resource
+     * @return the cached resource, or <code>null</code> if it is not cached
+     */
+    private StaticResourceCache.CachedResource getCachedStaticResource(
+            URL resourceUrl) {
+        StaticResourceCache cache = getStaticResourceCache();
+        if (cache == null) {
+            return null;
         }
+        try {
+            return cache.get(resourceUrl);
+        } catch (IOException e) {
+            // Let the uncached code path deal with the problem
+            getLogger().log(Level.FINEST,
+                    "Failed to cache static resource " + resourceUrl, e);
+            return null;
+        }
+    }
 
-        writeStaticResourceResponse(request, response, resourceUrl);
+    private StaticResourceCache getStaticResourceCache() {
+        StaticResourceCache cache = staticResourceCache;
+        if (cache == null) {
+            DeploymentConfiguration configuration = getService()
+                    .getDeploymentConfiguration();
+            long cacheSize = configuration.getStaticResourceCacheSize();
+            if (!configuration.isProductionMode() || cacheSize <= 0) {
+                return null;
+            }
+            synchronized (this) {
+                cache = staticResourceCache;
+                if (cache == null) {
+                    cache = new StaticResourceCache(cacheSize);
+                    staticResourceCache = cache;
+                }
+            }
+        }
+        return cache;
     }
 
     /**
@@ -867,6 +941,12 @@ public class VaadinServlet extends HttpServlet implements Constants {
     /**
      * Writes the contents of the given resourceUrl in the response. Can be
      * overridden to add/modify response headers and similar.
+     * <p>
+     * In production mode, resources are served from an in-memory cache whose
+     * size is configured using
+     * {@link DeploymentConfiguration#getStaticResourceCacheSize()}. Cached
+     * responses include a strong <code>ETag</code> and support
+     * <code>If-None-Match</code> and byte <code>Range</code> requests.
      *
      * @param request
      *            The request for the resource
@@ -883,6 +963,16 @@ public class VaadinServlet extends HttpServlet implements Constants {
         InputStream is = null;
         String urlStr = resourceUrl.toExternalForm();
 
+        StaticResourceCache.CachedResource cachedResource = getCachedStaticResource(
+                resourceUrl);
+        if (cachedResource != null) {
+            boolean gzipped = cachedResource.hasGzippedContent()
+                    && allowServePrecompressedResource(request, urlStr);
+            StaticResourceCache.writeResponse(request, response,
+                    cachedResource, gzipped);
+            return;
+        }
+
         if (allowServePrecompressedResource(request, urlStr)) {
             // try to serve a precompressed version if available
             try {
@@ -900,6 +990,11 @@ public class VaadinServlet extends HttpServlet implements Constants {
             }
         }
         if (is == null) {
+            File file = StaticResourceCache.toFile(resourceUrl);
+            if (file != null) {
+                StaticResourceCache.writeFile(response, file);
+                return;
+            }
             // precompressed resource not available, get non compressed
             connection = resourceUrl.openConnection();
             try {
@@ -21,6 +21,7 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
@@ -33,12 +34,20 @@ import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -82,8 +91,8 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
          * Snapshot of all non-inheritable current instances at the time this
          * object was created.
          */
-        private final Map<Class<?>, CurrentInstance> instances = CurrentInstance
-                .getInstances(true);
+        private final CurrentInstance.Snapshot instances = CurrentInstance
+                .takeSnapshot(true);
         private final VaadinSession session;
         private final Runnable runnable;
 
@@ -128,6 +137,19 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
          * @return a map of current instances.
          */
         public Map<Class<?>, CurrentInstance> getCurrentInstances() {
+            return instances.toMap();
+        }
+
+        /**
+         * Gets the current instance values that should be used when running
+         * this task as a snapshot that can be restored without copying.
+         *
+         * @see CurrentInstance#restoreSnapshot(CurrentInstance.Snapshot)
+         *
+         * @return a snapshot of current instances, not <code>null</code>
+         * @since 8.0
+         */
+        public CurrentInstance.Snapshot getCurrentInstanceSnapshot() {
             return instances;
         }
 
@@ -226,10 +248,10 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
     @Deprecated
     private Object converterFactory;
 
-    private LinkedList<RequestHandler> requestHandlers = new LinkedList<>();
+    private CopyOnWriteArrayList<RequestHandler> requestHandlers = new CopyOnWriteArrayList<>();
 
     private int nextUIId = 0;
-    private Map<Integer, UI> uIs = new HashMap<>();
+    private Map<Integer, UI> uIs = new ConcurrentHashMap<>();
 
     private final Map<String, Integer> embedIdMap = new HashMap<>();
 
@@ -247,13 +269,14 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
 
     private long lastRequestDuration = -1;
 
-    private long lastRequestTimestamp = System.currentTimeMillis();
+    // Updated by RPC handling that might only hold the lock of a UI
+    private volatile long lastRequestTimestamp = System.currentTimeMillis();
 
     private State state = State.OPEN;
 
     private transient WrappedSession session;
 
-    private final Map<String, Object> attributes = new HashMap<>();
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
 
     private LinkedList<UIProvider> uiProviders = new LinkedList<>();
 
@@ -268,6 +291,23 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      */
     private transient ConcurrentLinkedQueue<FutureAccess> pendingAccessQueue = new ConcurrentLinkedQueue<>();
 
+    /*
+     * Book keeping for UI lock striping, all guarded by the session lock
+     * except uiLockHolders which is also read without it.
+     */
+    private transient Map<Thread, Integer> uiLockHolders = new ConcurrentHashMap<>();
+    private transient int lockedUIs;
+    private transient int exclusiveWaiters;
+    private transient volatile Thread exclusiveOwner;
+    private transient int exclusiveHoldCount;
+    private transient Condition lockStateChanged;
+
+    /*
+     * Registration for the background clean up done by VaadinService. Not
+     * serialized, registered again by the next request after deserialization.
+     */
+    private transient volatile SessionMaintenanceScheduler.Entry maintenanceEntry;
+
     /**
      * Creates a new VaadinSession tied to a VaadinService.
      *
@@ -429,10 +469,17 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
     }
 
     public DragAndDropService getDragAndDropService() {
-        if (dragAndDropService == null) {
-            dragAndDropService = new DragAndDropService(this);
+        // UIs might be locked separately, the session lock guards the field
+        Lock lock = getLockInstance();
+        lock.lock();
+        try {
+            if (dragAndDropService == null) {
+                dragAndDropService = new DragAndDropService(this);
+            }
+            return dragAndDropService;
+        } finally {
+            lock.unlock();
         }
-        return dragAndDropService;
     }
 
     /**
@@ -657,7 +704,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      */
     public void addRequestHandler(RequestHandler handler) {
         assert hasLock();
-        requestHandlers.addFirst(handler);
+        requestHandlers.add(0, handler);
     }
 
     /**
@@ -751,7 +798,11 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         return Collections.unmodifiableCollection(uIs.values());
     }
 
-    private int connectorIdSequence = 0;
+    /*
+     * With UI lock striping, connectors of different UIs can be attached
+     * concurrently while only holding the lock of their own UI.
+     */
+    private final AtomicInteger connectorIdSequence = new AtomicInteger();
 
     private final String csrfToken = UUID.randomUUID().toString();
 
@@ -769,7 +820,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
     @Deprecated
     public String createConnectorId(ClientConnector connector) {
         assert hasLock();
-        return String.valueOf(connectorIdSequence++);
+        return String.valueOf(connectorIdSequence.getAndIncrement());
     }
 
     /**
@@ -787,6 +838,43 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         return uIs.get(uiId);
     }
 
+    /**
+     * Gets the registration of this session for the background clean up.
+     *
+     * @return the registration, or <code>null</code> if not registered
+     */
+    SessionMaintenanceScheduler.Entry getMaintenanceEntry() {
+        return maintenanceEntry;
+    }
+
+    /**
+     * Sets the registration of this session for the background clean up.
+     *
+     * @param maintenanceEntry
+     *            the registration, or <code>null</code> if not registered
+     */
+    void setMaintenanceEntry(SessionMaintenanceScheduler.Entry maintenanceEntry) {
+        this.maintenanceEntry = maintenanceEntry;
+    }
+
+    /**
+     * Returns a UI with the given id without requiring the session to be
+     * locked. Only state that is safe to use concurrently, such as the
+     * {@link UI#setLastHeartbeatTimestamp(long) heartbeat timestamp}, may be
+     * accessed without locking the session or the UI.
+     * <p>
+     * This is meant for framework internal use.
+     * </p>
+     *
+     * @param uiId
+     *            The UI id
+     * @return The UI with the given id or null if not found
+     * @since 8.0
+     */
+    public UI getUIByIdWithoutLock(int uiId) {
+        return uIs.get(uiId);
+    }
+
     /**
      * Checks if the current thread has exclusive access to this VaadinSession
      *
@@ -795,7 +883,28 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      */
     public boolean hasLock() {
         ReentrantLock l = ((ReentrantLock) getLockInstance());
-        return l.isHeldByCurrentThread();
+        if (l.isHeldByCurrentThread()) {
+            return true;
+        }
+        // With lock striping, holding the lock of any UI gives access
+        return isUILockStripingEnabled()
+                && uiLockHolders.containsKey(Thread.currentThread());
+    }
+
+    /**
+     * Checks whether the UIs of this session are protected by locks of their
+     * own instead of the session lock.
+     *
+     * @see DeploymentConfiguration#isUILockStripingEnabled()
+     * @see #lockUI(UI)
+     *
+     * @return <code>true</code> if UI lock striping is enabled,
+     *         <code>false</code> otherwise
+     * @since 8.0
+     */
+    public boolean isUILockStripingEnabled() {
+        return configuration != null
+                && configuration.isUILockStripingEnabled();
     }
 
     /**
@@ -847,6 +956,23 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
                 BOOTSTRAP_PAGE_METHOD);
     }
 
+    /**
+     * Checks whether any bootstrap listeners have been added to this session.
+     * The bootstrap HTML can be generated from a cached template when there
+     * are no listeners that could modify it.
+     *
+     * @see #addBootstrapListener(BootstrapListener)
+     *
+     * @return <code>true</code> if there are bootstrap listeners,
+     *         <code>false</code> otherwise
+     * @since 8.0
+     */
+    boolean hasBootstrapListeners() {
+        assert hasLock();
+        return eventRouter.hasListeners(BootstrapFragmentResponse.class)
+                || eventRouter.hasListeners(BootstrapPageResponse.class);
+    }
+
     /**
      * Fires a bootstrap event to all registered listeners. There are currently
      * two supported events, both inheriting from {@link BootstrapResponse}:
@@ -904,12 +1030,19 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
     public GlobalResourceHandler getGlobalResourceHandler(
             boolean createOnDemand) {
         assert hasLock();
-        if (globalResourceHandler == null && createOnDemand) {
-            globalResourceHandler = new GlobalResourceHandler();
-            addRequestHandler(globalResourceHandler);
-        }
+        // UIs might be locked separately, the session lock guards the field
+        Lock lock = getLockInstance();
+        lock.lock();
+        try {
+            if (globalResourceHandler == null && createOnDemand) {
+                globalResourceHandler = new GlobalResourceHandler();
+                addRequestHandler(globalResourceHandler);
+            }
 
-        return globalResourceHandler;
+            return globalResourceHandler;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -967,13 +1100,268 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      * <p>
      * {@link #getLockInstance()} can be used if more control over the locking
      * is required.
+     * <p>
+     * If {@link #isUILockStripingEnabled() UI lock striping} is enabled, a
+     * thread that does not hold the lock of any UI in this session gets
+     * exclusive access to the whole session: the method also waits until no
+     * other thread holds the lock of a UI in this session and no UI can be
+     * locked before the session is unlocked. A thread that already holds the
+     * lock of a UI only gets the session lock, for updating data shared by all
+     * UIs of the session.
      *
      * @see #unlock()
      * @see #getLockInstance()
      * @see #hasLock()
      */
     public void lock() {
-        getLockInstance().lock();
+        if (isUILockStripingEnabled()) {
+            lockStriped(true);
+        } else {
+            getLockInstance().lock();
+        }
+    }
+
+    /**
+     * Locks this session if it can be done without waiting. If the lock was
+     * acquired, it must be released using {@link #unlock()}, just like after
+     * {@link #lock()}.
+     *
+     * @see #lock()
+     *
+     * @return <code>true</code> if the session was locked, <code>false</code>
+     *         if some other thread currently has access to the session
+     * @since 8.0
+     */
+    public boolean tryLock() {
+        if (isUILockStripingEnabled()) {
+            return lockStriped(false);
+        }
+        return tryLock(getLockInstance());
+    }
+
+    private static boolean tryLock(Lock lock) {
+        try {
+            // tryLock() would be shorter, but it does not guarantee fairness
+            return lock.tryLock(0, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    private boolean lockStriped(boolean wait) {
+        Lock lock = getLockInstance();
+        if (wait) {
+            lock.lock();
+        } else if (!tryLock(lock)) {
+            return false;
+        }
+
+        Thread currentThread = Thread.currentThread();
+        if (exclusiveOwner == currentThread) {
+            exclusiveHoldCount++;
+            return true;
+        }
+        if (uiLockHolders.containsKey(currentThread)) {
+            // Session wide book keeping by a thread that owns a UI
+            return true;
+        }
+        if (lockedUIs > 0) {
+            if (!wait) {
+                lock.unlock();
+                return false;
+            }
+            exclusiveWaiters++;
+            try {
+                while (lockedUIs > 0) {
+                    getLockStateChanged().awaitUninterruptibly();
+                }
+            } finally {
+                exclusiveWaiters--;
+            }
+        }
+        exclusiveOwner = currentThread;
+        exclusiveHoldCount = 1;
+        return true;
+    }
+
+    private Condition getLockStateChanged() {
+        // Only used while holding the session lock
+        if (lockStateChanged == null) {
+            lockStateChanged = getLockInstance().newCondition();
+        }
+        return lockStateChanged;
+    }
+
+    /**
+     * Locks the given UI of this session. Used by the framework to give a
+     * thread access to the state of a single UI, e.g. while handling a UIDL
+     * request, a push message or a {@link UI#access(Runnable)} task. Must be
+     * paired with {@link #unlockUI(UI)} in a finally block.
+     * <p>
+     * If {@link #isUILockStripingEnabled() UI lock striping} is enabled, the
+     * lock of the UI is acquired and other UIs of this session can be locked
+     * by other threads at the same time. The session lock itself is not held,
+     * but {@link #hasLock()} returns <code>true</code> while the lock of a UI
+     * is held. If lock striping is not enabled, the whole session is locked
+     * just like with {@link #lock()}.
+     *
+     * @param ui
+     *            the UI to lock, not <code>null</code>
+     * @throws IllegalStateException
+     *             if the current thread holds the lock of another UI in this
+     *             session
+     * @since 8.0
+     */
+    public void lockUI(UI ui) {
+        if (!isUILockStripingEnabled()) {
+            lock();
+            return;
+        }
+        ReentrantLock uiLock = (ReentrantLock) ui.getLockInstance();
+        if (uiLock.isHeldByCurrentThread()) {
+            uiLock.lock();
+            return;
+        }
+        Thread currentThread = Thread.currentThread();
+        if (exclusiveOwner == currentThread) {
+            // Exclusive access to the session includes all its UIs
+            return;
+        }
+        if (uiLockHolders.containsKey(currentThread)) {
+            throw new IllegalStateException(
+                    "Cannot lock a UI while holding the lock of another UI in the same session. Use UI.access instead.");
+        }
+        assert !((ReentrantLock) getLockInstance())
+                .isHeldByCurrentThread() : "The session lock must not be held while locking a UI";
+
+        uiLock.lock();
+        registerUILock(true);
+    }
+
+    /**
+     * Locks the given UI of this session if it can be done without waiting.
+     * If the lock was acquired, it must be released using
+     * {@link #unlockUI(UI)}.
+     *
+     * @see #lockUI(UI)
+     *
+     * @param ui
+     *            the UI to lock, not <code>null</code>
+     * @return <code>true</code> if the UI was locked by this call,
+     *         <code>false</code> if the UI is already locked by this or some
+     *         other thread
+     * @since 8.0
+     */
+    public boolean tryLockUI(UI ui) {
+        if (!isUILockStripingEnabled()) {
+            return tryLock();
+        }
+        if (exclusiveOwner == Thread.currentThread()) {
+            return false;
+        }
+        ReentrantLock uiLock = (ReentrantLock) ui.getLockInstance();
+        if (!tryLock(uiLock)) {
+            return false;
+        }
+        if (uiLock.getHoldCount() > 1 || !registerUILock(false)) {
+            uiLock.unlock();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Unlocks a UI locked using {@link #lockUI(UI)}. When the lock of the UI is
+     * released, pending {@link UI#access(Runnable)} tasks of the UI are run
+     * and changes are pushed if the UI uses {@link PushMode#AUTOMATIC automatic}
+     * push.
+     *
+     * @param ui
+     *            the UI to unlock, not <code>null</code>
+     * @since 8.0
+     */
+    public void unlockUI(UI ui) {
+        if (!isUILockStripingEnabled()) {
+            unlock();
+            return;
+        }
+        ReentrantLock uiLock = (ReentrantLock) ui.getLockInstance();
+        if (!uiLock.isHeldByCurrentThread()) {
+            assert exclusiveOwner == Thread
+                    .currentThread() : "The UI has not been locked by this thread";
+            return;
+        }
+        if (uiLock.getHoldCount() > 1) {
+            uiLock.unlock();
+            return;
+        }
+
+        boolean purgeSessionQueue;
+        try {
+            getService().runPendingAccessTasks(ui);
+            if (ui.getSession() == this && ui.getPushConfiguration()
+                    .getPushMode() == PushMode.AUTOMATIC) {
+                CurrentInstance.Snapshot oldCurrent = CurrentInstance
+                        .setCurrentInstances(ui);
+                try {
+                    ui.pushAutomatically();
+                } finally {
+                    CurrentInstance.restoreSnapshot(oldCurrent);
+                }
+            }
+        } finally {
+            purgeSessionQueue = unregisterUILock();
+            uiLock.unlock();
+        }
+
+        // See unlock() for why the queues are checked again
+        if (!ui.getPendingAccessQueue().isEmpty()) {
+            getService().ensureAccessQueuePurged(ui);
+        }
+        if (purgeSessionQueue) {
+            getService().ensureAccessQueuePurged(this);
+        }
+    }
+
+    private boolean registerUILock(boolean wait) {
+        Lock lock = getLockInstance();
+        if (wait) {
+            lock.lock();
+        } else if (!tryLock(lock)) {
+            // Exclusively locked or busy with book keeping
+            return false;
+        }
+        try {
+            // Let threads waiting for exclusive access go first
+            while (exclusiveWaiters > 0) {
+                if (!wait) {
+                    return false;
+                }
+                getLockStateChanged().awaitUninterruptibly();
+            }
+            lockedUIs++;
+            uiLockHolders.merge(Thread.currentThread(), 1, Integer::sum);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean unregisterUILock() {
+        Lock lock = getLockInstance();
+        lock.lock();
+        try {
+            lockedUIs--;
+            uiLockHolders.computeIfPresent(Thread.currentThread(),
+                    (thread, count) -> count == 1 ? null : count - 1);
+            if (lockedUIs > 0) {
+                return false;
+            }
+            getLockStateChanged().signalAll();
+            return exclusiveWaiters == 0 && !getPendingAccessQueue().isEmpty();
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -989,6 +1377,10 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      */
     public void unlock() {
         assert hasLock();
+        if (isUILockStripingEnabled()) {
+            unlockStriped();
+            return;
+        }
         boolean ultimateRelease = false;
         try {
             /*
@@ -1002,12 +1394,12 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
                 for (UI ui : getUIs()) {
                     if (ui.getPushConfiguration()
                             .getPushMode() == PushMode.AUTOMATIC) {
-                        Map<Class<?>, CurrentInstance> oldCurrent = CurrentInstance
-                                .setCurrent(ui);
+                        CurrentInstance.Snapshot oldCurrent = CurrentInstance
+                                .setCurrentInstances(ui);
                         try {
-                            ui.push();
+                            ui.pushAutomatically();
                         } finally {
-                            CurrentInstance.restoreInstances(oldCurrent);
+                            CurrentInstance.restoreSnapshot(oldCurrent);
                         }
                     }
                 }
@@ -1029,6 +1421,53 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         }
     }
 
+    private void unlockStriped() {
+        Lock lock = getLockInstance();
+        if (exclusiveOwner != Thread.currentThread()) {
+            // Only session wide book keeping was done
+            lock.unlock();
+            return;
+        }
+        if (exclusiveHoldCount > 1) {
+            exclusiveHoldCount--;
+            lock.unlock();
+            return;
+        }
+
+        List<UI> uis = new ArrayList<>(getUIs());
+        try {
+            // All UIs are accessible, so their tasks can be run as well
+            getService().runPendingAccessTasks(this);
+            for (UI ui : uis) {
+                getService().runPendingAccessTasks(ui);
+                if (ui.getPushConfiguration()
+                        .getPushMode() == PushMode.AUTOMATIC) {
+                    CurrentInstance.Snapshot oldCurrent = CurrentInstance
+                            .setCurrentInstances(ui);
+                    try {
+                        ui.pushAutomatically();
+                    } finally {
+                        CurrentInstance.restoreSnapshot(oldCurrent);
+                    }
+                }
+            }
+        } finally {
+            exclusiveOwner = null;
+            exclusiveHoldCount = 0;
+            getLockStateChanged().signalAll();
+            lock.unlock();
+        }
+
+        if (!getPendingAccessQueue().isEmpty()) {
+            getService().ensureAccessQueuePurged(this);
+        }
+        for (UI ui : uis) {
+            if (!ui.getPendingAccessQueue().isEmpty()) {
+                getService().ensureAccessQueuePurged(ui);
+            }
+        }
+    }
+
     /**
      * Stores a value in this service session. This can be used to associate
      * data with the current user so that it can be retrieved at a later point
@@ -1240,6 +1679,9 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
     public void close() {
         assert hasLock();
         state = State.CLOSING;
+        if (service != null) {
+            service.scheduleSessionCleanup(this);
+        }
     }
 
     /**
@@ -1330,15 +1772,15 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
     public void accessSynchronously(Runnable runnable) {
         VaadinService.verifyNoOtherSessionLocked(this);
 
-        Map<Class<?>, CurrentInstance> old = null;
+        CurrentInstance.Snapshot old = null;
         lock();
         try {
-            old = CurrentInstance.setCurrent(this);
+            old = CurrentInstance.setCurrentInstances(this);
             runnable.run();
         } finally {
             unlock();
             if (old != null) {
-                CurrentInstance.restoreInstances(old);
+                CurrentInstance.restoreSnapshot(old);
             }
         }
 
@@ -1392,6 +1834,43 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         return getService().accessSession(this, runnable);
     }
 
+    /**
+     * Runs a task in the background and delivers its result to this session.
+     * <p>
+     * The task is run using the {@link VaadinService#getBackgroundExecutor()
+     * background executor} of the service without holding the session lock,
+     * so it should not modify the session or its UIs. Inheritable values in
+     * {@link CurrentInstance} will have the same values as when this method
+     * was invoked, and {@link VaadinSession#getCurrent()} and
+     * {@link VaadinService#getCurrent()} are set according to this session.
+     * When the task is done, the result handler is run with the session
+     * locked in the same way as with {@link #access(Runnable)}. If the task
+     * throws an exception, it is passed to the error handler of this session
+     * instead.
+     * </p>
+     * <p>
+     * The returned future completes with the result of the task. Cancelling
+     * it before the task is done prevents the result from being delivered,
+     * but does not interrupt the task if it is already running.
+     * </p>
+     *
+     * @see #access(Runnable)
+     * @see UI#runAsync(Supplier, Consumer)
+     *
+     * @since 8.0
+     *
+     * @param task
+     *            the task to run in the background, not <code>null</code>
+     * @param resultHandler
+     *            the handler that receives the result of the task, or
+     *            <code>null</code> to ignore the result
+     * @return a future that completes with the result of the task
+     */
+    public <T> CompletableFuture<T> runAsync(Supplier<T> task,
+            Consumer<? super T> resultHandler) {
+        return getService().runAsync(this, task, resultHandler);
+    }
+
     /**
      * Gets the queue of tasks submitted using {@link #access(Runnable)}. It is
      * safe to call this method and access the returned queue without holding
@@ -1423,12 +1902,14 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      */
     private void readObject(ObjectInputStream stream)
             throws IOException, ClassNotFoundException {
-        Map<Class<?>, CurrentInstance> old = CurrentInstance.setCurrent(this);
+        CurrentInstance.Snapshot old = CurrentInstance
+                .setCurrentInstances(this);
         try {
             stream.defaultReadObject();
             pendingAccessQueue = new ConcurrentLinkedQueue<>();
+            uiLockHolders = new ConcurrentHashMap<>();
         } finally {
-            CurrentInstance.restoreInstances(old);
+            CurrentInstance.restoreSnapshot(old);
         }
     }
 
@@ -21,8 +21,6 @@ import java.io.ObjectInputStream;
 import java.io.Reader;
 import java.io.Serializable;
 import java.io.StringReader;
-import java.io.StringWriter;
-import java.io.Writer;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -164,9 +162,18 @@ public class AtmospherePushConnection implements PushConnection {
             }
         } else {
             try {
-                Writer writer = new StringWriter();
-                new UidlWriter().write(getUI(), writer, async);
-                sendMessage("for(;;);[{" + writer.toString() + "}]");
+                // Write the message envelope directly to avoid copying the
+                // whole message when concatenating
+                Utf8BufferWriter writer = new Utf8BufferWriter();
+                try {
+                    writer.write("for(;;);[{");
+                    new UidlWriter().write(getUI(), writer, async);
+                    writer.write("}]");
+                    writer.close();
+                    sendMessage(writer.toString());
+                } finally {
+                    writer.release();
+                }
             } catch (Exception e) {
                 throw new RuntimeException("Push failed", e);
             }
@@ -36,7 +36,6 @@ import elemental.json.Json;
 import elemental.json.JsonArray;
 import elemental.json.JsonException;
 import elemental.json.JsonValue;
-import elemental.json.impl.JsonUtil;
 
 /**
  * Serializes {@link ClientRpc client RPC} invocations to JSON.
@@ -62,7 +61,10 @@ public class ClientRpcWriter implements Serializable {
         Collection<ClientMethodInvocation> pendingInvocations = collectPendingRpcCalls(
                 ui.getConnectorTracker().getDirtyVisibleConnectors());
 
-        JsonArray rpcCalls = Json.createArray();
+        // Each invocation is stringified and written as soon as it is encoded,
+        // unless stringification is deferred by a UidlSnapshotWriter
+        writer.write('[');
+        boolean first = true;
         for (ClientMethodInvocation invocation : pendingInvocations) {
             // add invocation to rpcCalls
             try {
@@ -92,7 +94,11 @@ public class ClientRpcWriter implements Serializable {
                     paramJson.set(i, encodeResult.getEncodedValue());
                 }
                 invocationJson.set(3, paramJson);
-                rpcCalls.set(rpcCalls.length(), invocationJson);
+                if (!first) {
+                    writer.write(',');
+                }
+                UidlSnapshotWriter.writeJson(writer, invocationJson);
+                first = false;
             } catch (JsonException e) {
                 throw new PaintException(
                         "Failed to serialize RPC method call parameters for connector "
@@ -103,7 +109,7 @@ public class ClientRpcWriter implements Serializable {
                         e);
             }
         }
-        writer.write(JsonUtil.stringify(rpcCalls));
+        writer.write(']');
     }
 
     /**
@@ -63,7 +63,13 @@ public class ConnectorHierarchyWriter implements Serializable {
         Collection<ClientConnector> dirtyVisibleConnectors = ui
                 .getConnectorTracker().getDirtyVisibleConnectors();
 
-        JsonObject hierarchyInfo = Json.createObject();
+        // The sent hierarchy is only collected for a later assert
+        JsonObject hierarchyInfo = null;
+        assert (hierarchyInfo = Json.createObject()) != null;
+
+        // Each entry is written as soon as it is created
+        writer.write('{');
+        boolean first = true;
         for (ClientConnector connector : dirtyVisibleConnectors) {
             String connectorId = connector.getConnectorId();
             JsonArray children = Json.createArray();
@@ -80,7 +86,16 @@ public class ConnectorHierarchyWriter implements Serializable {
             if (children.length() > 0
                     || !stateUpdateConnectors.contains(connectorId)) {
                 try {
-                    hierarchyInfo.put(connectorId, children);
+                    if (!first) {
+                        writer.write(',');
+                    }
+                    writer.write(JsonUtil.quote(connectorId));
+                    writer.write(':');
+                    UidlSnapshotWriter.writeJson(writer, children);
+                    first = false;
+                    if (hierarchyInfo != null) {
+                        hierarchyInfo.put(connectorId, children);
+                    }
                 } catch (JsonException e) {
                     throw new PaintException(
                             "Failed to send hierarchy information about "
@@ -90,11 +105,11 @@ public class ConnectorHierarchyWriter implements Serializable {
                 }
             }
         }
+        writer.write('}');
+
         // Dummy assert just for conditionally storing away data that will be
         // used by the real assert later on
         assert storeSentHierarchy(hierarchyInfo, stateUpdateConnectors);
-
-        writer.write(JsonUtil.stringify(hierarchyInfo));
     }
 
     private boolean storeSentHierarchy(JsonObject hierarchyInfo,
@@ -17,12 +17,13 @@
 package com.vaadin.server.communication;
 
 import java.io.BufferedWriter;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import com.vaadin.server.ClientConnector;
 import com.vaadin.server.NoInputStreamException;
@@ -198,6 +199,217 @@ public class FileUploadHandler implements RequestHandler {
         }
     }
 
+    /**
+     * Stream that reads the headers and the content of a single part of a
+     * multipart request through a large buffer. Content is returned until the
+     * boundary string is encountered, which is searched for a block at a time
+     * using the Boyer-Moore-Horspool algorithm. Unlike
+     * {@link SimpleMultiPartInputStream}, reading into an array returns as many
+     * bytes as are known to precede the boundary.
+     *
+     * Public only for unit tests, should be considered private for all other
+     * purposes.
+     *
+     * @since 8.0
+     */
+    public static class BufferedMultiPartInputStream extends InputStream {
+
+        private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+        private final InputStream realInputStream;
+
+        /**
+         * CRLF--boundary, the delimiter that ends the content.
+         */
+        private final byte[] boundary;
+
+        /**
+         * The distance to shift the search window by, indexed by the byte at
+         * the end of the window.
+         */
+        private final int[] shift = new int[256];
+
+        private byte[] buffer;
+
+        /**
+         * The next unread byte in the buffer.
+         */
+        private int position = 0;
+
+        /**
+         * The end of the bytes read into the buffer.
+         */
+        private int limit = 0;
+
+        /**
+         * The end of the bytes known to be content, i.e. to precede the
+         * boundary.
+         */
+        private int contentEnd = 0;
+
+        /**
+         * Whether the boundary starts at {@link #contentEnd}.
+         */
+        private boolean boundaryFound = false;
+
+        public BufferedMultiPartInputStream(InputStream realInputStream,
+                String boundaryString) {
+            this(realInputStream, boundaryString, DEFAULT_BUFFER_SIZE);
+        }
+
+        public BufferedMultiPartInputStream(InputStream realInputStream,
+                String boundaryString, int bufferSize) {
+            this.realInputStream = realInputStream;
+            boundary = (CRLF + DASHDASH + boundaryString)
+                    .getBytes(StandardCharsets.ISO_8859_1);
+            buffer = new byte[Math.max(bufferSize, 2 * boundary.length)];
+
+            int last = boundary.length - 1;
+            Arrays.fill(shift, boundary.length);
+            for (int i = 0; i < last; i++) {
+                shift[boundary[i] & 0xff] = last - i;
+            }
+        }
+
+        /**
+         * Reads a header line terminated by LF. Must only be used before any
+         * content has been read.
+         *
+         * @return the line without the line terminator
+         * @throws IOException
+         *             if the stream ends before the end of the line
+         */
+        public String readLine() throws IOException {
+            int searchFrom = position;
+            while (true) {
+                for (int i = searchFrom; i < limit; i++) {
+                    if (buffer[i] == LF) {
+                        int end = i;
+                        if (end > position && buffer[end - 1] == '\r') {
+                            end--;
+                        }
+                        String line = new String(buffer, position,
+                                end - position, StandardCharsets.UTF_8);
+                        position = i + 1;
+                        contentEnd = position;
+                        return line;
+                    }
+                }
+                searchFrom = limit - position;
+                if (!fill()) {
+                    throw new IOException(
+                            "The multipart stream ended unexpectedly");
+                }
+                searchFrom += position;
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!ensureContent()) {
+                return -1;
+            }
+            return buffer[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!ensureContent()) {
+                return -1;
+            }
+            int count = Math.min(len, contentEnd - position);
+            System.arraycopy(buffer, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return contentEnd - position;
+        }
+
+        /**
+         * Makes sure there are content bytes after {@link #position}.
+         *
+         * @return <code>false</code> if the boundary has been reached
+         */
+        private boolean ensureContent() throws IOException {
+            while (position == contentEnd) {
+                if (boundaryFound) {
+                    return false;
+                }
+                int boundaryIndex = indexOfBoundary(position, limit);
+                if (boundaryIndex >= 0) {
+                    contentEnd = boundaryIndex;
+                    boundaryFound = true;
+                } else {
+                    /*
+                     * The last bytes may be the start of a boundary that
+                     * continues in the bytes not yet read.
+                     */
+                    int safeEnd = limit - boundary.length + 1;
+                    if (safeEnd > position) {
+                        contentEnd = safeEnd;
+                    } else if (!fill()) {
+                        throw new IOException(
+                                "The multipart stream ended unexpectedly");
+                    }
+                }
+            }
+            return true;
+        }
+
+        private int indexOfBoundary(int from, int to) {
+            int last = boundary.length - 1;
+            byte lastByte = boundary[last];
+            int i = from;
+            while (i + last < to) {
+                byte b = buffer[i + last];
+                if (b == lastByte) {
+                    int j = last - 1;
+                    while (j >= 0 && buffer[i + j] == boundary[j]) {
+                        j--;
+                    }
+                    if (j < 0) {
+                        return i;
+                    }
+                }
+                i += shift[b & 0xff];
+            }
+            return -1;
+        }
+
+        /**
+         * Moves the unread bytes to the start of the buffer and reads more
+         * bytes after them.
+         *
+         * @return <code>false</code> if the underlying stream has ended
+         */
+        private boolean fill() throws IOException {
+            if (position > 0) {
+                System.arraycopy(buffer, position, buffer, 0,
+                        limit - position);
+                limit -= position;
+                contentEnd -= position;
+                position = 0;
+            }
+            if (limit == buffer.length) {
+                // A very long header line
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int read = realInputStream.read(buffer, limit,
+                    buffer.length - limit);
+            if (read < 0) {
+                return false;
+            }
+            limit += read;
+            return true;
+        }
+    }
+
     /**
      * An UploadInterruptedException will be thrown by an ongoing upload if
      * {@link StreamVariable#isInterrupted()} returns <code>true</code>.
@@ -228,9 +440,10 @@ public class FileUploadHandler implements RequestHandler {
     private static final String DASHDASH = "--";
 
     /*
-     * Same as in apache commons file upload library that was previously used.
+     * The size of the chunks the uploaded bytes are written to the receiver
+     * in.
      */
-    private static final int MAX_UPLOAD_BUFFER_SIZE = 4 * 1024;
+    private static final int MAX_UPLOAD_BUFFER_SIZE = 64 * 1024;
 
     /* Minimum interval which will be used for streaming progress events. */
     public static final int DEFAULT_STREAMING_PROGRESS_EVENT_INTERVAL_MS = 500;
@@ -296,21 +509,6 @@ public class FileUploadHandler implements RequestHandler {
         return true;
     }
 
-    private static String readLine(InputStream stream) throws IOException {
-        ByteArrayOutputStream bout = new ByteArrayOutputStream();
-        int readByte = stream.read();
-        while (readByte != LF) {
-            if (readByte == -1) {
-                throw new IOException(
-                        "The multipart stream ended unexpectedly");
-            }
-            bout.write(readByte);
-            readByte = stream.read();
-        }
-        byte[] bytes = bout.toByteArray();
-        return new String(bytes, 0, bytes.length - 1, UTF8);
-    }
-
     /**
      * Method used to stream content from a multipart request (either from
      * servlet or portlet request) to given StreamVariable.
@@ -345,7 +543,13 @@ public class FileUploadHandler implements RequestHandler {
         // multipart parsing, supports only one file for request, but that is
         // fine for our current terminal
 
-        final InputStream inputStream = request.getInputStream();
+        /*
+         * Reads the headers line by line and then the bytes of the file from
+         * the underlying stream until the boundary string is met. Both are
+         * read through the same buffer.
+         */
+        BufferedMultiPartInputStream multiPartReader = new BufferedMultiPartInputStream(
+                request.getInputStream(), boundary);
 
         long contentLength = getContentLength(request);
 
@@ -360,7 +564,7 @@ public class FileUploadHandler implements RequestHandler {
          * filename and content type from multipart headers.
          */
         while (!atStart) {
-            String readLine = readLine(inputStream);
+            String readLine = multiPartReader.readLine();
             contentLength -= (readLine.getBytes(UTF8).length + CRLF.length());
             if (readLine.startsWith("Content-Disposition:")
                     && readLine.indexOf("filename=") > 0) {
@@ -380,22 +584,6 @@ public class FileUploadHandler implements RequestHandler {
         contentLength -= (boundary.length() + CRLF.length()
                 + 2 * DASHDASH.length() + CRLF.length());
 
-        /*
-         * Reads bytes from the underlying stream. Compares the read bytes to
-         * the boundary string and returns -1 if met.
-         *
-         * The matching happens so that if the read byte equals to the first
-         * char of boundary string, the stream goes to "buffering mode". In
-         * buffering mode bytes are read until the character does not match the
-         * corresponding from boundary string or the full boundary string is
-         * found.
-         *
-         * Note, if this is someday needed elsewhere, don't shoot yourself to
-         * foot and split to a top level helper class.
-         */
-        InputStream simpleMultiPartReader = new SimpleMultiPartInputStream(
-                inputStream, boundary);
-
         /*
          * Should report only the filename even if the browser sends the path
          */
@@ -403,7 +591,7 @@ public class FileUploadHandler implements RequestHandler {
         final String mimeType = rawMimeType;
 
         try {
-            handleFileUploadValidationAndData(session, simpleMultiPartReader,
+            handleFileUploadValidationAndData(session, multiPartReader,
                     streamVariable, filename, mimeType, contentLength, owner,
                     variableName);
         } catch (UploadException e) {
@@ -558,6 +746,11 @@ public class FileUploadHandler implements RequestHandler {
             }
 
             final byte buffer[] = new byte[MAX_UPLOAD_BUFFER_SIZE];
+            int progressEventInterval = streamVariable
+                    .getProgressEventInterval();
+            if (progressEventInterval < 0) {
+                progressEventInterval = getProgressEventInterval();
+            }
             long lastStreamingEvent = 0;
             int bytesReadToBuffer = 0;
             do {
@@ -570,7 +763,7 @@ public class FileUploadHandler implements RequestHandler {
                     long now = System.currentTimeMillis();
                     // to avoid excessive session locking and event storms,
                     // events are sent in intervals, or at the end of the file.
-                    if (lastStreamingEvent + getProgressEventInterval() <= now
+                    if (lastStreamingEvent + progressEventInterval <= now
                             || bytesReadToBuffer <= 0) {
                         lastStreamingEvent = now;
                         session.lock();
@@ -634,7 +827,9 @@ public class FileUploadHandler implements RequestHandler {
      * interval rather than every time the buffer is filled. This fixes #13155.
      * To adjust this value override the method, and register your own handler
      * in VaadinService.createRequestHandlers(). The default is 500ms, and
-     * setting it to 0 effectively restores the old behavior.
+     * setting it to 0 effectively restores the old behavior. A stream variable
+     * can use its own interval through
+     * {@link StreamVariable#getProgressEventInterval()}.
      */
     protected int getProgressEventInterval() {
         return DEFAULT_STREAMING_PROGRESS_EVENT_INTERVAL_MS;
@@ -20,6 +20,7 @@ import java.io.IOException;
 
 import javax.servlet.http.HttpServletResponse;
 
+import com.vaadin.server.DeploymentConfiguration;
 import com.vaadin.server.ServletPortletHelper;
 import com.vaadin.server.SessionExpiredHandler;
 import com.vaadin.server.SynchronizedRequestHandler;
@@ -36,6 +37,10 @@ import com.vaadin.ui.UI;
  * no UIDL requests for a prolonged period of time. UIs that do not receive
  * either heartbeat or UIDL requests are eventually removed from the session and
  * garbage collected.
+ * <p>
+ * If sessions are cleaned up in the background (see
+ * {@link DeploymentConfiguration#getInactiveUISweepInterval()}), heartbeats
+ * only update the timestamp of the UI without locking the session.
  *
  * @author Vaadin Ltd
  * @since 7.1
@@ -48,6 +53,32 @@ public class HeartbeatHandler extends SynchronizedRequestHandler
         return ServletPortletHelper.isHeartbeatRequest(request);
     }
 
+    /**
+     * Updates the heartbeat timestamp of the UI without locking the session if
+     * sessions are cleaned up in the background. Otherwise, locks the session
+     * and calls {@link #synchronizedHandleRequest}.
+     */
+    @Override
+    public boolean handleRequest(VaadinSession session, VaadinRequest request,
+            VaadinResponse response) throws IOException {
+        if (!canHandleRequest(request)) {
+            return false;
+        }
+        if (session.getService().getDeploymentConfiguration()
+                .getInactiveUISweepInterval() <= 0) {
+            // The session is cleaned up at the end of the request
+            return super.handleRequest(session, request, response);
+        }
+
+        String uiIdString = request.getParameter(UIConstants.UI_ID_PARAMETER);
+        UI ui = null;
+        if (uiIdString != null) {
+            ui = session.getUIByIdWithoutLock(Integer.parseInt(uiIdString));
+        }
+        handleHeartbeat(ui, response);
+        return true;
+    }
+
     /**
      * Handles a heartbeat request for the given session. Reads the GET
      * parameter named {@link UIConstants#UI_ID_PARAMETER} to identify the UI.
@@ -58,7 +89,12 @@ public class HeartbeatHandler extends SynchronizedRequestHandler
     @Override
     public boolean synchronizedHandleRequest(VaadinSession session,
             VaadinRequest request, VaadinResponse response) throws IOException {
-        UI ui = session.getService().findUI(request);
+        handleHeartbeat(session.getService().findUI(request), response);
+        return true;
+    }
+
+    private static void handleHeartbeat(UI ui, VaadinResponse response)
+            throws IOException {
         if (ui != null) {
             ui.setLastHeartbeatTimestamp(System.currentTimeMillis());
             // Ensure that the browser does not cache heartbeat responses.
@@ -71,8 +107,6 @@ public class HeartbeatHandler extends SynchronizedRequestHandler
             response.sendError(HttpServletResponse.SC_NOT_FOUND,
                     "UI not found");
         }
-
-        return true;
     }
 
     /*
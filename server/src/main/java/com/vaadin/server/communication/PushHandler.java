@@ -222,10 +222,25 @@ public class PushHandler {
             }
 
             UI ui = null;
-            session.lock();
+            UI lockedUI = null;
+            if (session.isUILockStripingEnabled()) {
+                // Only lock the UI so that other UIs are not blocked
+                lockedUI = UidlRequestHandler.findUIWithSessionLock(session,
+                        vaadinRequest);
+                if (lockedUI != null) {
+                    session.lockUI(lockedUI);
+                }
+            } else {
+                session.lock();
+            }
             try {
-                ui = service.findUI(vaadinRequest);
-                assert UI.getCurrent() == ui;
+                if (!session.isUILockStripingEnabled()) {
+                    ui = service.findUI(vaadinRequest);
+                    assert UI.getCurrent() == ui;
+                } else if (lockedUI != null
+                        && lockedUI.getSession() == session) {
+                    ui = lockedUI;
+                }
 
                 if (ui == null) {
                     sendNotificationAndDisconnect(resource, UidlRequestHandler
@@ -258,7 +273,11 @@ public class PushHandler {
                 callErrorHandler(session, e);
             } finally {
                 try {
-                    session.unlock();
+                    if (lockedUI != null) {
+                        session.unlockUI(lockedUI);
+                    } else if (!session.isUILockStripingEnabled()) {
+                        session.unlock();
+                    }
                 } catch (Exception e) {
                     getLogger().log(Level.WARNING,
                             "Error while unlocking session", e);
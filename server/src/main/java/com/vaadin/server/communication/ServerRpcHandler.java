@@ -19,7 +19,6 @@ package com.vaadin.server.communication;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Serializable;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -36,6 +35,9 @@ import com.vaadin.server.LegacyCommunicationManager.InvalidUIDLSecurityKeyExcept
 import com.vaadin.server.ServerRpcManager;
 import com.vaadin.server.ServerRpcManager.RpcInvocationException;
 import com.vaadin.server.ServerRpcMethodInvocation;
+import com.vaadin.server.ServiceMetrics;
+import com.vaadin.server.ServiceMetrics.Counter;
+import com.vaadin.server.ServiceMetrics.Phase;
 import com.vaadin.server.VaadinRequest;
 import com.vaadin.server.VaadinService;
 import com.vaadin.server.VariableOwner;
@@ -270,8 +272,17 @@ public class ServerRpcHandler implements Serializable {
         } else {
             // Message id ok, process RPCs
             ui.setLastProcessedClientToServerId(expectedId);
+
+            ServiceMetrics metrics = ServiceMetrics
+                    .get(ui.getSession().getService());
+            long start = metrics.startTime();
             handleInvocations(ui, rpcRequest.getSyncId(),
                     rpcRequest.getRpcInvocationsData());
+            if (metrics.isEnabled()) {
+                metrics.recordTimeSince(Phase.RPC_HANDLING, start);
+                metrics.recordCount(Counter.RPC_INVOCATIONS,
+                        rpcRequest.getRpcInvocationsData().length());
+            }
         }
 
         ui.getConnectorTracker()
@@ -606,17 +617,7 @@ public class ServerRpcHandler implements Serializable {
         ServerRpcMethodInvocation invocation = new ServerRpcMethodInvocation(
                 connectorId, rpcInterface, methodName, parametersJson.length());
 
-        Object[] parameters = new Object[parametersJson.length()];
-        Type[] declaredRpcMethodParameterTypes = invocation.getMethod()
-                .getGenericParameterTypes();
-
-        for (int j = 0; j < parametersJson.length(); ++j) {
-            JsonValue parameterValue = parametersJson.get(j);
-            Type parameterType = declaredRpcMethodParameterTypes[j];
-            parameters[j] = JsonCodec.decodeInternalOrCustomType(parameterType,
-                    parameterValue, connectorTracker);
-        }
-        invocation.setParameters(parameters);
+        invocation.decodeParameters(parametersJson, connectorTracker);
         return invocation;
     }
 
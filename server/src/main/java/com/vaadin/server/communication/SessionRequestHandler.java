@@ -17,6 +17,7 @@ package com.vaadin.server.communication;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.concurrent.locks.Lock;
 
 import com.vaadin.server.RequestHandler;
 import com.vaadin.server.VaadinRequest;
@@ -51,13 +52,28 @@ public class SessionRequestHandler implements RequestHandler {
     public boolean handleRequest(VaadinSession session, VaadinRequest request,
             VaadinResponse response) throws IOException {
         // Use a copy to avoid ConcurrentModificationException
-        session.lock();
         ArrayList<RequestHandler> requestHandlers;
-        try {
-            requestHandlers = new ArrayList<>(
-                    session.getRequestHandlers());
-        } finally {
-            session.unlock();
+        if (session.isUILockStripingEnabled()) {
+            /*
+             * Locking the session here would wait for all UIs to be unlocked,
+             * the plain session lock is enough for reading the handlers.
+             */
+            Lock lock = session.getLockInstance();
+            lock.lock();
+            try {
+                requestHandlers = new ArrayList<>(
+                        session.getRequestHandlers());
+            } finally {
+                lock.unlock();
+            }
+        } else {
+            session.lock();
+            try {
+                requestHandlers = new ArrayList<>(
+                        session.getRequestHandlers());
+            } finally {
+                session.unlock();
+            }
         }
         for (RequestHandler handler : requestHandlers) {
             if (handler.handleRequest(session, request, response)) {
@@ -104,15 +104,8 @@ public abstract class UIInitHandler extends SynchronizedRequestHandler {
      */
     static boolean commitJsonResponse(VaadinRequest request,
             VaadinResponse response, String json) throws IOException {
-        // The response was produced without errors so write it to the client
-        response.setContentType(JsonConstants.JSON_CONTENT_TYPE);
-
-        // Ensure that the browser does not cache UIDL responses.
-        // iOS 6 Safari requires this (#9732)
-        response.setHeader("Cache-Control", "no-cache");
-
         byte[] b = json.getBytes("UTF-8");
-        response.setContentLength(b.length);
+        setJsonResponseHeaders(response, b.length);
 
         OutputStream outputStream = response.getOutputStream();
         outputStream.write(b);
@@ -122,6 +115,44 @@ public abstract class UIInitHandler extends SynchronizedRequestHandler {
         return true;
     }
 
+    /**
+     * Commit the JSON response buffered as UTF-8 in the given writer.
+     *
+     * @param request
+     *            The request that resulted in this response
+     * @param response
+     *            The response to write to
+     * @param json
+     *            The writer containing the JSON to write
+     * @return true if the JSON was written successfully, false otherwise
+     * @throws IOException
+     *             If there was an exception while writing to the output
+     */
+    static boolean commitJsonResponse(VaadinRequest request,
+            VaadinResponse response, Utf8BufferWriter json)
+            throws IOException {
+        setJsonResponseHeaders(response, json.size());
+
+        OutputStream outputStream = response.getOutputStream();
+        json.writeTo(outputStream);
+        // NOTE GateIn requires the buffers to be flushed to work
+        outputStream.flush();
+
+        return true;
+    }
+
+    private static void setJsonResponseHeaders(VaadinResponse response,
+            int contentLength) {
+        // The response was produced without errors so write it to the client
+        response.setContentType(JsonConstants.JSON_CONTENT_TYPE);
+
+        // Ensure that the browser does not cache UIDL responses.
+        // iOS 6 Safari requires this (#9732)
+        response.setHeader("Cache-Control", "no-cache");
+
+        response.setContentLength(contentLength);
+    }
+
     private UI getBrowserDetailsUI(VaadinRequest request,
             VaadinSession session) {
         VaadinService vaadinService = request.getService();
@@ -17,12 +17,16 @@
 package com.vaadin.server.communication;
 
 import java.io.IOException;
-import java.io.StringWriter;
 import java.io.Writer;
+import java.util.concurrent.locks.Lock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.vaadin.server.DeploymentConfiguration;
 import com.vaadin.server.LegacyCommunicationManager.InvalidUIDLSecurityKeyException;
+import com.vaadin.server.ServiceMetrics;
+import com.vaadin.server.ServiceMetrics.Counter;
+import com.vaadin.server.ServiceMetrics.Phase;
 import com.vaadin.server.ServletPortletHelper;
 import com.vaadin.server.SessionExpiredHandler;
 import com.vaadin.server.SynchronizedRequestHandler;
@@ -53,6 +57,7 @@ public class UidlRequestHandler extends SynchronizedRequestHandler
 
     private final ServerRpcHandler rpcHandler;
 
+
     public UidlRequestHandler() {
         rpcHandler = createRpcHandler();
     }
@@ -72,42 +77,181 @@ public class UidlRequestHandler extends SynchronizedRequestHandler
         return ServletPortletHelper.isUIDLRequest(request);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If {@link DeploymentConfiguration#isSerializeUidlOutsideLock()} is
+     * enabled, the response is only collected while the session is locked and
+     * it is serialized and written to the client after the lock has been
+     * released. The time the session lock is held is recorded in both cases
+     * as {@link Phase#LOCK_HOLD} in the {@link ServiceMetrics} of the service.
+     * <p>
+     * If {@link VaadinSession#isUILockStripingEnabled() UI lock striping} is
+     * enabled, only the UI of the request is locked while handling it.
+     */
+    @Override
+    public boolean handleRequest(VaadinSession session, VaadinRequest request,
+            VaadinResponse response) throws IOException {
+        if (!canHandleRequest(request)) {
+            return false;
+        }
+
+        ServiceMetrics metrics = ServiceMetrics.get(session.getService());
+        UI lockedUI = null;
+        if (session.isUILockStripingEnabled()) {
+            lockedUI = findUIWithSessionLock(session, request);
+            if (lockedUI == null) {
+                UIInitHandler.commitJsonResponse(request, response,
+                        getUINotFoundErrorJSON(session.getService(), request));
+                return true;
+            }
+        }
+        UidlSnapshotWriter snapshot = null;
+        long lockRequestedAt = metrics.startTime();
+        if (lockedUI != null) {
+            session.lockUI(lockedUI);
+        } else {
+            session.lock();
+        }
+        long lockedAt = metrics.startTime();
+        metrics.recordTimeSince(Phase.LOCK_WAIT, lockRequestedAt);
+        try {
+            if (!session.getConfiguration().isSerializeUidlOutsideLock()) {
+                if (lockedUI == null) {
+                    return synchronizedHandleRequest(session, request,
+                            response);
+                }
+                return writeUidlResponse(session, lockedUI, request,
+                        response);
+            }
+            snapshot = new UidlSnapshotWriter();
+            if (!collectUidl(session, lockedUI, request, response,
+                    snapshot)) {
+                return true;
+            }
+        } finally {
+            if (lockedUI != null) {
+                session.unlockUI(lockedUI);
+            } else {
+                session.unlock();
+            }
+            metrics.recordTimeSince(Phase.LOCK_HOLD, lockedAt);
+        }
+
+        // Serialize and write the collected response without holding the lock
+        Utf8BufferWriter uidlWriter = new Utf8BufferWriter();
+        try {
+            snapshot.writeTo(uidlWriter);
+            uidlWriter.close();
+            metrics.recordCount(Counter.BYTES_WRITTEN, uidlWriter.size());
+
+            return UIInitHandler.commitJsonResponse(request, response,
+                    uidlWriter);
+        } catch (JsonException e) {
+            getLogger().log(Level.SEVERE, "Error writing JSON to response", e);
+            // Refresh on client side
+            writeRefresh(request, response);
+            return true;
+        } finally {
+            uidlWriter.release();
+        }
+    }
+
+    /**
+     * Finds the UI of a request while holding the session lock only for the
+     * look up, so that requests to other UIs of the session are not blocked.
+     * Used when {@link VaadinSession#isUILockStripingEnabled() UI lock
+     * striping} is enabled, the UI is then locked using
+     * {@link VaadinSession#lockUI(UI)}.
+     *
+     * @return the UI of the request, or <code>null</code> if not found
+     */
+    static UI findUIWithSessionLock(VaadinSession session,
+            VaadinRequest request) {
+        Lock lock = session.getLockInstance();
+        lock.lock();
+        try {
+            return session.getService().findUI(request);
+        } finally {
+            lock.unlock();
+        }
+    }
+
     @Override
     public boolean synchronizedHandleRequest(VaadinSession session,
             VaadinRequest request, VaadinResponse response) throws IOException {
-        UI uI = session.getService().findUI(request);
+        return writeUidlResponse(session, null, request, response);
+    }
+
+    private boolean writeUidlResponse(VaadinSession session, UI lockedUI,
+            VaadinRequest request, VaadinResponse response) throws IOException {
+        Utf8BufferWriter uidlWriter = new Utf8BufferWriter();
+        try {
+            if (!collectUidl(session, lockedUI, request, response,
+                    uidlWriter)) {
+                return true;
+            }
+            uidlWriter.close();
+            ServiceMetrics.get(session.getService())
+                    .recordCount(Counter.BYTES_WRITTEN, uidlWriter.size());
+
+            return UIInitHandler.commitJsonResponse(request, response,
+                    uidlWriter);
+        } finally {
+            uidlWriter.release();
+        }
+    }
+
+    /**
+     * Handles the RPC invocations of the request and writes the resulting UIDL
+     * to the given writer. Must be called with the session locked, or with
+     * the UI locked if it has already been looked up.
+     *
+     * @param lockedUI
+     *            the already locked UI of the request, or <code>null</code> to
+     *            look up the UI from the locked session
+     * @return <code>true</code> if the UIDL was written to the writer,
+     *         <code>false</code> if an error response has already been
+     *         committed instead
+     */
+    private boolean collectUidl(VaadinSession session, UI lockedUI,
+            VaadinRequest request, VaadinResponse response, Writer writer)
+            throws IOException {
+        UI uI;
+        if (lockedUI == null) {
+            uI = session.getService().findUI(request);
+        } else if (lockedUI.getSession() == session) {
+            uI = lockedUI;
+        } else {
+            // Removed from the session while waiting for the lock
+            uI = null;
+        }
         if (uI == null) {
             // This should not happen but it will if the UI has been closed. We
             // really don't want to see it in the server logs though
             UIInitHandler.commitJsonResponse(request, response,
                     getUINotFoundErrorJSON(session.getService(), request));
-            return true;
+            return false;
         }
 
-        StringWriter stringWriter = new StringWriter();
-
         try {
             rpcHandler.handleRpc(uI, request.getReader(), request);
 
-            writeUidl(request, response, uI, stringWriter);
+            writeUidl(request, response, uI, writer);
+            return true;
         } catch (JsonException e) {
             getLogger().log(Level.SEVERE, "Error writing JSON to response", e);
             // Refresh on client side
             writeRefresh(request, response);
-            return true;
+            return false;
         } catch (InvalidUIDLSecurityKeyException e) {
             getLogger().log(Level.WARNING,
                     "Invalid security key received from {0}",
                     request.getRemoteHost());
             // Refresh on client side
             writeRefresh(request, response);
-            return true;
-        } finally {
-            stringWriter.close();
+            return false;
         }
-
-        return UIInitHandler.commitJsonResponse(request, response,
-                stringWriter.toString());
     }
 
     private void writeRefresh(VaadinRequest request, VaadinResponse response)
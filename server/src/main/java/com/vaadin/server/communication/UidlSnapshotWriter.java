@@ -0,0 +1,128 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import elemental.json.JsonValue;
+import elemental.json.impl.JsonUtil;
+
+/**
+ * A {@link Writer} that records a UIDL response as a sequence of text fragments
+ * and JSON values without stringifying the JSON values. The recorded response
+ * is turned into text by {@link #writeTo(Writer)}, which can be done after the
+ * session lock has been released.
+ * <p>
+ * The JSON values passed to {@link #writeJson(Writer, JsonValue)} must not be
+ * modified after they have been recorded. The hierarchy and RPC invocation
+ * values written by {@link UidlWriter} are created for a single response. The
+ * state written for a connector is the diff object created by
+ * {@link com.vaadin.server.JsonCodec}, not the diff state kept by the
+ * connector tracker. Components such as {@code Button} and {@code Grid} modify
+ * the diff state in place through
+ * {@link com.vaadin.ui.ConnectorTracker#getDiffState}, but only by putting new
+ * values to its top level properties, so the nested values it shares with a
+ * recorded diff are never modified.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+class UidlSnapshotWriter extends Writer {
+
+    private final List<Object> fragments = new ArrayList<>();
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * Writes a JSON value to the given writer. If the writer is a
+     * {@link UidlSnapshotWriter}, the value is recorded as is and stringified
+     * only when the snapshot is written out, otherwise it is stringified
+     * immediately.
+     *
+     * @param writer
+     *            the writer to write to, not <code>null</code>
+     * @param value
+     *            the JSON value to write, not <code>null</code>
+     * @throws IOException
+     *             if the writer throws an exception
+     */
+    static void writeJson(Writer writer, JsonValue value) throws IOException {
+        if (writer instanceof UidlSnapshotWriter) {
+            ((UidlSnapshotWriter) writer).record(value);
+        } else {
+            writer.write(JsonUtil.stringify(value));
+        }
+    }
+
+    private void record(JsonValue value) {
+        flushText();
+        fragments.add(value);
+    }
+
+    private void flushText() {
+        if (text.length() != 0) {
+            fragments.add(text.toString());
+            text.setLength(0);
+        }
+    }
+
+    @Override
+    public void write(int c) {
+        text.append((char) c);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) {
+        text.append(chars, offset, length);
+    }
+
+    @Override
+    public void write(String str, int offset, int length) {
+        text.append(str, offset, offset + length);
+    }
+
+    /**
+     * Writes the recorded response to the given writer, stringifying the
+     * recorded JSON values.
+     *
+     * @param out
+     *            the writer to write to, not <code>null</code>
+     * @throws IOException
+     *             if the writer throws an exception
+     */
+    public void writeTo(Writer out) throws IOException {
+        flushText();
+        for (Object fragment : fragments) {
+            if (fragment instanceof String) {
+                out.write((String) fragment);
+            } else {
+                out.write(JsonUtil.stringify((JsonValue) fragment));
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+        // Nothing to flush
+    }
+
+    @Override
+    public void close() {
+        flushText();
+    }
+}
@@ -35,6 +35,9 @@ import com.vaadin.server.ClientConnector;
 import com.vaadin.server.JsonPaintTarget;
 import com.vaadin.server.LegacyCommunicationManager;
 import com.vaadin.server.LegacyCommunicationManager.ClientCache;
+import com.vaadin.server.ServiceMetrics;
+import com.vaadin.server.ServiceMetrics.Counter;
+import com.vaadin.server.ServiceMetrics.Phase;
 import com.vaadin.server.SystemMessages;
 import com.vaadin.server.VaadinService;
 import com.vaadin.server.VaadinSession;
@@ -75,6 +78,7 @@ public class UidlWriter implements Serializable {
     public void write(UI ui, Writer writer, boolean async) throws IOException {
         VaadinSession session = ui.getSession();
         VaadinService service = session.getService();
+        ServiceMetrics metrics = ServiceMetrics.get(service);
 
         // Purge pending access calls as they might produce additional changes
         // to write out
@@ -89,6 +93,7 @@ public class UidlWriter implements Serializable {
         ConnectorTracker uiConnectorTracker = ui.getConnectorTracker();
         getLogger().log(Level.FINE, "* Creating response to client");
 
+        long beforeClientResponseStart = metrics.startTime();
         while (true) {
             ArrayList<ClientConnector> connectorsToProcess = new ArrayList<>();
             for (ClientConnector c : uiConnectorTracker.getDirtyConnectors()) {
@@ -116,6 +121,13 @@ public class UidlWriter implements Serializable {
             }
         }
 
+        if (metrics.isEnabled()) {
+            metrics.recordTimeSince(Phase.BEFORE_CLIENT_RESPONSE,
+                    beforeClientResponseStart);
+            metrics.recordCount(Counter.DIRTY_CONNECTORS,
+                    processedConnectors.size());
+        }
+
         getLogger().log(Level.FINE, "Found " + processedConnectors.size()
                 + " dirty connectors to paint");
 
@@ -157,8 +169,10 @@ public class UidlWriter implements Serializable {
             // processing.
 
             writer.write("\"state\":");
+            long stateStart = metrics.startTime();
             Set<String> stateUpdateConnectors = new SharedStateWriter()
                     .write(ui, writer);
+            metrics.recordTimeSince(Phase.STATE_ENCODING, stateStart);
             writer.write(", "); // close states
 
             // TODO This should be optimized. The type only needs to be
@@ -178,8 +192,10 @@ public class UidlWriter implements Serializable {
             // child to 0 children)
 
             writer.write("\"hierarchy\":");
+            long hierarchyStart = metrics.startTime();
             new ConnectorHierarchyWriter().write(ui, writer,
                     stateUpdateConnectors);
+            metrics.recordTimeSince(Phase.HIERARCHY_WRITING, hierarchyStart);
             writer.write(", "); // close hierarchy
 
             // send server to client RPC calls for components in the UI, in call
@@ -189,7 +205,9 @@ public class UidlWriter implements Serializable {
             // which they were performed, remove the calls from components
 
             writer.write("\"rpc\" : ");
+            long rpcStart = metrics.startTime();
             new ClientRpcWriter().write(ui, writer);
+            metrics.recordTimeSince(Phase.RPC_WRITING, rpcStart);
             writer.write(", "); // close rpc
 
             uiConnectorTracker.markAllConnectorsClean();
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A {@link Writer} that encodes characters directly to UTF-8 into a growing
+ * byte buffer. Used for buffering UIDL responses so that the response does not
+ * have to be first collected as characters, then copied into a {@link String}
+ * and finally encoded into a separate byte array.
+ * <p>
+ * A small number of buffers of moderate size are kept for reuse between
+ * responses, shared by all threads. {@link #release()} must be called when the
+ * buffered data is no longer needed, and the writer must not be used after
+ * that.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+class Utf8BufferWriter extends Writer {
+
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+
+    /**
+     * Buffers larger than this are not kept for reuse.
+     */
+    private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+
+    /**
+     * Maximum amount of buffers kept for reuse.
+     */
+    private static final int MAX_POOLED_BUFFERS = 16;
+
+    private static final ArrayBlockingQueue<byte[]> POOL = new ArrayBlockingQueue<>(
+            MAX_POOLED_BUFFERS);
+
+    private byte[] buffer;
+    private int size = 0;
+    private char pendingHighSurrogate = 0;
+
+    /**
+     * Creates a new writer, reusing a buffer released earlier if there is one.
+     */
+    public Utf8BufferWriter() {
+        buffer = POOL.poll();
+        if (buffer == null) {
+            buffer = new byte[INITIAL_CAPACITY];
+        }
+    }
+
+    @Override
+    public void write(int c) {
+        writeChar((char) c);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) {
+        ensureCapacity(size + length);
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            char c = chars[i];
+            if (c < 0x80 && pendingHighSurrogate == 0) {
+                buffer[size++] = (byte) c;
+            } else {
+                writeChar(c);
+            }
+        }
+    }
+
+    @Override
+    public void write(String string, int offset, int length) {
+        ensureCapacity(size + length);
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            char c = string.charAt(i);
+            if (c < 0x80 && pendingHighSurrogate == 0) {
+                buffer[size++] = (byte) c;
+            } else {
+                writeChar(c);
+            }
+        }
+    }
+
+    private void writeChar(char c) {
+        if (pendingHighSurrogate != 0) {
+            char high = pendingHighSurrogate;
+            pendingHighSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                writeCodePoint(Character.toCodePoint(high, c));
+                return;
+            }
+            // Unpaired surrogate
+            writeCodePoint('?');
+        }
+        if (Character.isHighSurrogate(c)) {
+            pendingHighSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            writeCodePoint('?');
+        } else {
+            writeCodePoint(c);
+        }
+    }
+
+    private void writeCodePoint(int codePoint) {
+        ensureCapacity(size + 4);
+        if (codePoint < 0x80) {
+            buffer[size++] = (byte) codePoint;
+        } else if (codePoint < 0x800) {
+            buffer[size++] = (byte) (0xC0 | (codePoint >> 6));
+            buffer[size++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            buffer[size++] = (byte) (0xE0 | (codePoint >> 12));
+            buffer[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[size++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else {
+            buffer[size++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[size++] = (byte) (0x80 | (codePoint & 0x3F));
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buffer.length) {
+            int newCapacity = Math.max(capacity, buffer.length * 2);
+            buffer = Arrays.copyOf(buffer, newCapacity);
+        }
+    }
+
+    /**
+     * Gets the amount of bytes written so far.
+     *
+     * @return the size in bytes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Writes the buffered bytes to the given stream.
+     *
+     * @param out
+     *            the stream to write to
+     * @throws IOException
+     *             if writing fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, size);
+    }
+
+    /**
+     * Decodes the buffered bytes into a string.
+     *
+     * @return the buffered content as a string
+     */
+    @Override
+    public String toString() {
+        return new String(buffer, 0, size, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Releases the buffer of this writer for reuse, unless enough buffers are
+     * already kept. This writer cannot be used after calling this method.
+     */
+    public void release() {
+        if (buffer != null && buffer.length <= MAX_POOLED_CAPACITY) {
+            POOL.offer(buffer);
+        }
+        buffer = null;
+        size = 0;
+    }
+
+    @Override
+    public void flush() {
+        // Nothing to flush
+    }
+
+    @Override
+    public void close() {
+        if (pendingHighSurrogate != 0) {
+            pendingHighSurrogate = 0;
+            writeCodePoint('?');
+        }
+    }
+}
@@ -34,6 +34,7 @@ public class BackEndDataProvider<T, F> extends AbstractDataProvider<T, F> {
 
     private final SerializableFunction<Query<F>, Stream<T>> request;
     private final SerializableFunction<Query<F>, Integer> sizeCallback;
+    private final SerializableFunction<Query<F>, QueryResult<T>> fetchWithSizeCallback;
 
     /**
      * Constructs a new DataProvider to request data from an arbitrary back end
@@ -47,10 +48,52 @@ public class BackEndDataProvider<T, F> extends AbstractDataProvider<T, F> {
     public BackEndDataProvider(
             SerializableFunction<Query<F>, Stream<T>> request,
             SerializableFunction<Query<F>, Integer> sizeCallback) {
-        Objects.requireNonNull(request, "Request function can't be null");
+        this(request, sizeCallback, null);
         Objects.requireNonNull(sizeCallback, "Size callback can't be null");
+    }
+
+    /**
+     * Constructs a new DataProvider to request data from an arbitrary back end
+     * request function, with a separate function for fetching data and its
+     * total size in a single request.
+     * <p>
+     * The combined function is used when both the data and the size are needed
+     * at the same time, for instance when the data is first shown. It should
+     * return the items for the offset and limit of the query, and the size for
+     * the query filter.
+     *
+     * @param request
+     *            function that requests data from back end based on query
+     * @param sizeCallback
+     *            function that return the amount of data in back end for query
+     * @param fetchWithSizeCallback
+     *            function that requests data and its total size from back end
+     *            based on query, not null
+     */
+    public BackEndDataProvider(
+            SerializableFunction<Query<F>, Stream<T>> request,
+            SerializableFunction<Query<F>, Integer> sizeCallback,
+            SerializableFunction<Query<F>, QueryResult<T>> fetchWithSizeCallback) {
+        Objects.requireNonNull(request, "Request function can't be null");
         this.request = request;
         this.sizeCallback = sizeCallback;
+        this.fetchWithSizeCallback = fetchWithSizeCallback;
+    }
+
+    /**
+     * Constructs a new DataProvider with an unknown size to request data from
+     * an arbitrary back end request function. Users of this data provider find
+     * the end of the data by fetching until fewer items than requested are
+     * returned.
+     *
+     * @param request
+     *            function that requests data from back end based on query
+     *
+     * @see #isSizeKnown()
+     */
+    public BackEndDataProvider(
+            SerializableFunction<Query<F>, Stream<T>> request) {
+        this(request, null, null);
     }
 
     @Override
@@ -58,11 +101,34 @@ public class BackEndDataProvider<T, F> extends AbstractDataProvider<T, F> {
         return request.apply(query);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UnsupportedOperationException
+     *             if this data provider was created without a size callback
+     */
     @Override
     public int size(Query<F> query) {
+        if (sizeCallback == null) {
+            throw new UnsupportedOperationException(
+                    "The size of this data provider is not known");
+        }
         return sizeCallback.apply(query);
     }
 
+    @Override
+    public QueryResult<T> fetchWithSize(Query<F> query) {
+        if (fetchWithSizeCallback != null) {
+            return fetchWithSizeCallback.apply(query);
+        }
+        return super.fetchWithSize(query);
+    }
+
+    @Override
+    public boolean isSizeKnown() {
+        return sizeCallback != null;
+    }
+
     /**
      * Sets a default sorting order to the data provider.
      *
@@ -73,14 +139,21 @@ public class BackEndDataProvider<T, F> extends AbstractDataProvider<T, F> {
      */
     public BackEndDataProvider<T, F> sortingBy(
             List<SortOrder<String>> sortOrders) {
-        return new BackEndDataProvider<>(query -> {
-            List<SortOrder<String>> queryOrder = new ArrayList<>(
-                    query.getSortOrders());
-            queryOrder.addAll(sortOrders);
-            return request
-                    .apply(new Query<>(query.getLimit(), query.getOffset(),
-                            queryOrder, query.getFilter().orElse(null)));
-        }, sizeCallback);
+        return new BackEndDataProvider<T, F>(
+                query -> request.apply(withSortOrders(query, sortOrders)),
+                sizeCallback,
+                fetchWithSizeCallback == null ? null
+                        : query -> fetchWithSizeCallback
+                                .apply(withSortOrders(query, sortOrders)));
+    }
+
+    private static <F> Query<F> withSortOrders(Query<F> query,
+            List<SortOrder<String>> sortOrders) {
+        List<SortOrder<String>> queryOrder = new ArrayList<>(
+                query.getSortOrders());
+        queryOrder.addAll(sortOrders);
+        return new Query<>(query.getOffset(), query.getLimit(), queryOrder,
+                query.getFilter().orElse(null));
     }
 
     @Override
@@ -0,0 +1,382 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.vaadin.shared.Registration;
+
+/**
+ * A {@link DataProvider} decorator that caches pages of data fetched from
+ * another data provider. Pages are identified by the sort orders and filter of
+ * a query together with the page index. The least recently used pages are
+ * evicted when more than the maximum amount of pages are cached.
+ * <p>
+ * If an {@link Executor} is given, the page following the last fetched range,
+ * or preceding it when scrolling backwards, is fetched in the background. The
+ * wrapped data provider must then support being called from other threads
+ * than the one holding the session lock.
+ * <p>
+ * The cache is invalidated when {@link #refreshAll()} is called or when the
+ * wrapped data provider fires a {@link DataChangeEvent}. A listener is only
+ * registered to the wrapped data provider while this data provider has
+ * listeners of its own, so that a long-lived wrapped data provider does not
+ * keep references to decorators that are no longer used. Changes that are made
+ * while nothing is listening to this data provider are not noticed until the
+ * next time a listener is added or the cache is cleared.
+ *
+ * @param <T>
+ *            data type
+ * @param <F>
+ *            filter type
+ *
+ * @since 8.0
+ */
+public class CachingDataProvider<T, F> extends AbstractDataProvider<T, F> {
+
+    /**
+     * Cache key of a page of data.
+     */
+    private static final class PageKey implements Serializable {
+        private final List<SortOrder<String>> sortOrders;
+        private final Object filter;
+        private final int page;
+
+        private PageKey(List<SortOrder<String>> sortOrders, Object filter,
+                int page) {
+            this.sortOrders = sortOrders;
+            this.filter = filter;
+            this.page = page;
+        }
+
+        private PageKey withPage(int page) {
+            return new PageKey(sortOrders, filter, page);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof PageKey)) {
+                return false;
+            }
+            PageKey other = (PageKey) obj;
+            return page == other.page && sortOrders.equals(other.sortOrders)
+                    && Objects.equals(filter, other.filter);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sortOrders, filter, page);
+        }
+    }
+
+    private final DataProvider<T, F> dataProvider;
+    private final int pageSize;
+    private final transient Executor prefetchExecutor;
+
+    private final Map<PageKey, List<T>> pages;
+    private final Map<Object, Integer> sizes;
+    private final Set<PageKey> pendingPrefetch = new HashSet<>();
+    private int lastFirstPage = -1;
+    private int listenerCount = 0;
+    private Registration dataProviderRegistration;
+    /**
+     * Incremented when the cache is cleared, so that pages fetched before
+     * clearing are not stored.
+     */
+    private int generation = 0;
+
+    /**
+     * Creates a new caching data provider without background prefetching.
+     *
+     * @param dataProvider
+     *            the data provider to cache data from, not null
+     * @param pageSize
+     *            the amount of items in one cached page, greater than zero
+     * @param maxPages
+     *            the maximum amount of cached pages, greater than zero
+     */
+    public CachingDataProvider(DataProvider<T, F> dataProvider, int pageSize,
+            int maxPages) {
+        this(dataProvider, pageSize, maxPages, null);
+    }
+
+    /**
+     * Creates a new caching data provider that prefetches the next page in the
+     * scroll direction using the given executor.
+     * <p>
+     * The executor is not serialized with this data provider; after
+     * deserialization, no prefetching is done.
+     *
+     * @param dataProvider
+     *            the data provider to cache data from, not null
+     * @param pageSize
+     *            the amount of items in one cached page, greater than zero
+     * @param maxPages
+     *            the maximum amount of cached pages, greater than zero
+     * @param prefetchExecutor
+     *            the executor to prefetch pages with, or {@code null} to not
+     *            prefetch
+     */
+    public CachingDataProvider(DataProvider<T, F> dataProvider, int pageSize,
+            int maxPages, Executor prefetchExecutor) {
+        Objects.requireNonNull(dataProvider, "data provider cannot be null");
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException(
+                    "Page size must be greater than zero");
+        }
+        if (maxPages <= 0) {
+            throw new IllegalArgumentException(
+                    "Maximum page count must be greater than zero");
+        }
+        this.dataProvider = dataProvider;
+        this.pageSize = pageSize;
+        this.prefetchExecutor = prefetchExecutor;
+        pages = createLruMap(maxPages);
+        sizes = createLruMap(maxPages);
+    }
+
+    @Override
+    public Registration addDataProviderListener(DataProviderListener listener) {
+        Registration registration = super.addDataProviderListener(listener);
+        synchronized (pages) {
+            if (listenerCount++ == 0) {
+                // Changes made while not listening have not been noticed
+                clearCache();
+                dataProviderRegistration = dataProvider
+                        .addDataProviderListener(event -> {
+                            clearCache();
+                            fireEvent(new DataChangeEvent(this));
+                        });
+            }
+        }
+        AtomicBoolean removed = new AtomicBoolean();
+        return () -> {
+            if (removed.compareAndSet(false, true)) {
+                registration.remove();
+                removeDataProviderListener();
+            }
+        };
+    }
+
+    private void removeDataProviderListener() {
+        synchronized (pages) {
+            if (--listenerCount == 0) {
+                dataProviderRegistration.remove();
+                dataProviderRegistration = null;
+            }
+        }
+    }
+
+    @Override
+    public boolean isInMemory() {
+        return dataProvider.isInMemory();
+    }
+
+    @Override
+    public boolean isSizeKnown() {
+        return dataProvider.isSizeKnown();
+    }
+
+    @Override
+    public int size(Query<F> query) {
+        Object filter = query.getFilter().orElse(null);
+        synchronized (pages) {
+            Integer size = sizes.get(filter);
+            if (size != null) {
+                return size;
+            }
+        }
+        int fetchGeneration = getGeneration();
+        int size = dataProvider.size(query);
+        synchronized (pages) {
+            if (fetchGeneration == generation) {
+                sizes.put(filter, size);
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public Stream<T> fetch(Query<F> query) {
+        if (query.getLimit() <= 0) {
+            return Stream.empty();
+        }
+        int offset = query.getOffset();
+        long end = (long) offset + query.getLimit();
+        int firstPage = offset / pageSize;
+        int lastPage = (int) ((end - 1) / pageSize);
+        PageKey baseKey = new PageKey(new ArrayList<>(query.getSortOrders()),
+                query.getFilter().orElse(null), firstPage);
+
+        List<T> result = new ArrayList<>();
+        for (int page = firstPage; page <= lastPage; page++) {
+            List<T> items = getPage(baseKey.withPage(page), query);
+            int pageStart = page * pageSize;
+            int from = Math.max(0, offset - pageStart);
+            int to = (int) Math.min(items.size(), end - pageStart);
+            if (from < to) {
+                result.addAll(items.subList(from, to));
+            }
+            if (items.size() < pageSize) {
+                // Reached the end of the data
+                break;
+            }
+        }
+
+        prefetch(baseKey, firstPage, lastPage, query);
+        return result.stream();
+    }
+
+    @Override
+    public QueryResult<T> fetchWithSize(Query<F> query) {
+        Object filter = query.getFilter().orElse(null);
+        Integer size;
+        synchronized (pages) {
+            size = sizes.get(filter);
+        }
+        if (size != null) {
+            return new QueryResult<>(fetch(query).collect(Collectors.toList()),
+                    size);
+        }
+        // Let the wrapped data provider get both in one request
+        int fetchGeneration = getGeneration();
+        QueryResult<T> result = dataProvider.fetchWithSize(query);
+        synchronized (pages) {
+            if (fetchGeneration == generation) {
+                sizes.put(filter, result.getSize());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void refreshAll() {
+        /*
+         * Cleared here as well since the wrapped data provider is not listened
+         * to while this data provider has no listeners.
+         */
+        clearCache();
+        dataProvider.refreshAll();
+    }
+
+    /**
+     * Clears all cached pages and sizes.
+     */
+    public void clearCache() {
+        synchronized (pages) {
+            pages.clear();
+            sizes.clear();
+            pendingPrefetch.clear();
+            lastFirstPage = -1;
+            generation++;
+        }
+    }
+
+    private static <K, V> Map<K, V> createLruMap(int maxSize) {
+        return new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    private List<T> getPage(PageKey key, Query<F> query) {
+        synchronized (pages) {
+            List<T> items = pages.get(key);
+            if (items != null) {
+                return items;
+            }
+        }
+        return loadPage(key, query);
+    }
+
+    private List<T> loadPage(PageKey key, Query<F> query) {
+        int fetchGeneration = getGeneration();
+        Query<F> pageQuery = new Query<>(key.page * pageSize, pageSize,
+                query.getSortOrders(), query.getFilter().orElse(null));
+        List<T> items = dataProvider.fetch(pageQuery)
+                .collect(Collectors.toList());
+        synchronized (pages) {
+            if (fetchGeneration == generation) {
+                pages.put(key, items);
+                pendingPrefetch.remove(key);
+            }
+        }
+        return items;
+    }
+
+    private int getGeneration() {
+        synchronized (pages) {
+            return generation;
+        }
+    }
+
+    private void prefetch(PageKey baseKey, int firstPage, int lastPage,
+            Query<F> query) {
+        int page;
+        synchronized (pages) {
+            boolean backwards = lastFirstPage >= 0 && firstPage < lastFirstPage;
+            lastFirstPage = firstPage;
+            if (prefetchExecutor == null) {
+                return;
+            }
+            page = backwards ? firstPage - 1 : lastPage + 1;
+            if (page < 0) {
+                return;
+            }
+            PageKey lastKey = baseKey.withPage(lastPage);
+            List<T> last = pages.get(lastKey);
+            if (!backwards && (last == null || last.size() < pageSize)) {
+                // No more data after the last page
+                return;
+            }
+            PageKey key = baseKey.withPage(page);
+            if (pages.containsKey(key) || !pendingPrefetch.add(key)) {
+                return;
+            }
+        }
+        PageKey key = baseKey.withPage(page);
+        prefetchExecutor.execute(() -> {
+            try {
+                loadPage(key, query);
+            } catch (RuntimeException e) {
+                synchronized (pages) {
+                    pendingPrefetch.remove(key);
+                }
+                getLogger().log(Level.WARNING, "Prefetching a page failed",
+                        e);
+            }
+        });
+    }
+
+    private static Logger getLogger() {
+        return Logger.getLogger(CachingDataProvider.class.getName());
+    }
+}
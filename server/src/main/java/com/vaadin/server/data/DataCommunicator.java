@@ -29,8 +29,8 @@ import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import com.vaadin.data.util.JsonUtil;
 import com.vaadin.server.AbstractExtension;
-import com.vaadin.server.KeyMapper;
 import com.vaadin.server.SerializablePredicate;
 import com.vaadin.shared.Range;
 import com.vaadin.shared.Registration;
@@ -41,6 +41,8 @@ import com.vaadin.shared.data.DataRequestRpc;
 import elemental.json.Json;
 import elemental.json.JsonArray;
 import elemental.json.JsonObject;
+import elemental.json.JsonType;
+import elemental.json.JsonValue;
 
 /**
  * DataProvider base class. This class is the base for all DataProvider
@@ -52,6 +54,12 @@ import elemental.json.JsonObject;
  */
 public class DataCommunicator<T> extends AbstractExtension {
 
+    /**
+     * Amount of rows fetched for the initial size estimate when the data
+     * provider does not know its size.
+     */
+    private static final int UNKNOWN_SIZE_INITIAL_ROWS = 40;
+
     private Registration dataProviderUpdateRegistration;
 
     /**
@@ -77,8 +85,8 @@ public class DataCommunicator<T> extends AbstractExtension {
 
     /**
      * A class for handling currently active data and dropping data that is no
-     * longer needed. Data tracking is based on key string provided by
-     * {@link DataKeyMapper}.
+     * longer needed. Data tracking is based on the int keys provided by an
+     * {@link IntKeyMapper}.
      * <p>
      * When the {@link DataCommunicator} is pushing new data to the client-side
      * via {@link DataCommunicator#pushData(long, Collection)},
@@ -91,15 +99,15 @@ public class DataCommunicator<T> extends AbstractExtension {
             implements Serializable, DataGenerator<T> {
 
         /**
-         * Set of key strings for currently active data objects
+         * Set of keys for currently active data objects
          */
-        private final Set<String> activeData = new HashSet<>();
+        private final IntHashSet activeData = new IntHashSet();
 
         /**
-         * Set of key strings for data objects dropped on the client. This set
-         * is used to clean up old data when it's no longer needed.
+         * Set of keys for data objects dropped on the client. This set is used
+         * to clean up old data when it's no longer needed.
          */
-        private final Set<String> droppedData = new HashSet<>();
+        private final IntHashSet droppedData = new IntHashSet();
 
         /**
          * Adds given objects as currently active objects.
@@ -108,9 +116,7 @@ public class DataCommunicator<T> extends AbstractExtension {
          *            collection of new active data objects
          */
         public void addActiveData(Stream<T> dataObjects) {
-            dataObjects.map(getKeyMapper()::key)
-                    .filter(key -> !activeData.contains(key))
-                    .forEach(activeData::add);
+            dataObjects.forEach(data -> activeData.add(intKeyMapper.intKey(data)));
         }
 
         /**
@@ -126,11 +132,9 @@ public class DataCommunicator<T> extends AbstractExtension {
          *            collection of most recently sent data to the client
          */
         public void cleanUp(Stream<T> dataObjects) {
-            Collection<String> keys = dataObjects.map(getKeyMapper()::key)
-                    .collect(Collectors.toSet());
-
             // Remove still active rows that were dropped by the client
-            droppedData.removeAll(keys);
+            dataObjects.forEach(
+                    data -> droppedData.remove(intKeyMapper.intKey(data)));
             // Do data clean up for object no longer needed.
             dropData(droppedData);
             droppedData.clear();
@@ -143,8 +147,10 @@ public class DataCommunicator<T> extends AbstractExtension {
          *            key string
          */
         public void dropActiveData(String key) {
-            if (activeData.contains(key)) {
-                droppedData.add(key);
+            int intKey = toIntKey(key);
+            if (intKey != IntKeyMapper.NULL_KEY
+                    && activeData.contains(intKey)) {
+                droppedData.add(intKey);
             }
         }
 
@@ -155,25 +161,43 @@ public class DataCommunicator<T> extends AbstractExtension {
          */
         public Collection<T> getActiveData() {
             HashSet<T> hashSet = new HashSet<>();
-            for (String key : activeData) {
-                hashSet.add(getKeyMapper().get(key));
-            }
+            activeData.forEach(key -> hashSet.add(intKeyMapper.get(key)));
             return hashSet;
         }
 
+        /**
+         * Checks whether the given data object is currently active.
+         *
+         * @param data
+         *            the data object to check
+         * @return {@code true} if the data object is active; {@code false} if
+         *         not
+         */
+        public boolean isActive(T data) {
+            return intKeyMapper.has(data)
+                    && activeData.contains(intKeyMapper.intKey(data));
+        }
+
         @Override
         public void generateData(T data, JsonObject jsonObject) {
             // Write the key string for given data object
             jsonObject.put(DataCommunicatorConstants.KEY,
-                    getKeyMapper().key(data));
+                    keyMapper.key(data));
         }
 
         @Override
         public void destroyData(T data) {
+            int key = intKeyMapper.intKey(data);
             // Remove from active data set
-            activeData.remove(getKeyMapper().key(data));
+            activeData.remove(key);
+            if (sentRows != null) {
+                sentRows.remove(key);
+            }
             // Drop the registered key
-            getKeyMapper().remove(data);
+            intKeyMapper.remove(data);
+            if (keyMapper != intKeyMapper) {
+                keyMapper.remove(data);
+            }
         }
     }
 
@@ -182,13 +206,46 @@ public class DataCommunicator<T> extends AbstractExtension {
 
     private DataProvider<T, ?> dataProvider = DataProvider.create();
     private final DataKeyMapper<T> keyMapper;
+    /**
+     * Key mapper used for tracking active data. The same instance as
+     * {@link #keyMapper} if it is an {@link IntKeyMapper}, otherwise a separate
+     * mapper used only internally.
+     */
+    private final IntKeyMapper<T> intKeyMapper;
 
     private boolean reset = false;
+    /**
+     * The size last reported to the client when the data provider does not
+     * know its size.
+     */
+    private int clientSize = 0;
     private final Set<T> updatedData = new HashSet<>();
     private Range pushRows = Range.withLength(0, 40);
 
     private Comparator<T> inMemorySorting;
     private SerializablePredicate<T> inMemoryFilter;
+    /**
+     * Filtered and sorted snapshot of an in-memory data provider. Built lazily
+     * and discarded whenever the filter, sorting or data changes.
+     */
+    private List<T> inMemoryIndex;
+    /**
+     * The in-memory snapshot last seen by the client, kept in incremental
+     * update mode until structural changes have been sent.
+     */
+    private List<T> previousInMemoryIndex;
+    /**
+     * Whether the active items may have changed since their rows were last
+     * sent, in incremental update mode.
+     */
+    private boolean activeDataChanged = false;
+
+    private boolean incrementalUpdates = false;
+    /**
+     * Row JSON last sent to the client for each active key in incremental
+     * update mode. Not serialized; rows without an entry are sent in full.
+     */
+    private transient IntObjectHashMap<JsonObject> sentRows;
     private final List<SortOrder<String>> backEndSorting = new ArrayList<>();
     private final DataCommunicatorClientRpc rpc;
 
@@ -197,11 +254,17 @@ public class DataCommunicator<T> extends AbstractExtension {
         rpc = getRpcProxy(DataCommunicatorClientRpc.class);
         registerRpc(createRpc());
         keyMapper = createKeyMapper();
+        if (keyMapper instanceof IntKeyMapper) {
+            intKeyMapper = (IntKeyMapper<T>) keyMapper;
+        } else {
+            intKeyMapper = new IntKeyMapper<>();
+        }
     }
 
     @Override
     public void attach() {
         super.attach();
+        invalidateInMemoryIndex();
         attachDataProviderListener();
     }
 
@@ -226,52 +289,284 @@ public class DataCommunicator<T> extends AbstractExtension {
         // FIXME: Sorting and Filtering with Backend
         Set<Object> filters = Collections.emptySet();
 
-        if (initial || reset) {
-            int dataProviderSize;
-            if (getDataProvider().isInMemory() && inMemoryFilter != null) {
-                dataProviderSize = (int) getDataProvider().fetch(new Query())
-                        .filter(inMemoryFilter).count();
-            } else {
-                dataProviderSize = getDataProvider().size(new Query(filters));
+        boolean resetSize = initial || reset;
+
+        List<T> pushedData = Collections.emptyList();
+        if (getDataProvider().isInMemory()) {
+            List<T> index = getInMemoryIndex();
+            if (resetSize) {
+                rpc.reset(index.size());
+            } else if (previousInMemoryIndex != null) {
+                sendStructuralChanges(previousInMemoryIndex, index);
+            }
+            if (!pushRows.isEmpty()) {
+                int start = Math.min(pushRows.getStart(), index.size());
+                int end = Math.min(pushRows.getEnd(), index.size());
+                pushedData = index.subList(start, end);
+                pushData(pushRows.getStart(), pushedData.stream());
+            }
+        } else if (!getDataProvider().isSizeKnown()) {
+            pushRowsWithUnknownSize(resetSize, filters);
+        } else if (resetSize && !pushRows.isEmpty()) {
+            // Fetch the rows and the size with one request to the back end
+            Query query = new Query(pushRows.getStart(), pushRows.length(),
+                    backEndSorting, filters);
+            QueryResult<T> result = getDataProvider().fetchWithSize(query);
+            rpc.reset(result.getSize());
+            pushData(pushRows.getStart(), result.getItems().stream());
+        } else {
+            if (resetSize) {
+                rpc.reset(getDataProvider().size(new Query(filters)));
+            }
+            if (!pushRows.isEmpty()) {
+                Query query = new Query(pushRows.getStart(),
+                        pushRows.length(), backEndSorting, filters);
+                pushData(pushRows.getStart(),
+                        getDataProvider().fetch(query));
             }
-            rpc.reset(dataProviderSize);
         }
 
-        if (!pushRows.isEmpty()) {
-            int offset = pushRows.getStart();
-            int limit = pushRows.length();
+        if (activeDataChanged) {
+            /*
+             * A data change event does not tell which items changed, and the
+             * items of an in-memory data provider may have been modified in
+             * place. The rows of the active items are therefore generated
+             * again and compared with the rows last sent, so that only actual
+             * changes are sent. Rows pushed in full above are up to date.
+             */
+            Set<T> pushed = new HashSet<>(pushedData);
+            handler.getActiveData().stream()
+                    .filter(item -> !pushed.contains(item))
+                    .forEach(updatedData::add);
+        }
 
-            Stream<T> rowsToPush;
+        if (!updatedData.isEmpty()) {
+            sendUpdatedData();
+        }
 
-            if (getDataProvider().isInMemory()) {
-                // We can safely request all the data when in memory
-                rowsToPush = getDataProvider().fetch(new Query());
-                if (inMemoryFilter != null) {
-                    rowsToPush = rowsToPush.filter(inMemoryFilter);
-                }
-                if (inMemorySorting != null) {
-                    rowsToPush = rowsToPush.sorted(inMemorySorting);
+        pushRows = Range.withLength(0, 0);
+        reset = false;
+        activeDataChanged = false;
+        previousInMemoryIndex = null;
+        updatedData.clear();
+    }
+
+    private void sendUpdatedData() {
+        JsonArray dataArray = Json.createArray();
+        JsonArray patchArray = Json.createArray();
+        for (T data : updatedData) {
+            JsonObject dataObject = getDataObject(data);
+            JsonObject previous = null;
+            if (incrementalUpdates) {
+                int key = intKeyMapper.intKey(data);
+                previous = getSentRows().get(key);
+                getSentRows().put(key, dataObject);
+            }
+            if (previous == null) {
+                dataArray.set(dataArray.length(), dataObject);
+            } else {
+                JsonObject patch = createPatch(previous, dataObject);
+                // The key is always present
+                if (patch.keys().length > 1) {
+                    patchArray.set(patchArray.length(), patch);
                 }
-                rowsToPush = rowsToPush.skip(offset).limit(limit);
+            }
+        }
+        if (dataArray.length() > 0) {
+            rpc.updateData(dataArray);
+        }
+        if (patchArray.length() > 0) {
+            rpc.patchData(patchArray);
+        }
+    }
+
+    /**
+     * Creates a patch containing the key and the values of {@code current}
+     * that differ from {@code previous}. Nested objects, such as the column
+     * values of a Grid row, are compared property by property. Properties
+     * missing from {@code current} are set to JSON {@code null}.
+     *
+     * @param previous
+     *            the row object previously sent to the client
+     * @param current
+     *            the new row object
+     * @return the patch object
+     */
+    private static JsonObject createPatch(JsonObject previous,
+            JsonObject current) {
+        JsonObject patch = Json.createObject();
+        patch.put(DataCommunicatorConstants.KEY,
+                current.getString(DataCommunicatorConstants.KEY));
+        for (String key : current.keys()) {
+            JsonValue value = current.get(key);
+            if (!previous.hasKey(key)) {
+                patch.put(key, value);
+                continue;
+            }
+            JsonValue oldValue = previous.get(key);
+            if (JsonUtil.jsonEquals(oldValue, value)) {
+                continue;
+            }
+            if (value.getType() == JsonType.OBJECT
+                    && oldValue.getType() == JsonType.OBJECT) {
+                patch.put(key, createNestedPatch((JsonObject) oldValue,
+                        (JsonObject) value));
             } else {
-                Query query = new Query(offset, limit, backEndSorting, filters);
-                rowsToPush = getDataProvider().fetch(query);
+                patch.put(key, value);
+            }
+        }
+        for (String key : previous.keys()) {
+            if (!current.hasKey(key)) {
+                patch.put(key, Json.createNull());
             }
-            pushData(offset, rowsToPush);
         }
+        return patch;
+    }
 
-        if (!updatedData.isEmpty()) {
-            JsonArray dataArray = Json.createArray();
-            int i = 0;
-            for (T data : updatedData) {
-                dataArray.set(i++, getDataObject(data));
+    private static JsonObject createNestedPatch(JsonObject previous,
+            JsonObject current) {
+        JsonObject patch = Json.createObject();
+        for (String key : current.keys()) {
+            JsonValue value = current.get(key);
+            if (!previous.hasKey(key)
+                    || !JsonUtil.jsonEquals(previous.get(key), value)) {
+                patch.put(key, value);
+            }
+        }
+        for (String key : previous.keys()) {
+            if (!current.hasKey(key)) {
+                patch.put(key, Json.createNull());
             }
-            rpc.updateData(dataArray);
         }
+        return patch;
+    }
 
-        pushRows = Range.withLength(0, 0);
-        reset = false;
-        updatedData.clear();
+    /**
+     * Sends the difference between the in-memory snapshot known by the client
+     * and the current snapshot as one removed and one inserted range of rows.
+     * Items before and after the changed range are kept in place on the
+     * client.
+     *
+     * @param previous
+     *            the snapshot last seen by the client
+     * @param current
+     *            the current snapshot
+     */
+    private void sendStructuralChanges(List<T> previous, List<T> current) {
+        int common = Math.min(previous.size(), current.size());
+        int prefix = 0;
+        while (prefix < common
+                && Objects.equals(previous.get(prefix), current.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < common - prefix && Objects.equals(
+                previous.get(previous.size() - 1 - suffix),
+                current.get(current.size() - 1 - suffix))) {
+            suffix++;
+        }
+
+        int removed = previous.size() - prefix - suffix;
+        int inserted = current.size() - prefix - suffix;
+        if (removed > 0) {
+            rpc.removeRows(prefix, removed);
+        }
+        if (inserted > 0) {
+            rpc.insertRows(prefix, inserted);
+        }
+    }
+
+    private IntObjectHashMap<JsonObject> getSentRows() {
+        if (sentRows == null) {
+            sentRows = new IntObjectHashMap<>();
+        }
+        return sentRows;
+    }
+
+    /**
+     * Sets whether this data communicator sends only the changes in the data
+     * to the client when possible.
+     * <p>
+     * When enabled, the last row object sent for each active item is kept in
+     * memory. Updated items are then sent as patches containing only the
+     * changed values, and changes in the contents of an in-memory data
+     * provider are sent as inserted and removed rows instead of resetting all
+     * data on the client. This trades server memory for smaller responses.
+     * <p>
+     * Disabled by default.
+     *
+     * @param incrementalUpdates
+     *            {@code true} to send only changes; {@code false} to always
+     *            send full rows
+     */
+    public void setIncrementalUpdates(boolean incrementalUpdates) {
+        this.incrementalUpdates = incrementalUpdates;
+        if (!incrementalUpdates) {
+            sentRows = null;
+        }
+    }
+
+    /**
+     * Gets whether this data communicator sends only the changes in the data
+     * to the client when possible.
+     *
+     * @return {@code true} if only changes are sent; {@code false} if full
+     *         rows are always sent
+     *
+     * @see #setIncrementalUpdates(boolean)
+     */
+    public boolean isIncrementalUpdates() {
+        return incrementalUpdates;
+    }
+
+    /**
+     * Pushes the requested rows from a data provider that does not know its
+     * size. The size reported to the client is an estimate that grows by the
+     * requested amount of rows whenever a full range of rows is fetched from
+     * the end of the currently known rows, and is fixed to the actual size
+     * once fewer rows than requested are returned.
+     *
+     * @param resetSize
+     *            {@code true} if the client-side size should be reset
+     * @param filters
+     *            the back end filters
+     */
+    private void pushRowsWithUnknownSize(boolean resetSize,
+            Set<Object> filters) {
+        Range rows = pushRows;
+        if (resetSize) {
+            // Start over from the beginning to find an initial estimate
+            rows = Range.withLength(0, Math.max(rows.getEnd(),
+                    UNKNOWN_SIZE_INITIAL_ROWS));
+        } else if (rows.isEmpty()) {
+            return;
+        }
+
+        Query query = new Query(rows.getStart(), rows.length(),
+                backEndSorting, filters);
+        Stream<T> stream = getDataProvider().fetch(query);
+        List<T> items = stream.collect(Collectors.toList());
+
+        int fetchedEnd = rows.getStart() + items.size();
+        int newSize;
+        if (items.size() < rows.length()) {
+            // The end of the data was found
+            newSize = fetchedEnd;
+        } else if (resetSize) {
+            // The old estimate is for data that no longer applies
+            newSize = fetchedEnd + rows.length();
+        } else {
+            newSize = Math.max(clientSize, fetchedEnd + rows.length());
+        }
+
+        if (resetSize || newSize < clientSize) {
+            rpc.reset(newSize);
+        } else if (newSize > clientSize) {
+            rpc.insertRows(clientSize, newSize - clientSize);
+        }
+        clientSize = newSize;
+
+        pushData(rows.getStart(), items.stream());
     }
 
     /**
@@ -324,7 +619,11 @@ public class DataCommunicator<T> extends AbstractExtension {
         int i = 0;
         List<T> collected = data.collect(Collectors.toList());
         for (T item : collected) {
-            dataArray.set(i++, getDataObject(item));
+            JsonObject dataObject = getDataObject(item);
+            if (incrementalUpdates) {
+                getSentRows().put(intKeyMapper.intKey(item), dataObject);
+            }
+            dataArray.set(i++, dataObject);
         }
 
         rpc.setData(firstIndex, dataArray);
@@ -355,13 +654,11 @@ public class DataCommunicator<T> extends AbstractExtension {
      * {@link DataGenerator#destroyData} for each of those objects.
      *
      * @param droppedKeys
-     *            collection of dropped keys
+     *            set of dropped keys
      */
-    private void dropData(Collection<String> droppedKeys) {
-        for (String key : droppedKeys) {
-            assert key != null : "Bookkeepping failure. Dropping a null key";
-
-            T data = getKeyMapper().get(key);
+    private void dropData(IntHashSet droppedKeys) {
+        for (int key : droppedKeys.toArray()) {
+            T data = intKeyMapper.get(key);
             assert data != null : "Bookkeepping failure. No data object to match key";
 
             for (DataGenerator<T> g : generators) {
@@ -370,10 +667,39 @@ public class DataCommunicator<T> extends AbstractExtension {
         }
     }
 
+    /**
+     * Gets the filtered and sorted items of an in-memory data provider. The
+     * result is cached until the in-memory filter, the in-memory sorting or
+     * the data provider contents change.
+     *
+     * @return list of items in the order they are shown, not {@code null}
+     */
+    private List<T> getInMemoryIndex() {
+        if (inMemoryIndex == null) {
+            // We can safely request all the data when in memory
+            Stream<T> stream = getDataProvider().fetch(new Query());
+            if (inMemoryFilter != null) {
+                stream = stream.filter(inMemoryFilter);
+            }
+            if (inMemorySorting != null) {
+                stream = stream.sorted(inMemorySorting);
+            }
+            inMemoryIndex = stream.collect(Collectors.toList());
+        }
+        return inMemoryIndex;
+    }
+
+    private void invalidateInMemoryIndex() {
+        inMemoryIndex = null;
+    }
+
     /**
      * Informs the DataProvider that the collection has changed.
      */
     public void reset() {
+        invalidateInMemoryIndex();
+        previousInMemoryIndex = null;
+        activeDataChanged = false;
         if (reset) {
             return;
         }
@@ -389,7 +715,7 @@ public class DataCommunicator<T> extends AbstractExtension {
      *            updated data object
      */
     public void refresh(T data) {
-        if (!handler.getActiveData().contains(data)) {
+        if (!handler.isActive(data)) {
             // Item is not currently available at the client-side
             return;
         }
@@ -438,12 +764,35 @@ public class DataCommunicator<T> extends AbstractExtension {
     /**
      * Creates a {@link DataKeyMapper} to use with this DataCommunicator.
      * <p>
-     * This method is called from the constructor.
+     * This method is called from the constructor. The default implementation
+     * returns an {@link IntKeyMapper}. If the returned key mapper is not an
+     * {@link IntKeyMapper}, active data is tracked using a separate internal
+     * {@link IntKeyMapper}.
      *
      * @return key mapper
      */
     protected DataKeyMapper<T> createKeyMapper() {
-        return new KeyMapper<>();
+        return new IntKeyMapper<>();
+    }
+
+    /**
+     * Converts a key string sent by the client to the int key of the same
+     * data object used for tracking active data.
+     *
+     * @param key
+     *            the key string
+     * @return the int key; {@link IntKeyMapper#NULL_KEY} if the key is not
+     *         mapped
+     */
+    private int toIntKey(String key) {
+        if (keyMapper == intKeyMapper) {
+            return IntKeyMapper.toIntKey(key);
+        }
+        T data = keyMapper.get(key);
+        if (!intKeyMapper.has(data)) {
+            return IntKeyMapper.NULL_KEY;
+        }
+        return intKeyMapper.intKey(data);
     }
 
     /**
@@ -484,7 +833,22 @@ public class DataCommunicator<T> extends AbstractExtension {
 
     private void attachDataProviderListener() {
         dataProviderUpdateRegistration = getDataProvider()
-                .addDataProviderListener(event -> reset());
+                .addDataProviderListener(event -> onDataChange());
+    }
+
+    private void onDataChange() {
+        if (!incrementalUpdates || !getDataProvider().isInMemory()
+                || inMemoryIndex == null || reset) {
+            reset();
+            return;
+        }
+        if (previousInMemoryIndex == null) {
+            previousInMemoryIndex = inMemoryIndex;
+        }
+        invalidateInMemoryIndex();
+        // Rows of the active items are checked before the response is sent
+        activeDataChanged = true;
+        markAsDirty();
     }
 
     private void detachDataProviderListener() {
@@ -18,6 +18,7 @@ package com.vaadin.server.data;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import com.vaadin.shared.Registration;
@@ -67,6 +68,36 @@ public interface DataProvider<T, F> extends Serializable {
      */
     Stream<T> fetch(Query<F> query);
 
+    /**
+     * Fetches data from this DataProvider using given {@code query} and gets
+     * the total amount of data matching the query filter in one request.
+     * <p>
+     * The default implementation calls {@link #fetch(Query)} and
+     * {@link #size(Query)}. Data providers that can answer both in one request
+     * to their back end should override this method.
+     *
+     * @param query
+     *            given query to request data
+     * @return the fetched data objects and the total size, not {@code null}
+     */
+    default QueryResult<T> fetchWithSize(Query<F> query) {
+        return new QueryResult<>(fetch(query).collect(Collectors.toList()),
+                size(query));
+    }
+
+    /**
+     * Gets whether this DataProvider can tell the amount of data it contains.
+     * If the size is not known, {@link #size(Query)} should not be called and
+     * users of this data provider have to find the end of the data by
+     * fetching.
+     *
+     * @return {@code true} if {@link #size(Query)} is supported; {@code false}
+     *         if not
+     */
+    default boolean isSizeKnown() {
+        return true;
+    }
+
     /**
      * Refreshes all data based on currently available data in the underlying
      * provider.
@@ -90,8 +121,8 @@ public interface DataProvider<T, F> extends Serializable {
 
     /**
      * This method creates a new {@link ListDataProvider} from a given
-     * Collection. The ListDataProvider creates a protective List copy of all
-     * the contents in the Collection.
+     * Collection. No copy is made; the ListDataProvider uses the Collection as
+     * is, so {@link #refreshAll()} should be called after changing it.
      *
      * @param <T>
      *            the data item type
@@ -104,9 +135,9 @@ public interface DataProvider<T, F> extends Serializable {
     }
 
     /**
-     * This method creates a new {@link ListDataProvider} from given objects.The
-     * ListDataProvider creates a protective List copy of all the contents in
-     * the array.
+     * This method creates a new {@link ListDataProvider} from given objects.
+     * The ListDataProvider uses a fixed-size List view of the array, so
+     * changes to the array are visible in the data provider.
      *
      * @param <T>
      *            the data item type
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.data;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Set of positive {@code int} values based on open addressing with linear
+ * probing. Unlike a {@code HashSet<Integer>}, this set does not box its
+ * values.
+ * <p>
+ * The value {@code 0} is reserved for marking empty slots and cannot be stored.
+ *
+ * @since 8.0
+ */
+class IntHashSet implements Serializable {
+
+    private static final int EMPTY = 0;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] values = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Adds a value to this set.
+     *
+     * @param value
+     *            the value to add, not {@code 0}
+     * @return {@code true} if the value was added; {@code false} if it was
+     *         already in this set
+     */
+    public boolean add(int value) {
+        assert value != EMPTY : "0 cannot be stored";
+        int slot = findSlot(values, value);
+        if (values[slot] == value) {
+            return false;
+        }
+        values[slot] = value;
+        if (++size * 2 > values.length) {
+            rehash(values.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a value is in this set.
+     *
+     * @param value
+     *            the value to check
+     * @return {@code true} if the value is in this set; {@code false} if not
+     */
+    public boolean contains(int value) {
+        return value != EMPTY && values[findSlot(values, value)] == value;
+    }
+
+    /**
+     * Removes a value from this set.
+     *
+     * @param value
+     *            the value to remove
+     * @return {@code true} if the value was removed; {@code false} if it was
+     *         not in this set
+     */
+    public boolean remove(int value) {
+        if (value == EMPTY) {
+            return false;
+        }
+        int slot = findSlot(values, value);
+        if (values[slot] != value) {
+            return false;
+        }
+        int mask = values.length - 1;
+        int gap = slot;
+        int i = (slot + 1) & mask;
+        // Shift back entries that would not be found after emptying the slot
+        while (values[i] != EMPTY) {
+            int home = hash(values[i]) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                values[gap] = values[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        values[gap] = EMPTY;
+        size--;
+        return true;
+    }
+
+    /**
+     * Gets the amount of values in this set.
+     *
+     * @return the size of this set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether this set is empty.
+     *
+     * @return {@code true} if this set has no values; {@code false} if not
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all values from this set.
+     */
+    public void clear() {
+        if (values.length > INITIAL_CAPACITY) {
+            values = new int[INITIAL_CAPACITY];
+        } else {
+            Arrays.fill(values, EMPTY);
+        }
+        size = 0;
+    }
+
+    /**
+     * Calls the given action for each value in this set. The set must not be
+     * modified by the action.
+     *
+     * @param action
+     *            the action to call, not null
+     */
+    public void forEach(IntConsumer action) {
+        for (int value : values) {
+            if (value != EMPTY) {
+                action.accept(value);
+            }
+        }
+    }
+
+    /**
+     * Gets the values of this set as an array.
+     *
+     * @return a new array of the values in this set
+     */
+    public int[] toArray() {
+        int[] result = new int[size];
+        int i = 0;
+        for (int value : values) {
+            if (value != EMPTY) {
+                result[i++] = value;
+            }
+        }
+        return result;
+    }
+
+    private void rehash(int capacity) {
+        int[] newValues = new int[capacity];
+        for (int value : values) {
+            if (value != EMPTY) {
+                newValues[findSlot(newValues, value)] = value;
+            }
+        }
+        values = newValues;
+    }
+
+    private static int findSlot(int[] table, int value) {
+        int mask = table.length - 1;
+        int slot = hash(value) & mask;
+        while (table[slot] != EMPTY && table[slot] != value) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    static int hash(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.data;
+
+/**
+ * {@link DataKeyMapper} that internally identifies data objects with positive
+ * {@code int} keys. The keys are only converted to strings when they are sent
+ * to the client, which avoids allocating and hashing a string for each mapped
+ * data object.
+ * <p>
+ * Data objects are compared using {@link Object#equals(Object)}. The key
+ * {@code 0} and the string {@code "null"} represent {@code null}.
+ *
+ * @param <T>
+ *            data type
+ *
+ * @since 8.0
+ */
+public class IntKeyMapper<T> implements DataKeyMapper<T> {
+
+    /**
+     * The key representing {@code null}.
+     */
+    public static final int NULL_KEY = 0;
+
+    private static final String NULL_STRING = "null";
+
+    private int lastKey = NULL_KEY;
+
+    private final ObjectIntHashMap<T> objectKeyMap = new ObjectIntHashMap<>();
+
+    private final IntObjectHashMap<T> keyObjectMap = new IntObjectHashMap<>();
+
+    /**
+     * Gets the int key for a data object. If no key exists beforehand, a new
+     * key is created.
+     *
+     * @param dataObject
+     *            data object for key mapping
+     * @return key for given data object; {@link #NULL_KEY} for {@code null}
+     */
+    public int intKey(T dataObject) {
+        if (dataObject == null) {
+            return NULL_KEY;
+        }
+
+        int key = objectKeyMap.get(dataObject);
+        if (key != NULL_KEY) {
+            return key;
+        }
+
+        key = ++lastKey;
+        objectKeyMap.put(dataObject, key);
+        keyObjectMap.put(key, dataObject);
+        return key;
+    }
+
+    /**
+     * Gets the data object identified by given int key.
+     *
+     * @param key
+     *            key of a data object
+     * @return identified data object; <code>null</code> if invalid key
+     */
+    public T get(int key) {
+        return keyObjectMap.get(key);
+    }
+
+    /**
+     * Checks if the given data object is mapped to a key.
+     *
+     * @param dataObject
+     *            the data object to check
+     * @return <code>true</code> if the data object currently has a key,
+     *         <code>false</code> otherwise
+     */
+    public boolean has(T dataObject) {
+        return dataObject != null
+                && objectKeyMap.get(dataObject) != NULL_KEY;
+    }
+
+    /**
+     * Checks if the given int key is mapped to a data object.
+     *
+     * @param key
+     *            the key to check
+     * @return <code>true</code> if the key is currently mapped,
+     *         <code>false</code> otherwise
+     */
+    public boolean containsKey(int key) {
+        return keyObjectMap.containsKey(key);
+    }
+
+    /**
+     * Converts a key string sent by the client to an int key.
+     *
+     * @param key
+     *            the key string
+     * @return the int key; {@link #NULL_KEY} if the string is not a valid key
+     */
+    public static int toIntKey(String key) {
+        if (key == null || key.isEmpty() || key.length() > 10) {
+            return NULL_KEY;
+        }
+        long value = 0;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < '0' || c > '9') {
+                return NULL_KEY;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value > Integer.MAX_VALUE ? NULL_KEY : (int) value;
+    }
+
+    /**
+     * Converts an int key to the key string sent to the client.
+     *
+     * @param key
+     *            the int key
+     * @return the key string
+     */
+    public static String toStringKey(int key) {
+        return key == NULL_KEY ? NULL_STRING : Integer.toString(key);
+    }
+
+    @Override
+    public String key(T dataObject) {
+        return toStringKey(intKey(dataObject));
+    }
+
+    @Override
+    public T get(String key) {
+        return get(toIntKey(key));
+    }
+
+    @Override
+    public void remove(T dataObject) {
+        if (dataObject == null) {
+            return;
+        }
+        int key = objectKeyMap.remove(dataObject);
+        if (key != NULL_KEY) {
+            keyObjectMap.remove(key);
+        }
+    }
+
+    @Override
+    public void removeAll() {
+        objectKeyMap.clear();
+        keyObjectMap.clear();
+    }
+
+    /**
+     * Gets the amount of currently mapped data objects.
+     *
+     * @return the amount of mapped data objects
+     */
+    public int size() {
+        return keyObjectMap.size();
+    }
+}
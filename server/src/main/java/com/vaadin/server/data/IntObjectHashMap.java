@@ -0,0 +1,167 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.data;
+
+import java.io.Serializable;
+
+/**
+ * Map from positive {@code int} keys to objects based on open addressing with
+ * linear probing. Unlike a {@code HashMap<Integer, V>}, this map does not box
+ * its keys.
+ * <p>
+ * The key {@code 0} is reserved for marking empty slots and cannot be used.
+ *
+ * @param <V>
+ *            value type
+ *
+ * @since 8.0
+ */
+class IntObjectHashMap<V> implements Serializable {
+
+    private static final int EMPTY = 0;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private Object[] values = new Object[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Gets the value mapped to a key.
+     *
+     * @param key
+     *            the key
+     * @return the mapped value; {@code null} if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (key == EMPTY) {
+            return null;
+        }
+        int slot = findSlot(keys, key);
+        return keys[slot] == key ? (V) values[slot] : null;
+    }
+
+    /**
+     * Checks whether a key is mapped to a value.
+     *
+     * @param key
+     *            the key to check
+     * @return {@code true} if the key is mapped; {@code false} if not
+     */
+    public boolean containsKey(int key) {
+        return key != EMPTY && keys[findSlot(keys, key)] == key;
+    }
+
+    /**
+     * Maps a key to a value, replacing any previous mapping of the key.
+     *
+     * @param key
+     *            the key, not {@code 0}
+     * @param value
+     *            the value
+     */
+    public void put(int key, V value) {
+        assert key != EMPTY : "0 cannot be used as a key";
+        int slot = findSlot(keys, key);
+        if (keys[slot] == key) {
+            values[slot] = value;
+            return;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * Removes the mapping of a key.
+     *
+     * @param key
+     *            the key to remove
+     * @return the value that was mapped to the key; {@code null} if there was
+     *         none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        if (key == EMPTY) {
+            return null;
+        }
+        int slot = findSlot(keys, key);
+        if (keys[slot] != key) {
+            return null;
+        }
+        V removed = (V) values[slot];
+        int mask = keys.length - 1;
+        int gap = slot;
+        int i = (slot + 1) & mask;
+        // Shift back entries that would not be found after emptying the slot
+        while (keys[i] != EMPTY) {
+            int home = IntHashSet.hash(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = null;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Gets the amount of mappings in this map.
+     *
+     * @return the size of this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all mappings from this map.
+     */
+    public void clear() {
+        keys = new int[INITIAL_CAPACITY];
+        values = new Object[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] newKeys = new int[capacity];
+        Object[] newValues = new Object[capacity];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                int slot = findSlot(newKeys, keys[i]);
+                newKeys[slot] = keys[i];
+                newValues[slot] = values[i];
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+    }
+
+    private static int findSlot(int[] table, int key) {
+        int mask = table.length - 1;
+        int slot = IntHashSet.hash(key) & mask;
+        while (table[slot] != EMPTY && table[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
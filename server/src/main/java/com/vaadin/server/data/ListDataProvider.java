@@ -17,15 +17,19 @@ package com.vaadin.server.data;
 
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
 import com.vaadin.server.SerializablePredicate;
 
 /**
- * {@link DataProvider} wrapper for {@link Collection}s. This class does not
- * actually handle the {@link Query} parameters.
+ * {@link DataProvider} wrapper for {@link Collection}s. The filter and the
+ * offset and limit of a {@link Query} are applied in memory. The
+ * {@link Query#getSortOrders() sort orders} of a query are not used; sorting is
+ * defined with {@link #sortingBy(Comparator)} instead.
  *
  * @param <T>
  *            data type
@@ -37,8 +41,9 @@ public class ListDataProvider<T>
     private final Collection<T> backend;
 
     /**
-     * Constructs a new ListDataProvider. This method makes a protective copy of
-     * the contents of the Collection.
+     * Constructs a new ListDataProvider backed by the given collection. No
+     * copy is made; the collection is used as is, so {@link #refreshAll()}
+     * should be called after changing it.
      *
      * @param items
      *            the initial data, not null
@@ -66,14 +71,41 @@ public class ListDataProvider<T>
     }
 
     @Override
-    public Stream<T> fetch(Query query) {
+    public Stream<T> fetch(Query<SerializablePredicate<T>> query) {
+        SerializablePredicate<T> filter = query.getFilter().orElse(null);
+        if (filter == null && sortOrder == null && backend instanceof List
+                && backend instanceof RandomAccess) {
+            return slice((List<T>) backend, query).stream();
+        }
+        return getStream(filter).skip(query.getOffset())
+                .limit(query.getLimit());
+    }
+
+    /**
+     * Gets a stream of the items of the backend that pass the given filter,
+     * sorted by the sort order of this data provider.
+     *
+     * @param filter
+     *            the filter to apply, or {@code null} for no filtering
+     * @return a stream of matching items in sort order
+     */
+    private Stream<T> getStream(SerializablePredicate<T> filter) {
         Stream<T> stream = backend.stream();
+        if (filter != null) {
+            stream = stream.filter(filter);
+        }
         if (sortOrder != null) {
             stream = stream.sorted(sortOrder);
         }
         return stream;
     }
 
+    private static <T> List<T> slice(List<T> list, Query<?> query) {
+        int from = Math.min(query.getOffset(), list.size());
+        int to = (int) Math.min((long) from + query.getLimit(), list.size());
+        return list.subList(from, to);
+    }
+
     /**
      * Creates a new list data provider based on this list data provider with
      * the given sort order.
@@ -116,12 +148,16 @@ public class ListDataProvider<T>
     /**
      * {@inheritDoc}
      * <p>
-     * For in-memory data provider the query is not handled, and it will always
-     * return the full size.
+     * For in-memory data provider only the filter of the query is taken into
+     * account.
      */
     @Override
-    public int size(Query query) {
-        return backend.size();
+    public int size(Query<SerializablePredicate<T>> query) {
+        SerializablePredicate<T> filter = query.getFilter().orElse(null);
+        if (filter == null) {
+            return backend.size();
+        }
+        return (int) backend.stream().filter(filter).count();
     }
 
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.data;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * Map from objects to positive {@code int} values based on open addressing
+ * with linear probing. Keys are compared using {@link Object#equals(Object)}.
+ * Unlike a {@code HashMap<K, Integer>}, this map does not box its values.
+ * <p>
+ * The value {@code 0} is returned for keys that are not mapped and cannot be
+ * stored. {@code null} keys are not supported.
+ *
+ * @param <K>
+ *            key type
+ *
+ * @since 8.0
+ */
+class ObjectIntHashMap<K> implements Serializable {
+
+    private static final int MISSING = 0;
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Slots depend on key hash codes, which may change in serialization
+    private transient Object[] keys = new Object[INITIAL_CAPACITY];
+    private transient int[] values = new int[INITIAL_CAPACITY];
+    private transient int size = 0;
+
+    /**
+     * Gets the value mapped to a key.
+     *
+     * @param key
+     *            the key, not null
+     * @return the mapped value; {@code 0} if there is none
+     */
+    public int get(K key) {
+        int slot = findSlot(keys, key);
+        return keys[slot] == null ? MISSING : values[slot];
+    }
+
+    /**
+     * Maps a key to a value, replacing any previous mapping of the key.
+     *
+     * @param key
+     *            the key, not null
+     * @param value
+     *            the value, not {@code 0}
+     */
+    public void put(K key, int value) {
+        assert value != MISSING : "0 cannot be stored";
+        int slot = findSlot(keys, key);
+        if (keys[slot] != null) {
+            values[slot] = value;
+            return;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * Removes the mapping of a key.
+     *
+     * @param key
+     *            the key to remove, not null
+     * @return the value that was mapped to the key; {@code 0} if there was
+     *         none
+     */
+    public int remove(K key) {
+        int slot = findSlot(keys, key);
+        if (keys[slot] == null) {
+            return MISSING;
+        }
+        int removed = values[slot];
+        int mask = keys.length - 1;
+        int gap = slot;
+        int i = (slot + 1) & mask;
+        // Shift back entries that would not be found after emptying the slot
+        while (keys[i] != null) {
+            int home = hash(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[gap] = null;
+        values[gap] = MISSING;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Gets the amount of mappings in this map.
+     *
+     * @return the size of this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all mappings from this map.
+     */
+    public void clear() {
+        keys = new Object[INITIAL_CAPACITY];
+        values = new int[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        Object[] newKeys = new Object[capacity];
+        int[] newValues = new int[capacity];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                int slot = findSlot(newKeys, keys[i]);
+                newKeys[slot] = keys[i];
+                newValues[slot] = values[i];
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                out.writeObject(keys[i]);
+                out.writeInt(values[i]);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in)
+            throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int count = in.readInt();
+        keys = new Object[INITIAL_CAPACITY];
+        values = new int[INITIAL_CAPACITY];
+        size = 0;
+        for (int i = 0; i < count; i++) {
+            K key = (K) in.readObject();
+            put(key, in.readInt());
+        }
+    }
+
+    private static int findSlot(Object[] table, Object key) {
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+        while (table[slot] != null && !table[slot].equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(Object key) {
+        return IntHashSet.hash(key.hashCode());
+    }
+}
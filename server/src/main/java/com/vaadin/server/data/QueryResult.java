@@ -0,0 +1,72 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.data;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable result of a combined fetch and size request to a data provider.
+ * Contains the items requested by a {@link Query} and the total amount of items
+ * matching the query filter.
+ *
+ * @see DataProvider#fetchWithSize(Query)
+ *
+ * @param <T>
+ *            data type
+ *
+ * @since 8.0
+ */
+public class QueryResult<T> implements Serializable {
+
+    private final List<T> items;
+    private final int size;
+
+    /**
+     * Constructs a new query result.
+     *
+     * @param items
+     *            the items in the requested range, not null
+     * @param size
+     *            the total amount of items matching the query filter
+     */
+    public QueryResult(List<T> items, int size) {
+        Objects.requireNonNull(items, "items cannot be null");
+        this.items = Collections.unmodifiableList(items);
+        this.size = size;
+    }
+
+    /**
+     * Gets the items in the range requested by the query.
+     *
+     * @return unmodifiable list of items, not null
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets the total amount of items matching the query filter, ignoring the
+     * offset and limit of the query.
+     *
+     * @return the total size
+     */
+    public int getSize() {
+        return size;
+    }
+}
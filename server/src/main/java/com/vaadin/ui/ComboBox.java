@@ -29,12 +29,12 @@ import com.vaadin.event.FieldEvents.BlurListener;
 import com.vaadin.event.FieldEvents.FocusAndBlurServerRpcDecorator;
 import com.vaadin.event.FieldEvents.FocusEvent;
 import com.vaadin.event.FieldEvents.FocusListener;
-import com.vaadin.server.KeyMapper;
 import com.vaadin.server.Resource;
 import com.vaadin.server.ResourceReference;
 import com.vaadin.server.data.DataCommunicator;
 import com.vaadin.server.data.DataKeyMapper;
 import com.vaadin.server.data.DataProvider;
+import com.vaadin.server.data.IntKeyMapper;
 import com.vaadin.shared.Registration;
 import com.vaadin.shared.data.DataCommunicatorConstants;
 import com.vaadin.shared.ui.combobox.ComboBoxConstants;
@@ -131,7 +131,7 @@ public class ComboBox<T> extends AbstractSingleSelect<T> implements HasValue<T>,
         super(new DataCommunicator<T>() {
             @Override
             protected DataKeyMapper<T> createKeyMapper() {
-                return new KeyMapper<T>() {
+                return new IntKeyMapper<T>() {
                     @Override
                     public void remove(T removeobj) {
                         // never remove keys from ComboBox to support selection
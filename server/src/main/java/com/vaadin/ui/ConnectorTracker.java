@@ -16,6 +16,7 @@
 package com.vaadin.ui;
 
 import java.io.IOException;
+import java.io.InvalidObjectException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -40,10 +41,10 @@ import com.vaadin.server.StreamVariable;
 import com.vaadin.server.VaadinRequest;
 import com.vaadin.server.VaadinService;
 import com.vaadin.server.communication.ConnectorHierarchyWriter;
+import com.vaadin.util.CompactJsonSerializer;
 
-import elemental.json.Json;
-import elemental.json.JsonException;
 import elemental.json.JsonObject;
+import elemental.json.JsonValue;
 
 /**
  * A class which takes care of book keeping of {@link ClientConnector}s for a
@@ -78,6 +79,14 @@ public class ConnectorTracker implements Serializable {
      */
     private final Set<ClientConnector> unregisteredConnectors = new HashSet<>();
 
+    /**
+     * Connectors that have been marked as dirty since the previous
+     * {@link #cleanConnectorMap()}. Visibility changes and detaching always
+     * mark the connector or its parent as dirty, so only these connectors and
+     * their children need to be checked during cleanup.
+     */
+    private final Set<ClientConnector> visibilityChangeCandidates = new HashSet<>();
+
     private boolean writingResponse = false;
 
     private final UI uI;
@@ -154,6 +163,7 @@ public class ConnectorTracker implements Serializable {
                             connectorId });
         }
         dirtyConnectors.add(connector);
+        visibilityChangeCandidates.add(connector);
     }
 
     /**
@@ -288,53 +298,98 @@ public class ConnectorTracker implements Serializable {
                 + "and that all custom component containers call child.setParent(this) when a child is added and child.setParent(null) when the child is no longer used. "
                 + "See previous log messages for details.";
 
-        // remove detached components from paintableIdMap so they
-        // can be GC'ed
-        Iterator<ClientConnector> iterator = connectorIdToConnector.values()
-                .iterator();
+        // Only connectors marked as dirty since the previous cleanup and their
+        // children can have changed visibility or been detached, so there is
+        // no need to go through all the registered connectors
         GlobalResourceHandler globalResourceHandler = uI.getSession()
                 .getGlobalResourceHandler(false);
-        while (iterator.hasNext()) {
-            ClientConnector connector = iterator.next();
-            assert connector != null;
-            if (connector.getUI() != uI) {
-                // If connector is no longer part of this uI,
-                // remove it from the map. If it is re-attached to the
-                // application at some point it will be re-added through
-                // registerConnector(connector)
-
-                // This code should never be called as cleanup should take place
-                // in detach()
-
-                getLogger().log(Level.WARNING,
-                        "cleanConnectorMap unregistered connector {0}. This should have been done when the connector was detached.",
-                        getConnectorAndParentInfo(connector));
+        for (ClientConnector connector : visibilityChangeCandidates) {
+            cleanConnector(connector, true, globalResourceHandler);
+        }
+        visibilityChangeCandidates.clear();
 
-                if (globalResourceHandler != null) {
-                    globalResourceHandler.unregisterConnector(connector);
-                }
-                uninitializedConnectors.remove(connector);
-                diffStates.remove(connector);
-                iterator.remove();
-            } else if (!uninitializedConnectors.contains(connector)
-                    && !LegacyCommunicationManager
-                            .isConnectorVisibleToClient(connector)) {
-                uninitializedConnectors.add(connector);
-                diffStates.remove(connector);
-
-                assert isRemovalSentToClient(connector) : "Connector "
-                        + connector + " (id = " + connector.getConnectorId()
-                        + ") is no longer visible to the client, but no corresponding hierarchy change is being sent.";
-
-                if (getLogger().isLoggable(Level.FINE)) {
-                    getLogger().log(Level.FINE,
-                            "cleanConnectorMap removed state for {0} as it is not visible",
-                            getConnectorAndParentInfo(connector));
-                }
+        cleanStreamVariables();
+    }
+
+    /**
+     * Removes the given connector if it is no longer attached to this UI and
+     * discards its client side state if it is no longer visible to the client.
+     * Children are checked as well if the connector is a candidate for
+     * visibility changes or if it just became invisible, since that makes all
+     * its descendants invisible too.
+     *
+     * @param connector
+     *            the connector to check
+     * @param candidate
+     *            <code>true</code> if the connector has been marked as dirty
+     *            since the previous cleanup, otherwise <code>false</code>
+     * @param globalResourceHandler
+     *            the global resource handler of the session, or
+     *            <code>null</code> if there is none
+     */
+    private void cleanConnector(ClientConnector connector, boolean candidate,
+            GlobalResourceHandler globalResourceHandler) {
+        if (connectorIdToConnector
+                .get(connector.getConnectorId()) != connector) {
+            // Not registered, e.g. removed by removeUnregisteredConnectors
+            if (candidate) {
+                cleanChildren(connector, globalResourceHandler);
             }
+            return;
         }
 
-        cleanStreamVariables();
+        if (connector.getUI() != uI) {
+            // If connector is no longer part of this uI,
+            // remove it from the map. If it is re-attached to the
+            // application at some point it will be re-added through
+            // registerConnector(connector)
+
+            // This code should never be called as cleanup should take place
+            // in detach()
+
+            getLogger().log(Level.WARNING,
+                    "cleanConnectorMap unregistered connector {0}. This should have been done when the connector was detached.",
+                    getConnectorAndParentInfo(connector));
+
+            if (globalResourceHandler != null) {
+                globalResourceHandler.unregisterConnector(connector);
+            }
+            uninitializedConnectors.remove(connector);
+            diffStates.remove(connector);
+            connectorIdToConnector.remove(connector.getConnectorId());
+            return;
+        }
+
+        boolean hidden = false;
+        if (!uninitializedConnectors.contains(connector)
+                && !LegacyCommunicationManager
+                        .isConnectorVisibleToClient(connector)) {
+            uninitializedConnectors.add(connector);
+            diffStates.remove(connector);
+            hidden = true;
+
+            assert isRemovalSentToClient(connector) : "Connector "
+                    + connector + " (id = " + connector.getConnectorId()
+                    + ") is no longer visible to the client, but no corresponding hierarchy change is being sent.";
+
+            if (getLogger().isLoggable(Level.FINE)) {
+                getLogger().log(Level.FINE,
+                        "cleanConnectorMap removed state for {0} as it is not visible",
+                        getConnectorAndParentInfo(connector));
+            }
+        }
+
+        if (candidate || hidden) {
+            cleanChildren(connector, globalResourceHandler);
+        }
+    }
+
+    private void cleanChildren(ClientConnector connector,
+            GlobalResourceHandler globalResourceHandler) {
+        for (ClientConnector child : AbstractClientConnector
+                .getAllChildrenIterable(connector)) {
+            cleanConnector(child, false, globalResourceHandler);
+        }
     }
 
     private boolean isRemovalSentToClient(ClientConnector connector) {
@@ -498,6 +553,7 @@ public class ConnectorTracker implements Serializable {
         }
 
         dirtyConnectors.add(connector);
+        visibilityChangeCandidates.add(connector);
     }
 
     /**
@@ -704,14 +760,16 @@ public class ConnectorTracker implements Serializable {
     private void writeObject(java.io.ObjectOutputStream out)
             throws IOException {
         out.defaultWriteObject();
-        // Convert JsonObjects in diff state to String representation as
-        // JsonObject is not serializable
-        HashMap<ClientConnector, String> stringDiffStates = new HashMap<>(
-                diffStates.size() * 2);
-        for (ClientConnector key : diffStates.keySet()) {
-            stringDiffStates.put(key, diffStates.get(key).toString());
+        // JsonObject is not serializable, so the diff states are written
+        // using a compact binary encoding that shares keys and values between
+        // the states instead of converting each one to a String
+        CompactJsonSerializer serializer = new CompactJsonSerializer();
+        out.writeInt(diffStates.size());
+        for (Map.Entry<ClientConnector, JsonObject> entry : diffStates
+                .entrySet()) {
+            out.writeObject(entry.getKey());
+            serializer.write(out, entry.getValue());
         }
-        out.writeObject(stringDiffStates);
     }
 
     /* Special serialization to JsonObjects which are not serializable */
@@ -719,22 +777,18 @@ public class ConnectorTracker implements Serializable {
             throws IOException, ClassNotFoundException {
         in.defaultReadObject();
 
-        // Read String versions of JsonObjects and parse into JsonObjects as
-        // JsonObject is not serializable
-        diffStates = new HashMap<>();
-        @SuppressWarnings("unchecked")
-        HashMap<ClientConnector, String> stringDiffStates = (HashMap<ClientConnector, String>) in
-                .readObject();
-        diffStates = new HashMap<>(
-                stringDiffStates.size() * 2);
-        for (ClientConnector key : stringDiffStates.keySet()) {
-            try {
-                diffStates.put(key, Json.parse(stringDiffStates.get(key)));
-            } catch (JsonException e) {
-                throw new IOException(e);
+        CompactJsonSerializer serializer = new CompactJsonSerializer();
+        int size = in.readInt();
+        diffStates = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            ClientConnector connector = (ClientConnector) in.readObject();
+            JsonValue diffState = serializer.read(in);
+            if (!(diffState instanceof JsonObject)) {
+                throw new InvalidObjectException(
+                        "Diff state is not a JSON object");
             }
+            diffStates.put(connector, (JsonObject) diffState);
         }
-
     }
 
     /**
@@ -162,11 +162,43 @@ public interface PushConfiguration extends Serializable {
      */
     public String getPushUrl();
 
+    /**
+     * Sets the minimum interval between two automatic pushes of the UI. When
+     * the session lock is released less than the given time after the
+     * previous push, the push is postponed until the interval has passed.
+     * Any changes made in the meantime, for instance by further
+     * {@link UI#access(Runnable)} tasks, are then sent in a single push.
+     * <p>
+     * Coalescing is only used with {@link PushMode#AUTOMATIC}. Calling
+     * {@link UI#push()} explicitly always pushes right away.
+     *
+     * @since 8.0
+     * @param intervalMillis
+     *            the minimum interval between pushes in milliseconds, or 0 to
+     *            push every time the session lock is released (the default)
+     * @throws IllegalArgumentException
+     *             if the interval is negative
+     */
+    public void setPushCoalescingInterval(int intervalMillis);
+
+    /**
+     * Returns the minimum interval between two automatic pushes of the UI.
+     *
+     * @see #setPushCoalescingInterval(int)
+     *
+     * @since 8.0
+     * @return the minimum interval between pushes in milliseconds, or 0 if
+     *         pushes are not coalesced
+     */
+    public int getPushCoalescingInterval();
+
 }
 
 class PushConfigurationImpl implements PushConfiguration {
     private final UI ui;
 
+    private int pushCoalescingInterval = 0;
+
     public PushConfigurationImpl(UI ui) {
         this.ui = ui;
     }
@@ -232,6 +264,20 @@ class PushConfigurationImpl implements PushConfiguration {
         return getState(false).pushUrl;
     }
 
+    @Override
+    public void setPushCoalescingInterval(int intervalMillis) {
+        if (intervalMillis < 0) {
+            throw new IllegalArgumentException(
+                    "Push coalescing interval cannot be negative");
+        }
+        pushCoalescingInterval = intervalMillis;
+    }
+
+    @Override
+    public int getPushCoalescingInterval() {
+        return pushCoalescingInterval;
+    }
+
     /*
      * (non-Javadoc)
      *
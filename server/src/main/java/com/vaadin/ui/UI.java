@@ -18,6 +18,7 @@ package com.vaadin.ui;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -26,7 +27,15 @@ import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -50,11 +59,13 @@ import com.vaadin.server.LocaleService;
 import com.vaadin.server.Page;
 import com.vaadin.server.PaintException;
 import com.vaadin.server.PaintTarget;
+import com.vaadin.server.ServiceMetrics;
 import com.vaadin.server.UIProvider;
 import com.vaadin.server.VaadinRequest;
 import com.vaadin.server.VaadinService;
 import com.vaadin.server.VaadinServlet;
 import com.vaadin.server.VaadinSession;
+import com.vaadin.server.VaadinSession.FutureAccess;
 import com.vaadin.server.VaadinSession.State;
 import com.vaadin.server.communication.PushConnection;
 import com.vaadin.shared.Connector;
@@ -248,9 +259,10 @@ public abstract class UI extends AbstractSingleComponentContainer
     /**
      * Timestamp keeping track of the last heartbeat of this UI. Updated to the
      * current time whenever the application receives a heartbeat or UIDL
-     * request from the client for this UI.
+     * request from the client for this UI. Heartbeats update it without
+     * locking the session.
      */
-    private long lastHeartbeatTimestamp = System.currentTimeMillis();
+    private volatile long lastHeartbeatTimestamp = System.currentTimeMillis();
 
     private boolean closing = false;
 
@@ -599,6 +611,30 @@ public abstract class UI extends AbstractSingleComponentContainer
 
     private PushConnection pushConnection = null;
 
+    /**
+     * The {@link System#nanoTime()} of the latest push, or 0 if nothing has
+     * been pushed.
+     */
+    private transient long lastPushTime = 0;
+
+    /**
+     * Whether a postponed automatic push has been scheduled. Only accessed
+     * while holding the session lock or the lock of this UI.
+     */
+    private transient boolean coalescedPushScheduled = false;
+
+    /**
+     * Protects the state of this UI when the session uses UI lock striping.
+     * Deserialized in the unlocked state.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /*
+     * Tasks submitted using access() when the session uses UI lock striping.
+     * Pending tasks can't be serialized, see VaadinSession.
+     */
+    private transient ConcurrentLinkedQueue<FutureAccess> pendingAccessQueue = new ConcurrentLinkedQueue<>();
+
     private LocaleService localeService = new LocaleService(this,
             getState(false).localeServiceState);
 
@@ -1165,7 +1201,8 @@ public abstract class UI extends AbstractSingleComponentContainer
      * <p>
      * This method is not intended to be overridden. If it is overridden, care
      * should be taken since this method might be called in situations where
-     * {@link UI#getCurrent()} does not return this UI.
+     * {@link UI#getCurrent()} does not return this UI, or without the session
+     * being locked.
      *
      * @param lastHeartbeat
      *            The time the last heartbeat request occurred, in milliseconds
@@ -1226,6 +1263,9 @@ public abstract class UI extends AbstractSingleComponentContainer
      */
     public void close() {
         closing = true;
+        if (session != null) {
+            session.getService().scheduleSessionCleanup(session);
+        }
 
         boolean sessionExpired = (session == null
                 || session.getState() != State.OPEN);
@@ -1353,7 +1393,7 @@ public abstract class UI extends AbstractSingleComponentContainer
      */
     public void accessSynchronously(Runnable runnable)
             throws UIDetachedException {
-        Map<Class<?>, CurrentInstance> old = null;
+        CurrentInstance.Snapshot old = null;
 
         VaadinSession session = getSession();
 
@@ -1363,19 +1403,19 @@ public abstract class UI extends AbstractSingleComponentContainer
 
         VaadinService.verifyNoOtherSessionLocked(session);
 
-        session.lock();
+        session.lockUI(this);
         try {
             if (getSession() == null) {
                 // UI was detached after fetching the session but before we
                 // acquired the lock.
                 throw new UIDetachedException();
             }
-            old = CurrentInstance.setCurrent(this);
+            old = CurrentInstance.setCurrentInstances(this);
             runnable.run();
         } finally {
-            session.unlock();
+            session.unlockUI(this);
             if (old != null) {
-                CurrentInstance.restoreInstances(old);
+                CurrentInstance.restoreSnapshot(old);
             }
         }
 
@@ -1389,6 +1429,8 @@ public abstract class UI extends AbstractSingleComponentContainer
      * exclusive access to this UI. If the session is not locked, the lock will
      * be acquired and the runnable is run right away. If the session is
      * currently locked, the runnable will be run before that lock is released.
+     * If the session uses {@link VaadinSession#isUILockStripingEnabled() UI
+     * lock striping}, the lock of this UI is used instead of the session lock.
      * </p>
      * <p>
      * RPC handlers for components inside this UI do not need to use this method
@@ -1434,7 +1476,7 @@ public abstract class UI extends AbstractSingleComponentContainer
             throw new UIDetachedException();
         }
 
-        return session.access(new ErrorHandlingRunnable() {
+        ErrorHandlingRunnable task = new ErrorHandlingRunnable() {
             @Override
             public void run() {
                 accessSynchronously(runnable);
@@ -1464,7 +1506,101 @@ public abstract class UI extends AbstractSingleComponentContainer
                     getLogger().log(Level.SEVERE, e.getMessage(), e);
                 }
             }
-        });
+        };
+
+        if (!session.isUILockStripingEnabled()) {
+            return session.access(task);
+        }
+        FutureAccess future = new FutureAccess(session, task);
+        pendingAccessQueue.add(future);
+        session.getService().ensureAccessQueuePurged(this);
+        return future;
+    }
+
+    /**
+     * Runs a task in the background and delivers its result to this UI.
+     * <p>
+     * The task is run using the {@link VaadinService#getBackgroundExecutor()
+     * background executor} of the service without holding any lock, so it
+     * should not modify this UI. Inheritable values in {@link CurrentInstance}
+     * will have the same values as when this method was invoked, and
+     * {@link UI#getCurrent()}, {@link VaadinSession#getCurrent()} and
+     * {@link VaadinService#getCurrent()} are set according to this UI. When
+     * the task is done, the result handler is run in the same way as with
+     * {@link #access(Runnable)}. If the task throws an exception, it is passed
+     * to the error handler of this UI instead. The result is not delivered if
+     * this UI has been detached in the meantime.
+     * </p>
+     * <p>
+     * With {@link PushMode#AUTOMATIC}, the changes made by the result handler
+     * are pushed when the lock is released. Set a
+     * {@link PushConfiguration#setPushCoalescingInterval(int) push coalescing
+     * interval} to send the results of many tasks that complete close to each
+     * other in fewer pushes.
+     * </p>
+     * <p>
+     * The returned future completes with the result of the task. Cancelling
+     * it before the task is done prevents the result from being delivered,
+     * but does not interrupt the task if it is already running.
+     * </p>
+     *
+     * @see #access(Runnable)
+     * @see VaadinSession#runAsync(Supplier, Consumer)
+     *
+     * @since 8.0
+     *
+     * @param task
+     *            the task to run in the background, not <code>null</code>
+     * @param resultHandler
+     *            the handler that receives the result of the task, or
+     *            <code>null</code> to ignore the result
+     * @throws UIDetachedException
+     *             if the UI is not attached to a session
+     * @return a future that completes with the result of the task
+     */
+    public <T> CompletableFuture<T> runAsync(Supplier<T> task,
+            Consumer<? super T> resultHandler) {
+        VaadinSession session = getSession();
+
+        if (session == null) {
+            throw new UIDetachedException();
+        }
+
+        return session.getService().runAsync(this, task, resultHandler);
+    }
+
+    /**
+     * Gets the {@link Lock} instance that protects the state of this UI when
+     * the session uses {@link VaadinSession#isUILockStripingEnabled() UI lock
+     * striping}. The lock should be acquired through
+     * {@link VaadinSession#lockUI(UI)} or
+     * {@link #accessSynchronously(Runnable)} rather than directly.
+     *
+     * @return the lock of this UI, never <code>null</code>
+     * @since 8.0
+     */
+    public Lock getLockInstance() {
+        return lock;
+    }
+
+    /**
+     * Gets the queue of tasks submitted using {@link #access(Runnable)} when
+     * the session uses {@link VaadinSession#isUILockStripingEnabled() UI lock
+     * striping}. Without lock striping, the tasks are queued in
+     * {@link VaadinSession#getPendingAccessQueue()}. It is safe to call this
+     * method and access the returned queue without holding any lock.
+     *
+     * @return the queue of pending access tasks
+     * @since 8.0
+     */
+    public Queue<FutureAccess> getPendingAccessQueue() {
+        return pendingAccessQueue;
+    }
+
+    private void readObject(ObjectInputStream stream)
+            throws IOException, ClassNotFoundException {
+        stream.defaultReadObject();
+        pendingAccessQueue = new ConcurrentLinkedQueue<>();
     }
 
     /**
@@ -1542,6 +1678,73 @@ public abstract class UI extends AbstractSingleComponentContainer
         }
 
         pushConnection.push();
+        lastPushTime = System.nanoTime();
+    }
+
+    /**
+     * Pushes the pending changes of this UI when the session lock is released
+     * and {@link PushMode#AUTOMATIC} is used. If a
+     * {@link PushConfiguration#setPushCoalescingInterval(int) push coalescing
+     * interval} is set and the previous push is more recent than that, the
+     * push is instead postponed until the interval has passed, so that
+     * changes made in the meantime are sent together.
+     * <p>
+     * This method is called by the framework and is not intended to be used
+     * by application developers.
+     *
+     * @see #push()
+     *
+     * @since 8.0
+     */
+    public void pushAutomatically() {
+        VaadinSession session = getSession();
+        if (session == null) {
+            throw new UIDetachedException("Cannot push a detached UI");
+        }
+        assert session.hasLock();
+
+        int interval = getPushConfiguration().getPushCoalescingInterval();
+        if (interval > 0 && lastPushTime != 0) {
+            long delay = lastPushTime + TimeUnit.MILLISECONDS.toNanos(interval)
+                    - System.nanoTime();
+            if (delay > 0) {
+                if (getConnectorTracker().hasDirtyConnectors()) {
+                    schedulePostponedPush(session, delay);
+                }
+                return;
+            }
+        }
+
+        push();
+    }
+
+    private void schedulePostponedPush(VaadinSession session,
+            long delayNanos) {
+        VaadinService service = session.getService();
+        if (coalescedPushScheduled) {
+            // The changes will be included in the already scheduled push
+            ServiceMetrics.get(service).recordCount(
+                    ServiceMetrics.Counter.COALESCED_PUSHES, 1);
+            return;
+        }
+        coalescedPushScheduled = true;
+        /*
+         * The access task only clears the flag; the push itself happens when
+         * the session lock or the lock of this UI is released after running
+         * it.
+         */
+        service.getScheduledExecutor().schedule(() -> {
+            Runnable clearFlag = () -> coalescedPushScheduled = false;
+            if (session.isUILockStripingEnabled()) {
+                try {
+                    access(clearFlag);
+                } catch (UIDetachedException e) {
+                    // Closed in the meantime, nothing to push
+                }
+            } else {
+                session.access(clearFlag);
+            }
+        }, delayNanos, TimeUnit.NANOSECONDS);
     }
 
     /**
@@ -15,9 +15,16 @@
  */
 package com.vaadin.ui;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
@@ -46,7 +53,10 @@ import com.vaadin.util.ReflectTools;
  * <p>
  * The Upload component needs a java.io.OutputStream to write the uploaded data.
  * You need to implement the Upload.Receiver interface and return the output
- * stream in the receiveUpload() method.
+ * stream in the receiveUpload() method. Alternatively, an Upload.FileReceiver
+ * set with {@link #setFileReceiver(FileReceiver)} lets the component write the
+ * upload to a temporary file and hand over its {@link Path} once the upload
+ * has succeeded.
  *
  * <p>
  * You can get an event regarding starting (StartedEvent), progress
@@ -93,6 +103,20 @@ public class Upload extends AbstractComponent
      */
     private Receiver receiver;
 
+    /**
+     * Receives the uploaded data as a file, used instead of {@link #receiver}
+     * if set.
+     */
+    private FileReceiver fileReceiver;
+
+    /**
+     * The file the current upload is written to when using a
+     * {@link FileReceiver}.
+     */
+    private transient Path uploadFile;
+
+    private int progressEventInterval = -1;
+
     private boolean isUploading;
 
     private long contentLength = -1;
@@ -217,6 +241,58 @@ public class Upload extends AbstractComponent
 
     }
 
+    /**
+     * Interface that must be implemented by the upload receivers that want to
+     * get the uploaded data as a file.
+     * <p>
+     * The upload is written to the file returned by
+     * {@link #createFile(String, String)} through a {@link FileChannel},
+     * without going through an application provided output stream. The file is
+     * handed over with {@link #uploadReceived(String, String, Path)} when the
+     * upload has succeeded, after which the receiver is responsible for moving
+     * or deleting it. If the upload fails, the file is deleted by the
+     * component.
+     *
+     * @since 8.0
+     */
+    @FunctionalInterface
+    public interface FileReceiver extends Serializable {
+
+        /**
+         * Creates the file the upload is written to. The default
+         * implementation creates a new file in the default temporary-file
+         * directory.
+         *
+         * @param filename
+         *            the desired filename of the upload, usually as specified
+         *            by the client
+         * @param mimeType
+         *            the MIME type of the uploaded file
+         * @return the path of an existing, writable file
+         * @throws IOException
+         *             if the file cannot be created
+         */
+        public default Path createFile(String filename, String mimeType)
+                throws IOException {
+            return Files.createTempFile("vaadin-upload-", ".tmp");
+        }
+
+        /**
+         * Invoked when a new upload has been completely written to the file
+         * created by {@link #createFile(String, String)}.
+         *
+         * @param filename
+         *            the desired filename of the upload, usually as specified
+         *            by the client
+         * @param mimeType
+         *            the MIME type of the uploaded file
+         * @param file
+         *            the file containing the uploaded data
+         */
+        public void uploadReceived(String filename, String mimeType,
+                Path file);
+    }
+
     /* Upload events */
 
     private static final Method UPLOAD_FINISHED_METHOD;
@@ -865,6 +941,67 @@ public class Upload extends AbstractComponent
      */
     public void setReceiver(Receiver receiver) {
         this.receiver = receiver;
+        if (receiver != null) {
+            fileReceiver = null;
+        }
+    }
+
+    /**
+     * Returns the current file receiver.
+     *
+     * @return the file receiver, or <code>null</code> if uploads are passed to
+     *         a {@link Receiver}
+     * @since 8.0
+     */
+    public FileReceiver getFileReceiver() {
+        return fileReceiver;
+    }
+
+    /**
+     * Sets a receiver that gets the uploaded data as a file. Setting a file
+     * receiver replaces any receiver set with {@link #setReceiver(Receiver)}.
+     * <p>
+     * The upload is written directly to the file through a {@link FileChannel}
+     * in the chunks read from the request, instead of going through an output
+     * stream returned by application code.
+     *
+     * @param fileReceiver
+     *            the file receiver to set
+     * @since 8.0
+     */
+    public void setFileReceiver(FileReceiver fileReceiver) {
+        this.fileReceiver = fileReceiver;
+        if (fileReceiver != null) {
+            receiver = null;
+        }
+    }
+
+    /**
+     * Sets the minimum time between two progress events sent to the
+     * {@link ProgressListener}s of this upload. Progress events are sent with
+     * the session locked, so a longer interval lets the upload be received
+     * with less locking. A negative value uses the interval of the request
+     * handler, which is 500 milliseconds by default.
+     *
+     * @param progressEventInterval
+     *            the interval in milliseconds, or a negative value to use the
+     *            default
+     * @since 8.0
+     */
+    public void setProgressEventInterval(int progressEventInterval) {
+        this.progressEventInterval = progressEventInterval;
+    }
+
+    /**
+     * Gets the minimum time between two progress events.
+     *
+     * @return the interval in milliseconds, or a negative value if the
+     *         interval of the request handler is used
+     * @see #setProgressEventInterval(int)
+     * @since 8.0
+     */
+    public int getProgressEventInterval() {
+        return progressEventInterval;
     }
 
     /**
@@ -1063,8 +1200,24 @@ public class Upload extends AbstractComponent
                     return interrupted;
                 }
 
+                @Override
+                public int getProgressEventInterval() {
+                    return progressEventInterval;
+                }
+
                 @Override
                 public OutputStream getOutputStream() {
+                    if (getFileReceiver() != null) {
+                        try {
+                            uploadFile = getFileReceiver().createFile(
+                                    lastStartedEvent.getFileName(),
+                                    lastStartedEvent.getMimeType());
+                            lastStartedEvent = null;
+                            return new FileChannelOutputStream(uploadFile);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
                     if (getReceiver() == null) {
                         throw new IllegalStateException(
                                 "Upload cannot be performed without a receiver set");
@@ -1086,6 +1239,12 @@ public class Upload extends AbstractComponent
 
                 @Override
                 public void streamingFinished(StreamingEndEvent event) {
+                    if (uploadFile != null) {
+                        Path file = uploadFile;
+                        uploadFile = null;
+                        getFileReceiver().uploadReceived(event.getFileName(),
+                                event.getMimeType(), file);
+                    }
                     fireUploadSuccess(event.getFileName(), event.getMimeType(),
                             event.getContentLength());
                     endUpload();
@@ -1106,6 +1265,7 @@ public class Upload extends AbstractComponent
                                     event.getMimeType(), 0, exception);
                         }
                     } finally {
+                        deleteUploadFile();
                         endUpload();
                     }
                 }
@@ -1114,6 +1274,56 @@ public class Upload extends AbstractComponent
         return streamVariable;
     }
 
+    private void deleteUploadFile() {
+        if (uploadFile != null) {
+            try {
+                Files.deleteIfExists(uploadFile);
+            } catch (IOException e) {
+                uploadFile.toFile().deleteOnExit();
+            }
+            uploadFile = null;
+        }
+    }
+
+    /**
+     * Output stream writing an upload to a file through a file channel. The
+     * written bytes are passed to the channel as is, without buffering.
+     */
+    private static class FileChannelOutputStream extends OutputStream {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer singleByte = ByteBuffer.allocate(1);
+
+        private FileChannelOutputStream(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            singleByte.clear();
+            singleByte.put((byte) b).flip();
+            writeFully(singleByte);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            writeFully(ByteBuffer.wrap(b, off, len));
+        }
+
+        private void writeFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
     @Override
     public java.util.Collection<?> getListeners(java.lang.Class<?> eventType) {
         if (StreamingProgressEvent.class.isAssignableFrom(eventType)) {
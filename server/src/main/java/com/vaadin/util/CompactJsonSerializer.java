@@ -0,0 +1,262 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.JsonValue;
+
+/**
+ * Writes and reads JSON values using a compact binary encoding instead of JSON
+ * text. Used internally by Vaadin for serializing JSON values, e.g. the diff
+ * states of connectors, as part of the session. Subject to change at any time.
+ * <p>
+ * Object keys and short string values are written only once per serializer
+ * instance and referred to by index after that. Since the states of
+ * connectors of the same type share all keys and often many values, this
+ * makes serializing a large number of states considerably more compact than
+ * writing them as text. Integral numbers are written as variable length
+ * integers.
+ * <p>
+ * A serializer instance keeps track of the strings it has written or read, so
+ * the same instance must be used for all values of one stream, and values
+ * must be read in the order they were written.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public class CompactJsonSerializer {
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_FALSE = 1;
+    private static final int TAG_TRUE = 2;
+    private static final int TAG_INT = 3;
+    private static final int TAG_DOUBLE = 4;
+    private static final int TAG_STRING = 5;
+    private static final int TAG_STRING_REF = 6;
+    private static final int TAG_ARRAY = 7;
+    private static final int TAG_OBJECT = 8;
+
+    /**
+     * Strings longer than this are always written inline, since they are
+     * unlikely to be repeated.
+     */
+    private static final int MAX_SHARED_STRING_LENGTH = 128;
+
+    private final Map<String, Integer> writtenStrings = new HashMap<>();
+    private final List<String> readStrings = new ArrayList<>();
+
+    /**
+     * Writes a JSON value.
+     *
+     * @param out
+     *            the output to write to, not <code>null</code>
+     * @param value
+     *            the value to write, or <code>null</code>
+     * @throws IOException
+     *             if writing to the output fails
+     */
+    public void write(DataOutput out, JsonValue value) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+            return;
+        }
+        switch (value.getType()) {
+        case NULL:
+            out.writeByte(TAG_NULL);
+            break;
+        case BOOLEAN:
+            out.writeByte(value.asBoolean() ? TAG_TRUE : TAG_FALSE);
+            break;
+        case NUMBER:
+            double number = value.asNumber();
+            long integral = (long) number;
+            if (integral == number && (integral != 0
+                    || 1 / number > 0 /* not negative zero */)) {
+                out.writeByte(TAG_INT);
+                writeVarLong(out, integral);
+            } else {
+                out.writeByte(TAG_DOUBLE);
+                out.writeDouble(number);
+            }
+            break;
+        case STRING:
+            writeString(out, value.asString());
+            break;
+        case ARRAY:
+            JsonArray array = (JsonArray) value;
+            out.writeByte(TAG_ARRAY);
+            writeVarInt(out, array.length());
+            for (int i = 0; i < array.length(); i++) {
+                write(out, array.get(i));
+            }
+            break;
+        case OBJECT:
+            JsonObject object = (JsonObject) value;
+            String[] keys = object.keys();
+            out.writeByte(TAG_OBJECT);
+            writeVarInt(out, keys.length);
+            for (String key : keys) {
+                writeString(out, key);
+                write(out, object.get(key));
+            }
+            break;
+        default:
+            throw new IllegalArgumentException(
+                    "Unsupported JSON type " + value.getType());
+        }
+    }
+
+    /**
+     * Reads a JSON value written by {@link #write(DataOutput, JsonValue)}.
+     *
+     * @param in
+     *            the input to read from, not <code>null</code>
+     * @return the read value, not <code>null</code>
+     * @throws IOException
+     *             if reading from the input fails or the input is not valid
+     */
+    public JsonValue read(DataInput in) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+        case TAG_NULL:
+            return Json.createNull();
+        case TAG_FALSE:
+            return Json.create(false);
+        case TAG_TRUE:
+            return Json.create(true);
+        case TAG_INT:
+            return Json.create(readVarLong(in));
+        case TAG_DOUBLE:
+            return Json.create(in.readDouble());
+        case TAG_STRING:
+        case TAG_STRING_REF:
+            return Json.create(readString(in, tag));
+        case TAG_ARRAY:
+            int length = readVarInt(in);
+            JsonArray array = Json.createArray();
+            for (int i = 0; i < length; i++) {
+                array.set(i, read(in));
+            }
+            return array;
+        case TAG_OBJECT:
+            int size = readVarInt(in);
+            JsonObject object = Json.createObject();
+            for (int i = 0; i < size; i++) {
+                String key = readString(in, in.readUnsignedByte());
+                object.put(key, read(in));
+            }
+            return object;
+        default:
+            throw new InvalidObjectException("Unknown JSON value tag " + tag);
+        }
+    }
+
+    private void writeString(DataOutput out, String string)
+            throws IOException {
+        Integer index = writtenStrings.get(string);
+        if (index != null) {
+            out.writeByte(TAG_STRING_REF);
+            writeVarInt(out, index.intValue());
+            return;
+        }
+
+        out.writeByte(TAG_STRING);
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+        if (string.length() <= MAX_SHARED_STRING_LENGTH) {
+            writtenStrings.put(string, writtenStrings.size());
+        }
+    }
+
+    private String readString(DataInput in, int tag) throws IOException {
+        if (tag == TAG_STRING_REF) {
+            int index = readVarInt(in);
+            if (index < 0 || index >= readStrings.size()) {
+                throw new InvalidObjectException(
+                        "Invalid string reference " + index);
+            }
+            return readStrings.get(index);
+        } else if (tag != TAG_STRING) {
+            throw new InvalidObjectException(
+                    "Expected a string but got tag " + tag);
+        }
+
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        String string = new String(bytes, StandardCharsets.UTF_8);
+        if (string.length() <= MAX_SHARED_STRING_LENGTH) {
+            readStrings.add(string);
+        }
+        return string;
+    }
+
+    private static void writeVarInt(DataOutput out, int value)
+            throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new InvalidObjectException("Malformed variable length integer");
+    }
+
+    private static void writeVarLong(DataOutput out, long value)
+            throws IOException {
+        // Zigzag encoding keeps small negative numbers short
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.writeByte((int) zigzag);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long zigzag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new InvalidObjectException("Malformed variable length integer");
+    }
+}
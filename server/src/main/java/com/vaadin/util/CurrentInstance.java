@@ -61,23 +61,80 @@ public class CurrentInstance implements Serializable {
     private static final CurrentInstance CURRENT_INSTANCE_NULL = new CurrentInstance(
             NULL_OBJECT, true);
 
+    /*
+     * Slot indices for the types that the framework itself sets for every
+     * request and every access task. Instances of these are kept in a fixed
+     * array instead of the map used for other types.
+     */
+    private static final int SERVICE_SLOT = 0;
+    private static final int SESSION_SLOT = 1;
+    private static final int UI_SLOT = 2;
+    private static final int REQUEST_SLOT = 3;
+    private static final int RESPONSE_SLOT = 4;
+    private static final int SLOT_COUNT = 5;
+
+    private static final int ALL_SLOTS = (1 << SLOT_COUNT) - 1;
+    private static final int SESSION_SLOTS = (1 << SERVICE_SLOT)
+            | (1 << SESSION_SLOT);
+    private static final int UI_SLOTS = SESSION_SLOTS | (1 << UI_SLOT);
+
     private final WeakReference<Object> instance;
     private final boolean inheritable;
 
-    private static final InheritableThreadLocal<Map<Class<?>, CurrentInstance>> instances = new InheritableThreadLocal<Map<Class<?>, CurrentInstance>>() {
+    /**
+     * The current instances of one thread. The well-known framework types are
+     * stored in fixed slots and all other types in a map that is only created
+     * when needed. The map may be shared with snapshots, in which case it is
+     * copied before it is modified.
+     */
+    private static final class Context implements Serializable {
+        private final CurrentInstance[] slots = new CurrentInstance[SLOT_COUNT];
+        private Map<Class<?>, CurrentInstance> custom;
+        private boolean customShared;
+
+        private boolean isEmpty() {
+            for (CurrentInstance slot : slots) {
+                if (slot != null) {
+                    return false;
+                }
+            }
+            return custom == null || custom.isEmpty();
+        }
+
+        private Map<Class<?>, CurrentInstance> getWritableCustom() {
+            if (custom == null) {
+                custom = new HashMap<>();
+            } else if (customShared) {
+                custom = new HashMap<>(custom);
+            }
+            customShared = false;
+            return custom;
+        }
+    }
+
+    private static final InheritableThreadLocal<Context> instances = new InheritableThreadLocal<Context>() {
         @Override
-        protected Map<Class<?>, CurrentInstance> childValue(
-                Map<Class<?>, CurrentInstance> parentValue) {
+        protected Context childValue(Context parentValue) {
             if (parentValue == null) {
                 return null;
             }
 
-            Map<Class<?>, CurrentInstance> value = new HashMap<>();
+            Context value = new Context();
 
-            // Copy all inheritable values to child map
-            for (Entry<Class<?>, CurrentInstance> e : parentValue.entrySet()) {
-                if (e.getValue().inheritable) {
-                    value.put(e.getKey(), e.getValue());
+            // Copy all inheritable values to child context
+            for (int i = 0; i < SLOT_COUNT; i++) {
+                CurrentInstance ci = parentValue.slots[i];
+                if (ci != null && ci.inheritable) {
+                    value.slots[i] = ci;
+                }
+            }
+            if (parentValue.custom != null) {
+                for (Entry<Class<?>, CurrentInstance> e : parentValue.custom
+                        .entrySet()) {
+                    if (e.getValue().inheritable) {
+                        value.getWritableCustom().put(e.getKey(),
+                                e.getValue());
+                    }
                 }
             }
 
@@ -85,11 +142,98 @@ public class CurrentInstance implements Serializable {
         }
     };
 
+    /**
+     * An immutable snapshot of current instances, created by
+     * {@link CurrentInstance#takeSnapshot(boolean)} or
+     * {@link CurrentInstance#setCurrentInstances(UI)} and applied with
+     * {@link CurrentInstance#restoreSnapshot(Snapshot)}. Unlike the maps used
+     * by {@link CurrentInstance#getInstances(boolean)}, taking and restoring
+     * a snapshot does not copy any maps.
+     *
+     * @since 8.0
+     */
+    public static final class Snapshot implements Serializable {
+        private static final Snapshot EMPTY = new Snapshot(
+                new CurrentInstance[SLOT_COUNT], ALL_SLOTS, null);
+
+        private final CurrentInstance[] slots;
+        private final int coveredSlots;
+        private final Map<Class<?>, CurrentInstance> custom;
+
+        private Snapshot(CurrentInstance[] slots, int coveredSlots,
+                Map<Class<?>, CurrentInstance> custom) {
+            this.slots = slots;
+            this.coveredSlots = coveredSlots;
+            this.custom = custom;
+        }
+
+        private boolean coversAll() {
+            return coveredSlots == ALL_SLOTS;
+        }
+
+        /**
+         * Gets the instances in this snapshot as a map that can be passed to
+         * {@link CurrentInstance#restoreInstances(Map)}.
+         *
+         * @return a new map of the instances in this snapshot
+         */
+        public Map<Class<?>, CurrentInstance> toMap() {
+            Map<Class<?>, CurrentInstance> map = new HashMap<>();
+            for (int i = 0; i < SLOT_COUNT; i++) {
+                if ((coveredSlots & (1 << i)) != 0) {
+                    CurrentInstance ci = slots[i];
+                    if (ci != null) {
+                        map.put(getSlotType(i), ci);
+                    } else if (!coversAll()) {
+                        map.put(getSlotType(i), CURRENT_INSTANCE_NULL);
+                    }
+                }
+            }
+            if (custom != null) {
+                map.putAll(custom);
+            }
+            return map;
+        }
+    }
+
     private CurrentInstance(Object instance, boolean inheritable) {
         this.instance = new WeakReference<>(instance);
         this.inheritable = inheritable;
     }
 
+    private static int getSlot(Class<?> type) {
+        if (type == VaadinService.class) {
+            return SERVICE_SLOT;
+        } else if (type == VaadinSession.class) {
+            return SESSION_SLOT;
+        } else if (type == UI.class) {
+            return UI_SLOT;
+        } else if (type == VaadinRequest.class) {
+            return REQUEST_SLOT;
+        } else if (type == VaadinResponse.class) {
+            return RESPONSE_SLOT;
+        } else {
+            return -1;
+        }
+    }
+
+    private static Class<?> getSlotType(int slot) {
+        switch (slot) {
+        case SERVICE_SLOT:
+            return VaadinService.class;
+        case SESSION_SLOT:
+            return VaadinSession.class;
+        case UI_SLOT:
+            return UI.class;
+        case REQUEST_SLOT:
+            return VaadinRequest.class;
+        case RESPONSE_SLOT:
+            return VaadinResponse.class;
+        default:
+            throw new IllegalArgumentException("Unknown slot " + slot);
+        }
+    }
+
     /**
      * Gets the current instance of a specific type if available.
      *
@@ -99,11 +243,19 @@ public class CurrentInstance implements Serializable {
      *         if there is no current instance.
      */
     public static <T> T get(Class<T> type) {
-        Map<Class<?>, CurrentInstance> map = instances.get();
-        if (map == null) {
+        Context context = instances.get();
+        if (context == null) {
             return null;
         }
-        CurrentInstance currentInstance = map.get(type);
+        int slot = getSlot(type);
+        CurrentInstance currentInstance;
+        if (slot >= 0) {
+            currentInstance = context.slots[slot];
+        } else if (context.custom != null) {
+            currentInstance = context.custom.get(type);
+        } else {
+            currentInstance = null;
+        }
         if (currentInstance != null) {
             Object value = currentInstance.instance.get();
             if (value == null) {
@@ -114,15 +266,15 @@ public class CurrentInstance implements Serializable {
                  * should thus never invoke CurrentInstance.get().
                  *
                  * At this point, there might also be other values that have
-                 * been collected, so we'll scan the entire map and remove stale
-                 * CurrentInstance objects. Using a ReferenceQueue could make
-                 * this assumingly rare case slightly more efficient, but would
-                 * significantly increase the complexity of the code for
+                 * been collected, so we'll scan the entire context and remove
+                 * stale CurrentInstance objects. Using a ReferenceQueue could
+                 * make this assumingly rare case slightly more efficient, but
+                 * would significantly increase the complexity of the code for
                  * maintaining a separate ReferenceQueue for each Thread.
                  */
-                removeStaleInstances(map);
+                removeStaleInstances(context);
 
-                if (map.isEmpty()) {
+                if (context.isEmpty()) {
                     instances.remove();
                 }
 
@@ -134,6 +286,25 @@ public class CurrentInstance implements Serializable {
         }
     }
 
+    private static void removeStaleInstances(Context context) {
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            CurrentInstance ci = context.slots[i];
+            if (ci != null && ci.instance.get() == null) {
+                context.slots[i] = null;
+                logCollected(getSlotType(i));
+            }
+        }
+        if (context.custom != null) {
+            for (Entry<Class<?>, CurrentInstance> entry : context.custom
+                    .entrySet()) {
+                if (entry.getValue().instance.get() == null) {
+                    removeStaleInstances(context.getWritableCustom());
+                    break;
+                }
+            }
+        }
+    }
+
     private static void removeStaleInstances(
             Map<Class<?>, CurrentInstance> map) {
         for (Iterator<Entry<Class<?>, CurrentInstance>> iterator = map
@@ -142,13 +313,16 @@ public class CurrentInstance implements Serializable {
             Object instance = entry.getValue().instance.get();
             if (instance == null) {
                 iterator.remove();
-                getLogger().log(Level.FINE,
-                        "CurrentInstance for {0} has been garbage collected.",
-                        entry.getKey());
+                logCollected(entry.getKey());
             }
         }
     }
 
+    private static void logCollected(Class<?> type) {
+        getLogger().log(Level.FINE,
+                "CurrentInstance for {0} has been garbage collected.", type);
+    }
+
     /**
      * Sets the current instance of the given type.
      *
@@ -186,32 +360,35 @@ public class CurrentInstance implements Serializable {
 
     private static <T> CurrentInstance set(Class<T> type, T instance,
             boolean inheritable) {
-        Map<Class<?>, CurrentInstance> map = instances.get();
+        int slot = getSlot(type);
+        if (slot >= 0) {
+            CurrentInstance previousInstance = setSlot(slot, instance,
+                    inheritable);
+            return previousInstance == null ? CURRENT_INSTANCE_NULL
+                    : previousInstance;
+        }
+
+        Context context = instances.get();
         CurrentInstance previousInstance = null;
         if (instance == null) {
             // remove the instance
-            if (map != null) {
-                previousInstance = map.remove(type);
-                if (map.isEmpty()) {
+            if (context != null && context.custom != null
+                    && context.custom.containsKey(type)) {
+                previousInstance = context.getWritableCustom().remove(type);
+                if (context.isEmpty()) {
                     instances.remove();
-                    map = null;
                 }
             }
         } else {
             assert type.isInstance(instance) : "Invald instance type";
-            if (map == null) {
-                map = new HashMap<>();
-                instances.set(map);
+            if (context == null) {
+                context = new Context();
+                instances.set(context);
             }
 
-            previousInstance = map.put(type,
+            previousInstance = context.getWritableCustom().put(type,
                     new CurrentInstance(instance, inheritable));
-            if (previousInstance != null) {
-                assert previousInstance.inheritable == inheritable : "Inheritable status mismatch for "
-                        + type + " (previous was "
-                        + previousInstance.inheritable + ", new is "
-                        + inheritable + ")";
-            }
+            assertInheritableMatches(type, previousInstance, inheritable);
         }
         if (previousInstance == null) {
             previousInstance = CURRENT_INSTANCE_NULL;
@@ -219,6 +396,55 @@ public class CurrentInstance implements Serializable {
         return previousInstance;
     }
 
+    /**
+     * Sets a fixed slot, reusing the existing {@link CurrentInstance} if it
+     * already refers to the same instance. Returns the previous value, or
+     * <code>null</code> if the slot was empty.
+     */
+    private static CurrentInstance setSlot(int slot, Object instance,
+            boolean inheritable) {
+        Context context = instances.get();
+        if (instance == null) {
+            if (context == null) {
+                return null;
+            }
+            CurrentInstance previousInstance = context.slots[slot];
+            if (previousInstance != null) {
+                context.slots[slot] = null;
+                if (context.isEmpty()) {
+                    instances.remove();
+                }
+            }
+            return previousInstance;
+        }
+
+        assert getSlotType(slot)
+                .isInstance(instance) : "Invald instance type";
+        if (context == null) {
+            context = new Context();
+            instances.set(context);
+        }
+        CurrentInstance previousInstance = context.slots[slot];
+        if (previousInstance != null
+                && previousInstance.instance.get() == instance
+                && previousInstance.inheritable == inheritable) {
+            return previousInstance;
+        }
+        assertInheritableMatches(getSlotType(slot), previousInstance,
+                inheritable);
+        context.slots[slot] = new CurrentInstance(instance, inheritable);
+        return previousInstance;
+    }
+
+    private static void assertInheritableMatches(Class<?> type,
+            CurrentInstance previousInstance, boolean inheritable) {
+        if (previousInstance != null) {
+            assert previousInstance.inheritable == inheritable : "Inheritable status mismatch for "
+                    + type + " (previous was " + previousInstance.inheritable
+                    + ", new is " + inheritable + ")";
+        }
+    }
+
     /**
      * Clears all current instances.
      */
@@ -272,6 +498,9 @@ public class CurrentInstance implements Serializable {
     /**
      * Gets the currently set instances so that they can later be restored using
      * {@link #restoreInstances(Map)}.
+     * <p>
+     * {@link #takeSnapshot(boolean)} should be preferred when the instances are
+     * only needed for restoring them later, since it does not copy any maps.
      *
      * @since 7.1
      *
@@ -282,28 +511,123 @@ public class CurrentInstance implements Serializable {
      */
     public static Map<Class<?>, CurrentInstance> getInstances(
             boolean onlyInheritable) {
-        Map<Class<?>, CurrentInstance> map = instances.get();
-        if (map == null) {
+        Snapshot snapshot = takeSnapshot(onlyInheritable);
+        if (snapshot == Snapshot.EMPTY) {
             return Collections.emptyMap();
-        } else {
-            Map<Class<?>, CurrentInstance> copy = new HashMap<>();
-            boolean removeStale = false;
-            for (Class<?> c : map.keySet()) {
-                CurrentInstance ci = map.get(c);
-                if (ci.instance.get() == null) {
-                    removeStale = true;
-                } else if (ci.inheritable || !onlyInheritable) {
-                    copy.put(c, ci);
+        }
+        return snapshot.toMap();
+    }
+
+    /**
+     * Takes a snapshot of the currently set instances so that they can later
+     * be restored using {@link #restoreSnapshot(Snapshot)}. Restoring the
+     * returned snapshot replaces all current instances, including the ones
+     * that have been set after the snapshot was taken.
+     *
+     * @since 8.0
+     *
+     * @param onlyInheritable
+     *            <code>true</code> if only the inheritable instances should be
+     *            included; <code>false</code> to include all instances.
+     * @return a snapshot of the current instances, not <code>null</code>
+     */
+    public static Snapshot takeSnapshot(boolean onlyInheritable) {
+        Context context = instances.get();
+        if (context == null) {
+            return Snapshot.EMPTY;
+        }
+        removeStaleInstances(context);
+        if (context.isEmpty()) {
+            instances.remove();
+            return Snapshot.EMPTY;
+        }
+
+        CurrentInstance[] slots = new CurrentInstance[SLOT_COUNT];
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            CurrentInstance ci = context.slots[i];
+            if (ci != null && (ci.inheritable || !onlyInheritable)) {
+                slots[i] = ci;
+            }
+        }
+
+        Map<Class<?>, CurrentInstance> custom = context.custom;
+        if (custom != null && onlyInheritable) {
+            for (CurrentInstance ci : custom.values()) {
+                if (!ci.inheritable) {
+                    custom = new HashMap<>();
+                    for (Entry<Class<?>, CurrentInstance> e : context.custom
+                            .entrySet()) {
+                        if (e.getValue().inheritable) {
+                            custom.put(e.getKey(), e.getValue());
+                        }
+                    }
+                    break;
                 }
             }
-            if (removeStale) {
-                removeStaleInstances(map);
-                if (map.isEmpty()) {
-                    instances.remove();
+        }
+        if (custom == context.custom && custom != null) {
+            context.customShared = true;
+        }
+        if (custom != null && custom.isEmpty()) {
+            custom = null;
+        }
+
+        return new Snapshot(slots, ALL_SLOTS, custom);
+    }
+
+    /**
+     * Restores current instances from a snapshot. A snapshot from
+     * {@link #takeSnapshot(boolean)} replaces all current instances, whereas a
+     * snapshot from {@link #setCurrentInstances(UI)} or
+     * {@link #setCurrentInstances(VaadinSession)} only restores the instances
+     * that were changed by that method.
+     *
+     * @since 8.0
+     *
+     * @param snapshot
+     *            the snapshot to restore, not <code>null</code>
+     */
+    public static void restoreSnapshot(Snapshot snapshot) {
+        if (snapshot.coversAll() && snapshot.custom == null
+                && isEmpty(snapshot.slots)) {
+            instances.remove();
+            return;
+        }
+
+        Context context = instances.get();
+        if (context == null) {
+            context = new Context();
+            instances.set(context);
+        }
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            if ((snapshot.coveredSlots & (1 << i)) != 0) {
+                CurrentInstance ci = snapshot.slots[i];
+                if (ci != null && ci.instance.get() == null) {
+                    logCollected(getSlotType(i));
+                    ci = null;
                 }
+                context.slots[i] = ci;
+            }
+        }
+        if (snapshot.coversAll()) {
+            context.custom = snapshot.custom;
+            context.customShared = true;
+            if (snapshot.custom != null) {
+                removeStaleInstances(context);
+            }
+        }
+        if (context.isEmpty()) {
+            instances.remove();
+        }
+    }
+
+    private static boolean isEmpty(CurrentInstance[] slots) {
+        for (CurrentInstance slot : slots) {
+            if (slot != null) {
+                return false;
             }
-            return copy;
         }
+        return true;
     }
 
     /**
@@ -319,9 +643,7 @@ public class CurrentInstance implements Serializable {
      *         updated.
      */
     public static Map<Class<?>, CurrentInstance> setCurrent(UI ui) {
-        Map<Class<?>, CurrentInstance> old = setCurrent(ui.getSession());
-        old.put(UI.class, set(UI.class, ui, true));
-        return old;
+        return setCurrentInstances(ui).toMap();
     }
 
     /**
@@ -338,14 +660,54 @@ public class CurrentInstance implements Serializable {
      */
     public static Map<Class<?>, CurrentInstance> setCurrent(
             VaadinSession session) {
-        Map<Class<?>, CurrentInstance> old = new HashMap<>();
-        old.put(VaadinSession.class, set(VaadinSession.class, session, true));
+        return setCurrentInstances(session).toMap();
+    }
+
+    /**
+     * Sets current instances for the UI and all related classes. The previously
+     * defined values can be restored by passing the returned snapshot to
+     * {@link #restoreSnapshot(Snapshot)}.
+     *
+     * @since 8.0
+     *
+     * @param ui
+     *            The UI
+     * @return a snapshot of the old values of the instances that this method
+     *         updated
+     */
+    public static Snapshot setCurrentInstances(UI ui) {
+        CurrentInstance[] old = new CurrentInstance[SLOT_COUNT];
+        setSessionSlots(ui.getSession(), old);
+        old[UI_SLOT] = setSlot(UI_SLOT, ui, true);
+        return new Snapshot(old, UI_SLOTS, null);
+    }
+
+    /**
+     * Sets current instances for the {@link VaadinSession} and all related
+     * classes. The previously defined values can be restored by passing the
+     * returned snapshot to {@link #restoreSnapshot(Snapshot)}.
+     *
+     * @since 8.0
+     *
+     * @param session
+     *            The VaadinSession
+     * @return a snapshot of the old values of the instances that this method
+     *         updated
+     */
+    public static Snapshot setCurrentInstances(VaadinSession session) {
+        CurrentInstance[] old = new CurrentInstance[SLOT_COUNT];
+        setSessionSlots(session, old);
+        return new Snapshot(old, SESSION_SLOTS, null);
+    }
+
+    private static void setSessionSlots(VaadinSession session,
+            CurrentInstance[] old) {
+        old[SESSION_SLOT] = setSlot(SESSION_SLOT, session, true);
         VaadinService service = null;
         if (session != null) {
             service = session.getService();
         }
-        old.put(VaadinService.class, set(VaadinService.class, service, true));
-        return old;
+        old[SERVICE_SLOT] = setSlot(SERVICE_SLOT, service, true);
     }
 
     private static Logger getLogger() {
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.event;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EventObject;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.event.ListenerMethod.MethodException;
+import com.vaadin.util.ReflectTools;
+
+public class EventRouterTest {
+
+    public static class BaseEvent extends EventObject {
+        public BaseEvent() {
+            super("source");
+        }
+    }
+
+    public static class SubEvent extends BaseEvent {
+    }
+
+    public static class OtherEvent extends EventObject {
+        public OtherEvent() {
+            super("source");
+        }
+    }
+
+    public interface TestListener {
+        public void onEvent(EventObject event);
+    }
+
+    public static class StaticListener {
+        private static final List<String> calls = new ArrayList<>();
+
+        public static void onEvent(EventObject event) {
+            calls.add("static");
+        }
+    }
+
+    private static final Method ON_EVENT = ReflectTools
+            .findMethod(TestListener.class, "onEvent", EventObject.class);
+
+    private final EventRouter router = new EventRouter();
+    private final List<String> calls = new ArrayList<>();
+
+    private TestListener register(Class<?> eventType, String name) {
+        TestListener listener = event -> calls.add(name);
+        router.addListener(eventType, listener, ON_EVENT);
+        return listener;
+    }
+
+    @Test
+    public void fireEvent_listenersOfEventAndSuperTypesInRegistrationOrder() {
+        register(SubEvent.class, "sub");
+        register(OtherEvent.class, "other");
+        register(BaseEvent.class, "base");
+        register(EventObject.class, "any");
+
+        router.fireEvent(new SubEvent());
+        Assert.assertEquals(Arrays.asList("sub", "base", "any"), calls);
+
+        calls.clear();
+        router.fireEvent(new BaseEvent());
+        Assert.assertEquals(Arrays.asList("base", "any"), calls);
+    }
+
+    @Test
+    public void fireEvent_listenerAddedDuringDispatch_calledOnNextEvent() {
+        router.addListener(BaseEvent.class, (TestListener) event -> {
+            calls.add("first");
+            register(BaseEvent.class, "added");
+        }, ON_EVENT);
+
+        router.fireEvent(new BaseEvent());
+        Assert.assertEquals(Arrays.asList("first"), calls);
+
+        calls.clear();
+        router.fireEvent(new BaseEvent());
+        Assert.assertEquals(Arrays.asList("first", "added"), calls);
+    }
+
+    @Test
+    public void removeListener_onlyMatchingListenerRemoved() {
+        TestListener base = register(BaseEvent.class, "base");
+        register(SubEvent.class, "sub");
+        Assert.assertTrue(router.hasListeners(BaseEvent.class));
+
+        // Registered for another event type, nothing removed
+        router.removeListener(SubEvent.class, base, ON_EVENT);
+        router.fireEvent(new SubEvent());
+        Assert.assertEquals(Arrays.asList("base", "sub"), calls);
+
+        router.removeListener(BaseEvent.class, base, ON_EVENT);
+        Assert.assertFalse(router.hasListeners(BaseEvent.class));
+        Assert.assertTrue(router.hasListeners(SubEvent.class));
+
+        calls.clear();
+        router.fireEvent(new SubEvent());
+        Assert.assertEquals(Arrays.asList("sub"), calls);
+    }
+
+    @Test
+    public void fireEvent_listenerThrows_wrappedInMethodException() {
+        IllegalStateException exception = new IllegalStateException();
+        router.addListener(BaseEvent.class, (TestListener) event -> {
+            throw exception;
+        }, ON_EVENT);
+
+        try {
+            router.fireEvent(new BaseEvent());
+            Assert.fail("Exception should have been thrown");
+        } catch (MethodException e) {
+            Assert.assertSame(exception, e.getCause());
+        }
+    }
+
+    @Test
+    public void fireEvent_noArgumentMethod_called() {
+        Runnable listener = () -> calls.add("run");
+        router.addListener(BaseEvent.class, listener,
+                ReflectTools.findMethod(Runnable.class, "run"));
+
+        router.fireEvent(new BaseEvent());
+        Assert.assertEquals(Arrays.asList("run"), calls);
+    }
+
+    @Test
+    public void fireEvent_staticListenerMethod_called() {
+        StaticListener.calls.clear();
+        router.addListener(BaseEvent.class, new StaticListener(), ReflectTools
+                .findMethod(StaticListener.class, "onEvent", EventObject.class));
+
+        router.fireEvent(new BaseEvent());
+        router.fireEvent(new SubEvent());
+        Assert.assertEquals(Arrays.asList("static", "static"),
+                StaticListener.calls);
+    }
+}
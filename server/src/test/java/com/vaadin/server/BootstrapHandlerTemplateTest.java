@@ -0,0 +1,201 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.annotations.Title;
+import com.vaadin.annotations.Viewport;
+import com.vaadin.annotations.Widgetset;
+import com.vaadin.tests.util.MockDeploymentConfiguration;
+import com.vaadin.ui.UI;
+import com.vaadin.util.CurrentInstance;
+
+public class BootstrapHandlerTemplateTest {
+
+    @Title("Tom & Jerry <3 \"quoted\"  twice")
+    @Viewport("width=device-width, a=\"b\" & c")
+    @Widgetset("com.example.TestWidgetset")
+    public static class TemplateTestUI extends UI {
+        @Override
+        protected void init(VaadinRequest request) {
+        }
+    }
+
+    private VaadinService service;
+    private VaadinSession session;
+    private VaadinRequest request;
+    private BootstrapHandler handler;
+
+    @Before
+    public void setup() {
+        MockDeploymentConfiguration configuration = new MockDeploymentConfiguration();
+
+        service = Mockito.mock(VaadinService.class);
+        Mockito.when(service.getDeploymentConfiguration())
+                .thenReturn(configuration);
+        Mockito.when(service.isStandalone(Mockito.any())).thenReturn(true);
+        Mockito.when(service.getStaticFileLocation(Mockito.any()))
+                .thenReturn("./static&files");
+        Mockito.when(service.getConfiguredTheme(Mockito.any()))
+                .thenReturn("valo");
+        Mockito.when(
+                service.getMainDivId(Mockito.any(), Mockito.any(),
+                        Mockito.any()))
+                .thenReturn("first-app", "second-app", "third-app");
+
+        request = Mockito.mock(VaadinRequest.class);
+        Mockito.when(request.getService()).thenReturn(service);
+        Mockito.when(request.getLocale()).thenReturn(Locale.ENGLISH);
+
+        session = new MockVaadinSession(service);
+        session.lock();
+        try {
+            session.setConfiguration(configuration);
+            session.addUIProvider(new UIProvider() {
+                @Override
+                public Class<? extends UI> getUIClass(
+                        UIClassSelectionEvent event) {
+                    return TemplateTestUI.class;
+                }
+            });
+        } finally {
+            session.unlock();
+        }
+
+        handler = new BootstrapHandler() {
+            @Override
+            protected String getServiceUrl(BootstrapContext context) {
+                return null;
+            }
+        };
+    }
+
+    @After
+    public void tearDown() {
+        CurrentInstance.clearAll();
+    }
+
+    @Test
+    public void template_sameHtmlAsWithBootstrapListener() throws IOException {
+        VaadinResponse templateResponse = Mockito.mock(VaadinResponse.class);
+        String first = bootstrap(templateResponse);
+        String second = bootstrap(Mockito.mock(VaadinResponse.class));
+
+        session.lock();
+        try {
+            session.addBootstrapListener(new BootstrapListener() {
+                @Override
+                public void modifyBootstrapFragment(
+                        BootstrapFragmentResponse response) {
+                }
+
+                @Override
+                public void modifyBootstrapPage(
+                        BootstrapPageResponse response) {
+                }
+            });
+        } finally {
+            session.unlock();
+        }
+        VaadinResponse domResponse = Mockito.mock(VaadinResponse.class);
+        String third = bootstrap(domResponse);
+
+        Assert.assertTrue(first.contains("id=\"first-app\""));
+        Assert.assertTrue(first.contains(
+                "<title>Tom &amp; Jerry &lt;3 \"quoted\" twice</title>"));
+        Assert.assertTrue(first.contains(
+                "content=\"width=device-width, a=&quot;b&quot; &amp; c\""));
+        Assert.assertTrue(first.contains("./static&amp;files/VAADIN/"));
+
+        // Only the per request values differ
+        Assert.assertEquals(first.replace("first-app", "second-app"), second);
+        Assert.assertEquals(first.replace("first-app", "third-app"), third);
+
+        for (VaadinResponse response : new VaadinResponse[] {
+                templateResponse, domResponse }) {
+            Mockito.verify(response).setHeader("Cache-Control", "no-cache");
+            Mockito.verify(response).setHeader("Pragma", "no-cache");
+            Mockito.verify(response).setDateHeader("Expires", 0);
+        }
+    }
+
+    @Test
+    public void themeFromRequest_sameHtmlAsWithBootstrapListener()
+            throws IOException {
+        handler = new BootstrapHandler() {
+            @Override
+            protected String getServiceUrl(BootstrapContext context) {
+                return null;
+            }
+
+            @Override
+            public String getThemeName(BootstrapContext context) {
+                // Like ServletBootstrapHandler
+                String themeName = context.getRequest()
+                        .getParameter(VaadinServlet.URL_PARAMETER_THEME);
+                return themeName != null ? themeName
+                        : super.getThemeName(context);
+            }
+        };
+        Mockito.when(request.getParameter(VaadinServlet.URL_PARAMETER_THEME))
+                .thenReturn("requested");
+        String first = bootstrap(Mockito.mock(VaadinResponse.class));
+
+        session.lock();
+        try {
+            session.addBootstrapListener(new BootstrapListener() {
+                @Override
+                public void modifyBootstrapFragment(
+                        BootstrapFragmentResponse response) {
+                }
+
+                @Override
+                public void modifyBootstrapPage(
+                        BootstrapPageResponse response) {
+                }
+            });
+        } finally {
+            session.unlock();
+        }
+        String second = bootstrap(Mockito.mock(VaadinResponse.class));
+
+        Assert.assertTrue(first.contains("VAADIN/themes/requested"));
+        Assert.assertEquals(first.replace("first-app", "second-app"), second);
+    }
+
+    private String bootstrap(VaadinResponse response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Mockito.when(response.getOutputStream()).thenReturn(out);
+        session.lock();
+        try {
+            Assert.assertTrue(handler.synchronizedHandleRequest(session,
+                    request, response));
+        } finally {
+            session.unlock();
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
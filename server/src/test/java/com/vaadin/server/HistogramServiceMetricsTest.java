@@ -0,0 +1,89 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.AttributeNotFoundException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.server.ServiceMetrics.Counter;
+import com.vaadin.server.ServiceMetrics.Phase;
+
+public class HistogramServiceMetricsTest {
+
+    private final HistogramServiceMetrics metrics = new HistogramServiceMetrics();
+
+    @Test
+    public void getAttribute_timesInMicroseconds() throws Exception {
+        metrics.recordTime(Phase.LOCK_HOLD, 3000);
+        metrics.recordTime(Phase.LOCK_HOLD, 5000);
+        metrics.recordCount(Counter.RPC_INVOCATIONS, 7);
+
+        Assert.assertEquals(2L, metrics.getAttribute("LockHoldCount"));
+        Assert.assertEquals(4.0, metrics.getAttribute("LockHoldMean"));
+        Assert.assertEquals(5.0, metrics.getAttribute("LockHoldMax"));
+        Assert.assertEquals(7.0, metrics.getAttribute("RpcInvocationsMax"));
+        Assert.assertEquals(0L, metrics.getAttribute("LockWaitCount"));
+    }
+
+    @Test(expected = AttributeNotFoundException.class)
+    public void getAttribute_unknown_throws() throws Exception {
+        metrics.getAttribute("LockHoldMin");
+    }
+
+    @Test
+    public void getMBeanInfo_allAttributesReadable() throws Exception {
+        MBeanAttributeInfo[] attributes = metrics.getMBeanInfo()
+                .getAttributes();
+        Assert.assertEquals(
+                5 * (Phase.values().length + Counter.values().length),
+                attributes.length);
+        for (MBeanAttributeInfo attribute : attributes) {
+            Assert.assertNotNull(metrics.getAttribute(attribute.getName()));
+        }
+    }
+
+    @Test
+    public void registerMBean_exposedThroughPlatformServer() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(
+                "com.vaadin:type=ServiceMetrics,name=HistogramServiceMetricsTest");
+        server.registerMBean(metrics, name);
+        try {
+            metrics.recordCount(Counter.BYTES_WRITTEN, 1024);
+            Assert.assertEquals(1L,
+                    server.getAttribute(name, "BytesWrittenCount"));
+
+            server.invoke(name, "reset", new Object[0], new String[0]);
+            Assert.assertEquals(0L,
+                    server.getAttribute(name, "BytesWrittenCount"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    @Test
+    public void disabled_nothingMeasured() {
+        Assert.assertEquals(0, ServiceMetrics.DISABLED.startTime());
+        Assert.assertSame(ServiceMetrics.DISABLED, ServiceMetrics.get(null));
+    }
+}
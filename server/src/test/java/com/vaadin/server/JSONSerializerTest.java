@@ -17,8 +17,10 @@ package com.vaadin.server;
  */
 
 import java.lang.reflect.Type;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 
 import org.junit.Assert;
@@ -31,6 +33,8 @@ import com.vaadin.shared.ui.splitpanel.AbstractSplitPanelState;
 import elemental.json.Json;
 import elemental.json.JsonArray;
 import elemental.json.JsonException;
+import elemental.json.JsonObject;
+import elemental.json.JsonType;
 import elemental.json.JsonValue;
 
 /**
@@ -44,6 +48,76 @@ public class JSONSerializerTest {
     HashMap<String, AbstractSplitPanelState> stringToStateMap;
     HashMap<AbstractSplitPanelState, String> stateToStringMap;
 
+    public enum Mode {
+        FIRST, SECOND;
+    }
+
+    public static class TestBean {
+        public String text = "text";
+        public int count = 1;
+        public boolean flag = true;
+        public char letter = 'a';
+        public Mode mode = Mode.FIRST;
+        public Integer missing = null;
+        private double amount = 0.5;
+
+        public double getAmount() {
+            return amount;
+        }
+
+        public void setAmount(double amount) {
+            this.amount = amount;
+        }
+    }
+
+    @Test
+    public void encodeBean_allPropertiesEncoded() throws Exception {
+        JsonObject encoded = (JsonObject) JsonCodec
+                .encode(new TestBean(), null, TestBean.class, null)
+                .getEncodedValue();
+
+        Assert.assertEquals("text", encoded.getString("text"));
+        Assert.assertEquals(1, encoded.getNumber("count"), 0);
+        Assert.assertTrue(encoded.getBoolean("flag"));
+        Assert.assertEquals("a", encoded.getString("letter"));
+        Assert.assertEquals("FIRST", encoded.getString("mode"));
+        Assert.assertEquals(JsonType.NULL, encoded.get("missing").getType());
+        Assert.assertEquals(0.5, encoded.getNumber("amount"), 0);
+    }
+
+    @Test
+    public void encodeBean_diffContainsOnlyChangedProperties()
+            throws Exception {
+        TestBean bean = new TestBean();
+        JsonValue reference = JsonCodec
+                .encode(bean, null, TestBean.class, null).getEncodedValue();
+
+        JsonObject diff = (JsonObject) JsonCodec
+                .encode(bean, reference, TestBean.class, null).getDiff();
+        Assert.assertEquals(0, diff.keys().length);
+
+        bean.mode = Mode.SECOND;
+        bean.setAmount(2);
+        diff = (JsonObject) JsonCodec
+                .encode(bean, reference, TestBean.class, null).getDiff();
+        Assert.assertEquals(new HashSet<>(Arrays.asList("mode", "amount")),
+                new HashSet<>(Arrays.asList(diff.keys())));
+    }
+
+    @Test
+    public void decodeBean_fieldsAndSettersAssigned() throws Exception {
+        TestBean bean = new TestBean();
+        bean.text = "changed";
+        bean.count = 5;
+        bean.setAmount(3);
+        JsonValue encoded = JsonCodec
+                .encode(bean, null, TestBean.class, null).getEncodedValue();
+
+        TestBean decoded = (TestBean) JsonCodec
+                .decodeInternalOrCustomType(TestBean.class, encoded, null);
+        Assert.assertTrue(equals(bean, decoded));
+    }
+
     @Test
     public void testStringToBeanMapSerialization() throws Exception {
         Type mapType = getClass().getDeclaredField("stringToStateMap")
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MetricsHistogramTest {
+
+    private final MetricsHistogram histogram = new MetricsHistogram();
+
+    @Test
+    public void record_countSumAndMaxExact() {
+        histogram.record(5);
+        histogram.record(100);
+        histogram.record(0);
+
+        Assert.assertEquals(3, histogram.getCount());
+        Assert.assertEquals(105, histogram.getSum());
+        Assert.assertEquals(100, histogram.getMax());
+        Assert.assertEquals(35, histogram.getMean(), 0);
+    }
+
+    @Test
+    public void getPercentile_withinFactorOfTwo() {
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+
+        long median = histogram.getPercentile(50);
+        Assert.assertTrue(median >= 500 && median < 1000);
+        long p99 = histogram.getPercentile(99);
+        Assert.assertTrue(p99 >= 990 && p99 <= 1000);
+        Assert.assertEquals(1000, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void getPercentile_empty_zero() {
+        Assert.assertEquals(0, histogram.getPercentile(50));
+        Assert.assertEquals(0, histogram.getMean(), 0);
+    }
+
+    @Test
+    public void reset_allValuesDiscarded() {
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(-1);
+        histogram.reset();
+
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0, histogram.getMax());
+        Assert.assertEquals(0, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void record_concurrently_noValuesLost()
+            throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    histogram.record(j);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(40000, histogram.getCount());
+        Assert.assertEquals(9999, histogram.getMax());
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.server.ServerRpcManager.RpcInvocationException;
+import com.vaadin.shared.communication.ServerRpc;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+
+public class ServerRpcManagerTest {
+
+    public interface TestRpc extends ServerRpc {
+        public void call();
+
+        public void call(String text, int number, boolean flag);
+
+        public void fail();
+    }
+
+    interface HiddenRpc extends ServerRpc {
+        public void call(Integer number);
+    }
+
+    private final List<Object> calls = new ArrayList<>();
+
+    private final TestRpc testRpc = new TestRpc() {
+        @Override
+        public void call() {
+            calls.add("call");
+        }
+
+        @Override
+        public void call(String text, int number, boolean flag) {
+            calls.addAll(Arrays.asList(text, number, flag));
+        }
+
+        @Override
+        public void fail() {
+            throw new IllegalStateException("fail");
+        }
+    };
+
+    private static ServerRpcMethodInvocation createInvocation(
+            Class<? extends ServerRpc> rpcInterface, String method,
+            JsonArray parameters) {
+        ServerRpcMethodInvocation invocation = new ServerRpcMethodInvocation(
+                "1", rpcInterface, method, parameters.length());
+        invocation.decodeParameters(parameters, null);
+        return invocation;
+    }
+
+    @Test
+    public void applyInvocation_methodSelectedByParameterCount()
+            throws RpcInvocationException {
+        ServerRpcManager<TestRpc> manager = new ServerRpcManager<>(testRpc,
+                TestRpc.class);
+
+        JsonArray parameters = Json.createArray();
+        parameters.set(0, "text");
+        parameters.set(1, 42);
+        parameters.set(2, true);
+        manager.applyInvocation(
+                createInvocation(TestRpc.class, "call", parameters));
+        manager.applyInvocation(
+                createInvocation(TestRpc.class, "call", Json.createArray()));
+
+        Assert.assertEquals(Arrays.asList("text", 42, true, "call"), calls);
+    }
+
+    @Test
+    public void applyInvocation_methodThrows_causeChainAsWithReflection() {
+        ServerRpcManager<TestRpc> manager = new ServerRpcManager<>(testRpc,
+                TestRpc.class);
+
+        try {
+            manager.applyInvocation(
+                    createInvocation(TestRpc.class, "fail", Json.createArray()));
+            Assert.fail("Exception should have been thrown");
+        } catch (RpcInvocationException e) {
+            Assert.assertTrue(
+                    e.getCause() instanceof InvocationTargetException);
+            Assert.assertTrue(e.getCause()
+                    .getCause() instanceof IllegalStateException);
+            Assert.assertSame(e.getCause().getCause(),
+                    DefaultErrorHandler.findRelevantThrowable(e));
+        }
+    }
+
+    @Test
+    public void applyInvocation_nonPublicInterface_invokedThroughReflection()
+            throws RpcInvocationException {
+        HiddenRpc hiddenRpc = number -> calls.add(number);
+        ServerRpcManager<HiddenRpc> manager = new ServerRpcManager<>(
+                hiddenRpc, HiddenRpc.class);
+
+        JsonArray parameters = Json.createArray();
+        parameters.set(0, Json.createNull());
+        manager.applyInvocation(
+                createInvocation(HiddenRpc.class, "call", parameters));
+
+        Assert.assertEquals(Arrays.asList((Object) null), calls);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void createInvocation_unknownParameterCount_throws() {
+        new ServerRpcMethodInvocation("1", TestRpc.class, "fail", 1);
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.server.SessionMaintenanceScheduler.Entry;
+import com.vaadin.util.CurrentInstance;
+
+public class SessionMaintenanceSchedulerTest {
+
+    private static final long TICK = 1000;
+
+    private VaadinService service;
+    private VaadinSession session;
+    private SessionMaintenanceScheduler scheduler;
+
+    @Before
+    public void setup() {
+        service = Mockito.mock(VaadinService.class);
+        session = new MockVaadinSession(service);
+        // Run clean ups right away in the ticking thread
+        scheduler = new SessionMaintenanceScheduler(service, TICK,
+                Runnable::run);
+    }
+
+    @After
+    public void tearDown() {
+        CurrentInstance.clearAll();
+    }
+
+    @Test
+    public void register_cleanedUpOnNextTick() {
+        nextCleanupIn(Long.MAX_VALUE / 2);
+        scheduler.register(session);
+        Assert.assertEquals(1, scheduler.getSessionCount());
+        verifyCleanups(0);
+
+        scheduler.tick();
+        verifyCleanups(1);
+    }
+
+    @Test
+    public void nextCleanup_dueAfterExpiry() {
+        nextCleanupIn(2500);
+        scheduler.register(session);
+        scheduler.tick();
+        verifyCleanups(1);
+
+        scheduler.tick();
+        scheduler.tick();
+        verifyCleanups(1);
+        scheduler.tick();
+        verifyCleanups(2);
+    }
+
+    @Test
+    public void nextCleanup_afterMoreThanOneRound() {
+        int ticks = SessionMaintenanceScheduler.WHEEL_SIZE * 2 + 5;
+        nextCleanupIn(ticks * TICK - TICK / 2);
+        scheduler.register(session);
+        scheduler.tick();
+        verifyCleanups(1);
+
+        for (int i = 0; i < ticks - 1; i++) {
+            scheduler.tick();
+        }
+        verifyCleanups(1);
+        scheduler.tick();
+        verifyCleanups(2);
+    }
+
+    @Test
+    public void cleanupSoon_cleanedUpRightAway() {
+        nextCleanupIn(Long.MAX_VALUE / 2);
+        Entry entry = scheduler.register(session);
+        scheduler.cleanupSoon(entry);
+        verifyCleanups(1);
+
+        // Not cleaned up again by the tick it was originally scheduled for
+        scheduler.tick();
+        verifyCleanups(1);
+    }
+
+    @Test
+    public void sessionLocked_cleanedUpAfterRequest() throws Exception {
+        nextCleanupIn(Long.MAX_VALUE / 2);
+        Entry entry = scheduler.register(session);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            Future<?> request = executor.submit(() -> {
+                session.getLockInstance().lock();
+                try {
+                    locked.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                } finally {
+                    session.getLockInstance().unlock();
+                }
+                return null;
+            });
+            Assert.assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+            scheduler.cleanupSoon(entry);
+            verifyCleanups(0);
+
+            release.countDown();
+            request.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        scheduler.requestEnded(entry);
+        verifyCleanups(1);
+
+        // Nothing requested any more
+        scheduler.requestEnded(entry);
+        verifyCleanups(1);
+    }
+
+    @Test
+    public void unregister_notCleanedUp() {
+        nextCleanupIn(Long.MAX_VALUE / 2);
+        Entry entry = scheduler.register(session);
+        scheduler.unregister(entry);
+        Assert.assertEquals(0, scheduler.getSessionCount());
+
+        scheduler.tick();
+        scheduler.cleanupSoon(entry);
+        verifyCleanups(0);
+    }
+
+    private void nextCleanupIn(long millis) {
+        Mockito.when(service.getNextCleanupTime(session)).thenAnswer(
+                invocation -> System.currentTimeMillis() + millis);
+    }
+
+    private void verifyCleanups(int count) {
+        Mockito.verify(service, Mockito.times(count)).cleanupSession(session);
+    }
+}
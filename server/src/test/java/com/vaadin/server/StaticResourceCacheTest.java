@@ -0,0 +1,227 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import com.vaadin.server.StaticResourceCache.CachedResource;
+
+public class StaticResourceCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    private File createFile(String name, String content) throws IOException {
+        File file = folder.newFile(name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private HttpServletRequest createRequest(String... headers) {
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        for (int i = 0; i < headers.length; i += 2) {
+            Mockito.when(request.getHeader(headers[i]))
+                    .thenReturn(headers[i + 1]);
+        }
+        return request;
+    }
+
+    private HttpServletResponse createResponse() throws IOException {
+        HttpServletResponse response = Mockito
+                .mock(HttpServletResponse.class);
+        Mockito.when(response.getOutputStream())
+                .thenReturn(new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        out.write(b);
+                    }
+                });
+        return response;
+    }
+
+    private String getEtag(CachedResource resource) throws IOException {
+        HttpServletResponse response = createResponse();
+        StaticResourceCache.writeResponse(createRequest(), response, resource,
+                false);
+        ArgumentCaptor<String> etag = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(response).setHeader(Mockito.eq("ETag"),
+                etag.capture());
+        out.reset();
+        return etag.getValue();
+    }
+
+    @Test
+    public void get_sameResource_returnsSameInstance() throws IOException {
+        File file = createFile("test.js", "alert(1);");
+        StaticResourceCache cache = new StaticResourceCache(1024);
+
+        CachedResource resource = cache.get(file.toURI().toURL());
+        Assert.assertNotNull(resource);
+        Assert.assertSame(resource, cache.get(file.toURI().toURL()));
+        Assert.assertFalse(resource.hasGzippedContent());
+        Assert.assertEquals(9, cache.getCachedBytes());
+    }
+
+    @Test
+    public void get_withPrecompressedVariant_loadsBoth() throws IOException {
+        File file = createFile("test.css", "body{}");
+        createFile("test.css.gz", "gz");
+        StaticResourceCache cache = new StaticResourceCache(1024);
+
+        CachedResource resource = cache.get(file.toURI().toURL());
+        Assert.assertTrue(resource.hasGzippedContent());
+        Assert.assertEquals(8, cache.getCachedBytes());
+
+        HttpServletResponse response = createResponse();
+        StaticResourceCache.writeResponse(createRequest(), response, resource,
+                true);
+        Mockito.verify(response).setHeader("Content-Encoding", "gzip");
+        Mockito.verify(response).setHeader("Vary", "Accept-Encoding");
+        Assert.assertEquals("gz", out.toString("UTF-8"));
+    }
+
+    @Test
+    public void get_tooLarge_notCached() throws IOException {
+        File file = createFile("large.js", "0123456789");
+        StaticResourceCache cache = new StaticResourceCache(5);
+
+        Assert.assertNull(cache.get(file.toURI().toURL()));
+        Assert.assertNull(cache.get(file.toURI().toURL()));
+        Assert.assertEquals(0, cache.getCachedBytes());
+    }
+
+    @Test
+    public void writeResponse_writesContentAndEtag() throws IOException {
+        File file = createFile("test.js", "alert(1);");
+        CachedResource resource = new StaticResourceCache(1024)
+                .get(file.toURI().toURL());
+
+        HttpServletResponse response = createResponse();
+        StaticResourceCache.writeResponse(createRequest(), response, resource,
+                false);
+
+        Mockito.verify(response).setContentLength(9);
+        Mockito.verify(response).setHeader("Accept-Ranges", "bytes");
+        Assert.assertEquals("alert(1);", out.toString("UTF-8"));
+        String etag = getEtag(resource);
+        Assert.assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+    }
+
+    @Test
+    public void writeResponse_matchingIfNoneMatch_notModified()
+            throws IOException {
+        File file = createFile("test.js", "alert(1);");
+        CachedResource resource = new StaticResourceCache(1024)
+                .get(file.toURI().toURL());
+        String etag = getEtag(resource);
+
+        HttpServletResponse response = createResponse();
+        StaticResourceCache.writeResponse(
+                createRequest("If-None-Match", "\"other\", " + etag), response,
+                resource, false);
+
+        Mockito.verify(response)
+                .setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        Assert.assertEquals(0, out.size());
+    }
+
+    @Test
+    public void writeResponse_range_writesPartialContent() throws IOException {
+        File file = createFile("test.js", "0123456789");
+        CachedResource resource = new StaticResourceCache(1024)
+                .get(file.toURI().toURL());
+
+        HttpServletResponse response = createResponse();
+        StaticResourceCache.writeResponse(createRequest("Range", "bytes=2-4"),
+                response, resource, false);
+
+        Mockito.verify(response)
+                .setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        Mockito.verify(response).setHeader("Content-Range", "bytes 2-4/10");
+        Mockito.verify(response).setContentLength(3);
+        Assert.assertEquals("234", out.toString("UTF-8"));
+    }
+
+    @Test
+    public void writeResponse_suffixRange_writesEnd() throws IOException {
+        File file = createFile("test.js", "0123456789");
+        CachedResource resource = new StaticResourceCache(1024)
+                .get(file.toURI().toURL());
+
+        StaticResourceCache.writeResponse(createRequest("Range", "bytes=-3"),
+                createResponse(), resource, false);
+
+        Assert.assertEquals("789", out.toString("UTF-8"));
+    }
+
+    @Test
+    public void writeResponse_unsatisfiableRange_416() throws IOException {
+        File file = createFile("test.js", "0123456789");
+        CachedResource resource = new StaticResourceCache(1024)
+                .get(file.toURI().toURL());
+
+        HttpServletResponse response = createResponse();
+        StaticResourceCache.writeResponse(createRequest("Range", "bytes=20-"),
+                response, resource, false);
+
+        Mockito.verify(response).setStatus(
+                HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        Mockito.verify(response).setHeader("Content-Range", "bytes */10");
+        Assert.assertEquals(0, out.size());
+    }
+
+    @Test
+    public void writeResponse_staleIfRange_writesEverything()
+            throws IOException {
+        File file = createFile("test.js", "0123456789");
+        CachedResource resource = new StaticResourceCache(1024)
+                .get(file.toURI().toURL());
+
+        StaticResourceCache.writeResponse(
+                createRequest("Range", "bytes=2-4", "If-Range", "\"old\""),
+                createResponse(), resource, false);
+
+        Assert.assertEquals("0123456789", out.toString("UTF-8"));
+    }
+
+    @Test
+    public void writeFile_transfersWholeFile() throws IOException {
+        File file = createFile("test.js", "0123456789");
+
+        HttpServletResponse response = createResponse();
+        StaticResourceCache.writeFile(response, file);
+
+        Mockito.verify(response).setHeader("Content-Length", "10");
+        Assert.assertEquals("0123456789", out.toString("UTF-8"));
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.ui.UI;
+import com.vaadin.util.CurrentInstance;
+
+public class VaadinServiceRunAsyncTest {
+
+    private VaadinService service;
+    private VaadinSession session;
+    private UI ui;
+
+    @Before
+    public void setup() throws Exception {
+        VaadinServlet servlet = new VaadinServlet();
+        servlet.init(new MockServletConfig());
+        service = servlet.getService();
+
+        session = new MockVaadinSession(service);
+        ui = new UI() {
+            @Override
+            protected void init(VaadinRequest request) {
+            }
+        };
+        session.lock();
+        try {
+            ui.doInit(Mockito.mock(VaadinRequest.class),
+                    session.getNextUIid(), null);
+            ui.setSession(session);
+            session.addUI(ui);
+        } finally {
+            session.unlock();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        service.destroy();
+        CurrentInstance.clearAll();
+    }
+
+    @Test
+    public void sessionRunAsync_resultDeliveredWithSessionLocked()
+            throws Exception {
+        CurrentInstance.setInheritable(String.class, "inherited");
+        AtomicReference<Thread> taskThread = new AtomicReference<>();
+        AtomicReference<String> taskInstance = new AtomicReference<>();
+        AtomicReference<String> delivered = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        CompletableFuture<String> future = session.runAsync(() -> {
+            taskThread.set(Thread.currentThread());
+            taskInstance.set(CurrentInstance.get(String.class));
+            Assert.assertSame(session, VaadinSession.getCurrent());
+            Assert.assertFalse(session.hasLock());
+            return "result";
+        }, result -> {
+            Assert.assertTrue(session.hasLock());
+            Assert.assertSame(session, VaadinSession.getCurrent());
+            Assert.assertEquals("inherited",
+                    CurrentInstance.get(String.class));
+            delivered.set(result);
+            done.countDown();
+        });
+
+        Assert.assertEquals("result", future.get(5, TimeUnit.SECONDS));
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals("result", delivered.get());
+        Assert.assertNotSame(Thread.currentThread(), taskThread.get());
+        Assert.assertEquals("inherited", taskInstance.get());
+    }
+
+    @Test
+    public void uiRunAsync_uiCurrentInTaskAndHandler() throws Exception {
+        AtomicReference<UI> taskUI = new AtomicReference<>();
+        AtomicReference<UI> handlerUI = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        ui.runAsync(() -> {
+            taskUI.set(UI.getCurrent());
+            return 42;
+        }, result -> {
+            Assert.assertEquals(Integer.valueOf(42), result);
+            handlerUI.set(UI.getCurrent());
+            done.countDown();
+        });
+
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertSame(ui, taskUI.get());
+        Assert.assertSame(ui, handlerUI.get());
+    }
+
+    @Test
+    public void sessionRunAsync_taskFails_errorHandlerCalled()
+            throws Exception {
+        RuntimeException failure = new RuntimeException("Failed");
+        AtomicReference<Throwable> handled = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        session.lock();
+        try {
+            session.setErrorHandler(event -> {
+                handled.set(event.getThrowable());
+                done.countDown();
+            });
+        } finally {
+            session.unlock();
+        }
+
+        CompletableFuture<Object> future = session.runAsync(() -> {
+            throw failure;
+        }, result -> Assert.fail("Result handler should not be called"));
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail("Future should have failed");
+        } catch (ExecutionException e) {
+            Assert.assertSame(failure, e.getCause());
+        }
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Throwable throwable = handled.get();
+        while (throwable != failure && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        Assert.assertSame(failure, throwable);
+    }
+
+    @Test
+    public void runAsync_cancelledBeforeDone_resultNotDelivered()
+            throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<String> delivered = new AtomicReference<>();
+
+        CompletableFuture<String> future = session.runAsync(() -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "result";
+        }, delivered::set);
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        future.cancel(false);
+        release.countDown();
+
+        // Wait until the task has finished
+        service.getBackgroundExecutor().shutdown();
+        Assert.assertTrue(service.getBackgroundExecutor()
+                .awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertNull(delivered.get());
+    }
+}
@@ -77,6 +77,30 @@ public class VaadinServiceTest {
                 1, listener.callCount);
     }
 
+    @Test
+    public void getNextCleanupTime_noUIs_heartbeatTimeoutFromNow()
+            throws ServletException {
+        VaadinServlet servlet = new VaadinServlet();
+        servlet.init(new MockServletConfig());
+        VaadinService service = servlet.getService();
+        long heartbeatTimeout = (long) (1000L * 3.1
+                * service.getDeploymentConfiguration().getHeartbeatInterval());
+
+        MockVaadinSession session = new MockVaadinSession(service);
+        session.lock();
+        try {
+            long before = System.currentTimeMillis();
+            long next = service.getNextCleanupTime(session);
+            long after = System.currentTimeMillis();
+
+            // A UI added later must not be left unchecked
+            Assert.assertTrue(next <= after + heartbeatTimeout);
+            Assert.assertTrue(next >= before + heartbeatTimeout - 1000);
+        } finally {
+            session.unlock();
+        }
+    }
+
     @Test
     public void captionIsSetToACriticalNotification() {
         String notification = createCriticalNotification("foobar", "message",
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.tests.util.MockDeploymentConfiguration;
+import com.vaadin.ui.CssLayout;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.UI;
+import com.vaadin.util.CurrentInstance;
+
+public class VaadinSessionUILockTest {
+
+    private static final int COMPONENTS_PER_UI = 1000;
+
+    private VaadinSession session;
+    private UI ui1;
+    private UI ui2;
+    private ExecutorService executor;
+
+    @Before
+    public void setup() throws Exception {
+        VaadinServlet servlet = new VaadinServlet();
+        servlet.init(new MockServletConfig());
+        VaadinService service = servlet.getService();
+
+        MockDeploymentConfiguration configuration = new MockDeploymentConfiguration();
+        configuration.setApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_UI_LOCK_STRIPING, "true");
+
+        session = new MockVaadinSession(service);
+        ui1 = createUI();
+        ui2 = createUI();
+
+        session.getLockInstance().lock();
+        try {
+            session.setConfiguration(configuration);
+            addUI(ui1);
+            addUI(ui2);
+        } finally {
+            session.getLockInstance().unlock();
+        }
+        Assert.assertTrue(session.isUILockStripingEnabled());
+
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        CurrentInstance.clearAll();
+    }
+
+    @Test
+    public void lockUI_otherUILockableConcurrently() throws Exception {
+        session.lockUI(ui1);
+        try {
+            Future<Boolean> otherUI = executor
+                    .submit(() -> tryLockAndUnlock(ui2));
+            Assert.assertTrue("Other UI should be lockable while ui1 is locked",
+                    otherUI.get(5, TimeUnit.SECONDS));
+
+            Future<Boolean> sameUI = executor
+                    .submit(() -> tryLockAndUnlock(ui1));
+            Assert.assertFalse("Locked UI should not be lockable",
+                    sameUI.get(5, TimeUnit.SECONDS));
+        } finally {
+            session.unlockUI(ui1);
+        }
+    }
+
+    @Test
+    public void lockUI_hasLock() {
+        Assert.assertFalse(session.hasLock());
+        session.lockUI(ui1);
+        try {
+            Assert.assertTrue(session.hasLock());
+            Assert.assertFalse(((ReentrantLock) session.getLockInstance())
+                    .isHeldByCurrentThread());
+        } finally {
+            session.unlockUI(ui1);
+        }
+        Assert.assertFalse(session.hasLock());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void lockUI_whileHoldingOtherUI_throws() {
+        session.lockUI(ui1);
+        try {
+            session.lockUI(ui2);
+        } finally {
+            session.unlockUI(ui1);
+        }
+    }
+
+    @Test
+    public void lock_waitsForUILocks() throws Exception {
+        session.lockUI(ui1);
+        CountDownLatch locked = new CountDownLatch(1);
+        Future<?> exclusive;
+        try {
+            Assert.assertFalse(executor.submit(this::tryLockAndUnlockSession)
+                    .get(5, TimeUnit.SECONDS));
+
+            exclusive = executor.submit(() -> {
+                session.lock();
+                try {
+                    locked.countDown();
+                } finally {
+                    session.unlock();
+                }
+            });
+            Assert.assertFalse("Session should not be locked while a UI is",
+                    locked.await(200, TimeUnit.MILLISECONDS));
+        } finally {
+            session.unlockUI(ui1);
+        }
+        Assert.assertTrue(locked.await(5, TimeUnit.SECONDS));
+        exclusive.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void lock_exclusiveAccessIncludesUIs() throws Exception {
+        session.lock();
+        try {
+            // Reentrant for the owner of the session lock
+            session.lockUI(ui1);
+            session.unlockUI(ui1);
+
+            Assert.assertFalse(executor.submit(() -> tryLockAndUnlock(ui2))
+                    .get(5, TimeUnit.SECONDS));
+        } finally {
+            session.unlock();
+        }
+        Assert.assertTrue(executor.submit(() -> tryLockAndUnlock(ui2))
+                .get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void access_runsWhenUIUnlocked() throws Exception {
+        AtomicBoolean ran = new AtomicBoolean();
+        AtomicBoolean otherRan = new AtomicBoolean();
+        session.lockUI(ui1);
+        try {
+            ui1.access(() -> {
+                Assert.assertSame(ui1, UI.getCurrent());
+                ran.set(true);
+            });
+            Assert.assertFalse(ran.get());
+
+            // Other UI is not locked, so the task is run right away
+            ui2.access(() -> otherRan.set(true));
+            Assert.assertTrue(otherRan.get());
+        } finally {
+            session.unlockUI(ui1);
+        }
+        Assert.assertTrue(ran.get());
+    }
+
+    @Test
+    public void createConnectorId_componentsAttachedConcurrently_uniqueIds()
+            throws Exception {
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        CyclicBarrier bothLocked = new CyclicBarrier(2);
+        Future<?> first = executor
+                .submit(() -> attachComponents(ui1, bothLocked, ids));
+        Future<?> second = executor
+                .submit(() -> attachComponents(ui2, bothLocked, ids));
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+
+        Assert.assertEquals(2 * COMPONENTS_PER_UI, ids.size());
+    }
+
+    private Void attachComponents(UI ui, CyclicBarrier bothLocked,
+            Set<String> ids) throws Exception {
+        session.lockUI(ui);
+        try {
+            // Both UIs are locked at the same time with lock striping
+            bothLocked.await(5, TimeUnit.SECONDS);
+            CssLayout layout = new CssLayout();
+            ui.setContent(layout);
+            for (int i = 0; i < COMPONENTS_PER_UI; i++) {
+                Label label = new Label();
+                layout.addComponent(label);
+                ids.add(label.getConnectorId());
+            }
+        } finally {
+            session.unlockUI(ui);
+        }
+        return null;
+    }
+
+    private boolean tryLockAndUnlock(UI ui) {
+        if (session.tryLockUI(ui)) {
+            session.unlockUI(ui);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean tryLockAndUnlockSession() {
+        if (session.tryLock()) {
+            session.unlock();
+            return true;
+        }
+        return false;
+    }
+
+    private void addUI(UI ui) {
+        ui.doInit(Mockito.mock(VaadinRequest.class), session.getNextUIid(),
+                null);
+        ui.setSession(session);
+        session.addUI(ui);
+    }
+
+    private static UI createUI() {
+        return new UI() {
+            @Override
+            protected void init(VaadinRequest request) {
+            }
+        };
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.server.Constants;
+import com.vaadin.server.MockServletConfig;
+import com.vaadin.server.MockVaadinSession;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinResponse;
+import com.vaadin.server.VaadinService;
+import com.vaadin.server.VaadinServlet;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.server.WrappedSession;
+import com.vaadin.shared.ApplicationConstants;
+import com.vaadin.shared.ui.ui.UIConstants;
+import com.vaadin.ui.UI;
+import com.vaadin.util.CurrentInstance;
+
+public class HeartbeatHandlerTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private VaadinService service;
+    private VaadinSession session;
+    private UI ui;
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        CurrentInstance.clearAll();
+    }
+
+    @Test
+    public void heartbeat_sessionLockedByOtherThread_timestampUpdated()
+            throws Exception {
+        setup(new Properties());
+        ui.setLastHeartbeatTimestamp(0);
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> lockHolder = executor.submit(() -> {
+            session.lock();
+            try {
+                locked.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            } finally {
+                session.unlock();
+            }
+            return null;
+        });
+        Assert.assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        try {
+            VaadinResponse response = Mockito.mock(VaadinResponse.class);
+            Assert.assertTrue(new HeartbeatHandler().handleRequest(session,
+                    createRequest(ui.getUIId()), response));
+
+            Assert.assertNotEquals(0, ui.getLastHeartbeatTimestamp());
+            Mockito.verify(response, Mockito.never())
+                    .sendError(Mockito.anyInt(), Mockito.anyString());
+        } finally {
+            release.countDown();
+        }
+        lockHolder.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void handleRequest_sessionLockedByOtherThread_timestampUpdated()
+            throws Exception {
+        setup(new Properties());
+        ui.setLastHeartbeatTimestamp(0);
+
+        WrappedSession wrappedSession = Mockito.mock(WrappedSession.class);
+        Mockito.when(wrappedSession.getAttribute(Mockito.anyString()))
+                .thenAnswer(invocation -> {
+                    String name = (String) invocation.getArguments()[0];
+                    return name.endsWith(".lock") ? session.getLockInstance()
+                            : session;
+                });
+        VaadinRequest request = createRequest(ui.getUIId());
+        Mockito.when(request.getWrappedSession(Mockito.anyBoolean()))
+                .thenReturn(wrappedSession);
+        VaadinResponse response = Mockito.mock(VaadinResponse.class);
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> lockHolder = executor.submit(() -> {
+            session.lock();
+            try {
+                locked.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            } finally {
+                session.unlock();
+            }
+            return null;
+        });
+        Assert.assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        try {
+            executor.submit(() -> {
+                service.handleRequest(request, response);
+                return null;
+            }).get(2, TimeUnit.SECONDS);
+
+            Assert.assertNotEquals(0, ui.getLastHeartbeatTimestamp());
+            Mockito.verify(response, Mockito.never())
+                    .sendError(Mockito.anyInt(), Mockito.anyString());
+        } finally {
+            release.countDown();
+        }
+        lockHolder.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void heartbeat_unknownUI_notFound() throws Exception {
+        setup(new Properties());
+
+        VaadinResponse response = Mockito.mock(VaadinResponse.class);
+        Assert.assertTrue(new HeartbeatHandler().handleRequest(session,
+                createRequest(ui.getUIId() + 1), response));
+
+        Mockito.verify(response).sendError(
+                Mockito.eq(HttpServletResponse.SC_NOT_FOUND),
+                Mockito.anyString());
+    }
+
+    @Test
+    public void heartbeat_sweepDisabled_sessionLocked() throws Exception {
+        Properties initParameters = new Properties();
+        initParameters.setProperty(
+                Constants.SERVLET_PARAMETER_INACTIVE_UI_SWEEP_INTERVAL, "0");
+        setup(initParameters);
+        ui.setLastHeartbeatTimestamp(0);
+
+        HeartbeatHandler handler = new HeartbeatHandler() {
+            @Override
+            public boolean synchronizedHandleRequest(VaadinSession session,
+                    VaadinRequest request, VaadinResponse response) {
+                Assert.assertTrue(session.hasLock());
+                ui.setLastHeartbeatTimestamp(1);
+                return true;
+            }
+        };
+        Assert.assertTrue(handler.handleRequest(session,
+                createRequest(ui.getUIId()),
+                Mockito.mock(VaadinResponse.class)));
+        Assert.assertEquals(1, ui.getLastHeartbeatTimestamp());
+    }
+
+    private void setup(Properties initParameters) throws Exception {
+        VaadinServlet servlet = new VaadinServlet();
+        servlet.init(new MockServletConfig(initParameters));
+
+        service = servlet.getService();
+        session = new MockVaadinSession(service);
+        ui = new UI() {
+            @Override
+            protected void init(VaadinRequest request) {
+            }
+        };
+        session.lock();
+        try {
+            ui.doInit(Mockito.mock(VaadinRequest.class),
+                    session.getNextUIid(), null);
+            ui.setSession(session);
+            session.addUI(ui);
+        } finally {
+            session.unlock();
+        }
+    }
+
+    private static VaadinRequest createRequest(int uiId) {
+        VaadinRequest request = Mockito.mock(VaadinRequest.class);
+        Mockito.when(request.getPathInfo())
+                .thenReturn("/" + ApplicationConstants.HEARTBEAT_PATH + "/");
+        Mockito.when(request.getParameter(UIConstants.UI_ID_PARAMETER))
+                .thenReturn(Integer.toString(uiId));
+        return request;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
+public class UidlSnapshotWriterTest {
+
+    private static void writeMessage(Writer writer) throws IOException {
+        JsonObject state = Json.createObject();
+        state.put("caption", "a \"quoted\" caption");
+        JsonArray children = Json.createArray();
+        children.set(0, "2");
+        children.set(1, "3");
+
+        writer.write("{\"state\":{\"1\":");
+        UidlSnapshotWriter.writeJson(writer, state);
+        writer.write("},\"hierarchy\":{\"1\":");
+        UidlSnapshotWriter.writeJson(writer, children);
+        writer.write('}');
+        writer.write('}');
+    }
+
+    @Test
+    public void writeTo_sameOutputAsDirectWriting() throws IOException {
+        StringWriter direct = new StringWriter();
+        writeMessage(direct);
+
+        UidlSnapshotWriter snapshot = new UidlSnapshotWriter();
+        writeMessage(snapshot);
+        snapshot.close();
+        StringWriter out = new StringWriter();
+        snapshot.writeTo(out);
+
+        Assert.assertEquals(direct.toString(), out.toString());
+    }
+
+    @Test
+    public void writeJson_stringifiedOnlyWhenWrittenOut() throws IOException {
+        JsonObject value = Json.createObject();
+        value.put("a", "x");
+
+        UidlSnapshotWriter snapshot = new UidlSnapshotWriter();
+        snapshot.write('[');
+        UidlSnapshotWriter.writeJson(snapshot, value);
+        snapshot.write(']');
+
+        // Not yet stringified, so later changes are still visible
+        value.put("b", "y");
+
+        StringWriter out = new StringWriter();
+        snapshot.writeTo(out);
+        Assert.assertEquals("[{\"a\":\"x\",\"b\":\"y\"}]", out.toString());
+    }
+
+    @Test
+    public void writeTo_emptySnapshot_writesNothing() throws IOException {
+        StringWriter out = new StringWriter();
+        new UidlSnapshotWriter().writeTo(out);
+        Assert.assertEquals("", out.toString());
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class Utf8BufferWriterTest {
+
+    private static final String TEXT = "ascii, \u00e4\u00f6, \u20ac, \ud83d\ude00 end";
+
+    private static byte[] getBytes(Utf8BufferWriter writer)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void writeString_sameBytesAsStringEncoding() throws IOException {
+        Utf8BufferWriter writer = new Utf8BufferWriter();
+        writer.write(TEXT);
+        writer.close();
+
+        byte[] expected = TEXT.getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(expected.length, writer.size());
+        Assert.assertArrayEquals(expected, getBytes(writer));
+        Assert.assertEquals(TEXT, writer.toString());
+        writer.release();
+    }
+
+    @Test
+    public void writeCharByChar_surrogatePairSplit_encodedAsOneCodePoint()
+            throws IOException {
+        Utf8BufferWriter writer = new Utf8BufferWriter();
+        for (char c : TEXT.toCharArray()) {
+            writer.write(c);
+        }
+        writer.close();
+
+        Assert.assertArrayEquals(TEXT.getBytes(StandardCharsets.UTF_8),
+                getBytes(writer));
+        writer.release();
+    }
+
+    @Test
+    public void unpairedSurrogate_replacedLikeStringEncoding()
+            throws IOException {
+        String text = "a\ud83db\ude00";
+        Utf8BufferWriter writer = new Utf8BufferWriter();
+        writer.write(text.toCharArray());
+        writer.close();
+
+        Assert.assertArrayEquals(text.getBytes(StandardCharsets.UTF_8),
+                getBytes(writer));
+        writer.release();
+    }
+
+    @Test
+    public void largeContent_bufferGrows() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            builder.append(TEXT);
+        }
+        String text = builder.toString();
+
+        Utf8BufferWriter writer = new Utf8BufferWriter();
+        writer.write(text);
+        writer.close();
+
+        Assert.assertArrayEquals(text.getBytes(StandardCharsets.UTF_8),
+                getBytes(writer));
+        writer.release();
+    }
+
+    @Test
+    public void release_newWriterStartsEmpty() throws IOException {
+        Utf8BufferWriter writer = new Utf8BufferWriter();
+        writer.write(TEXT);
+        writer.release();
+
+        Utf8BufferWriter reused = new Utf8BufferWriter();
+        Assert.assertEquals(0, reused.size());
+        reused.write("foo");
+        Assert.assertEquals("foo", reused.toString());
+        reused.release();
+    }
+}
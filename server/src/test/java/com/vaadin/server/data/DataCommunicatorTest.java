@@ -15,19 +15,33 @@
  */
 package com.vaadin.server.data;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import com.vaadin.server.ClientMethodInvocation;
+import com.vaadin.server.KeyMapper;
 import com.vaadin.server.MockVaadinSession;
 import com.vaadin.server.VaadinRequest;
 import com.vaadin.server.VaadinService;
 import com.vaadin.server.VaadinSession;
 import com.vaadin.shared.Registration;
+import com.vaadin.shared.data.DataCommunicatorConstants;
 import com.vaadin.ui.UI;
 
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
 /**
  * @author Vaadin Ltd
  *
@@ -79,12 +93,50 @@ public class DataCommunicatorTest {
 
     }
 
+    private static class CountingDataProvider
+            extends ListDataProvider<Integer> {
+
+        private int fetchCount = 0;
+
+        public CountingDataProvider() {
+            super(Arrays.asList(3, 1, 2));
+        }
+
+        @Override
+        public Stream<Integer> fetch(Query query) {
+            fetchCount++;
+            return super.fetch(query);
+        }
+    }
+
     private static class TestDataCommunicator extends DataCommunicator<Object> {
         protected void extend(UI ui) {
             super.extend(ui);
         }
     }
 
+    private static class IntegerDataCommunicator
+            extends DataCommunicator<Integer> {
+        protected void extend(UI ui) {
+            super.extend(ui);
+        }
+    }
+
+    private static class MutableItem {
+        private String value;
+
+        MutableItem(String value) {
+            this.value = value;
+        }
+    }
+
+    private static class MutableItemDataCommunicator
+            extends DataCommunicator<MutableItem> {
+        protected void extend(UI ui) {
+            super.extend(ui);
+        }
+    }
+
     private final MockVaadinSession session = new MockVaadinSession(
             Mockito.mock(VaadinService.class));
 
@@ -126,4 +178,271 @@ public class DataCommunicatorTest {
         Assert.assertFalse(dataProvider.isListenerAdded());
     }
 
+    @Test
+    public void beforeClientResponse_inMemoryIndexReusedUntilInputsChange() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        IntegerDataCommunicator communicator = new IntegerDataCommunicator();
+        CountingDataProvider dataProvider = new CountingDataProvider();
+        communicator.setDataProvider(dataProvider);
+        communicator.extend(ui);
+
+        communicator.beforeClientResponse(true);
+        Assert.assertEquals(1, dataProvider.fetchCount);
+
+        communicator.createRpc().requestRows(1, 2, 0, 0);
+        communicator.beforeClientResponse(false);
+        Assert.assertEquals(1, dataProvider.fetchCount);
+
+        communicator.setInMemorySorting(Comparator.naturalOrder());
+        communicator.beforeClientResponse(false);
+        Assert.assertEquals(2, dataProvider.fetchCount);
+
+        dataProvider.refreshAll();
+        communicator.beforeClientResponse(false);
+        Assert.assertEquals(3, dataProvider.fetchCount);
+    }
+
+    @Test
+    public void beforeClientResponse_initialWithCombinedCallback_sizeNotRequested() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        AtomicInteger sizeCalls = new AtomicInteger();
+        AtomicInteger combinedCalls = new AtomicInteger();
+        IntegerDataCommunicator communicator = new IntegerDataCommunicator();
+        communicator.setDataProvider(new BackEndDataProvider<>(
+                query -> Stream.of(1, 2, 3), query -> {
+                    sizeCalls.incrementAndGet();
+                    return 3;
+                }, query -> {
+                    combinedCalls.incrementAndGet();
+                    return new QueryResult<>(Arrays.asList(1, 2, 3), 3);
+                }));
+        communicator.extend(ui);
+
+        communicator.beforeClientResponse(true);
+
+        Assert.assertEquals(0, sizeCalls.get());
+        Assert.assertEquals(1, combinedCalls.get());
+    }
+
+    @Test
+    public void createKeyMapper_customKeyMapper_droppedDataRemoved() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        IntegerDataCommunicator communicator = new IntegerDataCommunicator() {
+            @Override
+            protected DataKeyMapper<Integer> createKeyMapper() {
+                return new KeyMapper<>();
+            }
+        };
+        communicator.setDataProvider(
+                new ListDataProvider<>(Arrays.asList(1, 2, 3)));
+        communicator.extend(ui);
+
+        communicator.beforeClientResponse(true);
+        DataKeyMapper<Integer> keyMapper = communicator.getKeyMapper();
+        Assert.assertTrue(keyMapper instanceof KeyMapper);
+        String key = keyMapper.key(2);
+
+        JsonArray droppedKeys = Json.createArray();
+        droppedKeys.set(0, key);
+        communicator.createRpc().dropRows(droppedKeys);
+        communicator.createRpc().requestRows(0, 1, 0, 0);
+        communicator.beforeClientResponse(false);
+
+        Assert.assertNull(keyMapper.get(key));
+        Assert.assertEquals(Integer.valueOf(1),
+                keyMapper.get(keyMapper.key(1)));
+    }
+
+    @Test
+    public void beforeClientResponse_unknownSize_activeRowsPushed() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        IntegerDataCommunicator communicator = new IntegerDataCommunicator();
+        communicator.setDataProvider(new BackEndDataProvider<Integer, Void>(
+                query -> Stream.of(1, 2, 3).skip(query.getOffset())
+                        .limit(query.getLimit())));
+        communicator.extend(ui);
+
+        communicator.beforeClientResponse(true);
+
+        // All three rows are sent and mapped to keys
+        Assert.assertEquals(Integer.valueOf(3),
+                communicator.getKeyMapper().get("3"));
+    }
+
+    @Test
+    public void beforeClientResponse_unknownSizeReset_oldEstimateDropped() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        AtomicInteger size = new AtomicInteger(10000);
+        IntegerDataCommunicator communicator = new IntegerDataCommunicator();
+        communicator.setDataProvider(new BackEndDataProvider<Integer, Void>(
+                query -> Stream.iterate(0, i -> i + 1).limit(size.get())
+                        .skip(query.getOffset()).limit(query.getLimit())));
+        communicator.extend(ui);
+        communicator.beforeClientResponse(true);
+
+        // Scroll far down to grow the estimate
+        communicator.new SimpleDataRequestRpc().requestRows(5000, 40, 0, 0);
+        communicator.beforeClientResponse(false);
+        communicator.retrievePendingRpcCalls();
+
+        // Filter change leaving fewer rows than the old estimate
+        size.set(500);
+        communicator.reset();
+        communicator.beforeClientResponse(false);
+
+        List<Object> resets = communicator.retrievePendingRpcCalls().stream()
+                .filter(call -> "reset".equals(call.getMethodName()))
+                .map(call -> call.getParameters()[0])
+                .collect(Collectors.toList());
+        Assert.assertEquals(Collections.singletonList(80), resets);
+    }
+
+    private static List<String> getRpcMethodNames(DataCommunicator<?> communicator) {
+        return communicator.retrievePendingRpcCalls().stream()
+                .map(ClientMethodInvocation::getMethodName)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void incrementalUpdates_itemsInsertedAndRemoved_rangesSentWithoutReset() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        List<Integer> items = new ArrayList<>(Arrays.asList(1, 2, 3));
+        ListDataProvider<Integer> dataProvider = new ListDataProvider<>(items);
+        IntegerDataCommunicator communicator = new IntegerDataCommunicator();
+        communicator.setIncrementalUpdates(true);
+        communicator.setDataProvider(dataProvider);
+        communicator.extend(ui);
+
+        communicator.beforeClientResponse(true);
+        communicator.retrievePendingRpcCalls();
+
+        items.add(1, 4);
+        dataProvider.refreshAll();
+        communicator.beforeClientResponse(false);
+
+        List<ClientMethodInvocation> calls = communicator
+                .retrievePendingRpcCalls();
+        Assert.assertEquals(1, calls.size());
+        Assert.assertEquals("insertRows", calls.get(0).getMethodName());
+        Assert.assertArrayEquals(new Object[] { 1, 1 },
+                calls.get(0).getParameters());
+
+        items.remove(Integer.valueOf(3));
+        dataProvider.refreshAll();
+        communicator.beforeClientResponse(false);
+
+        calls = communicator.retrievePendingRpcCalls();
+        Assert.assertEquals(1, calls.size());
+        Assert.assertEquals("removeRows", calls.get(0).getMethodName());
+        Assert.assertArrayEquals(new Object[] { 3, 1 },
+                calls.get(0).getParameters());
+    }
+
+    @Test
+    public void incrementalUpdates_itemRefreshed_onlyChangedValuesSent() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        MutableItem first = new MutableItem("foo");
+        MutableItem second = new MutableItem("bar");
+        MutableItemDataCommunicator communicator = new MutableItemDataCommunicator();
+        communicator.setIncrementalUpdates(true);
+        communicator.addDataGenerator(
+                (item, json) -> json.put("value", item.value));
+        communicator.addDataGenerator(
+                (item, json) -> json.put("constant", "baz"));
+        communicator.setDataProvider(
+                new ListDataProvider<>(Arrays.asList(first, second)));
+        communicator.extend(ui);
+
+        communicator.beforeClientResponse(true);
+        communicator.retrievePendingRpcCalls();
+
+        first.value = "changed";
+        communicator.refresh(first);
+        communicator.refresh(second);
+        communicator.beforeClientResponse(false);
+
+        List<ClientMethodInvocation> calls = communicator
+                .retrievePendingRpcCalls();
+        Assert.assertEquals(1, calls.size());
+        Assert.assertEquals("patchData", calls.get(0).getMethodName());
+        JsonArray patches = (JsonArray) calls.get(0).getParameters()[0];
+        Assert.assertEquals(1, patches.length());
+        JsonObject patch = patches.getObject(0);
+        Assert.assertEquals(communicator.getKeyMapper().key(first),
+                patch.getString(DataCommunicatorConstants.KEY));
+        Assert.assertEquals("changed", patch.getString("value"));
+        Assert.assertFalse(patch.hasKey("constant"));
+    }
+
+    @Test
+    public void incrementalUpdates_dataChange_pushedRowsGeneratedOnce() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        List<Integer> items = new ArrayList<>(Arrays.asList(1, 2, 3));
+        ListDataProvider<Integer> dataProvider = new ListDataProvider<>(items);
+        IntegerDataCommunicator communicator = new IntegerDataCommunicator();
+        communicator.setIncrementalUpdates(true);
+        AtomicInteger generated = new AtomicInteger();
+        communicator.addDataGenerator(
+                (item, json) -> generated.incrementAndGet());
+        communicator.setDataProvider(dataProvider);
+        communicator.extend(ui);
+
+        communicator.beforeClientResponse(true);
+        communicator.retrievePendingRpcCalls();
+        generated.set(0);
+
+        dataProvider.refreshAll();
+        communicator.createRpc().requestRows(0, 2, 0, 0);
+        communicator.beforeClientResponse(false);
+
+        // Two pushed rows and the third active row checked for changes
+        Assert.assertEquals(3, generated.get());
+    }
+
+    @Test
+    public void incrementalUpdatesDisabled_dataChange_reset() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        List<Integer> items = new ArrayList<>(Arrays.asList(1, 2, 3));
+        ListDataProvider<Integer> dataProvider = new ListDataProvider<>(items);
+        IntegerDataCommunicator communicator = new IntegerDataCommunicator();
+        communicator.setDataProvider(dataProvider);
+        communicator.extend(ui);
+
+        communicator.beforeClientResponse(true);
+        communicator.retrievePendingRpcCalls();
+
+        items.add(1, 4);
+        dataProvider.refreshAll();
+        communicator.beforeClientResponse(false);
+
+        Assert.assertEquals(Arrays.asList("reset"),
+                getRpcMethodNames(communicator));
+    }
 }
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntKeyMapperTest {
+
+    private static class Item implements Serializable {
+        // Identity hash code changes in serialization
+    }
+
+    @Test
+    public void key_sameObject_sameKey() {
+        IntKeyMapper<Object> mapper = new IntKeyMapper<>();
+        Object o1 = new Object();
+        Object o2 = new Object();
+
+        String key1 = mapper.key(o1);
+        String key2 = mapper.key(o2);
+
+        Assert.assertNotEquals(key1, key2);
+        Assert.assertEquals(key1, mapper.key(o1));
+        Assert.assertSame(o1, mapper.get(key1));
+        Assert.assertSame(o2, mapper.get(key2));
+        Assert.assertEquals(2, mapper.size());
+    }
+
+    @Test
+    public void remove_newKeyCreated() {
+        IntKeyMapper<Object> mapper = new IntKeyMapper<>();
+        Object o1 = new Object();
+
+        int key = mapper.intKey(o1);
+        mapper.remove(o1);
+
+        Assert.assertFalse(mapper.containsKey(key));
+        Assert.assertFalse(mapper.has(o1));
+        Assert.assertNull(mapper.get(key));
+        Assert.assertNotEquals(key, mapper.intKey(o1));
+    }
+
+    @Test
+    public void removeAll_empty() {
+        IntKeyMapper<Object> mapper = new IntKeyMapper<>();
+        mapper.key(new Object());
+        mapper.key(new Object());
+
+        mapper.removeAll();
+
+        Assert.assertEquals(0, mapper.size());
+    }
+
+    @Test
+    public void nullAndInvalidKeys() {
+        IntKeyMapper<Object> mapper = new IntKeyMapper<>();
+        mapper.key(new Object());
+
+        Assert.assertEquals("null", mapper.key(null));
+        Assert.assertNull(mapper.get("null"));
+        Assert.assertNull(mapper.get("foo"));
+        Assert.assertNull(mapper.get("-1"));
+        Assert.assertNull(mapper.get("99999999999"));
+        Assert.assertNull(mapper.get((String) null));
+    }
+
+    @Test
+    public void manyKeysAddedAndRemoved_consistentWithHashSet() {
+        IntKeyMapper<Integer> mapper = new IntKeyMapper<>();
+        Set<Integer> expected = new HashSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 10000; i++) {
+            Integer value = random.nextInt(500);
+            if (random.nextBoolean()) {
+                mapper.key(value);
+                expected.add(value);
+            } else {
+                mapper.remove(value);
+                expected.remove(value);
+            }
+        }
+
+        Assert.assertEquals(expected.size(), mapper.size());
+        for (int value = 0; value < 500; value++) {
+            Assert.assertEquals(expected.contains(value), mapper.has(value));
+            if (mapper.has(value)) {
+                Assert.assertEquals(Integer.valueOf(value),
+                        mapper.get(mapper.intKey(value)));
+            }
+        }
+    }
+
+    @Test
+    public void intHashSet_manyValuesAddedAndRemoved_consistentWithHashSet() {
+        IntHashSet set = new IntHashSet();
+        Set<Integer> expected = new HashSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 10000; i++) {
+            int value = 1 + random.nextInt(500);
+            if (random.nextBoolean()) {
+                Assert.assertEquals(expected.add(value), set.add(value));
+            } else {
+                Assert.assertEquals(expected.remove(value), set.remove(value));
+            }
+        }
+
+        Assert.assertEquals(expected.size(), set.size());
+        for (int value = 1; value <= 500; value++) {
+            Assert.assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void serialize_identityHashedObjects_keysPreserved()
+            throws IOException, ClassNotFoundException {
+        IntKeyMapper<Item> mapper = new IntKeyMapper<>();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Item item = new Item();
+            items.add(item);
+            mapper.key(item);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(mapper);
+            out.writeObject(items);
+        }
+        IntKeyMapper<Item> copy;
+        List<Item> itemsCopy;
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (IntKeyMapper<Item>) in.readObject();
+            itemsCopy = (List<Item>) in.readObject();
+        }
+
+        Assert.assertEquals(100, copy.size());
+        for (int i = 0; i < items.size(); i++) {
+            Item item = itemsCopy.get(i);
+            Assert.assertTrue(copy.has(item));
+            Assert.assertEquals(mapper.intKey(items.get(i)), copy.intKey(item));
+            Assert.assertSame(item, copy.get(copy.intKey(item)));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.data.provider;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.server.data.BackEndDataProvider;
+import com.vaadin.server.data.Query;
+import com.vaadin.server.data.QueryResult;
+import com.vaadin.server.data.SortOrder;
+import com.vaadin.shared.data.sort.SortDirection;
+
+public class BackEndDataProviderTest {
+
+    private List<StrBean> data;
+    private AtomicInteger sizeCalls;
+
+    @Before
+    public void setUp() {
+        data = StrBean.generateRandomBeans(100);
+        sizeCalls = new AtomicInteger();
+    }
+
+    private List<StrBean> page(Query<?> query) {
+        return data.subList(query.getOffset(),
+                Math.min(data.size(), query.getOffset() + query.getLimit()));
+    }
+
+    @Test
+    public void fetchWithSize_withoutCombinedCallback_fetchAndSizeCalled() {
+        BackEndDataProvider<StrBean, Void> dataProvider = new BackEndDataProvider<>(
+                query -> page(query).stream(), query -> {
+                    sizeCalls.incrementAndGet();
+                    return data.size();
+                });
+
+        QueryResult<StrBean> result = dataProvider
+                .fetchWithSize(new Query<>(10, 5, Collections.emptyList(), null));
+
+        Assert.assertEquals(data.subList(10, 15), result.getItems());
+        Assert.assertEquals(data.size(), result.getSize());
+        Assert.assertEquals(1, sizeCalls.get());
+    }
+
+    @Test
+    public void fetchWithSize_combinedCallback_sizeNotCalled() {
+        BackEndDataProvider<StrBean, Void> dataProvider = new BackEndDataProvider<>(
+                query -> page(query).stream(), query -> {
+                    sizeCalls.incrementAndGet();
+                    return data.size();
+                }, query -> new QueryResult<>(page(query), data.size()));
+
+        QueryResult<StrBean> result = dataProvider
+                .fetchWithSize(new Query<>(10, 5, Collections.emptyList(), null));
+
+        Assert.assertEquals(data.subList(10, 15), result.getItems());
+        Assert.assertEquals(data.size(), result.getSize());
+        Assert.assertEquals(0, sizeCalls.get());
+    }
+
+    @Test
+    public void sortingBy_offsetAndLimitPreserved() {
+        BackEndDataProvider<StrBean, Void> dataProvider = new BackEndDataProvider<StrBean, Void>(
+                query -> page(query).stream(), query -> data.size())
+                        .sortingBy(Collections.singletonList(
+                                new SortOrder<>("id", SortDirection.ASCENDING)));
+
+        List<StrBean> list = dataProvider
+                .fetch(new Query<>(10, 5, Collections.emptyList(), null))
+                .collect(Collectors.toList());
+
+        Assert.assertEquals(data.subList(10, 15), list);
+    }
+
+    @Test
+    public void unknownSize() {
+        BackEndDataProvider<StrBean, Void> dataProvider = new BackEndDataProvider<>(
+                query -> page(query).stream());
+
+        Assert.assertFalse(dataProvider.isSizeKnown());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void unknownSize_sizeThrows() {
+        new BackEndDataProvider<StrBean, Void>(query -> page(query).stream())
+                .size(new Query<>());
+    }
+}
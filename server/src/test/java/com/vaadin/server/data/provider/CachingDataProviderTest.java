@@ -0,0 +1,182 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.data.provider;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.server.data.BackEndDataProvider;
+import com.vaadin.server.data.CachingDataProvider;
+import com.vaadin.server.data.Query;
+import com.vaadin.server.data.QueryResult;
+import com.vaadin.shared.Registration;
+
+public class CachingDataProviderTest {
+
+    private List<StrBean> data;
+    private List<Query<Void>> backEndQueries;
+    private BackEndDataProvider<StrBean, Void> backEnd;
+
+    @Before
+    public void setUp() {
+        data = StrBean.generateRandomBeans(100);
+        backEndQueries = new ArrayList<>();
+        backEnd = new BackEndDataProvider<>(query -> {
+            backEndQueries.add(query);
+            return data.stream().skip(query.getOffset())
+                    .limit(query.getLimit());
+        }, query -> data.size());
+    }
+
+    private List<StrBean> fetch(CachingDataProvider<StrBean, Void> provider,
+            int offset, int limit) {
+        return provider
+                .fetch(new Query<>(offset, limit, Collections.emptyList(),
+                        null))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void fetch_rangeAcrossPages_correctItems() {
+        CachingDataProvider<StrBean, Void> provider = new CachingDataProvider<>(
+                backEnd, 10, 5);
+
+        Assert.assertEquals(data.subList(5, 25), fetch(provider, 5, 20));
+        Assert.assertEquals(3, backEndQueries.size());
+    }
+
+    @Test
+    public void fetch_sameRangeTwice_backEndQueriedOnce() {
+        CachingDataProvider<StrBean, Void> provider = new CachingDataProvider<>(
+                backEnd, 10, 5);
+
+        fetch(provider, 0, 10);
+        Assert.assertEquals(data.subList(2, 8), fetch(provider, 2, 6));
+        Assert.assertEquals(1, backEndQueries.size());
+    }
+
+    @Test
+    public void fetch_pastEnd_partialResult() {
+        CachingDataProvider<StrBean, Void> provider = new CachingDataProvider<>(
+                backEnd, 30, 5);
+
+        Assert.assertEquals(data.subList(95, 100), fetch(provider, 95, 20));
+    }
+
+    @Test
+    public void fetch_moreThanMaxPages_leastRecentlyUsedEvicted() {
+        CachingDataProvider<StrBean, Void> provider = new CachingDataProvider<>(
+                backEnd, 10, 2);
+
+        fetch(provider, 0, 10);
+        fetch(provider, 10, 10);
+        fetch(provider, 20, 10);
+        backEndQueries.clear();
+
+        fetch(provider, 10, 10);
+        Assert.assertEquals(0, backEndQueries.size());
+        fetch(provider, 0, 10);
+        Assert.assertEquals(1, backEndQueries.size());
+    }
+
+    @Test
+    public void refreshAll_cacheInvalidated() {
+        CachingDataProvider<StrBean, Void> provider = new CachingDataProvider<>(
+                backEnd, 10, 5);
+        List<Object> events = new ArrayList<>();
+        provider.addDataProviderListener(events::add);
+
+        fetch(provider, 0, 10);
+        provider.refreshAll();
+        fetch(provider, 0, 10);
+
+        Assert.assertEquals(2, backEndQueries.size());
+        Assert.assertEquals(1, events.size());
+    }
+
+    @Test
+    public void fetch_withExecutor_nextPagePrefetched() {
+        CachingDataProvider<StrBean, Void> provider = new CachingDataProvider<>(
+                backEnd, 10, 5, Runnable::run);
+
+        fetch(provider, 0, 10);
+        Assert.assertEquals(2, backEndQueries.size());
+        Assert.assertEquals(10, backEndQueries.get(1).getOffset());
+
+        fetch(provider, 10, 10);
+        // Page 2 is prefetched, page 1 comes from the cache
+        Assert.assertEquals(3, backEndQueries.size());
+        Assert.assertEquals(20, backEndQueries.get(2).getOffset());
+    }
+
+    @Test
+    public void fetchWithSize_forwardedToBackEnd_sizeCached() {
+        AtomicInteger combinedRequests = new AtomicInteger();
+        backEnd = new BackEndDataProvider<>(query -> {
+            backEndQueries.add(query);
+            return data.stream().skip(query.getOffset())
+                    .limit(query.getLimit());
+        }, query -> data.size(), query -> {
+            combinedRequests.incrementAndGet();
+            return new QueryResult<>(data.subList(query.getOffset(),
+                    query.getOffset() + query.getLimit()), data.size());
+        });
+        CachingDataProvider<StrBean, Void> provider = new CachingDataProvider<>(
+                backEnd, 10, 5);
+        Query<Void> query = new Query<>(0, 10, Collections.emptyList(), null);
+
+        QueryResult<StrBean> result = provider.fetchWithSize(query);
+        Assert.assertEquals(data.subList(0, 10), result.getItems());
+        Assert.assertEquals(100, result.getSize());
+        Assert.assertEquals(1, combinedRequests.get());
+        Assert.assertEquals(0, backEndQueries.size());
+
+        Assert.assertEquals(100, provider.size(query));
+        Assert.assertEquals(1, combinedRequests.get());
+    }
+
+    @Test
+    public void removeLastListener_backEndListenerRemoved() {
+        CachingDataProvider<StrBean, Void> provider = new CachingDataProvider<>(
+                backEnd, 10, 5);
+        List<Object> events = new ArrayList<>();
+        Registration first = provider.addDataProviderListener(events::add);
+        Registration second = provider.addDataProviderListener(events::add);
+
+        backEnd.refreshAll();
+        Assert.assertEquals(2, events.size());
+
+        first.remove();
+        first.remove();
+        backEnd.refreshAll();
+        Assert.assertEquals(3, events.size());
+
+        second.remove();
+        fetch(provider, 0, 10);
+        backEnd.refreshAll();
+        fetch(provider, 0, 10);
+        // Nothing listens to the back end anymore
+        Assert.assertEquals(3, events.size());
+        Assert.assertEquals(1, backEndQueries.size());
+    }
+}
@@ -2,16 +2,18 @@ package com.vaadin.server.data.provider;
 
 import static org.junit.Assert.assertTrue;
 
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import com.vaadin.server.data.DataProvider;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.vaadin.server.SerializablePredicate;
+import com.vaadin.server.data.DataProvider;
 import com.vaadin.server.data.ListDataProvider;
 import com.vaadin.server.data.Query;
 
@@ -192,4 +194,69 @@ public class ListDataProviderTest {
 
         Assert.assertEquals(size - 1, dataProvider.size(query));
     }
+
+    @Test
+    public void fetch_offsetAndLimit() {
+        List<StrBean> list = dataProvider
+                .fetch(new Query<>(10, 5, Collections.emptyList(), null))
+                .collect(Collectors.toList());
+
+        Assert.assertEquals(data.subList(10, 15), list);
+    }
+
+    @Test
+    public void fetch_offsetBeyondSize_empty() {
+        Assert.assertEquals(0, dataProvider
+                .fetch(new Query<>(200, 5, Collections.emptyList(), null))
+                .count());
+    }
+
+    @Test
+    public void fetchAndSize_filterAndSortApplied() {
+        SerializablePredicate<StrBean> filter = bean -> bean.getValue()
+                .equals("Foo");
+        Comparator<StrBean> comp = Comparator.comparing(StrBean::getId)
+                .reversed();
+        ListDataProvider<StrBean> sorted = dataProvider.sortingBy(comp);
+
+        List<StrBean> expected = data.stream().filter(filter).sorted(comp)
+                .collect(Collectors.toList());
+
+        Assert.assertEquals(expected.size(),
+                sorted.size(new Query<>(filter)));
+        Assert.assertEquals(expected.subList(1, 3),
+                sorted.fetch(new Query<>(1, 2, Collections.emptyList(), filter))
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void refreshAll_filteredViewRebuilt() {
+        SerializablePredicate<StrBean> filter = bean -> bean.getValue()
+                .equals("foo");
+        Query<SerializablePredicate<StrBean>> query = new Query<>(filter);
+        Assert.assertEquals(0, dataProvider.size(query));
+
+        data.get(0).setValue("foo");
+        dataProvider.refreshAll();
+
+        Assert.assertEquals(1, dataProvider.size(query));
+        Assert.assertEquals(data.get(0),
+                dataProvider.fetch(query).findFirst().get());
+    }
+
+    @Test
+    public void fetch_filteredAndSorted_collectionChangesVisibleWithoutRefresh() {
+        SerializablePredicate<StrBean> filter = bean -> bean.getValue()
+                .equals("foo");
+        ListDataProvider<StrBean> sorted = dataProvider
+                .sortingBy(Comparator.comparing(StrBean::getId));
+        Query<SerializablePredicate<StrBean>> query = new Query<>(filter);
+        Assert.assertEquals(0, sorted.size(query));
+
+        data.get(0).setValue("foo");
+
+        Assert.assertEquals(1, sorted.size(query));
+        Assert.assertEquals(data.get(0),
+                sorted.fetch(query).findFirst().get());
+    }
 }
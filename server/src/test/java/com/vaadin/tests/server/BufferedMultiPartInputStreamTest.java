@@ -0,0 +1,111 @@
+package com.vaadin.tests.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.server.communication.FileUploadHandler.BufferedMultiPartInputStream;
+
+public class BufferedMultiPartInputStreamTest
+        extends SimpleMultiPartInputStreamTest {
+
+    /**
+     * Returns at most a few bytes per read to make boundaries span several
+     * buffer fills.
+     */
+    private static class TricklingInputStream extends ByteArrayInputStream {
+        public TricklingInputStream(byte[] buf) {
+            super(buf);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 3));
+        }
+    }
+
+    @Override
+    protected void checkBoundaryDetection(byte[] input, String boundary,
+            byte[] expected) throws Exception {
+        // Single byte reads
+        BufferedMultiPartInputStream stream = new BufferedMultiPartInputStream(
+                new ByteArrayInputStream(input), boundary);
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        int b;
+        while ((b = stream.read()) != -1) {
+            result.write(b);
+        }
+        Assert.assertArrayEquals(expected, result.toByteArray());
+
+        // Bulk reads with the smallest possible buffer and a trickling source
+        Assert.assertArrayEquals(expected,
+                readFully(new BufferedMultiPartInputStream(
+                        new TricklingInputStream(input), boundary, 1)));
+    }
+
+    private static byte[] readFully(InputStream stream) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[7];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            result.write(buffer, 0, read);
+        }
+        return result.toByteArray();
+    }
+
+    @Test
+    public void testHeadersAndContent() throws Exception {
+        String body = "--abc\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"a.txt\"\r\n"
+                + "Content-Type: text/plain\r\n" + "\r\n" + "line1\r\nline2"
+                + getFullBoundary("abc") + "\r\n";
+        BufferedMultiPartInputStream stream = new BufferedMultiPartInputStream(
+                new TricklingInputStream(
+                        body.getBytes(StandardCharsets.UTF_8)),
+                "abc", 1);
+
+        Assert.assertEquals("--abc", stream.readLine());
+        Assert.assertEquals(
+                "Content-Disposition: form-data; name=\"file\"; filename=\"a.txt\"",
+                stream.readLine());
+        Assert.assertEquals("Content-Type: text/plain", stream.readLine());
+        Assert.assertEquals("", stream.readLine());
+        Assert.assertEquals("line1\r\nline2", new String(readFully(stream),
+                StandardCharsets.UTF_8));
+        Assert.assertEquals(-1, stream.read());
+    }
+
+    @Test
+    public void testLargeRandomContent() throws Exception {
+        byte[] content = new byte[1024 * 1024 + 17];
+        new Random(1).nextBytes(content);
+        String boundary = "----WebKitFormBoundaryqvV2SZPTHKvzAVrB";
+        byte[] end = getFullBoundary(boundary)
+                .getBytes(StandardCharsets.ISO_8859_1);
+        byte[] input = new byte[content.length + end.length];
+        System.arraycopy(content, 0, input, 0, content.length);
+        System.arraycopy(end, 0, input, content.length, end.length);
+
+        Assert.assertArrayEquals(content,
+                readFully(new BufferedMultiPartInputStream(
+                        new ByteArrayInputStream(input), boundary)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNoBoundaryInInput() throws Exception {
+        readFully(new BufferedMultiPartInputStream(
+                new ByteArrayInputStream("xyz123".getBytes()), "abc"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testPartialBoundaryAtInputEnd() throws Exception {
+        readFully(new BufferedMultiPartInputStream(
+                new ByteArrayInputStream("xyz123\r\n--ab".getBytes()), "abc"));
+    }
+}
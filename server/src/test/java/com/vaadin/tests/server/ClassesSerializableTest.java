@@ -62,16 +62,24 @@ public class ClassesSerializableTest {
             "com\\.vaadin\\.server\\.Constants", //
             "com\\.vaadin\\.server\\.VaadinServiceClassLoaderUtil", //
             "com\\.vaadin\\.server\\.VaadinServiceClassLoaderUtil\\$GetClassLoaderPrivilegedAction", //
+            "com\\.vaadin\\.server\\.SessionMaintenanceScheduler.*", //
             "com\\.vaadin\\.server\\.communication\\.FileUploadHandler\\$SimpleMultiPartInputStream", //
+            "com\\.vaadin\\.server\\.communication\\.FileUploadHandler\\$BufferedMultiPartInputStream", //
+            "com\\.vaadin\\.ui\\.Upload\\$FileChannelOutputStream", //
+            "com\\.vaadin\\.server\\.communication\\.Utf8BufferWriter", //
+            "com\\.vaadin\\.server\\.communication\\.UidlSnapshotWriter", //
             "com\\.vaadin\\.server\\.communication\\.PushRequestHandler.*",
             "com\\.vaadin\\.server\\.communication\\.PushHandler.*", // PushHandler
             "com\\.vaadin\\.server\\.communication\\.DateSerializer", //
             "com\\.vaadin\\.server\\.communication\\.JSONSerializer", //
             // and its inner classes do not need to be serializable
             "com\\.vaadin\\.util\\.SerializerHelper", // fully static
+            "com\\.vaadin\\.util\\.CompactJsonSerializer", // stream helper
             // class level filtering, also affecting nested classes and
             // interfaces
             "com\\.vaadin\\.server\\.LegacyCommunicationManager.*", //
+            "com\\.vaadin\\.server\\.ServerRpcInvoker.*", //
+            "com\\.vaadin\\.server\\.StaticResourceCache.*", //
             "com\\.vaadin\\.buildhelpers.*", //
             "com\\.vaadin\\.util\\.ReflectTools.*", //
             "com\\.vaadin\\.data\\.util\\.ReflectTools.*", //
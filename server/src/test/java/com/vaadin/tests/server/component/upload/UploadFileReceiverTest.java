@@ -0,0 +1,154 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.tests.server.component.upload;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.server.StreamVariable;
+import com.vaadin.server.StreamVariable.StreamingEndEvent;
+import com.vaadin.server.StreamVariable.StreamingErrorEvent;
+import com.vaadin.server.StreamVariable.StreamingStartEvent;
+import com.vaadin.ui.Upload;
+
+public class UploadFileReceiverTest {
+
+    private Path createdFile;
+    private Path receivedFile;
+    private String receivedName;
+
+    private final Upload.FileReceiver fileReceiver = new Upload.FileReceiver() {
+        @Override
+        public Path createFile(String filename, String mimeType)
+                throws IOException {
+            createdFile = Upload.FileReceiver.super.createFile(filename,
+                    mimeType);
+            return createdFile;
+        }
+
+        @Override
+        public void uploadReceived(String filename, String mimeType,
+                Path file) {
+            receivedName = filename;
+            receivedFile = file;
+        }
+    };
+
+    @After
+    public void deleteFiles() throws IOException {
+        if (createdFile != null) {
+            Files.deleteIfExists(createdFile);
+        }
+    }
+
+    @Test
+    public void succeededUpload_fileHandedOver() throws IOException {
+        TestUpload upload = new TestUpload();
+        upload.setFileReceiver(fileReceiver);
+        StreamVariable variable = upload.getStreamVariable();
+
+        // larger than the direct buffer to exercise flushing in between
+        byte[] data = new byte[1024 * 1024 + 123];
+        new Random(7).nextBytes(data);
+
+        variable.streamingStarted(mockEvent(StreamingStartEvent.class));
+        OutputStream out = variable.getOutputStream();
+        out.write(data[0]);
+        out.write(data, 1, 1000);
+        out.write(data, 1001, data.length - 1001);
+        out.close();
+        Assert.assertNull(receivedFile);
+        variable.streamingFinished(mockEvent(StreamingEndEvent.class));
+
+        Assert.assertEquals("file.bin", receivedName);
+        Assert.assertEquals(createdFile, receivedFile);
+        Assert.assertArrayEquals(data, Files.readAllBytes(receivedFile));
+        Assert.assertFalse(upload.isUploading());
+    }
+
+    @Test
+    public void failedUpload_fileDeleted() throws IOException {
+        TestUpload upload = new TestUpload();
+        upload.setFileReceiver(fileReceiver);
+        StreamVariable variable = upload.getStreamVariable();
+
+        variable.streamingStarted(mockEvent(StreamingStartEvent.class));
+        OutputStream out = variable.getOutputStream();
+        out.write(new byte[100]);
+        out.close();
+        Assert.assertTrue(Files.exists(createdFile));
+
+        StreamingErrorEvent errorEvent = mockEvent(StreamingErrorEvent.class);
+        Mockito.when(errorEvent.getException())
+                .thenReturn(new IOException("Broken upload"));
+        variable.streamingFailed(errorEvent);
+
+        Assert.assertFalse(Files.exists(createdFile));
+        Assert.assertNull(receivedFile);
+        Assert.assertFalse(upload.isUploading());
+    }
+
+    @Test
+    public void setReceiver_replacesFileReceiver() {
+        Upload upload = new Upload();
+        upload.setFileReceiver(fileReceiver);
+        Assert.assertSame(fileReceiver, upload.getFileReceiver());
+
+        Upload.Receiver receiver = (filename, mimeType) -> null;
+        upload.setReceiver(receiver);
+        Assert.assertNull(upload.getFileReceiver());
+
+        upload.setFileReceiver(fileReceiver);
+        Assert.assertNull(upload.getReceiver());
+    }
+
+    @Test
+    public void progressEventInterval_passedToStreamVariable() {
+        TestUpload upload = new TestUpload();
+        Assert.assertEquals(-1,
+                upload.getStreamVariable().getProgressEventInterval());
+
+        upload.setProgressEventInterval(2000);
+        Assert.assertEquals(2000,
+                upload.getStreamVariable().getProgressEventInterval());
+    }
+
+    private static <T extends StreamVariable.StreamingEvent> T mockEvent(
+            Class<T> type) {
+        T event = Mockito.mock(type);
+        Mockito.when(event.getFileName()).thenReturn("file.bin");
+        Mockito.when(event.getMimeType())
+                .thenReturn("application/octet-stream");
+        Mockito.when(event.getContentLength()).thenReturn(-1L);
+        return event;
+    }
+
+    private static class TestUpload extends Upload {
+
+        @Override
+        public StreamVariable getStreamVariable() {
+            return super.getStreamVariable();
+        }
+    }
+}
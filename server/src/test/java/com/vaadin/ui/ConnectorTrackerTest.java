@@ -0,0 +1,128 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.ui;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.server.ClientConnector;
+import com.vaadin.server.MockVaadinSession;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinService;
+import com.vaadin.server.VaadinSession;
+
+import elemental.json.Json;
+
+public class ConnectorTrackerTest {
+
+    private static class TestUI extends UI {
+
+        private final VaadinSession session;
+
+        TestUI(VaadinSession session) {
+            this.session = session;
+        }
+
+        @Override
+        protected void init(VaadinRequest request) {
+        }
+
+        @Override
+        public VaadinSession getSession() {
+            return session;
+        }
+    }
+
+    /**
+     * A label that can be hidden without notifying anyone.
+     */
+    private static class SilentlyHiddenLabel extends Label {
+        private boolean hidden = false;
+
+        @Override
+        public boolean isVisible() {
+            return !hidden && super.isVisible();
+        }
+    }
+
+    private final MockVaadinSession session = new MockVaadinSession(
+            Mockito.mock(VaadinService.class));
+
+    private ConnectorTracker tracker;
+    private VerticalLayout layout;
+    private SilentlyHiddenLabel label;
+
+    @Before
+    public void setup() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+        layout = new VerticalLayout();
+        label = new SilentlyHiddenLabel();
+        layout.addComponent(label);
+        ui.setContent(layout);
+
+        tracker = ui.getConnectorTracker();
+        simulateResponse(layout, label);
+    }
+
+    private void simulateResponse(ClientConnector... connectors) {
+        for (ClientConnector connector : connectors) {
+            tracker.markClientSideInitialized(connector);
+            tracker.setDiffState(connector, Json.createObject());
+        }
+        tracker.markAllConnectorsClean();
+        tracker.cleanConnectorMap();
+    }
+
+    @Test
+    public void cleanConnectorMap_hiddenChild_clientSideStateDiscarded() {
+        label.setVisible(false);
+        tracker.cleanConnectorMap();
+
+        Assert.assertFalse(tracker.isClientSideInitialized(label));
+        Assert.assertNull(tracker.getDiffState(label));
+        Assert.assertTrue(tracker.isClientSideInitialized(layout));
+        Assert.assertNotNull(tracker.getDiffState(layout));
+    }
+
+    @Test
+    public void cleanConnectorMap_hiddenParent_descendantStateDiscarded() {
+        layout.setVisible(false);
+        tracker.cleanConnectorMap();
+
+        Assert.assertFalse(tracker.isClientSideInitialized(layout));
+        Assert.assertFalse(tracker.isClientSideInitialized(label));
+        Assert.assertNull(tracker.getDiffState(label));
+    }
+
+    @Test
+    public void cleanConnectorMap_onlyConnectorsMarkedDirtyAreChecked() {
+        label.hidden = true;
+        tracker.cleanConnectorMap();
+
+        // Nothing has been marked as dirty, so the label is not checked
+        Assert.assertTrue(tracker.isClientSideInitialized(label));
+
+        layout.markAsDirty();
+        tracker.cleanConnectorMap();
+
+        Assert.assertFalse(tracker.isClientSideInitialized(label));
+        Assert.assertNull(tracker.getDiffState(label));
+    }
+}
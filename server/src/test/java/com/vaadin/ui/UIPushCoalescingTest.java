@@ -0,0 +1,133 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.ui;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.server.HistogramServiceMetrics;
+import com.vaadin.server.MockServletConfig;
+import com.vaadin.server.MockVaadinSession;
+import com.vaadin.server.ServiceMetrics.Counter;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinService;
+import com.vaadin.server.VaadinServlet;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.server.communication.PushConnection;
+import com.vaadin.shared.communication.PushMode;
+
+public class UIPushCoalescingTest {
+
+    private static class CountingPushConnection implements PushConnection {
+        private int pushCount = 0;
+
+        @Override
+        public void push() {
+            pushCount++;
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+    }
+
+    private VaadinService service;
+    private MockVaadinSession session;
+    private UI ui;
+    private CountingPushConnection connection;
+    private HistogramServiceMetrics metrics;
+
+    @Before
+    public void setup() throws Exception {
+        VaadinServlet servlet = new VaadinServlet();
+        servlet.init(new MockServletConfig());
+        service = servlet.getService();
+        metrics = new HistogramServiceMetrics();
+        service.setMetrics(metrics);
+
+        session = new MockVaadinSession(service);
+        session.lock();
+        ui = new UI() {
+            @Override
+            protected void init(VaadinRequest request) {
+            }
+
+            @Override
+            public VaadinSession getSession() {
+                return session;
+            }
+        };
+
+        // Manual mode so that unlock() does not push on its own
+        ui.getPushConfiguration().setPushMode(PushMode.MANUAL);
+        connection = new CountingPushConnection();
+        ui.setPushConnection(connection);
+        ui.markAsDirty();
+    }
+
+    @After
+    public void tearDown() {
+        session.unlock();
+        service.destroy();
+    }
+
+    @Test
+    public void pushAutomatically_noInterval_alwaysPushes() {
+        ui.pushAutomatically();
+        ui.pushAutomatically();
+
+        Assert.assertEquals(2, connection.pushCount);
+        Assert.assertEquals(0,
+                metrics.getCounts(Counter.COALESCED_PUSHES).getCount());
+    }
+
+    @Test
+    public void pushAutomatically_withinInterval_pushesOnce() {
+        ui.getPushConfiguration().setPushCoalescingInterval(60000);
+
+        ui.pushAutomatically();
+        ui.pushAutomatically();
+        ui.pushAutomatically();
+        ui.pushAutomatically();
+
+        Assert.assertEquals(1, connection.pushCount);
+        // The first postponed push is scheduled, the two after it are saved
+        Assert.assertEquals(2,
+                metrics.getCounts(Counter.COALESCED_PUSHES).getCount());
+    }
+
+    @Test
+    public void push_withinInterval_pushesRightAway() {
+        ui.getPushConfiguration().setPushCoalescingInterval(60000);
+
+        ui.pushAutomatically();
+        ui.push();
+
+        Assert.assertEquals(2, connection.pushCount);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setPushCoalescingInterval_negative_throws() {
+        ui.getPushConfiguration().setPushCoalescingInterval(-1);
+    }
+}
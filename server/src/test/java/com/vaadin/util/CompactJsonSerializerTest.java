@@ -0,0 +1,113 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.data.util.JsonUtil;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.JsonValue;
+
+public class CompactJsonSerializerTest {
+
+    private static JsonObject createState(int index) {
+        JsonObject state = Json.createObject();
+        state.put("caption", "Caption " + index);
+        state.put("enabled", true);
+        state.put("readOnly", false);
+        state.put("width", "100%");
+        state.put("tabIndex", -index);
+        state.put("value", index + 0.5);
+        state.put("description", Json.createNull());
+
+        JsonArray styles = Json.createArray();
+        styles.set(0, "primary");
+        styles.set(1, "\u00e4\u20ac");
+        state.put("styles", styles);
+
+        JsonObject nested = Json.createObject();
+        nested.put("id", Long.MAX_VALUE);
+        state.put("nested", nested);
+        return state;
+    }
+
+    private static byte[] write(JsonValue... values) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        CompactJsonSerializer serializer = new CompactJsonSerializer();
+        for (JsonValue value : values) {
+            serializer.write(out, value);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void writeAndRead_valuesPreserved() throws IOException {
+        JsonObject first = createState(1);
+        JsonObject second = createState(2);
+
+        DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(write(first, second)));
+        CompactJsonSerializer serializer = new CompactJsonSerializer();
+
+        Assert.assertTrue(JsonUtil.jsonEquals(first, serializer.read(in)));
+        Assert.assertTrue(JsonUtil.jsonEquals(second, serializer.read(in)));
+    }
+
+    @Test
+    public void writeAndRead_specialNumbers() throws IOException {
+        double[] numbers = { 0, -0.0, 1e300, -1, Integer.MIN_VALUE,
+                Double.NaN };
+        JsonArray array = Json.createArray();
+        for (int i = 0; i < numbers.length; i++) {
+            array.set(i, numbers[i]);
+        }
+
+        DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(write(array)));
+        JsonArray read = (JsonArray) new CompactJsonSerializer().read(in);
+
+        for (int i = 0; i < numbers.length; i++) {
+            Assert.assertEquals(Double.doubleToLongBits(numbers[i]),
+                    Double.doubleToLongBits(read.getNumber(i)));
+        }
+    }
+
+    @Test
+    public void write_repeatedStates_smallerThanText() throws IOException {
+        JsonValue[] states = new JsonValue[100];
+        int textLength = 0;
+        for (int i = 0; i < states.length; i++) {
+            states[i] = createState(i);
+            textLength += states[i].toJson()
+                    .getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        Assert.assertTrue(write(states).length < textLength / 2);
+    }
+}
@@ -234,6 +234,89 @@ public class CurrentInstanceTest {
         Assert.assertNull(VaadinSession.getCurrent());
     }
 
+    @Test
+    public void testRestoreSnapshotReplacesAllInstances() {
+        UI ui = new UIStoredInCurrentInstance();
+        CurrentInstance.setInheritable(UI.class, ui);
+        CurrentInstance.set(CurrentInstanceTest.class, this);
+
+        CurrentInstance.Snapshot snapshot = CurrentInstance
+                .takeSnapshot(false);
+
+        CurrentInstance.setInheritable(UI.class, null);
+        CurrentInstance.set(String.class, "other");
+
+        CurrentInstance.restoreSnapshot(snapshot);
+        Assert.assertSame(ui, UI.getCurrent());
+        Assert.assertSame(this,
+                CurrentInstance.get(CurrentInstanceTest.class));
+        assertNull(CurrentInstance.get(String.class));
+    }
+
+    @Test
+    public void testInheritableSnapshotSkipsNonInheritable() throws Exception {
+        UI ui = new UIStoredInCurrentInstance();
+        CurrentInstance.setInheritable(UI.class, ui);
+        CurrentInstance.set(VaadinRequest.class,
+                EasyMock.createNiceMock(VaadinRequest.class));
+        CurrentInstance.set(CurrentInstanceTest.class, this);
+
+        CurrentInstance.Snapshot snapshot = CurrentInstance.takeSnapshot(true);
+        CurrentInstance.clearAll();
+
+        CurrentInstance.restoreSnapshot(snapshot);
+        Assert.assertSame(ui, UI.getCurrent());
+        assertNull(CurrentInstance.get(VaadinRequest.class));
+        assertNull(CurrentInstance.get(CurrentInstanceTest.class));
+
+        CurrentInstance.setInheritable(UI.class, null);
+        assertCleared();
+    }
+
+    @Test
+    public void testSnapshotNotAffectedByLaterChanges() {
+        CurrentInstance.set(CurrentInstanceTest.class, this);
+        CurrentInstance.Snapshot snapshot = CurrentInstance
+                .takeSnapshot(false);
+
+        CurrentInstance.set(String.class, "later");
+        CurrentInstance.set(CurrentInstanceTest.class, null);
+
+        CurrentInstance.restoreSnapshot(snapshot);
+        Assert.assertSame(this,
+                CurrentInstance.get(CurrentInstanceTest.class));
+        assertNull(CurrentInstance.get(String.class));
+    }
+
+    @Test
+    public void testRestoringEmptySnapshotClears() throws Exception {
+        CurrentInstance.Snapshot snapshot = CurrentInstance
+                .takeSnapshot(false);
+        CurrentInstance.set(CurrentInstanceTest.class, this);
+
+        CurrentInstance.restoreSnapshot(snapshot);
+        assertCleared();
+    }
+
+    @Test
+    public void testSetCurrentInstancesRestoresOnlyChangedInstances()
+            throws Exception {
+        CurrentInstance.set(CurrentInstanceTest.class, this);
+        UI ui = new UIStoredInCurrentInstance();
+
+        CurrentInstance.Snapshot old = CurrentInstance
+                .setCurrentInstances(ui);
+        Assert.assertSame(ui, UI.getCurrent());
+        CurrentInstance.set(String.class, "set while UI was current");
+
+        CurrentInstance.restoreSnapshot(old);
+        assertNull(UI.getCurrent());
+        Assert.assertSame(this,
+                CurrentInstance.get(CurrentInstanceTest.class));
+        Assert.assertEquals("set while UI was current",
+                CurrentInstance.get(String.class));
+    }
+
     private static void waitUntilGarbageCollected(WeakReference<?> ref)
             throws InterruptedException {
         for (int i = 0; i < 50; i++) {
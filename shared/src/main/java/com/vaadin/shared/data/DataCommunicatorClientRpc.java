@@ -56,5 +56,37 @@ public interface DataCommunicatorClientRpc extends ClientRpc {
      */
     void updateData(JsonArray data);
 
-    // TODO: Notify add / remove
+    /**
+     * Informs the client-side DataSource that rows have been inserted. The
+     * size of the data source grows by the given count. Data for the inserted
+     * rows is sent separately.
+     *
+     * @param firstIndex
+     *            index of the first inserted row
+     * @param count
+     *            number of inserted rows
+     */
+    void insertRows(int firstIndex, int count);
+
+    /**
+     * Informs the client-side DataSource that rows have been removed. The size
+     * of the data source shrinks by the given count.
+     *
+     * @param firstIndex
+     *            index of the first removed row
+     * @param count
+     *            number of removed rows
+     */
+    void removeRows(int firstIndex, int count);
+
+    /**
+     * Updates parts of objects based on their identifying key. Each patch
+     * contains the key and the changed properties of one object. Nested
+     * objects contain only their changed properties, and a {@code null} value
+     * means that the property has been removed.
+     *
+     * @param patches
+     *            array of object patches
+     */
+    void patchData(JsonArray patches);
 }